@@ -35,7 +35,9 @@ package fr.paris.lutece.plugins.announce.business;
 
 import java.io.Serializable;
 import java.sql.Timestamp;
+import java.util.ArrayList;
 import java.util.Collection;
+import java.util.Collections;
 import java.util.List;
 
 import org.apache.commons.collections.CollectionUtils;
@@ -45,7 +47,6 @@ import fr.paris.lutece.plugins.genericattributes.business.Response;
 import fr.paris.lutece.plugins.workflowcore.business.action.Action;
 import fr.paris.lutece.portal.service.rbac.RBACResource;
 import fr.paris.lutece.portal.service.resource.IExtendableResource;
-import fr.paris.lutece.portal.service.util.AppLogService;
 
 /**
  * This is the business class for the object Announce
@@ -81,6 +82,7 @@ public class Announce implements Serializable, IExtendableResource, RBACResource
     private List<Response> _listResponse;
     private transient Collection<Action> _listActions;
     private int _nHasNotify;
+    private boolean _bSnapshot;
 
     /**
      * Get the list of responses of this announce
@@ -100,6 +102,7 @@ public class Announce implements Serializable, IExtendableResource, RBACResource
      */
     public void setListResponse( List<Response> listResponse )
     {
+        checkMutable( );
         this._listResponse = listResponse;
     }
 
@@ -121,6 +124,7 @@ public class Announce implements Serializable, IExtendableResource, RBACResource
      */
     public void setId( int nIdAnnounce )
     {
+        checkMutable( );
         _nIdAnnounce = nIdAnnounce;
     }
 
@@ -142,6 +146,7 @@ public class Announce implements Serializable, IExtendableResource, RBACResource
      */
     public void setPublished( boolean bPublished )
     {
+        checkMutable( );
         _bPublished = bPublished;
     }
 
@@ -163,6 +168,7 @@ public class Announce implements Serializable, IExtendableResource, RBACResource
      */
     public void setSuspended( boolean bSuspended )
     {
+        checkMutable( );
         _bSuspended = bSuspended;
     }
 
@@ -194,6 +200,7 @@ public class Announce implements Serializable, IExtendableResource, RBACResource
      */
     public void setTitle( String strTitle )
     {
+        checkMutable( );
         _strTitle = strTitle;
     }
 
@@ -205,6 +212,7 @@ public class Announce implements Serializable, IExtendableResource, RBACResource
      */
     public void setDescription( String strDescription )
     {
+        checkMutable( );
         _strDescription = strDescription;
     }
 
@@ -226,6 +234,7 @@ public class Announce implements Serializable, IExtendableResource, RBACResource
      */
     public void setCategory( Category category )
     {
+        checkMutable( );
         _category = category;
     }
 
@@ -247,6 +256,7 @@ public class Announce implements Serializable, IExtendableResource, RBACResource
      */
     public void setUserName( String strUserName )
     {
+        checkMutable( );
         _strUserName = strUserName;
     }
 
@@ -268,6 +278,7 @@ public class Announce implements Serializable, IExtendableResource, RBACResource
      */
     public void setUserLastName( String strUserLastName )
     {
+        checkMutable( );
         _strUserLastName = strUserLastName;
     }
 
@@ -289,6 +300,7 @@ public class Announce implements Serializable, IExtendableResource, RBACResource
      */
     public void setUserSecondName( String strUserSecondName )
     {
+        checkMutable( );
         _strUserSecondName = strUserSecondName;
     }
 
@@ -310,6 +322,7 @@ public class Announce implements Serializable, IExtendableResource, RBACResource
      */
     public void setHasPictures( boolean bHasPictures )
     {
+        checkMutable( );
         _bHasPictures = bHasPictures;
     }
 
@@ -331,6 +344,7 @@ public class Announce implements Serializable, IExtendableResource, RBACResource
      */
     public void setListIdImageResponse( List<Integer> listIdImageResponse )
     {
+        checkMutable( );
         this._listIdImageResponse = listIdImageResponse;
     }
 
@@ -352,6 +366,7 @@ public class Announce implements Serializable, IExtendableResource, RBACResource
      */
     public void setDateCreation( Timestamp time )
     {
+        checkMutable( );
         this._dateCreation = time;
     }
 
@@ -373,6 +388,7 @@ public class Announce implements Serializable, IExtendableResource, RBACResource
      */
     public void setDateModification( Timestamp dateModification )
     {
+        checkMutable( );
         this._dateModification = dateModification;
     }
 
@@ -394,6 +410,7 @@ public class Announce implements Serializable, IExtendableResource, RBACResource
      */
     public void setTimePublication( long lTime )
     {
+        checkMutable( );
         this._lTimePublication = lTime;
     }
 
@@ -415,6 +432,7 @@ public class Announce implements Serializable, IExtendableResource, RBACResource
      */
     public void setContactInformation( String strContactInformation )
     {
+        checkMutable( );
         this._strContactInformation = strContactInformation;
     }
 
@@ -436,6 +454,7 @@ public class Announce implements Serializable, IExtendableResource, RBACResource
      */
     public void setPrice( Double price )
     {
+        checkMutable( );
         this._nPrice = price;
     }
 
@@ -457,6 +476,7 @@ public class Announce implements Serializable, IExtendableResource, RBACResource
      */
     public void setSuspendedByUser( boolean bSuspendedByUser )
     {
+        checkMutable( );
         this._bSuspendedByUser = bSuspendedByUser;
     }
 
@@ -478,6 +498,7 @@ public class Announce implements Serializable, IExtendableResource, RBACResource
      */
     public void setTags( String strTags )
     {
+        checkMutable( );
         _strTags = strTags;
     }
 
@@ -549,6 +570,7 @@ public class Announce implements Serializable, IExtendableResource, RBACResource
      */
     public void setListWorkflowActions( Collection<Action> listActions )
     {
+        checkMutable( );
         this._listActions = listActions;
     }
 
@@ -576,16 +598,113 @@ public class Announce implements Serializable, IExtendableResource, RBACResource
     @Override
     public Object clone( )
     {
-        try
+        return copy( );
+    }
+
+    /**
+     * Check whether this announce is an immutable snapshot. Snapshots are shared by every reader of the cache, so they can not be modified
+     * 
+     * @return True if this announce is a snapshot, false otherwise
+     */
+    public boolean isSnapshot( )
+    {
+        return _bSnapshot;
+    }
+
+    /**
+     * Get an immutable snapshot of this announce. Its category is a snapshot too, and its lists can not be modified. Workflow actions are not kept since
+     * they depend on the user
+     * 
+     * @return This announce if it is already a snapshot, or a snapshot of this announce otherwise
+     */
+    public Announce getSnapshot( )
+    {
+        if ( _bSnapshot )
         {
-            return super.clone( );
+            return this;
         }
-        catch( CloneNotSupportedException e )
+
+        Announce snapshot = new Announce( );
+        copyTo( snapshot );
+        snapshot._category = ( _category != null ) ? _category.getSnapshot( ) : null;
+        snapshot._listIdImageResponse = ( _listIdImageResponse != null ) ? Collections.unmodifiableList( new ArrayList<>( _listIdImageResponse ) ) : null;
+        snapshot._listResponse = ( _listResponse != null ) ? Collections.unmodifiableList( new ArrayList<>( _listResponse ) ) : null;
+        snapshot._listActions = null;
+        snapshot._bSnapshot = true;
+
+        return snapshot;
+    }
+
+    /**
+     * Get a modifiable copy of this announce. This is the way to modify an announce read from the cache : the copy is modified, and then saved through the
+     * announce home
+     * 
+     * @return The modifiable copy
+     */
+    public Announce copy( )
+    {
+        Announce announce = new Announce( );
+        copyTo( announce );
+        announce._category = ( _category != null ) ? _category.copy( ) : null;
+        announce._listIdImageResponse = ( _listIdImageResponse != null ) ? new ArrayList<>( _listIdImageResponse ) : null;
+        announce._listResponse = ( _listResponse != null ) ? new ArrayList<>( _listResponse ) : null;
+        announce._listActions = _listActions;
+
+        return announce;
+    }
+
+    /**
+     * Copy the attributes of this announce that are not collections or categories to another announce
+     * 
+     * @param announce
+     *            The announce to copy attributes to
+     */
+    private void copyTo( Announce announce )
+    {
+        announce._strTitle = _strTitle;
+        announce._strDescription = _strDescription;
+        announce._strContactInformation = _strContactInformation;
+        announce._nIdAnnounce = _nIdAnnounce;
+        announce._bPublished = _bPublished;
+        announce._bSuspended = _bSuspended;
+        announce._bSuspendedByUser = _bSuspendedByUser;
+        announce._strUserName = _strUserName;
+        announce._strUserLastName = _strUserLastName;
+        announce._strUserSecondName = _strUserSecondName;
+        announce._bHasPictures = _bHasPictures;
+        announce._dateCreation = copyTimestamp( _dateCreation );
+        announce._dateModification = copyTimestamp( _dateModification );
+        announce._datePublication = copyTimestamp( _datePublication );
+        announce._lTimePublication = _lTimePublication;
+        announce._nPrice = _nPrice;
+        announce._strTags = _strTags;
+        announce._nHasNotify = _nHasNotify;
+    }
+
+    /**
+     * Copy a timestamp, since timestamps are mutable
+     * 
+     * @param timestamp
+     *            The timestamp to copy
+     * @return The copy, or null if the timestamp is null
+     */
+    private static Timestamp copyTimestamp( Timestamp timestamp )
+    {
+        return ( timestamp != null ) ? new Timestamp( timestamp.getTime( ) ) : null;
+    }
+
+    /**
+     * Check that this announce can be modified
+     * 
+     * @throws UnsupportedOperationException
+     *             If this announce is a snapshot
+     */
+    private void checkMutable( )
+    {
+        if ( _bSnapshot )
         {
-            AppLogService.error( e.getMessage( ), e );
+            throw new UnsupportedOperationException( "Announce " + _nIdAnnounce + " is an immutable snapshot, use copy( ) to modify it" );
         }
-
-        return this;
     }
 
     /**
@@ -602,6 +721,7 @@ public class Announce implements Serializable, IExtendableResource, RBACResource
      */
     public void setDatePublication( )
     {
+        checkMutable( );
         this._datePublication = new Timestamp( this.getTimePublication( ) );
     }
 
@@ -619,6 +739,7 @@ public class Announce implements Serializable, IExtendableResource, RBACResource
      */
     public void setHasNotify( int nHasNotify )
     {
+        checkMutable( );
         this._nHasNotify = nHasNotify;
     }
 
@@ -33,15 +33,30 @@
  */
 package fr.paris.lutece.plugins.announce.business;
 
+import fr.paris.lutece.plugins.announce.utils.AnnounceUtils;
+import fr.paris.lutece.plugins.genericattributes.business.Entry;
+import fr.paris.lutece.plugins.genericattributes.business.EntryType;
+import fr.paris.lutece.plugins.genericattributes.business.Field;
+import fr.paris.lutece.plugins.genericattributes.business.Response;
+import fr.paris.lutece.portal.business.file.File;
+import fr.paris.lutece.portal.business.physicalfile.PhysicalFile;
 import fr.paris.lutece.portal.service.plugin.Plugin;
 import fr.paris.lutece.util.sql.DAOUtil;
 
+import java.io.Serializable;
+
 import java.sql.Timestamp;
 
 import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.function.Consumer;
 
 import org.apache.commons.collections.CollectionUtils;
+import org.apache.commons.lang3.StringUtils;
 
 /**
  * This class provides Data Access methods for Announce objects
@@ -54,33 +69,42 @@ public final class AnnounceDAO implements IAnnounceDAO
 
     // Select id
     private static final String SQL_QUERY_SELECT_ID = "SELECT a.id_announce FROM announce_announce a, announce_category b WHERE a.id_category = b.id_category";
-    private static final String SQL_QUERY_SELECTALL_ID_PUBLISHED = SQL_QUERY_SELECT_ID
-            + " AND a.published = 1 AND a.suspended = 0 AND a.suspended_by_user = 0 ";
+    private static final String SQL_QUERY_SELECT_PUBLISHED_KEYS = "SELECT a.id_announce, ";
+    private static final String SQL_QUERY_SELECT_PUBLISHED_KEYS_FROM = " FROM announce_announce a, announce_category b WHERE a.id_category = b.id_category AND a.published = 1 AND a.suspended = 0 AND a.suspended_by_user = 0 ";
     private static final String SQL_QUERY_SELECTALL = SQL_QUERY_SELECT_ID;
+    private static final String SQL_QUERY_COUNT_ALL = "SELECT COUNT(*) FROM announce_announce a, announce_category b WHERE a.id_category = b.id_category";
+    private static final String SQL_QUERY_COUNT_PUBLISHED = "SELECT COUNT(*) FROM announce_announce a, announce_category b WHERE a.id_category = b.id_category AND a.published = 1 AND a.suspended = 0 AND a.suspended_by_user = 0";
     private static final String SQL_QUERY_SELECTALL_PUBLISHED_FOR_CATEGORY = "SELECT a.id_announce FROM announce_announce a WHERE a.id_category = ? AND a.published = 1 AND a.suspended = 0 AND a.suspended_by_user = 0 ";
     private static final String SQL_QUERY_SELECT_ID_BY_DATE_CREATION = "SELECT id_announce FROM announce_announce WHERE date_creation < ?";
+    private static final String SQL_QUERY_SELECT_NOT_NOTIFIED_BY_DATE_CREATION = "SELECT id_announce, title_announce, contact_information FROM announce_announce WHERE date_creation < ? AND ( has_notified = 0 OR has_notified IS NULL )";
     private static final String SQL_QUERY_SELECT_ID_BY_TIME_PUBLICATION = "SELECT id_announce FROM announce_announce WHERE publication_time > ? ";
 
-    // New primary key
-    private static final String SQL_QUERY_NEW_PK = "SELECT max( id_announce ) FROM announce_announce";
-
     // Select
     private static final String SQL_QUERY_SELECT_FIELD_LIST_WITH_CATEGORY = "SELECT a.id_announce, a.title_announce, a.description_announce, a.price_announce, a.date_creation, a.date_modification, a.user_name, a.user_lastname, a.user_secondname, a.contact_information, a.published, a.suspended, a.suspended_by_user, a.tags, a.has_pictures, a.publication_time, a.has_notified, a.id_category, b.label_category, b.display_price, b.id_sector  FROM announce_announce a, announce_category b WHERE a.id_category = b.id_category ";
     private static final String SQL_QUERY_SELECT = SQL_QUERY_SELECT_FIELD_LIST_WITH_CATEGORY + " AND a.id_announce = ? ";
     private static final String SQL_QUERY_SELECTALL_PUBLISHED = SQL_QUERY_SELECT_FIELD_LIST_WITH_CATEGORY
             + "AND a.published = 1 AND a.suspended = 0 AND a.suspended_by_user = 0 ";
+    private static final String SQL_QUERY_SELECT_PUBLISHED_PAGE = SQL_QUERY_SELECTALL_PUBLISHED + " AND a.id_announce > ? ORDER BY a.id_announce LIMIT ? ";
+    private static final String SQL_FRAGMENT_LIMIT = " LIMIT ? ";
+    private static final String SQL_FRAGMENT_LIMIT_OFFSET = " LIMIT ? OFFSET ? ";
     private static final String SQL_QEURY_SELECT_BY_LIST_ID = SQL_QUERY_SELECT_FIELD_LIST_WITH_CATEGORY + " AND a.id_announce IN (";
     private static final String SQL_QUERY_SELECTALL_ANNOUNCES_FOR_USER = SQL_QUERY_SELECT_FIELD_LIST_WITH_CATEGORY + " AND a.user_name = ? ";
+    private static final String SQL_QUERY_SELECT_SUMMARY_FIELD_LIST_WITH_CATEGORY = "SELECT a.id_announce, a.title_announce, a.excerpt_announce, a.price_announce, a.date_creation, a.user_name, a.user_lastname, a.user_secondname, a.published, a.suspended, a.suspended_by_user, a.has_pictures, a.id_category, b.label_category, b.display_price, b.id_sector FROM announce_announce a, announce_category b WHERE a.id_category = b.id_category ";
+    private static final String SQL_QUERY_SELECT_SUMMARIES_BY_LIST_ID = SQL_QUERY_SELECT_SUMMARY_FIELD_LIST_WITH_CATEGORY + " AND a.id_announce IN (";
+    private static final String SQL_QUERY_SELECT_SUMMARIES_FOR_USER = SQL_QUERY_SELECT_SUMMARY_FIELD_LIST_WITH_CATEGORY + " AND a.user_name = ? ";
 
     // insert, delete
-    private static final String SQL_QUERY_INSERT = "INSERT INTO announce_announce ( id_announce, user_name, user_lastname, user_secondname, contact_information, id_category, title_announce, description_announce, price_announce, date_creation, date_modification, published, tags, has_pictures, publication_time, has_notified) VALUES (?,?,?,?,?,?,?,?,?,?,?,?,?,?,?,?) ";
+    private static final String SQL_QUERY_INSERT = "INSERT INTO announce_announce ( id_announce, user_name, user_lastname, user_secondname, contact_information, id_category, title_announce, description_announce, excerpt_announce, price_announce, date_creation, date_modification, published, tags, has_pictures, publication_time, has_notified) VALUES (?,?,?,?,?,?,?,?,?,?,?,?,?,?,?,?,?) ";
     private static final String SQL_QUERY_DELETE = "DELETE FROM announce_announce WHERE id_announce = ? ";
 
     // Update
-    private static final String SQL_QUERY_UPDATE = "UPDATE announce_announce SET title_announce = ?, description_announce = ?, price_announce = ?, contact_information = ?, published = ?, tags = ?, has_pictures = ?, date_modification = ?, has_notified = ? WHERE id_announce = ?";
+    private static final String SQL_QUERY_UPDATE = "UPDATE announce_announce SET title_announce = ?, description_announce = ?, excerpt_announce = ?, price_announce = ?, contact_information = ?, published = ?, tags = ?, has_pictures = ?, date_modification = ?, has_notified = ? WHERE id_announce = ?";
 
     private static final String SQL_QUERY_SET_PUBLISHED = "UPDATE announce_announce SET published = ?, publication_time = ? WHERE id_announce = ?";
     private static final String SQL_QUERY_SET_HASNOTIFED = "UPDATE announce_announce SET has_notified = ?  WHERE id_announce = ?";
+    private static final String SQL_QUERY_SET_HASNOTIFED_LIST = "UPDATE announce_announce SET has_notified = ? WHERE id_announce IN (";
+    private static final String SQL_QUERY_SELECT_DESCRIPTIONS_WITHOUT_EXCERPT = "SELECT id_announce, description_announce FROM announce_announce WHERE excerpt_announce IS NULL ORDER BY id_announce LIMIT ? ";
+    private static final String SQL_QUERY_UPDATE_EXCERPT = "UPDATE announce_announce SET excerpt_announce = ? WHERE id_announce = ?";
     private static final String SQL_QUERY_SET_SUSPENDED = "UPDATE announce_announce SET suspended = ?, publication_time = ? WHERE id_announce = ?";
     private static final String SQL_QUERY_SET_SUSPENDED_BY_USER = "UPDATE announce_announce SET suspended_by_user = ?, publication_time = ? WHERE id_announce = ?";
 
@@ -89,14 +113,28 @@ public final class AnnounceDAO implements IAnnounceDAO
     private static final String SQL_FRAGMENT_AND_IS_IMAGE = " AND is_image = ?";
     private static final String SQL_QUERY_SELECT_ANNOUNCE_RESPONSE_LIST = "SELECT id_response FROM announce_announce_response WHERE id_announce = ?";
     private static final String SQL_QUERY_SELECT_ANNOUNCE_IMAGE_RESPONSE_LIST = SQL_QUERY_SELECT_ANNOUNCE_RESPONSE_LIST + SQL_FRAGMENT_AND_IS_IMAGE;
+    private static final String SQL_QUERY_SELECT_ANNOUNCES_IMAGE_RESPONSE_LIST = "SELECT id_announce, id_response FROM announce_announce_response WHERE is_image = ? AND id_announce IN (";
+    private static final String SQL_QUERY_SELECT_FILE_RESPONSE_LIST = "SELECT r.id_file FROM announce_announce_response ar INNER JOIN genatt_response r ON ar.id_response = r.id_response WHERE r.id_file > 0 AND ar.id_announce IN (";
+    private static final String SQL_QUERY_DELETE_RESPONSE_LIST = "DELETE FROM genatt_response WHERE id_response IN ( SELECT id_response FROM announce_announce_response WHERE id_announce IN (";
+    private static final String SQL_QUERY_DELETE_ANNOUNCE_RESPONSE_LIST = "DELETE FROM announce_announce_response WHERE id_announce IN (";
+    private static final String SQL_QUERY_DELETE_LIST = "DELETE FROM announce_announce WHERE id_announce IN (";
     private static final String SQL_QUERY_SELECT_ANNOUNCE_BY_RESPONSE = "SELECT id_announce FROM announce_announce_response WHERE id_response = ?";
     private static final String SQL_QUERY_SELECT_ANNOUNCE_BY_IMAGE_RESPONSE = SQL_QUERY_SELECT_ANNOUNCE_BY_RESPONSE + SQL_FRAGMENT_AND_IS_IMAGE;
+    private static final String SQL_QUERY_SELECT_RESPONSE_FIELD_LIST = "SELECT r.id_response, r.response_value, r.iteration_number, r.status, e.id_entry, e.title, e.code, t.id_type, t.class_name, fi.id_field, fi.title, fi.value, r.id_file";
+    private static final String SQL_QUERY_SELECT_RESPONSE_JOINS = " FROM announce_announce_response ar INNER JOIN genatt_response r ON ar.id_response = r.id_response INNER JOIN genatt_entry e ON r.id_entry = e.id_entry INNER JOIN genatt_entry_type t ON e.id_type = t.id_type LEFT OUTER JOIN genatt_field fi ON r.id_field = fi.id_field";
+    private static final String SQL_QUERY_SELECT_RESPONSE_WHERE = " WHERE ar.id_announce = ? ORDER BY ar.id_response";
+    private static final String SQL_QUERY_SELECT_RESPONSES = SQL_QUERY_SELECT_RESPONSE_FIELD_LIST + SQL_QUERY_SELECT_RESPONSE_JOINS + SQL_QUERY_SELECT_RESPONSE_WHERE;
+    private static final String SQL_QUERY_SELECT_RESPONSES_WITH_FILES = SQL_QUERY_SELECT_RESPONSE_FIELD_LIST + ", f.title, f.file_size, f.mime_type, f.id_physical_file"
+            + SQL_QUERY_SELECT_RESPONSE_JOINS + " LEFT OUTER JOIN core_file f ON r.id_file = f.id_file" + SQL_QUERY_SELECT_RESPONSE_WHERE;
     private static final String SQL_QUERY_DELETE_ANNOUNCE_RESPONSE = "DELETE FROM announce_announce_response WHERE id_announce = ?";
 
     // Constants
     private static final String CONSTANT_COMA = ",";
     private static final String CONSTANT_CLOSE_PARENTHESIS = ")";
     private static final String CONSTANT_SPACE = " ";
+    private static final String CONSTANT_COLUMN_PREFIX = "a.";
+    private static final String CONSTANT_SORT_PRICE = "COALESCE( a.price_announce, 0 )";
+    private static final String CONSTANT_COLUMN_ID_ANNOUNCE = "a.id_announce";
 
     /**
      * Generates a new primary key
@@ -107,24 +145,14 @@ public final class AnnounceDAO implements IAnnounceDAO
      */
     public int newPrimaryKey( Plugin plugin )
     {
-        int nKey = 1;
-        try ( DAOUtil daoUtil = new DAOUtil( SQL_QUERY_NEW_PK, plugin ) )
-        {
-            daoUtil.executeQuery( );
-            if ( daoUtil.next( ) )
-            {
-                nKey = daoUtil.getInt( 1 ) + 1;
-            }
-        }
-
-        return nKey;
+        return IdSequenceHome.newPrimaryKey( IdSequence.ANNOUNCE );
     }
 
     /**
      * {@inheritDoc}
      */
     @Override
-    public synchronized void insert( Announce announce, Plugin plugin )
+    public void insert( Announce announce, Plugin plugin )
     {
         announce.setId( newPrimaryKey( plugin ) );
 
@@ -140,6 +168,7 @@ public final class AnnounceDAO implements IAnnounceDAO
             daoUtil.setInt( nIndex++, announce.getCategory( ).getId( ) );
             daoUtil.setString( nIndex++, announce.getTitle( ) );
             daoUtil.setString( nIndex++, announce.getDescription( ) );
+            daoUtil.setString( nIndex++, AnnounceSummary.getExcerpt( announce.getDescription( ) ) );
             daoUtil.setDouble( nIndex++, announce.getPrice( ) );
             daoUtil.setTimestamp( nIndex++, announce.getDateCreation( ) );
             daoUtil.setTimestamp( nIndex++, announce.getDateModification( ) );
@@ -186,6 +215,25 @@ public final class AnnounceDAO implements IAnnounceDAO
         }
     }
 
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void deleteList( Collection<Integer> listIdAnnounces, Plugin plugin )
+    {
+        if ( CollectionUtils.isEmpty( listIdAnnounces ) )
+        {
+            return;
+        }
+
+        // Responses must be removed before the associations they are selected from
+        executeUpdateByListId( AnnounceUtils.buildSqlInParameters( SQL_QUERY_DELETE_RESPONSE_LIST, listIdAnnounces.size( ) ) + CONSTANT_CLOSE_PARENTHESIS,
+                listIdAnnounces, plugin );
+        executeUpdateByListId( AnnounceUtils.buildSqlInParameters( SQL_QUERY_DELETE_ANNOUNCE_RESPONSE_LIST, listIdAnnounces.size( ) ), listIdAnnounces,
+                plugin );
+        executeUpdateByListId( AnnounceUtils.buildSqlInParameters( SQL_QUERY_DELETE_LIST, listIdAnnounces.size( ) ), listIdAnnounces, plugin );
+    }
+
     /**
      * {@inheritDoc}
      */
@@ -197,6 +245,7 @@ public final class AnnounceDAO implements IAnnounceDAO
         {
             daoUtil.setString( nIndex++, announce.getTitle( ) );
             daoUtil.setString( nIndex++, announce.getDescription( ) );
+            daoUtil.setString( nIndex++, AnnounceSummary.getExcerpt( announce.getDescription( ) ) );
             daoUtil.setDouble( nIndex++, announce.getPrice( ) );
             daoUtil.setString( nIndex++, announce.getContactInformation( ) );
             daoUtil.setBoolean( nIndex++, announce.getPublished( ) );
@@ -234,19 +283,130 @@ public final class AnnounceDAO implements IAnnounceDAO
      * {@inheritDoc}
      */
     @Override
-    public List<Integer> selectAllPublishedId( AnnounceSort announceSort, Plugin plugin )
+    public List<Announce> selectPage( AnnounceSort announceSort, AnnouncePageKey keyAfter, int nPageSize, Plugin plugin )
     {
-        List<Integer> listIdAnnounce = new ArrayList<>( );
-        try ( DAOUtil daoUtil = new DAOUtil( SQL_QUERY_SELECTALL_ID_PUBLISHED + getOrderBy( announceSort ), plugin ) )
+        StringBuilder sbSql = new StringBuilder( SQL_QUERY_SELECT_FIELD_LIST_WITH_CATEGORY );
+
+        if ( keyAfter != null )
         {
+            String strSortExpression = getSortExpression( announceSort );
+            String strOperator = announceSort.getSortAsc( ) ? " > " : " < ";
+            sbSql.append( " AND ( " ).append( strSortExpression ).append( strOperator ).append( "? OR ( " ).append( strSortExpression )
+                    .append( " = ? AND a.id_announce" ).append( strOperator ).append( "? ) ) " );
+        }
+
+        sbSql.append( getSeekOrderBy( announceSort ) ).append( SQL_FRAGMENT_LIMIT );
+
+        List<Announce> announceList = new ArrayList<>( );
+
+        try ( DAOUtil daoUtil = new DAOUtil( sbSql.toString( ), plugin ) )
+        {
+            int nIndex = 1;
+
+            if ( keyAfter != null )
+            {
+                setSortValue( daoUtil, nIndex++, keyAfter.getSortValue( ) );
+                setSortValue( daoUtil, nIndex++, keyAfter.getSortValue( ) );
+                daoUtil.setInt( nIndex++, keyAfter.getIdAnnounce( ) );
+            }
+
+            daoUtil.setInt( nIndex, nPageSize );
             daoUtil.executeQuery( );
 
             while ( daoUtil.next( ) )
             {
-                listIdAnnounce.add( daoUtil.getInt( 1 ) );
+                announceList.add( getAnnounceWithCategory( daoUtil ) );
             }
         }
-        return listIdAnnounce;
+
+        return announceList;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public List<Announce> selectPageByOffset( AnnounceSort announceSort, int nOffset, int nPageSize, Plugin plugin )
+    {
+        List<Announce> announceList = new ArrayList<>( );
+
+        try ( DAOUtil daoUtil = new DAOUtil( SQL_QUERY_SELECT_FIELD_LIST_WITH_CATEGORY + getSeekOrderBy( announceSort ) + SQL_FRAGMENT_LIMIT_OFFSET, plugin ) )
+        {
+            daoUtil.setInt( 1, nPageSize );
+            daoUtil.setInt( 2, nOffset );
+            daoUtil.executeQuery( );
+
+            while ( daoUtil.next( ) )
+            {
+                announceList.add( getAnnounceWithCategory( daoUtil ) );
+            }
+        }
+
+        return announceList;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public int countPublished( Plugin plugin )
+    {
+        int nCount = 0;
+
+        try ( DAOUtil daoUtil = new DAOUtil( SQL_QUERY_COUNT_PUBLISHED, plugin ) )
+        {
+            daoUtil.executeQuery( );
+
+            if ( daoUtil.next( ) )
+            {
+                nCount = daoUtil.getInt( 1 );
+            }
+        }
+
+        return nCount;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public int countAll( Plugin plugin )
+    {
+        int nCount = 0;
+
+        try ( DAOUtil daoUtil = new DAOUtil( SQL_QUERY_COUNT_ALL, plugin ) )
+        {
+            daoUtil.executeQuery( );
+
+            if ( daoUtil.next( ) )
+            {
+                nCount = daoUtil.getInt( 1 );
+            }
+        }
+
+        return nCount;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public List<AnnouncePageKey> selectAllPublishedKeys( AnnounceSort announceSort, Plugin plugin )
+    {
+        List<AnnouncePageKey> listKeys = new ArrayList<>( );
+
+        try ( DAOUtil daoUtil = new DAOUtil( SQL_QUERY_SELECT_PUBLISHED_KEYS + getSortExpression( announceSort ) + SQL_QUERY_SELECT_PUBLISHED_KEYS_FROM
+                + getSeekOrderBy( announceSort ), plugin ) )
+        {
+            daoUtil.executeQuery( );
+
+            while ( daoUtil.next( ) )
+            {
+                listKeys.add( new AnnouncePageKey( getSortValue( daoUtil, 2, announceSort ), daoUtil.getInt( 1 ) ) );
+            }
+        }
+
+        return listKeys;
     }
 
     /**
@@ -271,37 +431,125 @@ public final class AnnounceDAO implements IAnnounceDAO
      * {@inheritDoc}
      */
     @Override
-    public List<Announce> findByListId( List<Integer> listIdAnnounces, AnnounceSort announceSort, Plugin plugin )
+    public void forEachPublished( Consumer<Announce> consumer, int nFetchSize, Plugin plugin )
     {
-        List<Announce> announceList = new ArrayList<>( );
+        int nLastIdAnnounce = 0;
+        int nNbRead;
+
+        do
+        {
+            nNbRead = 0;
+
+            try ( DAOUtil daoUtil = new DAOUtil( SQL_QUERY_SELECT_PUBLISHED_PAGE, plugin ) )
+            {
+                daoUtil.setInt( 1, nLastIdAnnounce );
+                daoUtil.setInt( 2, nFetchSize );
+                daoUtil.executeQuery( );
+
+                while ( daoUtil.next( ) )
+                {
+                    Announce announce = getAnnounceWithCategory( daoUtil );
+                    nLastIdAnnounce = announce.getId( );
+                    nNbRead++;
+                    consumer.accept( announce );
+                }
+            }
+        }
+        while ( nNbRead == nFetchSize );
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public List<AnnounceSummary> selectSummariesForUser( String strUsername, AnnounceSort announceSort, Plugin plugin )
+    {
+        List<AnnounceSummary> listSummaries = new ArrayList<>( );
+        try ( DAOUtil daoUtil = new DAOUtil( SQL_QUERY_SELECT_SUMMARIES_FOR_USER + getOrderBy( announceSort ), plugin ) )
+        {
+            daoUtil.setString( 1, strUsername );
+            daoUtil.executeQuery( );
+
+            while ( daoUtil.next( ) )
+            {
+                listSummaries.add( getAnnounceSummary( daoUtil ) );
+            }
+        }
+        return listSummaries;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public List<AnnounceSummary> findSummariesByListId( List<Integer> listIdAnnounces, AnnounceSort announceSort, Plugin plugin )
+    {
+        List<AnnounceSummary> listSummaries = new ArrayList<>( );
 
         if ( CollectionUtils.isEmpty( listIdAnnounces ) )
         {
-            return announceList;
+            return listSummaries;
         }
 
-        StringBuilder sbSql = new StringBuilder( SQL_QEURY_SELECT_BY_LIST_ID );
-        boolean bIsFirst = true;
+        String strSql = AnnounceUtils.buildSqlInParameters( SQL_QUERY_SELECT_SUMMARIES_BY_LIST_ID, listIdAnnounces.size( ) ) + getOrderBy( announceSort );
 
-        for ( Integer nId : listIdAnnounces )
+        try ( DAOUtil daoUtil = new DAOUtil( strSql, plugin ) )
         {
-            if ( !bIsFirst )
+            int nIndex = 1;
+
+            for ( Integer nIdAnnounce : listIdAnnounces )
             {
-                sbSql.append( CONSTANT_COMA );
+                daoUtil.setInt( nIndex++, nIdAnnounce );
             }
-            else
+
+            daoUtil.executeQuery( );
+
+            while ( daoUtil.next( ) )
             {
-                bIsFirst = false;
+                listSummaries.add( getAnnounceSummary( daoUtil ) );
             }
+        }
+        return listSummaries;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public List<Announce> findByListId( Collection<Integer> listIdAnnounces, Plugin plugin )
+    {
+        List<Announce> announceList = new ArrayList<>( );
 
-            sbSql.append( nId );
+        if ( CollectionUtils.isEmpty( listIdAnnounces ) )
+        {
+            return announceList;
         }
 
-        sbSql.append( CONSTANT_CLOSE_PARENTHESIS );
-        sbSql.append( getOrderBy( announceSort ) );
+        // The number of parameters is rounded up to a power of two so that only a few distinct statements are prepared by the driver
+        int nNbParameters = Integer.highestOneBit( listIdAnnounces.size( ) );
 
-        try ( DAOUtil daoUtil = new DAOUtil( sbSql.toString( ), plugin ) )
+        if ( nNbParameters < listIdAnnounces.size( ) )
+        {
+            nNbParameters <<= 1;
+        }
+
+        try ( DAOUtil daoUtil = new DAOUtil( AnnounceUtils.buildSqlInParameters( SQL_QEURY_SELECT_BY_LIST_ID, nNbParameters ), plugin ) )
         {
+            int nIndex = 1;
+            int nIdAnnounce = 0;
+
+            for ( Integer nId : listIdAnnounces )
+            {
+                nIdAnnounce = nId;
+                daoUtil.setInt( nIndex++, nIdAnnounce );
+            }
+
+            // Unused parameters repeat the last id
+            while ( nIndex <= nNbParameters )
+            {
+                daoUtil.setInt( nIndex++, nIdAnnounce );
+            }
+
             daoUtil.executeQuery( );
 
             while ( daoUtil.next( ) )
@@ -309,6 +557,7 @@ public final class AnnounceDAO implements IAnnounceDAO
                 announceList.add( getAnnounceWithCategory( daoUtil ) );
             }
         }
+
         return announceList;
     }
 
@@ -415,6 +664,67 @@ public final class AnnounceDAO implements IAnnounceDAO
         }
     }
 
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void setHasNotified( Collection<Integer> listIdAnnounces, int nHasNotified, Plugin plugin )
+    {
+        if ( CollectionUtils.isEmpty( listIdAnnounces ) )
+        {
+            return;
+        }
+
+        try ( DAOUtil daoUtil = new DAOUtil( AnnounceUtils.buildSqlInParameters( SQL_QUERY_SET_HASNOTIFED_LIST, listIdAnnounces.size( ) ), plugin ) )
+        {
+            int nIndex = 1;
+            daoUtil.setInt( nIndex++, nHasNotified );
+
+            for ( Integer nIdAnnounce : listIdAnnounces )
+            {
+                daoUtil.setInt( nIndex++, nIdAnnounce );
+            }
+
+            daoUtil.executeUpdate( );
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public Map<Integer, String> selectDescriptionsWithoutExcerpt( int nMaxResults, Plugin plugin )
+    {
+        Map<Integer, String> mapDescriptions = new LinkedHashMap<>( );
+
+        try ( DAOUtil daoUtil = new DAOUtil( SQL_QUERY_SELECT_DESCRIPTIONS_WITHOUT_EXCERPT, plugin ) )
+        {
+            daoUtil.setInt( 1, nMaxResults );
+            daoUtil.executeQuery( );
+
+            while ( daoUtil.next( ) )
+            {
+                mapDescriptions.put( daoUtil.getInt( 1 ), daoUtil.getString( 2 ) );
+            }
+        }
+
+        return mapDescriptions;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void storeExcerpt( int nIdAnnounce, String strExcerpt, Plugin plugin )
+    {
+        try ( DAOUtil daoUtil = new DAOUtil( SQL_QUERY_UPDATE_EXCERPT, plugin ) )
+        {
+            daoUtil.setString( 1, strExcerpt );
+            daoUtil.setInt( 2, nIdAnnounce );
+            daoUtil.executeUpdate( );
+        }
+    }
+
     /**
      * {@inheritDoc}
      */
@@ -435,6 +745,30 @@ public final class AnnounceDAO implements IAnnounceDAO
         return announceIdList;
     }
 
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public List<Announce> findNotNotifiedByDateCreation( Timestamp timestamp, Plugin plugin )
+    {
+        List<Announce> listAnnounces = new ArrayList<>( );
+        try ( DAOUtil daoUtil = new DAOUtil( SQL_QUERY_SELECT_NOT_NOTIFIED_BY_DATE_CREATION, plugin ) )
+        {
+            daoUtil.setTimestamp( 1, timestamp );
+            daoUtil.executeQuery( );
+
+            while ( daoUtil.next( ) )
+            {
+                Announce announce = new Announce( );
+                announce.setId( daoUtil.getInt( 1 ) );
+                announce.setTitle( daoUtil.getString( 2 ) );
+                announce.setContactInformation( daoUtil.getString( 3 ) );
+                listAnnounces.add( announce );
+            }
+        }
+        return listAnnounces;
+    }
+
     /**
      * {@inheritDoc}
      */
@@ -516,6 +850,177 @@ public final class AnnounceDAO implements IAnnounceDAO
         return listIdResponse;
     }
 
+    /**
+     * {@inheritDoc }
+     */
+    @Override
+    public Map<Integer, List<Integer>> findListIdImageResponse( Collection<Integer> listIdAnnounces, Plugin plugin )
+    {
+        Map<Integer, List<Integer>> mapIdResponses = new HashMap<>( );
+
+        if ( CollectionUtils.isEmpty( listIdAnnounces ) )
+        {
+            return mapIdResponses;
+        }
+
+        try ( DAOUtil daoUtil = new DAOUtil( AnnounceUtils.buildSqlInParameters( SQL_QUERY_SELECT_ANNOUNCES_IMAGE_RESPONSE_LIST, listIdAnnounces.size( ) ),
+                plugin ) )
+        {
+            int nIndex = 1;
+            daoUtil.setBoolean( nIndex++, Boolean.TRUE );
+
+            for ( Integer nIdAnnounce : listIdAnnounces )
+            {
+                daoUtil.setInt( nIndex++, nIdAnnounce );
+            }
+
+            daoUtil.executeQuery( );
+
+            while ( daoUtil.next( ) )
+            {
+                mapIdResponses.computeIfAbsent( daoUtil.getInt( 1 ), nIdAnnounce -> new ArrayList<>( ) ).add( daoUtil.getInt( 2 ) );
+            }
+        }
+
+        return mapIdResponses;
+    }
+
+    /**
+     * {@inheritDoc }
+     */
+    @Override
+    public List<Integer> findListIdFileResponse( Collection<Integer> listIdAnnounces, Plugin plugin )
+    {
+        List<Integer> listIdFiles = new ArrayList<>( );
+
+        if ( CollectionUtils.isEmpty( listIdAnnounces ) )
+        {
+            return listIdFiles;
+        }
+
+        try ( DAOUtil daoUtil = new DAOUtil( AnnounceUtils.buildSqlInParameters( SQL_QUERY_SELECT_FILE_RESPONSE_LIST, listIdAnnounces.size( ) ), plugin ) )
+        {
+            int nIndex = 1;
+
+            for ( Integer nIdAnnounce : listIdAnnounces )
+            {
+                daoUtil.setInt( nIndex++, nIdAnnounce );
+            }
+
+            daoUtil.executeQuery( );
+
+            while ( daoUtil.next( ) )
+            {
+                listIdFiles.add( daoUtil.getInt( 1 ) );
+            }
+        }
+
+        return listIdFiles;
+    }
+
+    /**
+     * {@inheritDoc }
+     */
+    @Override
+    public List<Response> findListResponse( int nIdAnnounce, boolean bLoadFiles, Plugin plugin )
+    {
+        List<Response> listResponse = new ArrayList<>( );
+        Map<Integer, Entry> mapEntries = new HashMap<>( );
+
+        try ( DAOUtil daoUtil = new DAOUtil( bLoadFiles ? SQL_QUERY_SELECT_RESPONSES_WITH_FILES : SQL_QUERY_SELECT_RESPONSES, plugin ) )
+        {
+            daoUtil.setInt( 1, nIdAnnounce );
+            daoUtil.executeQuery( );
+
+            while ( daoUtil.next( ) )
+            {
+                listResponse.add( getResponse( daoUtil, mapEntries, bLoadFiles ) );
+            }
+        }
+
+        return listResponse;
+    }
+
+    /**
+     * Get a response from a row of the response query
+     * 
+     * @param daoUtil
+     *            The daoUtil to load data from. Its cursor is not moved
+     * @param mapEntries
+     *            The entries already loaded, by id. The entry of the response is added if it is not in the map yet
+     * @param bLoadFiles
+     *            True if the row holds the description of the file of the response
+     * @return The response
+     */
+    private Response getResponse( DAOUtil daoUtil, Map<Integer, Entry> mapEntries, boolean bLoadFiles )
+    {
+        Response response = new Response( );
+
+        int nIndex = 1;
+        response.setIdResponse( daoUtil.getInt( nIndex++ ) );
+        response.setResponseValue( daoUtil.getString( nIndex++ ) );
+        response.setToStringValueResponse( response.getResponseValue( ) );
+        response.setIterationNumber( daoUtil.getInt( nIndex++ ) );
+        response.setStatus( daoUtil.getInt( nIndex++ ) );
+
+        int nIdEntry = daoUtil.getInt( nIndex++ );
+        Entry entry = mapEntries.get( nIdEntry );
+
+        if ( entry == null )
+        {
+            entry = new Entry( );
+            entry.setIdEntry( nIdEntry );
+            entry.setTitle( daoUtil.getString( nIndex ) );
+            entry.setCode( daoUtil.getString( nIndex + 1 ) );
+
+            EntryType entryType = new EntryType( );
+            entryType.setIdType( daoUtil.getInt( nIndex + 2 ) );
+            entryType.setBeanName( daoUtil.getString( nIndex + 3 ) );
+            entry.setEntryType( entryType );
+            mapEntries.put( nIdEntry, entry );
+        }
+
+        nIndex += 4;
+        response.setEntry( entry );
+
+        int nIdField = daoUtil.getInt( nIndex++ );
+
+        if ( nIdField > 0 )
+        {
+            Field field = new Field( );
+            field.setIdField( nIdField );
+            field.setTitle( daoUtil.getString( nIndex ) );
+            field.setValue( daoUtil.getString( nIndex + 1 ) );
+            response.setField( field );
+        }
+
+        nIndex += 2;
+
+        int nIdFile = daoUtil.getInt( nIndex++ );
+
+        if ( nIdFile > 0 )
+        {
+            File file = new File( );
+            file.setIdFile( nIdFile );
+
+            if ( bLoadFiles )
+            {
+                file.setTitle( daoUtil.getString( nIndex++ ) );
+                file.setSize( daoUtil.getInt( nIndex++ ) );
+                file.setMimeType( daoUtil.getString( nIndex++ ) );
+
+                // The content of the file is loaded on demand, from the id of its physical file
+                PhysicalFile physicalFile = new PhysicalFile( );
+                physicalFile.setIdPhysicalFile( daoUtil.getInt( nIndex ) );
+                file.setPhysicalFile( physicalFile );
+            }
+
+            response.setFile( file );
+        }
+
+        return response;
+    }
+
     /**
      * {@inheritDoc }
      */
@@ -549,6 +1054,40 @@ public final class AnnounceDAO implements IAnnounceDAO
         }
     }
 
+    /**
+     * Get the summary of an announce and its category from a DAOUtil
+     * 
+     * @param daoUtil
+     *            The daoUtil to read data from. The method {@link DAOUtil#next()} must have been called before.
+     * @return The summary of the announce
+     */
+    private AnnounceSummary getAnnounceSummary( DAOUtil daoUtil )
+    {
+        int nIndex = 1;
+        AnnounceSummary summary = new AnnounceSummary( );
+        summary.setId( daoUtil.getInt( nIndex++ ) );
+        summary.setTitle( daoUtil.getString( nIndex++ ) );
+        summary.setExcerpt( StringUtils.defaultString( daoUtil.getString( nIndex++ ) ) );
+        summary.setPrice( daoUtil.getDouble( nIndex++ ) );
+        summary.setDateCreation( daoUtil.getTimestamp( nIndex++ ) );
+        summary.setUserName( daoUtil.getString( nIndex++ ) );
+        summary.setUserLastName( daoUtil.getString( nIndex++ ) );
+        summary.setUserSecondName( daoUtil.getString( nIndex++ ) );
+        summary.setPublished( daoUtil.getBoolean( nIndex++ ) );
+        summary.setSuspended( daoUtil.getBoolean( nIndex++ ) );
+        summary.setSuspendedByUser( daoUtil.getBoolean( nIndex++ ) );
+        summary.setHasPictures( daoUtil.getBoolean( nIndex++ ) );
+
+        Category category = new Category( );
+        category.setId( daoUtil.getInt( nIndex++ ) );
+        category.setLabel( daoUtil.getString( nIndex++ ) );
+        category.setDisplayPrice( daoUtil.getBoolean( nIndex++ ) );
+        category.setIdSector( daoUtil.getInt( nIndex ) );
+        summary.setCategory( category );
+
+        return summary;
+    }
+
     /**
      * Get an announce with its category. Only the id, the label and the price boolean of the category is loaded.
      * 
@@ -591,6 +1130,119 @@ public final class AnnounceDAO implements IAnnounceDAO
         return announce;
     }
 
+    /**
+     * Get the SQL expression of the sorted column of a sort. Null prices are sorted as zero prices, so that every announce can be compared to a page key
+     * 
+     * @param announceSort
+     *            The sort
+     * @return The SQL expression of the sorted column
+     */
+    private static String getSortExpression( AnnounceSort announceSort )
+    {
+        if ( AnnounceSort.SORT_PRICE.equals( announceSort.getSortColumn( ) ) )
+        {
+            return CONSTANT_SORT_PRICE;
+        }
+
+        return CONSTANT_COLUMN_PREFIX + announceSort.getSortColumn( );
+    }
+
+    /**
+     * Get the order by clause of a paged query. The id of the announce is used as a tie breaker so that the order is total
+     * 
+     * @param announceSort
+     *            The sort
+     * @return The order by clause
+     */
+    private static String getSeekOrderBy( AnnounceSort announceSort )
+    {
+        String strDirection = announceSort.getSortAsc( ) ? ORDER_BY_ASCENDING : ORDER_BY_DESCENDING;
+
+        return ORDER_BY + getSortExpression( announceSort ) + strDirection + CONSTANT_COMA + CONSTANT_COLUMN_ID_ANNOUNCE + strDirection;
+    }
+
+    /**
+     * Read the value of the sorted column of a sort
+     * 
+     * @param daoUtil
+     *            The daoUtil
+     * @param nIndex
+     *            The index of the column
+     * @param announceSort
+     *            The sort
+     * @return The value of the sorted column
+     */
+    private static Serializable getSortValue( DAOUtil daoUtil, int nIndex, AnnounceSort announceSort )
+    {
+        switch( announceSort.getSortColumn( ) )
+        {
+            case AnnounceSort.SORT_DATE_CREATION:
+            case AnnounceSort.SORT_DATE_MODIFICATION:
+                return daoUtil.getTimestamp( nIndex );
+            case AnnounceSort.SORT_DATE_PUBLICATION:
+                return daoUtil.getLong( nIndex );
+            case AnnounceSort.SORT_PRICE:
+                return daoUtil.getDouble( nIndex );
+            default:
+                return daoUtil.getString( nIndex );
+        }
+    }
+
+    /**
+     * Set the value of the sorted column of a page key as a parameter of a query
+     * 
+     * @param daoUtil
+     *            The daoUtil
+     * @param nIndex
+     *            The index of the parameter
+     * @param sortValue
+     *            The value of the sorted column
+     */
+    private static void setSortValue( DAOUtil daoUtil, int nIndex, Object sortValue )
+    {
+        if ( sortValue instanceof Timestamp )
+        {
+            daoUtil.setTimestamp( nIndex, (Timestamp) sortValue );
+        }
+        else if ( sortValue instanceof Long )
+        {
+            daoUtil.setLong( nIndex, (Long) sortValue );
+        }
+        else if ( sortValue instanceof Double )
+        {
+            daoUtil.setDouble( nIndex, (Double) sortValue );
+        }
+        else
+        {
+            daoUtil.setString( nIndex, ( sortValue == null ) ? StringUtils.EMPTY : sortValue.toString( ) );
+        }
+    }
+
+    /**
+     * Execute an update query whose parameters are the ids of a list of announces
+     * 
+     * @param strSql
+     *            The query
+     * @param listIdAnnounces
+     *            The ids of the announces
+     * @param plugin
+     *            The plugin
+     */
+    private static void executeUpdateByListId( String strSql, Collection<Integer> listIdAnnounces, Plugin plugin )
+    {
+        try ( DAOUtil daoUtil = new DAOUtil( strSql, plugin ) )
+        {
+            int nIndex = 1;
+
+            for ( Integer nIdAnnounce : listIdAnnounces )
+            {
+                daoUtil.setInt( nIndex++, nIdAnnounce );
+            }
+
+            daoUtil.executeUpdate( );
+        }
+    }
+
     /**
      * Get the order by of a given announce sort
      * 
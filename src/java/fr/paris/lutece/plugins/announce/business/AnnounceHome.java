@@ -34,7 +34,11 @@
 package fr.paris.lutece.plugins.announce.business;
 
 import fr.paris.lutece.plugins.announce.service.AnnounceCacheService;
+import fr.paris.lutece.plugins.announce.service.AnnounceCounterService;
+import fr.paris.lutece.plugins.announce.service.AnnounceListIdLoaderService;
+import fr.paris.lutece.plugins.announce.service.AnnounceNegativeCacheService;
 import fr.paris.lutece.plugins.announce.service.AnnouncePlugin;
+import fr.paris.lutece.plugins.announce.service.PublishedAnnounceIdService;
 import fr.paris.lutece.plugins.announce.service.announcesearch.AnnounceSearchService;
 import fr.paris.lutece.plugins.genericattributes.business.Response;
 import fr.paris.lutece.plugins.genericattributes.business.ResponseHome;
@@ -44,18 +48,36 @@ import fr.paris.lutece.portal.service.plugin.PluginService;
 import fr.paris.lutece.portal.service.resource.ExtendableResourceRemovalListenerService;
 import fr.paris.lutece.portal.service.security.LuteceUser;
 import fr.paris.lutece.portal.service.spring.SpringContextService;
+import fr.paris.lutece.portal.service.util.AppException;
+import fr.paris.lutece.portal.service.util.AppPropertiesService;
 import fr.paris.lutece.portal.service.workflow.WorkflowService;
+import fr.paris.lutece.util.sql.TransactionManager;
 
 import java.sql.Timestamp;
 
 import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.BiConsumer;
+import java.util.function.Consumer;
+import java.util.function.ToIntFunction;
 
 /**
  * This class provides instances management methods (create, find, ...) for Announce objects
  */
 public final class AnnounceHome
 {
+    private static final String PROPERTY_SCAN_FETCH_SIZE = "announce.scan.fetchSize";
+    private static final int DEFAULT_SCAN_FETCH_SIZE = 200;
+    private static final String PROPERTY_LIST_ID_CHUNK_SIZE = "announce.listId.chunkSize";
+    private static final int DEFAULT_LIST_ID_CHUNK_SIZE = 128;
+
     // Static variable pointed at the DAO instance
     private static IAnnounceDAO _dao = SpringContextService.getBean( "announce.announceDAO" );
     private static Plugin _plugin = PluginService.getPlugin( AnnouncePlugin.PLUGIN_NAME );
@@ -79,11 +101,16 @@ public final class AnnounceHome
         announce.setDateModification( new Timestamp( System.currentTimeMillis( ) ) );
         updateAnnouncePublicationTime( announce );
         _dao.insert( announce, _plugin );
+        AnnounceNegativeCacheService.getService( ).remove( AnnounceNegativeCacheService.FAMILY_ANNOUNCE, announce.getId( ) );
+        AnnounceCacheService.getService( ).removeKey( AnnounceCacheService.getAnnouncesCountCacheKey( ) );
+
+        boolean bIsVisible = isVisible( announce );
+        PublishedAnnounceIdService.getService( ).updateAnnounce( announce, false, bIsVisible );
 
-        if ( announce.getPublished( ) && !announce.getSuspended( ) && !announce.getSuspendedByUser( ) )
+        if ( bIsVisible )
         {
+            AnnounceCounterService.getService( ).updatePublishedAnnouncesCount( announce.getCategory( ) );
             AnnounceSearchService.getInstance( ).addIndexerAction( announce.getId( ), IndexerAction.TASK_CREATE, _plugin );
-            AnnounceCacheService.getService( ).removeKey( AnnounceCacheService.getListIdPublishedAnnouncesCacheKey( ) );
         }
 
         return announce;
@@ -99,9 +126,21 @@ public final class AnnounceHome
     public static Announce update( Announce announce )
     {
         announce.setDateModification( new Timestamp( System.currentTimeMillis( ) ) );
+        Announce announceStored = findByPrimaryKey( announce.getId( ) );
+        boolean bWasVisible = ( announceStored != null ) && isVisible( announceStored );
         _dao.store( announce, _plugin );
 
-        if ( announce.getPublished( ) && !announce.getSuspended( ) && !announce.getSuspendedByUser( ) )
+        boolean bIsVisible = isVisible( announce );
+        AnnounceCounterService.getService( ).updatePublishedAnnouncesCount( announce.getCategory( ) );
+
+        if ( ( announceStored != null ) && ( announceStored.getCategory( ).getId( ) != announce.getCategory( ).getId( ) ) )
+        {
+            AnnounceCounterService.getService( ).updatePublishedAnnouncesCount( announceStored.getCategory( ) );
+        }
+
+        PublishedAnnounceIdService.getService( ).updateAnnounce( announce, bWasVisible, bIsVisible );
+
+        if ( bIsVisible )
         {
             AnnounceSearchService.getInstance( ).addIndexerAction( announce.getId( ), IndexerAction.TASK_MODIFY, _plugin );
         }
@@ -110,7 +149,6 @@ public final class AnnounceHome
             AnnounceSearchService.getInstance( ).addIndexerAction( announce.getId( ), IndexerAction.TASK_DELETE, _plugin );
         }
 
-        AnnounceCacheService.getService( ).removeKey( AnnounceCacheService.getListIdPublishedAnnouncesCacheKey( ) );
         AnnounceCacheService.getService( ).putInCache( AnnounceCacheService.getAnnounceCacheKey( announce.getId( ) ), announce );
 
         return announce;
@@ -124,6 +162,7 @@ public final class AnnounceHome
      */
     public static void remove( int nAnnounceId )
     {
+        Announce announce = findByPrimaryKey( nAnnounceId );
         AnnounceSearchService.getInstance( ).addIndexerAction( nAnnounceId, IndexerAction.TASK_DELETE, _plugin );
 
         List<Integer> listIdResponse = findListIdResponse( nAnnounceId );
@@ -143,15 +182,109 @@ public final class AnnounceHome
         }
 
         _dao.delete( nAnnounceId, _plugin );
-        AnnounceCacheService.getService( ).removeKey( AnnounceCacheService.getListIdPublishedAnnouncesCacheKey( ) );
+        AnnounceCacheService.getService( ).removeKey( AnnounceCacheService.getAnnouncesCountCacheKey( ) );
+
+        if ( announce != null )
+        {
+            AnnounceCounterService.getService( ).updatePublishedAnnouncesCount( announce.getCategory( ) );
+        }
+
+        PublishedAnnounceIdService.getService( ).removeAnnounces( Collections.singletonList( nAnnounceId ) );
         AnnounceCacheService.getService( ).removeKey( AnnounceCacheService.getAnnounceCacheKey( nAnnounceId ) );
+        AnnounceCacheService.getService( ).removeKey( AnnounceCacheService.getImageResponsesCacheKey( nAnnounceId ) );
+    }
+
+    /**
+     * Remove a list of announces and every response associated with them. Announces, responses and the delete actions of the indexer are written with
+     * set-based statements in a single transaction, and caches are invalidated once for the whole list. It is intended for bulk removals such as the expiration
+     * of announces, so callers should split large lists into chunks.
+     * 
+     * @param listIdAnnounces
+     *            The ids of the announces to remove
+     */
+    public static void removeList( List<Integer> listIdAnnounces )
+    {
+        List<Announce> listAnnounces = findByListId( listIdAnnounces, null );
+
+        if ( listAnnounces.isEmpty( ) )
+        {
+            return;
+        }
+
+        List<Integer> listIdRemoved = new ArrayList<>( listAnnounces.size( ) );
+
+        for ( Announce announce : listAnnounces )
+        {
+            listIdRemoved.add( announce.getId( ) );
+        }
+
+        List<Integer> listIdFiles = _dao.findListIdFileResponse( listIdRemoved, _plugin );
+
+        // Ids are allocated outside of the transaction : a rollback must not release ids that are already reserved by this node
+        List<IndexerAction> listDeleteActions = IndexerActionHome.newDeleteActions( listIdRemoved );
+
+        TransactionManager.beginTransaction( _plugin );
+
+        try
+        {
+            IndexerActionHome.replaceActions( listDeleteActions );
+            _dao.deleteList( listIdRemoved, _plugin );
+            TransactionManager.commitTransaction( _plugin );
+        }
+        catch( Exception e )
+        {
+            TransactionManager.rollBack( _plugin, e );
+            throw new AppException( e.getMessage( ), e );
+        }
+
+        AnnounceCacheService.getService( ).removeKey( AnnounceCacheService.getAnnouncesCountCacheKey( ) );
+
+        for ( Integer nIdFile : listIdFiles )
+        {
+            FileHome.remove( nIdFile );
+        }
+
+        Map<Integer, List<Integer>> mapIdAnnouncesByWorkflow = new HashMap<>( );
+        Map<Integer, Category> mapCategories = new HashMap<>( );
+
+        for ( Announce announce : listAnnounces )
+        {
+            ExtendableResourceRemovalListenerService.doRemoveResourceExtentions( Announce.RESOURCE_TYPE, Integer.toString( announce.getId( ) ) );
+
+            Category category = CategoryHome.findByPrimaryKey( announce.getCategory( ).getId( ) );
+
+            if ( ( category != null ) && ( category.getIdWorkflow( ) > 0 ) )
+            {
+                mapIdAnnouncesByWorkflow.computeIfAbsent( category.getIdWorkflow( ), nIdWorkflow -> new ArrayList<>( ) ).add( announce.getId( ) );
+            }
+
+            mapCategories.putIfAbsent( announce.getCategory( ).getId( ), announce.getCategory( ) );
+            AnnounceCacheService.getService( ).removeKey( AnnounceCacheService.getAnnounceCacheKey( announce.getId( ) ) );
+            AnnounceCacheService.getService( ).removeKey( AnnounceCacheService.getImageResponsesCacheKey( announce.getId( ) ) );
+        }
+
+        if ( WorkflowService.getInstance( ).isAvailable( ) )
+        {
+            for ( Map.Entry<Integer, List<Integer>> entry : mapIdAnnouncesByWorkflow.entrySet( ) )
+            {
+                WorkflowService.getInstance( ).doRemoveWorkFlowResourceByListId( entry.getValue( ), Announce.RESOURCE_TYPE, entry.getKey( ) );
+            }
+        }
+
+        for ( Category category : mapCategories.values( ) )
+        {
+            AnnounceCounterService.getService( ).updatePublishedAnnouncesCount( category );
+        }
+
+        PublishedAnnounceIdService.getService( ).removeAnnounces( listIdRemoved );
     }
 
     // /////////////////////////////////////////////////////////////////////////
     // Finders
 
     /**
-     * Returns an instance of a announce whose identifier is specified in parameter
+     * Returns an instance of a announce whose identifier is specified in parameter. The announce is an immutable snapshot shared with other readers : use
+     * {@link Announce#copy( )} to modify it
      * 
      * @param nKey
      *            The announce primary key
@@ -161,14 +294,20 @@ public final class AnnounceHome
     {
         Announce announce = (Announce) AnnounceCacheService.getService( ).getFromCache( AnnounceCacheService.getAnnounceCacheKey( nKey ) );
 
-        if ( announce == null )
+        if ( ( announce == null ) && !AnnounceNegativeCacheService.getService( ).isMissing( AnnounceNegativeCacheService.FAMILY_ANNOUNCE, nKey ) )
         {
+            long lVersion = AnnounceNegativeCacheService.getService( ).getVersion( AnnounceNegativeCacheService.FAMILY_ANNOUNCE );
             announce = _dao.load( nKey, _plugin );
 
             if ( announce != null )
             {
+                announce = announce.getSnapshot( );
                 AnnounceCacheService.getService( ).putInCache( AnnounceCacheService.getAnnounceCacheKey( announce.getId( ) ), announce );
             }
+            else
+            {
+                AnnounceNegativeCacheService.getService( ).putMissing( AnnounceNegativeCacheService.FAMILY_ANNOUNCE, nKey, lVersion );
+            }
         }
 
         return announce;
@@ -183,7 +322,20 @@ public final class AnnounceHome
      */
     public static Integer findIdByImageResponse( int nIdResponse )
     {
-        return _dao.findIdByImageResponse( nIdResponse, _plugin );
+        if ( AnnounceNegativeCacheService.getService( ).isMissing( AnnounceNegativeCacheService.FAMILY_IMAGE_RESPONSE, nIdResponse ) )
+        {
+            return null;
+        }
+
+        long lVersion = AnnounceNegativeCacheService.getService( ).getVersion( AnnounceNegativeCacheService.FAMILY_IMAGE_RESPONSE );
+        Integer nIdAnnounce = _dao.findIdByImageResponse( nIdResponse, _plugin );
+
+        if ( nIdAnnounce == null )
+        {
+            AnnounceNegativeCacheService.getService( ).putMissing( AnnounceNegativeCacheService.FAMILY_IMAGE_RESPONSE, nIdResponse, lVersion );
+        }
+
+        return nIdAnnounce;
     }
 
     /**
@@ -199,23 +351,87 @@ public final class AnnounceHome
     }
 
     /**
-     * Load the id of every published announce and returns them in form of a list
+     * Load a page of announces. The page is sought from the key of the last announce of the previous page, so that its cost only depends on the page size
      * 
      * @param announceSort
      *            The sort
-     * @return the list of id of every published announce
+     * @param keyAfter
+     *            The key of the last announce of the previous page, or null to load the first page
+     * @param nPageSize
+     *            The maximum number of announces to load
+     * @return The list of announces of the page
      */
-    public static List<Integer> findAllPublishedId( AnnounceSort announceSort )
+    public static List<Announce> findPage( AnnounceSort announceSort, AnnouncePageKey keyAfter, int nPageSize )
     {
-        List<Integer> listIds = (List<Integer>) AnnounceCacheService.getService( ).getFromCache( AnnounceCacheService.getListIdPublishedAnnouncesCacheKey( ) );
+        return _dao.selectPage( announceSort, keyAfter, nPageSize, _plugin );
+    }
 
-        if ( listIds == null )
+    /**
+     * Load a page of announces from its offset. This should only be used when the key of the announce that precedes the page is unknown
+     * 
+     * @param announceSort
+     *            The sort
+     * @param nOffset
+     *            The number of announces to skip
+     * @param nPageSize
+     *            The maximum number of announces to load
+     * @return The list of announces of the page
+     */
+    public static List<Announce> findPageByOffset( AnnounceSort announceSort, int nOffset, int nPageSize )
+    {
+        return _dao.selectPageByOffset( announceSort, nOffset, nPageSize, _plugin );
+    }
+
+    /**
+     * Count every announce. The count is cached until an announce is created or removed
+     * 
+     * @return The number of announces
+     */
+    public static int countAll( )
+    {
+        Integer nCount = (Integer) AnnounceCacheService.getService( ).getFromCache( AnnounceCacheService.getAnnouncesCountCacheKey( ) );
+
+        if ( nCount == null )
         {
-            listIds = _dao.selectAllPublishedId( announceSort, _plugin );
-            AnnounceCacheService.getService( ).putInCache( AnnounceCacheService.getListIdPublishedAnnouncesCacheKey( ), listIds );
+            nCount = _dao.countAll( _plugin );
+            AnnounceCacheService.getService( ).putInCache( AnnounceCacheService.getAnnouncesCountCacheKey( ), nCount );
         }
 
-        return _dao.selectAllPublishedId( announceSort, _plugin );
+        return nCount;
+    }
+
+    /**
+     * Count the published announces in the database, without any cache
+     * 
+     * @return The number of published announces
+     */
+    public static int countPublished( )
+    {
+        return _dao.countPublished( _plugin );
+    }
+
+    /**
+     * Load the id of every published announce and returns them in form of a list
+     * 
+     * @param announceSort
+     *            The sort
+     * @return the list of id of every published announce
+     */
+    public static List<Integer> findAllPublishedId( AnnounceSort announceSort )
+    {
+        return PublishedAnnounceIdService.getService( ).getPublishedIds( announceSort );
+    }
+
+    /**
+     * Load the keys of every published announce from the database, in the order of a sort
+     * 
+     * @param announceSort
+     *            The sort
+     * @return the list of keys of every published announce
+     */
+    public static List<AnnouncePageKey> findAllPublishedKeys( AnnounceSort announceSort )
+    {
+        return _dao.selectAllPublishedKeys( announceSort, _plugin );
     }
 
     /**
@@ -231,17 +447,137 @@ public final class AnnounceHome
     }
 
     /**
-     * Get the list of announces from a list of ids
+     * Give every published announce to a consumer, one at a time. Announces are read by pages whose size is defined by the property
+     * <code>announce.scan.fetchSize</code>, so that the memory used does not depend on the number of announces.
+     * 
+     * @param consumer
+     *            The consumer that receives each published announce
+     */
+    public static void forEachPublished( Consumer<Announce> consumer )
+    {
+        forEachPublished( consumer, AppPropertiesService.getPropertyInt( PROPERTY_SCAN_FETCH_SIZE, DEFAULT_SCAN_FETCH_SIZE ) );
+    }
+
+    /**
+     * Give every published announce to a consumer, one at a time. Announces are read by pages of at most nFetchSize announces.
+     * 
+     * @param consumer
+     *            The consumer that receives each published announce
+     * @param nFetchSize
+     *            The maximum number of announces read by a single query
+     */
+    public static void forEachPublished( Consumer<Announce> consumer, int nFetchSize )
+    {
+        _dao.forEachPublished( consumer, Math.max( 1, nFetchSize ), _plugin );
+    }
+
+    /**
+     * Build the excerpt of every announce that has none yet, such as the announces created before the excerpt column existed. Announces are read by pages
+     * whose size is defined by the property <code>announce.scan.fetchSize</code>.
+     * 
+     * @return The number of excerpts that were built
+     */
+    public static int buildMissingExcerpts( )
+    {
+        int nFetchSize = Math.max( 1, AppPropertiesService.getPropertyInt( PROPERTY_SCAN_FETCH_SIZE, DEFAULT_SCAN_FETCH_SIZE ) );
+        int nNbExcerpts = 0;
+        Map<Integer, String> mapDescriptions = _dao.selectDescriptionsWithoutExcerpt( nFetchSize, _plugin );
+
+        // Stored excerpts are never null, so each page only contains announces that were not processed yet
+        while ( !mapDescriptions.isEmpty( ) )
+        {
+            for ( Map.Entry<Integer, String> entry : mapDescriptions.entrySet( ) )
+            {
+                _dao.storeExcerpt( entry.getKey( ), AnnounceSummary.getExcerpt( entry.getValue( ) ), _plugin );
+            }
+
+            nNbExcerpts += mapDescriptions.size( );
+            mapDescriptions = _dao.selectDescriptionsWithoutExcerpt( nFetchSize, _plugin );
+        }
+
+        return nNbExcerpts;
+    }
+
+    /**
+     * Get the list of announces from a list of ids. Large lists are loaded by chunks, concurrently when several threads are configured
      * 
      * @param listIdAnnounces
      *            The list of ids of announces to get
      * @param announceSort
-     *            The sort
+     *            The sort, or null to keep the order of the list of ids
      * @return The list of announces
      */
     public static List<Announce> findByListId( List<Integer> listIdAnnounces, AnnounceSort announceSort )
     {
-        return _dao.findByListId( listIdAnnounces, announceSort, _plugin );
+        List<Announce> listAnnounces = new ArrayList<>( );
+
+        if ( ( listIdAnnounces == null ) || listIdAnnounces.isEmpty( ) )
+        {
+            return listAnnounces;
+        }
+
+        Map<Integer, Announce> mapAnnounces = new HashMap<>( );
+
+        for ( List<Announce> listChunk : findChunksByListId( listIdAnnounces ) )
+        {
+            for ( Announce announce : listChunk )
+            {
+                mapAnnounces.put( announce.getId( ), announce );
+            }
+        }
+
+        for ( Integer nIdAnnounce : listIdAnnounces )
+        {
+            Announce announce = mapAnnounces.remove( nIdAnnounce );
+
+            if ( announce != null )
+            {
+                listAnnounces.add( announce );
+            }
+        }
+
+        if ( announceSort != null )
+        {
+            Comparator<Announce> comparator = Comparator.comparing( announce -> AnnouncePageKey.getPageKey( announce, announceSort ) );
+            listAnnounces.sort( announceSort.getSortAsc( ) ? comparator : comparator.reversed( ) );
+        }
+
+        return listAnnounces;
+    }
+
+    /**
+     * Load announces from a list of ids by chunks of a fixed size. Chunks are loaded concurrently when there are several of them, several threads are
+     * configured and no transaction is active
+     * 
+     * @param listIdAnnounces
+     *            The list of ids of announces to get
+     * @return The announces of each chunk
+     */
+    private static List<List<Announce>> findChunksByListId( List<Integer> listIdAnnounces )
+    {
+        int nChunkSize = Math.max( 1, AppPropertiesService.getPropertyInt( PROPERTY_LIST_ID_CHUNK_SIZE, DEFAULT_LIST_ID_CHUNK_SIZE ) );
+        List<List<Integer>> listChunks = new ArrayList<>( );
+
+        for ( int nFrom = 0; nFrom < listIdAnnounces.size( ); nFrom += nChunkSize )
+        {
+            listChunks.add( listIdAnnounces.subList( nFrom, Math.min( nFrom + nChunkSize, listIdAnnounces.size( ) ) ) );
+        }
+
+        return AnnounceListIdLoaderService.getService( ).loadChunks( listChunks, listChunk -> _dao.findByListId( listChunk, _plugin ), _plugin );
+    }
+
+    /**
+     * Get the summaries of a list of announces
+     * 
+     * @param listIdAnnounces
+     *            The list of ids of announces
+     * @param announceSort
+     *            the sort to use
+     * @return The list of summaries of announces
+     */
+    public static List<AnnounceSummary> findSummariesByListId( List<Integer> listIdAnnounces, AnnounceSort announceSort )
+    {
+        return _dao.findSummariesByListId( listIdAnnounces, announceSort, _plugin );
     }
 
     /**
@@ -272,6 +608,20 @@ public final class AnnounceHome
         return _dao.selectAllForUser( user, announceSort, _plugin );
     }
 
+    /**
+     * Get the summaries of the announces of a user
+     * 
+     * @param strUserName
+     *            The name of the user
+     * @param announceSort
+     *            The sort
+     * @return The summaries of the announces of the user
+     */
+    public static List<AnnounceSummary> getAnnounceSummariesForUser( String strUserName, AnnounceSort announceSort )
+    {
+        return _dao.selectSummariesForUser( strUserName, announceSort, _plugin );
+    }
+
     /**
      * selects all the announces for a category
      * 
@@ -294,10 +644,15 @@ public final class AnnounceHome
      */
     public static void setPublished( Announce announce )
     {
+        boolean bWasVisible = wasVisible( announce.getId( ) );
         updateAnnouncePublicationTime( announce );
         _dao.setPublished( announce, _plugin );
 
-        if ( announce.getPublished( ) && !announce.getSuspended( ) && !announce.getSuspendedByUser( ) )
+        boolean bIsVisible = isVisible( announce );
+        AnnounceCounterService.getService( ).updatePublishedAnnouncesCount( announce.getCategory( ) );
+        PublishedAnnounceIdService.getService( ).updateAnnounce( announce, bWasVisible, bIsVisible );
+
+        if ( bIsVisible )
         {
             AnnounceSearchService.getInstance( ).addIndexerAction( announce.getId( ), IndexerAction.TASK_CREATE, _plugin );
         }
@@ -306,7 +661,6 @@ public final class AnnounceHome
             AnnounceSearchService.getInstance( ).addIndexerAction( announce.getId( ), IndexerAction.TASK_DELETE, _plugin );
         }
 
-        AnnounceCacheService.getService( ).removeKey( AnnounceCacheService.getListIdPublishedAnnouncesCacheKey( ) );
         AnnounceCacheService.getService( ).removeKey( AnnounceCacheService.getAnnounceCacheKey( announce.getId( ) ) );
     }
 
@@ -317,6 +671,22 @@ public final class AnnounceHome
         AnnounceCacheService.getService( ).removeKey( AnnounceCacheService.getAnnounceCacheKey( announce.getId( ) ) );
     }
 
+    /**
+     * Flag a list of announces as notified with a single update
+     * 
+     * @param listIdAnnounces
+     *            The ids of the announces whose owner has been notified
+     */
+    public static void setHasNotified( List<Integer> listIdAnnounces )
+    {
+        _dao.setHasNotified( listIdAnnounces, 1, _plugin );
+
+        for ( Integer nIdAnnounce : listIdAnnounces )
+        {
+            AnnounceCacheService.getService( ).removeKey( AnnounceCacheService.getAnnounceCacheKey( nIdAnnounce ) );
+        }
+    }
+
     /**
      * suspend or UnSuspend an announce
      * 
@@ -325,10 +695,15 @@ public final class AnnounceHome
      */
     public static void setSuspended( Announce announce )
     {
+        boolean bWasVisible = wasVisible( announce.getId( ) );
         updateAnnouncePublicationTime( announce );
         _dao.setSuspended( announce, _plugin );
 
-        if ( announce.getPublished( ) && !announce.getSuspended( ) && !announce.getSuspendedByUser( ) )
+        boolean bIsVisible = isVisible( announce );
+        AnnounceCounterService.getService( ).updatePublishedAnnouncesCount( announce.getCategory( ) );
+        PublishedAnnounceIdService.getService( ).updateAnnounce( announce, bWasVisible, bIsVisible );
+
+        if ( bIsVisible )
         {
             AnnounceSearchService.getInstance( ).addIndexerAction( announce.getId( ), IndexerAction.TASK_CREATE, _plugin );
         }
@@ -337,7 +712,6 @@ public final class AnnounceHome
             AnnounceSearchService.getInstance( ).addIndexerAction( announce.getId( ), IndexerAction.TASK_DELETE, _plugin );
         }
 
-        AnnounceCacheService.getService( ).removeKey( AnnounceCacheService.getListIdPublishedAnnouncesCacheKey( ) );
         AnnounceCacheService.getService( ).removeKey( AnnounceCacheService.getAnnounceCacheKey( announce.getId( ) ) );
     }
 
@@ -349,10 +723,15 @@ public final class AnnounceHome
      */
     public static void setSuspendedByUser( Announce announce )
     {
+        boolean bWasVisible = wasVisible( announce.getId( ) );
         updateAnnouncePublicationTime( announce );
         _dao.setSuspendedByUser( announce, _plugin );
 
-        if ( announce.getPublished( ) && !announce.getSuspended( ) && !announce.getSuspendedByUser( ) )
+        boolean bIsVisible = isVisible( announce );
+        AnnounceCounterService.getService( ).updatePublishedAnnouncesCount( announce.getCategory( ) );
+        PublishedAnnounceIdService.getService( ).updateAnnounce( announce, bWasVisible, bIsVisible );
+
+        if ( bIsVisible )
         {
             AnnounceSearchService.getInstance( ).addIndexerAction( announce.getId( ), IndexerAction.TASK_CREATE, _plugin );
         }
@@ -361,7 +740,6 @@ public final class AnnounceHome
             AnnounceSearchService.getInstance( ).addIndexerAction( announce.getId( ), IndexerAction.TASK_DELETE, _plugin );
         }
 
-        AnnounceCacheService.getService( ).removeKey( AnnounceCacheService.getListIdPublishedAnnouncesCacheKey( ) );
         AnnounceCacheService.getService( ).removeKey( AnnounceCacheService.getAnnounceCacheKey( announce.getId( ) ) );
     }
 
@@ -377,6 +755,19 @@ public final class AnnounceHome
         return _dao.findIdAnnouncesByDateCreation( timestamp, _plugin );
     }
 
+    /**
+     * Get the announces created before the given date whose owner has not been notified yet. Only the id, the title and the contact information of announces
+     * are loaded.
+     * 
+     * @param timestamp
+     *            The timestamp
+     * @return The list of announces
+     */
+    public static List<Announce> findNotNotifiedByDateCreation( Timestamp timestamp )
+    {
+        return _dao.findNotNotifiedByDateCreation( timestamp, _plugin );
+    }
+
     /**
      * Get the list of ids of announces that were created after a given time
      * 
@@ -406,6 +797,12 @@ public final class AnnounceHome
     public static void insertAnnounceResponse( int nIdAnnounce, int nIdResponse, boolean bIsImage )
     {
         _dao.insertAnnounceResponse( nIdAnnounce, nIdResponse, bIsImage, _plugin );
+
+        if ( bIsImage )
+        {
+            AnnounceNegativeCacheService.getService( ).remove( AnnounceNegativeCacheService.FAMILY_IMAGE_RESPONSE, nIdResponse );
+            AnnounceCacheService.getService( ).removeKey( AnnounceCacheService.getImageResponsesCacheKey( nIdAnnounce ) );
+        }
     }
 
     /**
@@ -427,38 +824,109 @@ public final class AnnounceHome
      *            the id of the announce
      * @return the list of responses, or an empty list if no response was found
      */
+    @SuppressWarnings( "unchecked" )
     public static List<Integer> findListIdImageResponse( int nIdAnnounce )
     {
-        return _dao.findListIdImageResponse( nIdAnnounce, _plugin );
+        String strCacheKey = AnnounceCacheService.getImageResponsesCacheKey( nIdAnnounce );
+        List<Integer> listIdResponse = (List<Integer>) AnnounceCacheService.getService( ).getFromCache( strCacheKey );
+
+        if ( listIdResponse == null )
+        {
+            listIdResponse = Collections.unmodifiableList( _dao.findListIdImageResponse( nIdAnnounce, _plugin ) );
+            AnnounceCacheService.getService( ).putInCache( strCacheKey, listIdResponse );
+        }
+
+        return listIdResponse;
     }
 
     /**
-     * Get the list of responses associated with an announce
+     * Set the list of id of image responses of several announces. The lists that are not in the cache are loaded with a single query.
      * 
-     * @param nIdAnnounce
-     *            the id of the announce
-     * @param bLoadFiles
-     *            True to load files, false to ignore them. Note that physical files are never loaded by this method.
-     * @return the list of responses, or an empty list if no response was found
+     * @param listAnnounces
+     *            the announces
      */
-    public static List<Response> findListResponse( int nIdAnnounce, boolean bLoadFiles )
+    public static void loadListIdImageResponse( Collection<Announce> listAnnounces )
     {
-        List<Integer> listIdResponse = findListIdResponse( nIdAnnounce );
-        List<Response> listResponse = new ArrayList<>( listIdResponse.size( ) );
+        loadListIdImageResponse( listAnnounces, Announce::getId, Announce::setListIdImageResponse );
+    }
+
+    /**
+     * Set the list of ids of image responses of a list of announce summaries. Lists that are not in the cache are loaded with a single query.
+     * 
+     * @param listSummaries
+     *            The summaries of announces
+     */
+    public static void loadSummaryListIdImageResponse( Collection<AnnounceSummary> listSummaries )
+    {
+        loadListIdImageResponse( listSummaries, AnnounceSummary::getId, AnnounceSummary::setListIdImageResponse );
+    }
+
+    /**
+     * Set the list of ids of image responses of a list of announces or announce summaries. Lists that are not in the cache are loaded with a single query.
+     * 
+     * @param listAnnounces
+     *            The announces or announce summaries
+     * @param getId
+     *            The function that gives the id of an announce
+     * @param setListIdImageResponse
+     *            The function that sets the list of ids of image responses of an announce
+     * @param <T>
+     *            The type of announces
+     */
+    @SuppressWarnings( "unchecked" )
+    private static <T> void loadListIdImageResponse( Collection<T> listAnnounces, ToIntFunction<T> getId,
+            BiConsumer<T, List<Integer>> setListIdImageResponse )
+    {
+        Set<Integer> setIdNotCached = new HashSet<>( );
 
-        for ( Integer nIdResponse : listIdResponse )
+        for ( T announce : listAnnounces )
         {
-            Response response = ResponseHome.findByPrimaryKey( nIdResponse );
+            List<Integer> listIdResponse = (List<Integer>) AnnounceCacheService.getService( ).getFromCache(
+                    AnnounceCacheService.getImageResponsesCacheKey( getId.applyAsInt( announce ) ) );
 
-            if ( bLoadFiles && ( response.getFile( ) != null ) )
+            if ( listIdResponse != null )
             {
-                response.setFile( FileHome.findByPrimaryKey( response.getFile( ).getIdFile( ) ) );
+                setListIdImageResponse.accept( announce, listIdResponse );
             }
+            else
+            {
+                setIdNotCached.add( getId.applyAsInt( announce ) );
+            }
+        }
+
+        if ( setIdNotCached.isEmpty( ) )
+        {
+            return;
+        }
+
+        Map<Integer, List<Integer>> mapIdResponses = _dao.findListIdImageResponse( setIdNotCached, _plugin );
+
+        for ( T announce : listAnnounces )
+        {
+            int nIdAnnounce = getId.applyAsInt( announce );
 
-            listResponse.add( response );
+            if ( setIdNotCached.contains( nIdAnnounce ) )
+            {
+                List<Integer> listIdResponse = mapIdResponses.get( nIdAnnounce );
+                listIdResponse = ( listIdResponse != null ) ? Collections.unmodifiableList( listIdResponse ) : Collections.emptyList( );
+                AnnounceCacheService.getService( ).putInCache( AnnounceCacheService.getImageResponsesCacheKey( nIdAnnounce ), listIdResponse );
+                setListIdImageResponse.accept( announce, listIdResponse );
+            }
         }
+    }
 
-        return listResponse;
+    /**
+     * Get the list of responses associated with an announce. Responses are loaded with their entry, their field and their file in a single query.
+     * 
+     * @param nIdAnnounce
+     *            the id of the announce
+     * @param bLoadFiles
+     *            True to load the description of files, false to only load their id. Note that physical files are never loaded by this method.
+     * @return the list of responses, or an empty list if no response was found
+     */
+    public static List<Response> findListResponse( int nIdAnnounce, boolean bLoadFiles )
+    {
+        return _dao.findListResponse( nIdAnnounce, bLoadFiles, _plugin );
     }
 
     /**
@@ -470,6 +938,33 @@ public final class AnnounceHome
     public static void removeAnnounceResponse( int nIdAnnounce )
     {
         _dao.deleteAnnounceResponse( nIdAnnounce, _plugin );
+        AnnounceCacheService.getService( ).removeKey( AnnounceCacheService.getImageResponsesCacheKey( nIdAnnounce ) );
+    }
+
+    /**
+     * Check if an announce is visible in front office, that is to say if it is published and suspended neither by an administrator nor by its owner
+     * 
+     * @param announce
+     *            The announce
+     * @return True if the announce is visible, false otherwise
+     */
+    private static boolean isVisible( Announce announce )
+    {
+        return announce.getPublished( ) && !announce.getSuspended( ) && !announce.getSuspendedByUser( );
+    }
+
+    /**
+     * Check if the stored version of an announce is visible in front office. It must be called before the announce is updated in the database.
+     * 
+     * @param nIdAnnounce
+     *            The id of the announce
+     * @return True if the stored announce exists and is visible, false otherwise
+     */
+    private static boolean wasVisible( int nIdAnnounce )
+    {
+        Announce announce = findByPrimaryKey( nIdAnnounce );
+
+        return ( announce != null ) && isVisible( announce );
     }
 
     /**
@@ -481,7 +976,7 @@ public final class AnnounceHome
      */
     private static void updateAnnouncePublicationTime( Announce announce )
     {
-        if ( announce.getPublished( ) && !announce.getSuspended( ) && !announce.getSuspendedByUser( ) )
+        if ( isVisible( announce ) )
         {
             announce.setTimePublication( System.currentTimeMillis( ) );
         }
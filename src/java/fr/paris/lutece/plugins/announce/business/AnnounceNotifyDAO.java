@@ -46,8 +46,6 @@ public class AnnounceNotifyDAO implements IAnnounceNotifyDAO
     private static final String SQL_QUERY_INSERT = "INSERT INTO announce_notify ( id, id_announce) VALUES (?,?)";
     private static final String SQL_QUERY_DELETE = "DELETE FROM announce_notify WHERE id = ? ";
 
-    private static final String SQL_QUERY_NEW_PK = "SELECT max( id ) FROM announce_notify";
-
     @Override
     public void insert( AnnounceNotify announce, Plugin plugin )
     {
@@ -96,16 +94,6 @@ public class AnnounceNotifyDAO implements IAnnounceNotifyDAO
 
     public int newPrimaryKey( Plugin plugin )
     {
-        int nKey = 1;
-        try ( DAOUtil daoUtil = new DAOUtil( SQL_QUERY_NEW_PK, plugin ) )
-        {
-            daoUtil.executeQuery( );
-
-            if ( daoUtil.next( ) )
-            {
-                nKey = daoUtil.getInt( 1 ) + 1;
-            }
-        }
-        return nKey;
+        return IdSequenceHome.newPrimaryKey( IdSequence.NOTIFY );
     }
 }
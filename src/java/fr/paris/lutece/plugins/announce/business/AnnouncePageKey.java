@@ -0,0 +1,158 @@
+/*
+ * Copyright (c) 2002-2021, City of Paris
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions
+ * are met:
+ *
+ *  1. Redistributions of source code must retain the above copyright notice
+ *     and the following disclaimer.
+ *
+ *  2. Redistributions in binary form must reproduce the above copyright notice
+ *     and the following disclaimer in the documentation and/or other materials
+ *     provided with the distribution.
+ *
+ *  3. Neither the name of 'Mairie de Paris' nor 'Lutece' nor the names of its
+ *     contributors may be used to endorse or promote products derived from
+ *     this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDERS OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ *
+ * License 1.0
+ */
+package fr.paris.lutece.plugins.announce.business;
+
+import java.io.Serializable;
+
+/**
+ * Position of an announce in a sorted list of announces. It is made of the value of the sorted column and of the id of the announce, and is used to seek the
+ * page that follows this announce without scanning the previous ones. Keys are compared in ascending order of the sorted column, then of the id of the announce.
+ */
+public class AnnouncePageKey implements Serializable, Comparable<AnnouncePageKey>
+{
+    private static final long serialVersionUID = -4213307622154361271L;
+    private final Serializable _sortValue;
+    private final int _nIdAnnounce;
+
+    /**
+     * Creates a new page key
+     * 
+     * @param sortValue
+     *            The value of the sorted column
+     * @param nIdAnnounce
+     *            The id of the announce
+     */
+    public AnnouncePageKey( Serializable sortValue, int nIdAnnounce )
+    {
+        _sortValue = sortValue;
+        _nIdAnnounce = nIdAnnounce;
+    }
+
+    /**
+     * Get the value of the sorted column
+     * 
+     * @return The value of the sorted column
+     */
+    public Serializable getSortValue( )
+    {
+        return _sortValue;
+    }
+
+    /**
+     * Get the id of the announce
+     * 
+     * @return The id of the announce
+     */
+    public int getIdAnnounce( )
+    {
+        return _nIdAnnounce;
+    }
+
+    /**
+     * Get the key of an announce in a list sorted with a given sort
+     * 
+     * @param announce
+     *            The announce
+     * @param announceSort
+     *            The sort of the list
+     * @return The key of the announce
+     */
+    public static AnnouncePageKey getPageKey( Announce announce, AnnounceSort announceSort )
+    {
+        Serializable sortValue;
+
+        switch( announceSort.getSortColumn( ) )
+        {
+            case AnnounceSort.SORT_DATE_CREATION:
+                sortValue = announce.getDateCreation( );
+                break;
+            case AnnounceSort.SORT_DATE_PUBLICATION:
+                sortValue = announce.getTimePublication( );
+                break;
+            case AnnounceSort.SORT_TITLE:
+                sortValue = announce.getTitle( );
+                break;
+            case AnnounceSort.SORT_PRICE:
+                sortValue = ( announce.getPrice( ) == null ) ? Double.valueOf( 0 ) : announce.getPrice( );
+                break;
+            case AnnounceSort.SORT_DESCRIPTION:
+                sortValue = announce.getDescription( );
+                break;
+            default:
+                sortValue = announce.getDateModification( );
+                break;
+        }
+
+        return new AnnouncePageKey( sortValue, announce.getId( ) );
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    @SuppressWarnings( "unchecked" )
+    public int compareTo( AnnouncePageKey other )
+    {
+        int nResult;
+
+        if ( _sortValue == null )
+        {
+            nResult = ( other._sortValue == null ) ? 0 : -1;
+        }
+        else
+        {
+            nResult = ( other._sortValue == null ) ? 1 : ( (Comparable<Object>) _sortValue ).compareTo( other._sortValue );
+        }
+
+        return ( nResult != 0 ) ? nResult : Integer.compare( _nIdAnnounce, other._nIdAnnounce );
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public boolean equals( Object obj )
+    {
+        return ( obj instanceof AnnouncePageKey ) && ( compareTo( (AnnouncePageKey) obj ) == 0 );
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public int hashCode( )
+    {
+        return _nIdAnnounce;
+    }
+}
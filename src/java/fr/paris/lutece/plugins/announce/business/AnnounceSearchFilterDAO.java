@@ -48,7 +48,6 @@ import org.apache.commons.collections.CollectionUtils;
  */
 public class AnnounceSearchFilterDAO implements IAnnounceSearchFilterDAO
 {
-    private static final String SQL_QUERY_NEW_PRIMARY_KEY = " SELECT max(id_filter) FROM announce_search_filters ";
     private static final String SQL_QUERY_SELECT = " SELECT id_filter, id_category, keywords, date_min, date_max, price_min, price_max FROM announce_search_filters ";
     private static final String SQL_QUERY_SELECT_LIST_ID = SQL_QUERY_SELECT + " WHERE id_filter IN ( ";
     private static final String SQL_QUERY_SELECT_BY_PRIMARY_KEY = SQL_QUERY_SELECT + " WHERE id_filter = ? ";
@@ -68,17 +67,7 @@ public class AnnounceSearchFilterDAO implements IAnnounceSearchFilterDAO
      */
     private int getNewPrimaryKey( Plugin plugin )
     {
-        int nRes = 1;
-        try ( DAOUtil daoUtil = new DAOUtil( SQL_QUERY_NEW_PRIMARY_KEY, plugin ) )
-        {
-            daoUtil.executeQuery( );
-
-            if ( daoUtil.next( ) )
-            {
-                nRes = daoUtil.getInt( 1 ) + 1;
-            }
-        }
-        return nRes;
+        return IdSequenceHome.newPrimaryKey( IdSequence.SEARCH_FILTER );
     }
 
     /**
@@ -105,7 +94,7 @@ public class AnnounceSearchFilterDAO implements IAnnounceSearchFilterDAO
      * {@inheritDoc}
      */
     @Override
-    public synchronized void create( AnnounceSearchFilter filter, Plugin plugin )
+    public void create( AnnounceSearchFilter filter, Plugin plugin )
     {
         filter.setIdFilter( getNewPrimaryKey( plugin ) );
 
@@ -111,6 +111,36 @@ public class AnnounceSort
         return _bSortAsc;
     }
 
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public boolean equals( Object obj )
+    {
+        if ( this == obj )
+        {
+            return true;
+        }
+
+        if ( !( obj instanceof AnnounceSort ) )
+        {
+            return false;
+        }
+
+        AnnounceSort other = (AnnounceSort) obj;
+
+        return ( _bSortAsc == other._bSortAsc ) && StringUtils.equals( _strSortColumn, other._strSortColumn );
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public int hashCode( )
+    {
+        return ( 31 * StringUtils.defaultString( _strSortColumn ).hashCode( ) ) + Boolean.hashCode( _bSortAsc );
+    }
+
     /**
      * Get an announce sort from a string of the name of the column to sort
      * 
@@ -0,0 +1,383 @@
+/*
+ * Copyright (c) 2002-2021, City of Paris
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions
+ * are met:
+ *
+ *  1. Redistributions of source code must retain the above copyright notice
+ *     and the following disclaimer.
+ *
+ *  2. Redistributions in binary form must reproduce the above copyright notice
+ *     and the following disclaimer in the documentation and/or other materials
+ *     provided with the distribution.
+ *
+ *  3. Neither the name of 'Mairie de Paris' nor 'Lutece' nor the names of its
+ *     contributors may be used to endorse or promote products derived from
+ *     this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDERS OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ *
+ * License 1.0
+ */
+package fr.paris.lutece.plugins.announce.business;
+
+import fr.paris.lutece.plugins.announce.service.announcesearch.IAnnounceContentExtractor;
+import fr.paris.lutece.plugins.announce.service.announcesearch.StreamingHtmlContentExtractor;
+
+import java.sql.Timestamp;
+import java.util.List;
+
+import org.apache.commons.lang3.StringUtils;
+
+/**
+ * Lightweight projection of an announce used by list views. It does not contain the description of the announce, but a plain text excerpt of it stored when
+ * the announce is created or modified.
+ */
+public class AnnounceSummary
+{
+    /**
+     * Maximum length of the excerpt of the description of an announce
+     */
+    public static final int EXCERPT_MAX_LENGTH = 200;
+
+    private static final IAnnounceContentExtractor EXTRACTOR = new StreamingHtmlContentExtractor( );
+
+    private int _nIdAnnounce;
+    private String _strTitle;
+    private String _strExcerpt;
+    private Double _price;
+    private Timestamp _dateCreation;
+    private String _strUserName;
+    private String _strUserLastName;
+    private String _strUserSecondName;
+    private boolean _bPublished;
+    private boolean _bSuspended;
+    private boolean _bSuspendedByUser;
+    private boolean _bHasPictures;
+    private Category _category;
+    private List<Integer> _listIdImageResponse;
+
+    /**
+     * Get the id of the announce
+     * 
+     * @return The id of the announce
+     */
+    public int getId( )
+    {
+        return _nIdAnnounce;
+    }
+
+    /**
+     * Set the id of the announce
+     * 
+     * @param nIdAnnounce
+     *            The id of the announce
+     */
+    public void setId( int nIdAnnounce )
+    {
+        _nIdAnnounce = nIdAnnounce;
+    }
+
+    /**
+     * Get the title of the announce
+     * 
+     * @return The title of the announce
+     */
+    public String getTitle( )
+    {
+        return _strTitle;
+    }
+
+    /**
+     * Set the title of the announce
+     * 
+     * @param strTitle
+     *            The title of the announce
+     */
+    public void setTitle( String strTitle )
+    {
+        _strTitle = strTitle;
+    }
+
+    /**
+     * Get the excerpt of the description of the announce
+     * 
+     * @return The excerpt of the description of the announce
+     */
+    public String getExcerpt( )
+    {
+        return _strExcerpt;
+    }
+
+    /**
+     * Set the excerpt of the description of the announce
+     * 
+     * @param strExcerpt
+     *            The excerpt of the description of the announce
+     */
+    public void setExcerpt( String strExcerpt )
+    {
+        _strExcerpt = strExcerpt;
+    }
+
+    /**
+     * Get the price of the announce
+     * 
+     * @return The price of the announce
+     */
+    public Double getPrice( )
+    {
+        return _price;
+    }
+
+    /**
+     * Set the price of the announce
+     * 
+     * @param price
+     *            The price of the announce
+     */
+    public void setPrice( Double price )
+    {
+        _price = price;
+    }
+
+    /**
+     * Get the creation date of the announce
+     * 
+     * @return The creation date of the announce
+     */
+    public Timestamp getDateCreation( )
+    {
+        return _dateCreation;
+    }
+
+    /**
+     * Set the creation date of the announce
+     * 
+     * @param dateCreation
+     *            The creation date of the announce
+     */
+    public void setDateCreation( Timestamp dateCreation )
+    {
+        _dateCreation = dateCreation;
+    }
+
+    /**
+     * Get the name of the owner of the announce
+     * 
+     * @return The name of the owner of the announce
+     */
+    public String getUserName( )
+    {
+        return _strUserName;
+    }
+
+    /**
+     * Set the name of the owner of the announce
+     * 
+     * @param strUserName
+     *            The name of the owner of the announce
+     */
+    public void setUserName( String strUserName )
+    {
+        _strUserName = strUserName;
+    }
+
+    /**
+     * Get the last name of the owner of the announce
+     * 
+     * @return The last name of the owner of the announce
+     */
+    public String getUserLastName( )
+    {
+        return _strUserLastName;
+    }
+
+    /**
+     * Set the last name of the owner of the announce
+     * 
+     * @param strUserLastName
+     *            The last name of the owner of the announce
+     */
+    public void setUserLastName( String strUserLastName )
+    {
+        _strUserLastName = strUserLastName;
+    }
+
+    /**
+     * Get the second name of the owner of the announce
+     * 
+     * @return The second name of the owner of the announce
+     */
+    public String getUserSecondName( )
+    {
+        return _strUserSecondName;
+    }
+
+    /**
+     * Set the second name of the owner of the announce
+     * 
+     * @param strUserSecondName
+     *            The second name of the owner of the announce
+     */
+    public void setUserSecondName( String strUserSecondName )
+    {
+        _strUserSecondName = strUserSecondName;
+    }
+
+    /**
+     * Get the published state of the announce
+     * 
+     * @return The published state of the announce
+     */
+    public boolean getPublished( )
+    {
+        return _bPublished;
+    }
+
+    /**
+     * Set the published state of the announce
+     * 
+     * @param bPublished
+     *            The published state of the announce
+     */
+    public void setPublished( boolean bPublished )
+    {
+        _bPublished = bPublished;
+    }
+
+    /**
+     * Get the suspended state of the announce
+     * 
+     * @return The suspended state of the announce
+     */
+    public boolean getSuspended( )
+    {
+        return _bSuspended;
+    }
+
+    /**
+     * Set the suspended state of the announce
+     * 
+     * @param bSuspended
+     *            The suspended state of the announce
+     */
+    public void setSuspended( boolean bSuspended )
+    {
+        _bSuspended = bSuspended;
+    }
+
+    /**
+     * Get the suspended by user state of the announce
+     * 
+     * @return The suspended by user state of the announce
+     */
+    public boolean getSuspendedByUser( )
+    {
+        return _bSuspendedByUser;
+    }
+
+    /**
+     * Set the suspended by user state of the announce
+     * 
+     * @param bSuspendedByUser
+     *            The suspended by user state of the announce
+     */
+    public void setSuspendedByUser( boolean bSuspendedByUser )
+    {
+        _bSuspendedByUser = bSuspendedByUser;
+    }
+
+    /**
+     * Get the has pictures state of the announce
+     * 
+     * @return The has pictures state of the announce
+     */
+    public boolean getHasPictures( )
+    {
+        return _bHasPictures;
+    }
+
+    /**
+     * Set the has pictures state of the announce
+     * 
+     * @param bHasPictures
+     *            The has pictures state of the announce
+     */
+    public void setHasPictures( boolean bHasPictures )
+    {
+        _bHasPictures = bHasPictures;
+    }
+
+    /**
+     * Get the category of the announce
+     * 
+     * @return The category of the announce
+     */
+    public Category getCategory( )
+    {
+        return _category;
+    }
+
+    /**
+     * Set the category of the announce
+     * 
+     * @param category
+     *            The category of the announce
+     */
+    public void setCategory( Category category )
+    {
+        _category = category;
+    }
+
+    /**
+     * Get the list of ids of image responses of the announce
+     * 
+     * @return The list of ids of image responses of the announce
+     */
+    public List<Integer> getListIdImageResponse( )
+    {
+        return _listIdImageResponse;
+    }
+
+    /**
+     * Set the list of ids of image responses of the announce
+     * 
+     * @param listIdImageResponse
+     *            The list of ids of image responses of the announce
+     */
+    public void setListIdImageResponse( List<Integer> listIdImageResponse )
+    {
+        _listIdImageResponse = listIdImageResponse;
+    }
+
+    /**
+     * Build the excerpt of the description of an announce : the markup is stripped, character references are decoded, white spaces are collapsed and the
+     * text is abbreviated to {@link #EXCERPT_MAX_LENGTH} characters. The excerpt is plain text, so it must be escaped when it is displayed
+     * 
+     * @param strDescription
+     *            The description of the announce
+     * @return The excerpt of the description, never null
+     */
+    public static String getExcerpt( String strDescription )
+    {
+        if ( StringUtils.isBlank( strDescription ) )
+        {
+            return StringUtils.EMPTY;
+        }
+
+        return StringUtils.abbreviate( StringUtils.normalizeSpace( EXTRACTOR.extractText( strDescription ) ), EXCERPT_MAX_LENGTH );
+    }
+}
@@ -34,7 +34,6 @@
 package fr.paris.lutece.plugins.announce.business;
 
 import fr.paris.lutece.portal.service.rbac.RBACResource;
-import fr.paris.lutece.portal.service.util.AppLogService;
 
 import java.io.Serializable;
 
@@ -67,6 +66,7 @@ public class Category implements RBACResource, Serializable, Cloneable
     private String _strLabelSector;
     private int _nIdWorkflow;
     private boolean _bDisplayCaptcha;
+    private boolean _bSnapshot;
 
     /**
      * gets the id of category
@@ -86,6 +86,7 @@ public class Category implements RBACResource, Serializable, Cloneable
      */
     public void setId( int nId )
     {
+        checkMutable( );
         _nId = nId;
     }
 
@@ -107,6 +108,7 @@ public class Category implements RBACResource, Serializable, Cloneable
      */
     public void setIdSector( int nIdSector )
     {
+        checkMutable( );
         _nIdSector = nIdSector;
     }
 
@@ -128,6 +130,7 @@ public class Category implements RBACResource, Serializable, Cloneable
      */
     public void setLabel( String strLabel )
     {
+        checkMutable( );
         _strLabel = strLabel;
     }
 
@@ -149,6 +152,7 @@ public class Category implements RBACResource, Serializable, Cloneable
      */
     public void setNumberAnnounces( int nNumberAnnounces )
     {
+        checkMutable( );
         _nNumberAnnounces = nNumberAnnounces;
     }
 
@@ -170,6 +174,7 @@ public class Category implements RBACResource, Serializable, Cloneable
      */
     public void setAnnouncesValidation( int nAnnouncesValidation )
     {
+        checkMutable( );
         _nAnnouncesValidation = nAnnouncesValidation;
     }
 
@@ -209,6 +214,7 @@ public class Category implements RBACResource, Serializable, Cloneable
      */
     public void setDisplayPrice( boolean displayPrice )
     {
+        checkMutable( );
         this._bDisplayPrice = displayPrice;
     }
 
@@ -230,6 +236,7 @@ public class Category implements RBACResource, Serializable, Cloneable
      */
     public void setPriceMandatory( boolean bPriceMandatory )
     {
+        checkMutable( );
         this._bPriceMandatory = bPriceMandatory;
     }
 
@@ -251,6 +258,7 @@ public class Category implements RBACResource, Serializable, Cloneable
      */
     public void setIdMailingList( int nIdMailingList )
     {
+        checkMutable( );
         this._nIdMailingList = nIdMailingList;
     }
 
@@ -272,6 +280,7 @@ public class Category implements RBACResource, Serializable, Cloneable
      */
     public void setTags( String strTags )
     {
+        checkMutable( );
         _strTags = strTags;
     }
 
@@ -289,6 +298,7 @@ public class Category implements RBACResource, Serializable, Cloneable
      */
     public void setLabelSector( String strLabelSector )
     {
+        checkMutable( );
         this._strLabelSector = strLabelSector;
     }
 
@@ -310,6 +320,7 @@ public class Category implements RBACResource, Serializable, Cloneable
      */
     public void setIdWorkflow( int nIdWorkflow )
     {
+        checkMutable( );
         this._nIdWorkflow = nIdWorkflow;
     }
 
@@ -331,6 +342,7 @@ public class Category implements RBACResource, Serializable, Cloneable
      */
     public void setDisplayCaptcha( boolean bDisplayCaptcha )
     {
+        checkMutable( );
         this._bDisplayCaptcha = bDisplayCaptcha;
     }
 
@@ -340,15 +352,73 @@ public class Category implements RBACResource, Serializable, Cloneable
     @Override
     public Object clone( )
     {
-        try
+        return copy( );
+    }
+
+    /**
+     * Check whether this category is an immutable snapshot. Snapshots are shared by every reader of the cache, so they can not be modified
+     * 
+     * @return True if this category is a snapshot, false otherwise
+     */
+    public boolean isSnapshot( )
+    {
+        return _bSnapshot;
+    }
+
+    /**
+     * Get an immutable snapshot of this category
+     * 
+     * @return This category if it is already a snapshot, or a snapshot of this category otherwise
+     */
+    public Category getSnapshot( )
+    {
+        if ( _bSnapshot )
         {
-            return super.clone( );
+            return this;
         }
-        catch( CloneNotSupportedException e )
+
+        Category snapshot = copy( );
+        snapshot._bSnapshot = true;
+
+        return snapshot;
+    }
+
+    /**
+     * Get a modifiable copy of this category. This is the way to modify a category read from the cache : the copy is modified, and then saved through the
+     * category home
+     * 
+     * @return The modifiable copy
+     */
+    public Category copy( )
+    {
+        Category category = new Category( );
+        category._nId = _nId;
+        category._nIdSector = _nIdSector;
+        category._strLabel = _strLabel;
+        category._nNumberAnnounces = _nNumberAnnounces;
+        category._nAnnouncesValidation = _nAnnouncesValidation;
+        category._bDisplayPrice = _bDisplayPrice;
+        category._bPriceMandatory = _bPriceMandatory;
+        category._nIdMailingList = _nIdMailingList;
+        category._strTags = _strTags;
+        category._strLabelSector = _strLabelSector;
+        category._nIdWorkflow = _nIdWorkflow;
+        category._bDisplayCaptcha = _bDisplayCaptcha;
+
+        return category;
+    }
+
+    /**
+     * Check that this category can be modified
+     * 
+     * @throws UnsupportedOperationException
+     *             If this category is a snapshot
+     */
+    private void checkMutable( )
+    {
+        if ( _bSnapshot )
         {
-            AppLogService.error( e.getMessage( ), e );
+            throw new UnsupportedOperationException( "Category " + _nId + " is an immutable snapshot, use copy( ) to modify it" );
         }
-
-        return this;
     }
 }
@@ -38,14 +38,15 @@ import fr.paris.lutece.util.ReferenceList;
 import fr.paris.lutece.util.sql.DAOUtil;
 
 import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 
 /**
  * the DAO class for category
  */
 public final class CategoryDAO implements ICategoryDAO
 {
-    private static final String SQL_QUERY_NEWPK = "SELECT max( id_category ) FROM announce_category ";
     private static final String SQL_QUERY_SELECT = "SELECT id_category, id_sector, label_category, display_price, price_mandatory, announces_validation, id_mailing_list, id_workflow, display_captcha FROM announce_category WHERE id_category = ? ";
     private static final String SQL_QUERY_SELECTALL = "SELECT a.id_category, a.id_sector, a.label_category, b.label_sector FROM announce_category a, announce_sector b WHERE a.id_sector = b.id_sector ORDER BY a.id_sector, a.label_category";
     private static final String SQL_QUERY_INSERT = "INSERT INTO announce_category ( id_category, id_sector, label_category, display_price, price_mandatory, announces_validation, id_mailing_list, id_workflow, display_captcha )  VALUES (?,?,?,?,?,?,?,?,?) ";
@@ -53,6 +54,7 @@ public final class CategoryDAO implements ICategoryDAO
     private static final String SQL_QUERY_UPDATE = "UPDATE announce_category SET id_sector = ?, label_category = ?, display_price = ?, price_mandatory = ?, announces_validation = ?, id_mailing_list = ?, id_workflow = ?, display_captcha = ? WHERE id_category = ? ";
     private static final String SQL_QUERY_COUNT_ANNOUNCES_FOR_CATEORY = "SELECT COUNT(*) FROM announce_announce WHERE id_category = ?";
     private static final String SQL_QUERY_COUNT_PUBLISHED_ANNOUNCES_FOR_CATEORY = "SELECT COUNT(*) FROM announce_announce WHERE id_category = ? AND published = 1 AND suspended = 0 AND suspended_by_user = 0 ";
+    private static final String SQL_QUERY_COUNT_PUBLISHED_ANNOUNCES_BY_CATEGORY = "SELECT id_category, COUNT(*) FROM announce_announce WHERE published = 1 AND suspended = 0 AND suspended_by_user = 0 GROUP BY id_category";
     private static final String SQL_QUERY_COUNT_ENTRIES_FOR_CATEGORY = "SELECT COUNT(*) FROM announce_announce WHERE id_category = ?";
     private static final String SQL_QUERY_SELECT_CATEGORIES_FOR_FIELD = "SELECT id_category, id_sector, label_category FROM announce_category WHERE id_sector = ? ORDER BY label_category";
     private static final String SQL_QUERY_SELECT_CATEGORIES_REFERENCELIST = "SELECT id_category, label_category FROM announce_category";
@@ -66,17 +68,7 @@ public final class CategoryDAO implements ICategoryDAO
      */
     public int newPrimaryKey( Plugin plugin )
     {
-        int nKey = 1;
-        try ( DAOUtil daoUtil = new DAOUtil( SQL_QUERY_NEWPK, plugin ) )
-        {
-            daoUtil.executeQuery( );
-
-            if ( daoUtil.next( ) )
-            {
-                nKey = daoUtil.getInt( 1 ) + 1;
-            }
-        }
-        return nKey;
+        return IdSequenceHome.newPrimaryKey( IdSequence.CATEGORY );
     }
 
     /**
@@ -263,6 +255,25 @@ public final class CategoryDAO implements ICategoryDAO
         return nNumberAnnounces;
     }
 
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public Map<Integer, Integer> countPublishedAnnouncesByCategory( Plugin plugin )
+    {
+        Map<Integer, Integer> mapNumberAnnounces = new HashMap<>( );
+        try ( DAOUtil daoUtil = new DAOUtil( SQL_QUERY_COUNT_PUBLISHED_ANNOUNCES_BY_CATEGORY, plugin ) )
+        {
+            daoUtil.executeQuery( );
+
+            while ( daoUtil.next( ) )
+            {
+                mapNumberAnnounces.put( daoUtil.getInt( 1 ), daoUtil.getInt( 2 ) );
+            }
+        }
+        return mapNumberAnnounces;
+    }
+
     /**
      * {@inheritDoc}
      */
@@ -301,7 +312,6 @@ public final class CategoryDAO implements ICategoryDAO
                 category.setId( daoUtil.getInt( 1 ) );
                 category.setIdSector( daoUtil.getInt( 2 ) );
                 category.setLabel( daoUtil.getString( 3 ) );
-                category.setNumberAnnounces( countPublishedAnnouncesForCategory( category, plugin ) );
 
                 listCategories.add( category );
             }
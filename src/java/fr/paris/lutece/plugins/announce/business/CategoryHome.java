@@ -34,8 +34,11 @@
 package fr.paris.lutece.plugins.announce.business;
 
 import java.util.List;
+import java.util.Map;
 
 import fr.paris.lutece.plugins.announce.service.AnnounceCacheService;
+import fr.paris.lutece.plugins.announce.service.AnnounceCounterService;
+import fr.paris.lutece.plugins.announce.service.AnnounceFormService;
 import fr.paris.lutece.plugins.announce.service.AnnouncePlugin;
 import fr.paris.lutece.plugins.genericattributes.business.Entry;
 import fr.paris.lutece.plugins.genericattributes.business.EntryFilter;
@@ -69,6 +72,7 @@ public final class CategoryHome
     public static void create( Category category )
     {
         _dao.insert( category, _plugin );
+        AnnounceCounterService.getService( ).resetNavigationTree( );
     }
 
     /**
@@ -82,6 +86,8 @@ public final class CategoryHome
     {
         _dao.store( category, _plugin );
         AnnounceCacheService.getService( ).putInCache( AnnounceCacheService.getCategoryCacheKey( category.getId( ) ), category );
+        AnnounceCounterService.getService( ).resetNavigationTree( );
+        AnnounceFormService.getService( ).invalidateCategory( category.getId( ) );
 
         return category;
     }
@@ -119,6 +125,8 @@ public final class CategoryHome
         AnnounceSearchFilterHome.deleteByIdCategory( category.getId( ) );
         _dao.delete( category, _plugin );
         AnnounceCacheService.getService( ).removeKey( AnnounceCacheService.getCategoryCacheKey( category.getId( ) ) );
+        AnnounceCounterService.getService( ).resetNavigationTree( );
+        AnnounceFormService.getService( ).invalidateCategory( category.getId( ) );
     }
 
     // /////////////////////////////////////////////////////////////////////////
@@ -126,7 +134,8 @@ public final class CategoryHome
     // /////////////////////////////////////////////////////////////////////////
 
     /**
-     * Returns an instance of a category whose identifier is specified in parameter
+     * Returns an instance of a category whose identifier is specified in parameter. The category is an immutable snapshot shared with other readers : use
+     * {@link Category#copy( )} to modify it
      *
      * @param nKey
      *            The Primary key of the category
@@ -142,6 +151,7 @@ public final class CategoryHome
 
             if ( category != null )
             {
+                category = category.getSnapshot( );
                 AnnounceCacheService.getService( ).putInCache( AnnounceCacheService.getCategoryCacheKey( category.getId( ) ), category );
             }
         }
@@ -160,7 +170,7 @@ public final class CategoryHome
     }
 
     /**
-     * selects the categories list for a given sector
+     * selects the categories list for a given sector. The number of published announces of each category is read from the announce counters.
      * 
      * @param sector
      *            the sector
@@ -168,7 +178,14 @@ public final class CategoryHome
      */
     public static List<Category> findCategoriesForSector( Sector sector )
     {
-        return _dao.selectCategoriesForSector( sector, _plugin );
+        List<Category> listCategories = _dao.selectCategoriesForSector( sector, _plugin );
+
+        for ( Category category : listCategories )
+        {
+            category.setNumberAnnounces( AnnounceCounterService.getService( ).getPublishedAnnouncesCount( category.getId( ) ) );
+        }
+
+        return listCategories;
     }
 
     /**
@@ -205,6 +222,16 @@ public final class CategoryHome
         return _dao.countPublishedAnnouncesForCategory( category, _plugin );
     }
 
+    /**
+     * Count the number of published announces of every category
+     * 
+     * @return A map associating the id of each category having published announces with its number of published announces
+     */
+    public static Map<Integer, Integer> countPublishedAnnouncesByCategory( )
+    {
+        return _dao.countPublishedAnnouncesByCategory( _plugin );
+    }
+
     /**
      * Copy of an instance of Form
      *
@@ -244,5 +271,7 @@ public final class CategoryHome
             throw new AppException( e.getMessage( ), e );
         }
 
+        AnnounceCounterService.getService( ).resetNavigationTree( );
+
     }
 }
@@ -33,11 +33,15 @@
  */
 package fr.paris.lutece.plugins.announce.business;
 
+import fr.paris.lutece.plugins.genericattributes.business.Response;
 import fr.paris.lutece.portal.service.plugin.Plugin;
 
 import java.sql.Timestamp;
 
+import java.util.Collection;
 import java.util.List;
+import java.util.Map;
+import java.util.function.Consumer;
 
 /**
  * IAnnounceDAO Interface
@@ -74,6 +78,16 @@ public interface IAnnounceDAO
      */
     void delete( int nIdAnnounce, Plugin plugin );
 
+    /**
+     * Delete a list of announces, their responses and the associations between the announces and their responses. Files of responses are not removed.
+     * 
+     * @param listIdAnnounces
+     *            The ids of the announces to delete
+     * @param plugin
+     *            the Plugin
+     */
+    void deleteList( Collection<Integer> listIdAnnounces, Plugin plugin );
+
     // /////////////////////////////////////////////////////////////////////////
     // Finders
 
@@ -100,15 +114,63 @@ public interface IAnnounceDAO
     List<Integer> selectAll( AnnounceSort announceSort, Plugin plugin );
 
     /**
-     * selects id of published announces
+     * Load a page of announces. The page starts right after the announce of the given key, so that the announces of previous pages are not scanned
+     * 
+     * @param announceSort
+     *            the sort to use
+     * @param keyAfter
+     *            the key of the last announce of the previous page, or null to load the first page
+     * @param nPageSize
+     *            the maximum number of announces to load
+     * @param plugin
+     *            the Plugin
+     * @return The list of announces of the page
+     */
+    List<Announce> selectPage( AnnounceSort announceSort, AnnouncePageKey keyAfter, int nPageSize, Plugin plugin );
+
+    /**
+     * Load a page of announces from its offset. This should only be used when the key of the announce that precedes the page is unknown
+     * 
+     * @param announceSort
+     *            the sort to use
+     * @param nOffset
+     *            the number of announces to skip
+     * @param nPageSize
+     *            the maximum number of announces to load
+     * @param plugin
+     *            the Plugin
+     * @return The list of announces of the page
+     */
+    List<Announce> selectPageByOffset( AnnounceSort announceSort, int nOffset, int nPageSize, Plugin plugin );
+
+    /**
+     * Count every announce
+     * 
+     * @param plugin
+     *            the Plugin
+     * @return The number of announces
+     */
+    int countAll( Plugin plugin );
+
+    /**
+     * Count the announces that are published and suspended neither by an administrator nor by their owner
+     * 
+     * @param plugin
+     *            the Plugin
+     * @return The number of published announces
+     */
+    int countPublished( Plugin plugin );
+
+    /**
+     * Select the keys of published announces, in the order of the given sort. Announces with the same value of the sorted column are ordered by id
      * 
      * @param announceSort
      *            the sort to use
      * @param plugin
      *            the plugin
-     * @return id of published announces
+     * @return keys of published announces
      */
-    List<Integer> selectAllPublishedId( AnnounceSort announceSort, Plugin plugin );
+    List<AnnouncePageKey> selectAllPublishedKeys( AnnounceSort announceSort, Plugin plugin );
 
     /**
      * selects all the published announces
@@ -122,17 +184,42 @@ public interface IAnnounceDAO
     List<Announce> selectAllPublished( AnnounceSort announceSort, Plugin plugin );
 
     /**
-     * Get the list of announces from a list of ids
+     * Read every published announce and give them one at a time to a consumer. Announces are read by pages of at most nFetchSize rows ordered by id, so that
+     * only one page is held in memory whatever the number of announces. Announces are not sorted according to any announce sort.
+     * 
+     * @param consumer
+     *            The consumer that receives each announce
+     * @param nFetchSize
+     *            The maximum number of announces read by a single query
+     * @param plugin
+     *            the plugin
+     */
+    void forEachPublished( Consumer<Announce> consumer, int nFetchSize, Plugin plugin );
+
+    /**
+     * Get the list of announces from a list of ids with a single parameterized query. Announces are returned in no particular order, so callers should
+     * split large lists into chunks and order the result themselves
      * 
-     * @param announceSort
-     *            the sort to use
      * @param listIdAnnounces
      *            The list of ids of announces to get
      * @param plugin
      *            The plugin
      * @return The list of announces
      */
-    List<Announce> findByListId( List<Integer> listIdAnnounces, AnnounceSort announceSort, Plugin plugin );
+    List<Announce> findByListId( Collection<Integer> listIdAnnounces, Plugin plugin );
+
+    /**
+     * Get the summaries of a list of announces
+     * 
+     * @param listIdAnnounces
+     *            The list of ids of announces to get
+     * @param announceSort
+     *            the sort to use
+     * @param plugin
+     *            The plugin
+     * @return The list of summaries of announces
+     */
+    List<AnnounceSummary> findSummariesByListId( List<Integer> listIdAnnounces, AnnounceSort announceSort, Plugin plugin );
 
     /**
      * selects all published announces for a given category
@@ -160,6 +247,19 @@ public interface IAnnounceDAO
      */
     List<Announce> selectAllForUser( String strUsername, AnnounceSort announceSort, Plugin plugin );
 
+    /**
+     * selects the summaries of all announces of a given user
+     * 
+     * @param strUsername
+     *            the user name
+     * @param announceSort
+     *            the sort to use
+     * @param plugin
+     *            the plugin
+     * @return the summaries of the announces of the user
+     */
+    List<AnnounceSummary> selectSummariesForUser( String strUsername, AnnounceSort announceSort, Plugin plugin );
+
     /**
      * publish or unpublish an announce
      * 
@@ -172,6 +272,41 @@ public interface IAnnounceDAO
 
     void setHasNotifed( Announce announce, Plugin plugin );
 
+    /**
+     * Set the notification flag of a list of announces with a single statement
+     * 
+     * @param listIdAnnounces
+     *            The ids of the announces
+     * @param nHasNotified
+     *            The value of the notification flag
+     * @param plugin
+     *            the plugin
+     */
+    void setHasNotified( Collection<Integer> listIdAnnounces, int nHasNotified, Plugin plugin );
+
+    /**
+     * Select the descriptions of announces whose excerpt has not been built yet
+     * 
+     * @param nMaxResults
+     *            The maximum number of descriptions to select
+     * @param plugin
+     *            the plugin
+     * @return The map associating ids of announces with their description, ordered by id
+     */
+    Map<Integer, String> selectDescriptionsWithoutExcerpt( int nMaxResults, Plugin plugin );
+
+    /**
+     * Store the excerpt of the description of an announce
+     * 
+     * @param nIdAnnounce
+     *            The id of the announce
+     * @param strExcerpt
+     *            The excerpt
+     * @param plugin
+     *            the plugin
+     */
+    void storeExcerpt( int nIdAnnounce, String strExcerpt, Plugin plugin );
+
     /**
      * suspend or enable an announce
      * 
@@ -203,6 +338,18 @@ public interface IAnnounceDAO
      */
     List<Integer> findIdAnnouncesByDateCreation( Timestamp timestamp, Plugin plugin );
 
+    /**
+     * Get the announces created before the given date whose owner has not been notified yet. Only the id, the title and the contact information of announces
+     * are loaded.
+     * 
+     * @param timestamp
+     *            The timestamp
+     * @param plugin
+     *            The plugin
+     * @return The list of announces
+     */
+    List<Announce> findNotNotifiedByDateCreation( Timestamp timestamp, Plugin plugin );
+
     // ----------------------------------------
     // Announce response management
     // ----------------------------------------
@@ -243,6 +390,42 @@ public interface IAnnounceDAO
      */
     List<Integer> findListIdImageResponse( int nIdAnnounce, Plugin plugin );
 
+    /**
+     * Get the responses associated with an announce, with their entry, their field and the description of their file. Responses of a same entry share the
+     * same entry instance. Physical files are never loaded.
+     * 
+     * @param nIdAnnounce
+     *            the id of the announce
+     * @param bLoadFiles
+     *            True to load the description of files, false to only load their id
+     * @param plugin
+     *            the plugin
+     * @return the list of responses, or an empty list if no response was found
+     */
+    List<Response> findListResponse( int nIdAnnounce, boolean bLoadFiles, Plugin plugin );
+
+    /**
+     * Get the lists of id of image responses associated with several announces
+     * 
+     * @param listIdAnnounces
+     *            the ids of the announces
+     * @param plugin
+     *            the plugin
+     * @return the lists of image responses by id of announce. Announces without image response are not in the map
+     */
+    Map<Integer, List<Integer>> findListIdImageResponse( Collection<Integer> listIdAnnounces, Plugin plugin );
+
+    /**
+     * Get the ids of the files attached to the responses of a list of announces
+     * 
+     * @param listIdAnnounces
+     *            The ids of the announces
+     * @param plugin
+     *            The plugin
+     * @return The list of ids of files
+     */
+    List<Integer> findListIdFileResponse( Collection<Integer> listIdAnnounces, Plugin plugin );
+
     /**
      * Remove the association between an announce and responses
      * 
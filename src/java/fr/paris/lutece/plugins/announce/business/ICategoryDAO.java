@@ -37,6 +37,7 @@ import fr.paris.lutece.portal.service.plugin.Plugin;
 import fr.paris.lutece.util.ReferenceList;
 
 import java.util.List;
+import java.util.Map;
 
 /**
  *
@@ -138,5 +139,14 @@ public interface ICategoryDAO
      */
     int countPublishedAnnouncesForCategory( Category category, Plugin plugin );
 
+    /**
+     * Count the number of published announces of every category in a single query
+     * 
+     * @param plugin
+     *            The plugin
+     * @return A map associating the id of each category having published announces with its number of published announces
+     */
+    Map<Integer, Integer> countPublishedAnnouncesByCategory( Plugin plugin );
+
     int copyCategory( Category category, Plugin plugin );
 }
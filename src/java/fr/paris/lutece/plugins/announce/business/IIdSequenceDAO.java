@@ -0,0 +1,91 @@
+/*
+ * Copyright (c) 2002-2021, City of Paris
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions
+ * are met:
+ *
+ *  1. Redistributions of source code must retain the above copyright notice
+ *     and the following disclaimer.
+ *
+ *  2. Redistributions in binary form must reproduce the above copyright notice
+ *     and the following disclaimer in the documentation and/or other materials
+ *     provided with the distribution.
+ *
+ *  3. Neither the name of 'Mairie de Paris' nor 'Lutece' nor the names of its
+ *     contributors may be used to endorse or promote products derived from
+ *     this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDERS OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ *
+ * License 1.0
+ */
+package fr.paris.lutece.plugins.announce.business;
+
+import fr.paris.lutece.portal.service.plugin.Plugin;
+
+/**
+ * Interface for the DAO of identifier sequences
+ */
+public interface IIdSequenceDAO
+{
+    /**
+     * Get the next value of a sequence, which is the first identifier that has not been allocated yet
+     * 
+     * @param sequence
+     *            The sequence
+     * @param plugin
+     *            The plugin
+     * @return The next value of the sequence, or null if the sequence does not exist yet
+     */
+    Integer findNextValue( IdSequence sequence, Plugin plugin );
+
+    /**
+     * Get the greatest identifier used in the table of a sequence
+     * 
+     * @param sequence
+     *            The sequence
+     * @param plugin
+     *            The plugin
+     * @return The greatest identifier, or 0 if the table is empty
+     */
+    int findMaxId( IdSequence sequence, Plugin plugin );
+
+    /**
+     * Create a sequence. Fails if another node created it first
+     * 
+     * @param sequence
+     *            The sequence
+     * @param nNextValue
+     *            The next value of the sequence
+     * @param plugin
+     *            The plugin
+     */
+    void insert( IdSequence sequence, int nNextValue, Plugin plugin );
+
+    /**
+     * Move the next value of a sequence, provided no other allocation moved it since it was read
+     * 
+     * @param sequence
+     *            The sequence
+     * @param nExpectedNextValue
+     *            The next value of the sequence that was read
+     * @param nNewNextValue
+     *            The new next value of the sequence
+     * @param plugin
+     *            The plugin
+     * @return true if the identifiers between the two values were allocated by this call, false if another allocation came first
+     */
+    boolean reserve( IdSequence sequence, int nExpectedNextValue, int nNewNextValue, Plugin plugin );
+}
@@ -35,6 +35,7 @@ package fr.paris.lutece.plugins.announce.business;
 
 import fr.paris.lutece.portal.service.plugin.Plugin;
 
+import java.util.Collection;
 import java.util.List;
 
 /**
@@ -63,6 +64,16 @@ public interface IIndexerActionDAO
      */
     void insert( IndexerAction indexerAction, Plugin plugin );
 
+    /**
+     * Insert a list of actions whose ids are already set with a single statement
+     *
+     * @param listIndexerActions
+     *            the actions to insert
+     * @param plugin
+     *            the plugin
+     */
+    void insertList( List<IndexerAction> listIndexerActions, Plugin plugin );
+
     /**
      * Load the data of the IndexerAction from the table
      *
@@ -84,6 +95,16 @@ public interface IIndexerActionDAO
      */
     void delete( int nId, Plugin plugin );
 
+    /**
+     * Delete every action of a list of announces
+     *
+     * @param listIdAnnounces
+     *            The ids of the announces
+     * @param plugin
+     *            the plugin
+     */
+    void deleteByListIdAnnounce( Collection<Integer> listIdAnnounces, Plugin plugin );
+
     /**
      * Load the data of all indexerAction and returns them in a list
      * 
@@ -94,4 +115,13 @@ public interface IIndexerActionDAO
      * @return The List which contains the data of all action
      */
     List<IndexerAction> selectList( IndexerActionFilter filter, Plugin plugin );
+
+    /**
+     * Count every pending action
+     * 
+     * @param plugin
+     *            the plugin
+     * @return The number of pending actions
+     */
+    int countAll( Plugin plugin );
 }
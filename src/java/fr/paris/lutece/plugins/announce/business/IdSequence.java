@@ -0,0 +1,109 @@
+/*
+ * Copyright (c) 2002-2021, City of Paris
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions
+ * are met:
+ *
+ *  1. Redistributions of source code must retain the above copyright notice
+ *     and the following disclaimer.
+ *
+ *  2. Redistributions in binary form must reproduce the above copyright notice
+ *     and the following disclaimer in the documentation and/or other materials
+ *     provided with the distribution.
+ *
+ *  3. Neither the name of 'Mairie de Paris' nor 'Lutece' nor the names of its
+ *     contributors may be used to endorse or promote products derived from
+ *     this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDERS OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ *
+ * License 1.0
+ */
+package fr.paris.lutece.plugins.announce.business;
+
+/**
+ * Sequence of identifiers of the rows of a table. Identifiers are handed out by {@link IdSequenceHome}
+ */
+public final class IdSequence
+{
+    /** Sequence of the ids of announces */
+    public static final IdSequence ANNOUNCE = new IdSequence( "announce", "announce_announce", "id_announce" );
+
+    /** Sequence of the ids of categories */
+    public static final IdSequence CATEGORY = new IdSequence( "category", "announce_category", "id_category" );
+
+    /** Sequence of the ids of sectors */
+    public static final IdSequence SECTOR = new IdSequence( "sector", "announce_sector", "id_sector" );
+
+    /** Sequence of the ids of indexer actions */
+    public static final IdSequence INDEXER_ACTION = new IdSequence( "indexer_action", "announce_indexer_action", "id_action" );
+
+    /** Sequence of the ids of search filters */
+    public static final IdSequence SEARCH_FILTER = new IdSequence( "search_filter", "announce_search_filters", "id_filter" );
+
+    /** Sequence of the ids of announce notifications */
+    public static final IdSequence NOTIFY = new IdSequence( "notify", "announce_notify", "id" );
+
+    private final String _strName;
+    private final String _strTable;
+    private final String _strColumn;
+
+    /**
+     * Creates a new sequence
+     * 
+     * @param strName
+     *            The name of the sequence
+     * @param strTable
+     *            The table whose rows are identified by the sequence
+     * @param strColumn
+     *            The identifier column of the table
+     */
+    private IdSequence( String strName, String strTable, String strColumn )
+    {
+        _strName = strName;
+        _strTable = strTable;
+        _strColumn = strColumn;
+    }
+
+    /**
+     * Get the name of the sequence
+     * 
+     * @return The name of the sequence
+     */
+    public String getName( )
+    {
+        return _strName;
+    }
+
+    /**
+     * Get the table whose rows are identified by the sequence
+     * 
+     * @return The name of the table
+     */
+    public String getTable( )
+    {
+        return _strTable;
+    }
+
+    /**
+     * Get the identifier column of the table
+     * 
+     * @return The name of the column
+     */
+    public String getColumn( )
+    {
+        return _strColumn;
+    }
+}
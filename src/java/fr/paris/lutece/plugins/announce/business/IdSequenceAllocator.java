@@ -0,0 +1,157 @@
+/*
+ * Copyright (c) 2002-2021, City of Paris
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions
+ * are met:
+ *
+ *  1. Redistributions of source code must retain the above copyright notice
+ *     and the following disclaimer.
+ *
+ *  2. Redistributions in binary form must reproduce the above copyright notice
+ *     and the following disclaimer in the documentation and/or other materials
+ *     provided with the distribution.
+ *
+ *  3. Neither the name of 'Mairie de Paris' nor 'Lutece' nor the names of its
+ *     contributors may be used to endorse or promote products derived from
+ *     this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDERS OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ *
+ * License 1.0
+ */
+package fr.paris.lutece.plugins.announce.business;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import fr.paris.lutece.portal.service.plugin.Plugin;
+import fr.paris.lutece.portal.service.util.AppException;
+import fr.paris.lutece.portal.service.util.AppLogService;
+
+/**
+ * Allocator of identifiers of a node. It reserves blocks of identifiers in the sequence table, and then hands out the identifiers of its current block
+ * without accessing the database.
+ */
+final class IdSequenceAllocator
+{
+    private static final int MAX_RESERVE_ATTEMPTS = 100;
+    private final IIdSequenceDAO _dao;
+    private final Plugin _plugin;
+    private final int _nBlockSize;
+    private final Map<String, IdBlock> _mapBlocks = new ConcurrentHashMap<>( );
+
+    /**
+     * Creates a new allocator
+     * 
+     * @param dao
+     *            The DAO of the sequences
+     * @param plugin
+     *            The plugin
+     * @param nBlockSize
+     *            The number of identifiers reserved at once
+     */
+    IdSequenceAllocator( IIdSequenceDAO dao, Plugin plugin, int nBlockSize )
+    {
+        _dao = dao;
+        _plugin = plugin;
+        _nBlockSize = Math.max( 1, nBlockSize );
+    }
+
+    /**
+     * Get a new identifier
+     * 
+     * @param sequence
+     *            The sequence of the identifier
+     * @return The new identifier
+     */
+    int next( IdSequence sequence )
+    {
+        return _mapBlocks.computeIfAbsent( sequence.getName( ), strName -> new IdBlock( sequence ) ).next( );
+    }
+
+    /**
+     * Reserve a new block of identifiers
+     * 
+     * @param sequence
+     *            The sequence
+     * @return The first identifier of the block
+     */
+    private int reserveBlock( IdSequence sequence )
+    {
+        for ( int nAttempt = 0; nAttempt < MAX_RESERVE_ATTEMPTS; nAttempt++ )
+        {
+            Integer nNextValue = _dao.findNextValue( sequence, _plugin );
+
+            if ( nNextValue == null )
+            {
+                // First use of the sequence : it starts after the identifiers already in the table
+                try
+                {
+                    _dao.insert( sequence, _dao.findMaxId( sequence, _plugin ) + 1, _plugin );
+                }
+                catch( AppException e )
+                {
+                    AppLogService.debug( "Sequence " + sequence.getName( ) + " created by another node : " + e.getMessage( ) );
+                }
+            }
+            else
+            {
+                if ( _dao.reserve( sequence, nNextValue, nNextValue + _nBlockSize, _plugin ) )
+                {
+                    return nNextValue;
+                }
+            }
+        }
+
+        throw new AppException( "Unable to reserve identifiers in the sequence " + sequence.getName( ) );
+    }
+
+    /**
+     * Block of identifiers reserved by this allocator
+     */
+    private final class IdBlock
+    {
+        private final IdSequence _sequence;
+        private int _nNext;
+        private int _nLimit;
+
+        /**
+         * Creates an empty block
+         * 
+         * @param sequence
+         *            The sequence of the block
+         */
+        IdBlock( IdSequence sequence )
+        {
+            _sequence = sequence;
+        }
+
+        /**
+         * Get the next identifier of the block, and reserve a new block once this one is used up
+         * 
+         * @return The identifier
+         */
+        synchronized int next( )
+        {
+            if ( _nNext >= _nLimit )
+            {
+                _nNext = reserveBlock( _sequence );
+                _nLimit = _nNext + _nBlockSize;
+            }
+
+            return _nNext++;
+        }
+    }
+}
@@ -0,0 +1,197 @@
+/*
+ * Copyright (c) 2002-2021, City of Paris
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions
+ * are met:
+ *
+ *  1. Redistributions of source code must retain the above copyright notice
+ *     and the following disclaimer.
+ *
+ *  2. Redistributions in binary form must reproduce the above copyright notice
+ *     and the following disclaimer in the documentation and/or other materials
+ *     provided with the distribution.
+ *
+ *  3. Neither the name of 'Mairie de Paris' nor 'Lutece' nor the names of its
+ *     contributors may be used to endorse or promote products derived from
+ *     this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDERS OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ *
+ * License 1.0
+ */
+package fr.paris.lutece.plugins.announce.business;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+
+import fr.paris.lutece.portal.service.database.PluginConnectionService;
+import fr.paris.lutece.portal.service.plugin.Plugin;
+import fr.paris.lutece.portal.service.util.AppException;
+import fr.paris.lutece.util.sql.DAOUtil;
+
+/**
+ * DAO of identifier sequences. Sequences are moved with a compare and set update, so that nodes sharing the database never allocate the same identifiers
+ * and never lock each other. The sequence table is always accessed through a dedicated connection in auto commit mode, never through the connection of a
+ * transaction of the caller : a reservation is committed at once, holds no lock until the transaction of the caller ends, and is not undone if that
+ * transaction is rolled back.
+ */
+public final class IdSequenceDAO implements IIdSequenceDAO
+{
+    private static final String SQL_QUERY_SELECT_NEXT_VALUE = "SELECT next_value FROM announce_id_sequence WHERE sequence_name = ? ";
+    private static final String SQL_QUERY_INSERT = "INSERT INTO announce_id_sequence ( sequence_name, next_value ) VALUES (?,?) ";
+    private static final String SQL_QUERY_RESERVE = "UPDATE announce_id_sequence SET next_value = ? WHERE sequence_name = ? AND next_value = ? ";
+    private static final String SQL_QUERY_SELECT_MAX_ID = "SELECT max( %s ) FROM %s";
+
+    /**
+     * Work done on the dedicated connection
+     * 
+     * @param <T>
+     *            The type of the result
+     */
+    @FunctionalInterface
+    private interface ConnectionWork<T>
+    {
+        /**
+         * Do the work
+         * 
+         * @param connection
+         *            The dedicated connection, in auto commit mode
+         * @return The result
+         * @throws SQLException
+         *             If an SQL error occurred
+         */
+        T execute( Connection connection ) throws SQLException;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public Integer findNextValue( IdSequence sequence, Plugin plugin )
+    {
+        return executeOnDedicatedConnection( plugin, connection -> {
+            try ( PreparedStatement statement = connection.prepareStatement( SQL_QUERY_SELECT_NEXT_VALUE ) )
+            {
+                statement.setString( 1, sequence.getName( ) );
+
+                try ( ResultSet resultSet = statement.executeQuery( ) )
+                {
+                    return resultSet.next( ) ? resultSet.getInt( 1 ) : null;
+                }
+            }
+        } );
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public int findMaxId( IdSequence sequence, Plugin plugin )
+    {
+        int nMaxId = 0;
+
+        try ( DAOUtil daoUtil = new DAOUtil( String.format( SQL_QUERY_SELECT_MAX_ID, sequence.getColumn( ), sequence.getTable( ) ), plugin ) )
+        {
+            daoUtil.executeQuery( );
+
+            if ( daoUtil.next( ) )
+            {
+                nMaxId = daoUtil.getInt( 1 );
+            }
+        }
+
+        return nMaxId;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void insert( IdSequence sequence, int nNextValue, Plugin plugin )
+    {
+        executeOnDedicatedConnection( plugin, connection -> {
+            try ( PreparedStatement statement = connection.prepareStatement( SQL_QUERY_INSERT ) )
+            {
+                statement.setString( 1, sequence.getName( ) );
+                statement.setInt( 2, nNextValue );
+
+                return statement.executeUpdate( );
+            }
+        } );
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public boolean reserve( IdSequence sequence, int nExpectedNextValue, int nNewNextValue, Plugin plugin )
+    {
+        return executeOnDedicatedConnection( plugin, connection -> {
+            try ( PreparedStatement statement = connection.prepareStatement( SQL_QUERY_RESERVE ) )
+            {
+                int nIndex = 1;
+                statement.setInt( nIndex++, nNewNextValue );
+                statement.setString( nIndex++, sequence.getName( ) );
+                statement.setInt( nIndex, nExpectedNextValue );
+
+                // The update only matches if the sequence has not moved since it was read
+                return statement.executeUpdate( ) == 1;
+            }
+        } );
+    }
+
+    /**
+     * Execute some work on a connection of the pool of the plugin in auto commit mode. The connection is taken from the pool, so it is never the connection
+     * of a transaction in progress.
+     * 
+     * @param <T>
+     *            The type of the result
+     * @param plugin
+     *            The plugin
+     * @param work
+     *            The work to execute
+     * @return The result of the work
+     */
+    private static <T> T executeOnDedicatedConnection( Plugin plugin, ConnectionWork<T> work )
+    {
+        PluginConnectionService connectionService = plugin.getConnectionService( );
+        Connection connection = connectionService.getConnection( );
+
+        try
+        {
+            boolean bAutoCommit = connection.getAutoCommit( );
+            connection.setAutoCommit( true );
+
+            try
+            {
+                return work.execute( connection );
+            }
+            finally
+            {
+                connection.setAutoCommit( bAutoCommit );
+            }
+        }
+        catch( SQLException e )
+        {
+            throw new AppException( e.getMessage( ), e );
+        }
+        finally
+        {
+            connectionService.freeConnection( connection );
+        }
+    }
+}
@@ -0,0 +1,73 @@
+/*
+ * Copyright (c) 2002-2021, City of Paris
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions
+ * are met:
+ *
+ *  1. Redistributions of source code must retain the above copyright notice
+ *     and the following disclaimer.
+ *
+ *  2. Redistributions in binary form must reproduce the above copyright notice
+ *     and the following disclaimer in the documentation and/or other materials
+ *     provided with the distribution.
+ *
+ *  3. Neither the name of 'Mairie de Paris' nor 'Lutece' nor the names of its
+ *     contributors may be used to endorse or promote products derived from
+ *     this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDERS OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ *
+ * License 1.0
+ */
+package fr.paris.lutece.plugins.announce.business;
+
+import fr.paris.lutece.plugins.announce.service.AnnouncePlugin;
+import fr.paris.lutece.portal.service.plugin.PluginService;
+import fr.paris.lutece.portal.service.spring.SpringContextService;
+import fr.paris.lutece.portal.service.util.AppPropertiesService;
+
+/**
+ * Hands out new primary keys. Each node reserves blocks of identifiers in the sequence table, and then hands out the identifiers of its current block
+ * without accessing the database. Identifiers are unique among every node sharing the database, but they are not consecutive: identifiers of a block that
+ * is not used up when the webapp stops are never used.
+ */
+public final class IdSequenceHome
+{
+    private static final String PROPERTY_BLOCK_SIZE = "announce.idSequence.blockSize";
+    private static final int DEFAULT_BLOCK_SIZE = 20;
+
+    // Static variable pointed at the allocator of this node
+    private static IdSequenceAllocator _allocator = new IdSequenceAllocator( SpringContextService.getBean( "announce.idSequenceDAO" ),
+            PluginService.getPlugin( AnnouncePlugin.PLUGIN_NAME ), AppPropertiesService.getPropertyInt( PROPERTY_BLOCK_SIZE, DEFAULT_BLOCK_SIZE ) );
+
+    /**
+     * Private constructor - this class need not be instantiated
+     */
+    private IdSequenceHome( )
+    {
+    }
+
+    /**
+     * Get a new primary key
+     * 
+     * @param sequence
+     *            The sequence of the primary key
+     * @return The new primary key
+     */
+    public static int newPrimaryKey( IdSequence sequence )
+    {
+        return _allocator.next( sequence );
+    }
+}
@@ -38,6 +38,7 @@ import fr.paris.lutece.portal.service.plugin.Plugin;
 import fr.paris.lutece.util.sql.DAOUtil;
 
 import java.util.ArrayList;
+import java.util.Collection;
 import java.util.List;
 
 /**
@@ -46,11 +47,14 @@ import java.util.List;
 public final class IndexerActionDAO implements IIndexerActionDAO
 {
     // Constants
-    private static final String SQL_QUERY_NEW_PK = "SELECT max( id_action ) FROM announce_indexer_action";
     private static final String SQL_QUERY_FIND_BY_PRIMARY_KEY = "SELECT id_action,id_announce,id_task" + " FROM announce_indexer_action WHERE id_action = ?";
     private static final String SQL_QUERY_INSERT = "INSERT INTO announce_indexer_action( id_action,id_announce,id_task)" + " VALUES(?,?,?)";
     private static final String SQL_QUERY_DELETE = "DELETE FROM announce_indexer_action WHERE id_action = ? ";
+    private static final String SQL_QUERY_INSERT_LIST = "INSERT INTO announce_indexer_action( id_action,id_announce,id_task) VALUES";
+    private static final String SQL_QUERY_INSERT_LIST_VALUES = "(?,?,?)";
+    private static final String SQL_QUERY_DELETE_BY_LIST_ID_ANNOUNCE = "DELETE FROM announce_indexer_action WHERE id_announce IN (";
     private static final String SQL_QUERY_SELECT = "SELECT id_action,id_announce,id_task" + " FROM announce_indexer_action  ";
+    private static final String SQL_QUERY_COUNT_ALL = "SELECT COUNT(*) FROM announce_indexer_action ";
     private static final String SQL_FILTER_ID_TASK = " id_task = ? ";
     private static final String SQL_FILTER_ID_ANNOUNCE = " id_announce = ? ";
 
@@ -60,24 +64,14 @@ public final class IndexerActionDAO implements IIndexerActionDAO
     @Override
     public int newPrimaryKey( Plugin plugin )
     {
-        int nKey = 1;
-        try ( DAOUtil daoUtil = new DAOUtil( SQL_QUERY_NEW_PK, plugin ) )
-        {
-            daoUtil.executeQuery( );
-
-            if ( daoUtil.next( ) )
-            {
-                nKey = daoUtil.getInt( 1 ) + 1;
-            }
-        }
-        return nKey;
+        return IdSequenceHome.newPrimaryKey( IdSequence.INDEXER_ACTION );
     }
 
     /**
      * {@inheritDoc}
      */
     @Override
-    public synchronized void insert( IndexerAction indexerAction, Plugin plugin )
+    public void insert( IndexerAction indexerAction, Plugin plugin )
     {
         try ( DAOUtil daoUtil = new DAOUtil( SQL_QUERY_INSERT, plugin ) )
         {
@@ -92,6 +86,33 @@ public final class IndexerActionDAO implements IIndexerActionDAO
         }
     }
 
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void insertList( List<IndexerAction> listIndexerActions, Plugin plugin )
+    {
+        if ( listIndexerActions.isEmpty( ) )
+        {
+            return;
+        }
+
+        try ( DAOUtil daoUtil = new DAOUtil( AnnounceUtils.buildSqlList( SQL_QUERY_INSERT_LIST, SQL_QUERY_INSERT_LIST_VALUES, listIndexerActions.size( ) ),
+                plugin ) )
+        {
+            int nIndex = 1;
+
+            for ( IndexerAction indexerAction : listIndexerActions )
+            {
+                daoUtil.setInt( nIndex++, indexerAction.getIdAction( ) );
+                daoUtil.setInt( nIndex++, indexerAction.getIdAnnounce( ) );
+                daoUtil.setInt( nIndex++, indexerAction.getIdTask( ) );
+            }
+
+            daoUtil.executeUpdate( );
+        }
+    }
+
     /**
      * {@inheritDoc}
      */
@@ -129,6 +150,30 @@ public final class IndexerActionDAO implements IIndexerActionDAO
         }
     }
 
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void deleteByListIdAnnounce( Collection<Integer> listIdAnnounces, Plugin plugin )
+    {
+        if ( listIdAnnounces.isEmpty( ) )
+        {
+            return;
+        }
+
+        try ( DAOUtil daoUtil = new DAOUtil( AnnounceUtils.buildSqlInParameters( SQL_QUERY_DELETE_BY_LIST_ID_ANNOUNCE, listIdAnnounces.size( ) ), plugin ) )
+        {
+            int nIndex = 1;
+
+            for ( Integer nIdAnnounce : listIdAnnounces )
+            {
+                daoUtil.setInt( nIndex++, nIdAnnounce );
+            }
+
+            daoUtil.executeUpdate( );
+        }
+    }
+
     /**
      * {@inheritDoc}
      */
@@ -181,4 +226,25 @@ public final class IndexerActionDAO implements IIndexerActionDAO
         }
         return indexerActionList;
     }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public int countAll( Plugin plugin )
+    {
+        int nCount = 0;
+
+        try ( DAOUtil daoUtil = new DAOUtil( SQL_QUERY_COUNT_ALL, plugin ) )
+        {
+            daoUtil.executeQuery( );
+
+            if ( daoUtil.next( ) )
+            {
+                nCount = daoUtil.getInt( 1 );
+            }
+        }
+
+        return nCount;
+    }
 }
@@ -38,6 +38,8 @@ import fr.paris.lutece.portal.service.plugin.Plugin;
 import fr.paris.lutece.portal.service.plugin.PluginService;
 import fr.paris.lutece.portal.service.spring.SpringContextService;
 
+import java.util.ArrayList;
+import java.util.Collection;
 import java.util.List;
 
 /**
@@ -123,6 +125,49 @@ public final class IndexerActionHome
         _dao.delete( nId, _plugin );
     }
 
+    /**
+     * Build a delete action for each announce of a list. Ids of the actions are allocated immediately, so that the actions can then be stored inside a
+     * transaction
+     * 
+     * @param listIdAnnounces
+     *            The ids of the announces to remove from the index
+     * @return The list of delete actions
+     */
+    public static List<IndexerAction> newDeleteActions( Collection<Integer> listIdAnnounces )
+    {
+        List<IndexerAction> listIndexerActions = new ArrayList<>( listIdAnnounces.size( ) );
+
+        for ( Integer nIdAnnounce : listIdAnnounces )
+        {
+            IndexerAction indexerAction = new IndexerAction( );
+            indexerAction.setIdAction( _dao.newPrimaryKey( _plugin ) );
+            indexerAction.setIdAnnounce( nIdAnnounce );
+            indexerAction.setIdTask( IndexerAction.TASK_DELETE );
+            listIndexerActions.add( indexerAction );
+        }
+
+        return listIndexerActions;
+    }
+
+    /**
+     * Store a list of actions in place of every pending action of their announces. Actions must have their ids set
+     * 
+     * @param listIndexerActions
+     *            The actions to store
+     */
+    public static synchronized void replaceActions( List<IndexerAction> listIndexerActions )
+    {
+        List<Integer> listIdAnnounces = new ArrayList<>( listIndexerActions.size( ) );
+
+        for ( IndexerAction indexerAction : listIndexerActions )
+        {
+            listIdAnnounces.add( indexerAction.getIdAnnounce( ) );
+        }
+
+        _dao.deleteByListIdAnnounce( listIdAnnounces, _plugin );
+        _dao.insertList( listIndexerActions, _plugin );
+    }
+
     // /////////////////////////////////////////////////////////////////////////
     // Finders
 
@@ -149,4 +194,14 @@ public final class IndexerActionHome
     {
         return _dao.selectList( filter, _plugin );
     }
+
+    /**
+     * Count every pending IndexerAction
+     * 
+     * @return the number of pending indexerActions
+     */
+    public static int countAll( )
+    {
+        return _dao.countAll( _plugin );
+    }
 }
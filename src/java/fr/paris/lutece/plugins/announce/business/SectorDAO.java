@@ -48,7 +48,6 @@ import fr.paris.lutece.util.sql.DAOUtil;
  */
 public final class SectorDAO implements ISectorDAO
 {
-    private static final String SQL_QUERY_NEWPK = "SELECT max( id_sector ) FROM announce_sector ";
     private static final String SQL_QUERY_SELECT = "SELECT id_sector, label_sector, description_sector, announces_validation, sector_order, tags FROM announce_sector WHERE id_sector = ? ";
     private static final String SQL_QUERY_SELECTALL = "SELECT id_sector, label_sector, description_sector, announces_validation, sector_order,tags FROM announce_sector ORDER BY sector_ORDER";
     private static final String SQL_QUERY_INSERT = "INSERT INTO announce_sector ( id_sector, label_sector, description_sector, announces_validation, sector_order, tags )  VALUES (?,?,?,?,?,?) ";
@@ -74,17 +73,7 @@ public final class SectorDAO implements ISectorDAO
      */
     private int newPrimaryKey( Plugin plugin )
     {
-        int nKey = 1;
-        try ( DAOUtil daoUtil = new DAOUtil( SQL_QUERY_NEWPK, plugin ) )
-        {
-            daoUtil.executeQuery( );
-
-            if ( daoUtil.next( ) )
-            {
-                nKey = daoUtil.getInt( 1 ) + 1;
-            }
-        }
-        return nKey;
+        return IdSequenceHome.newPrimaryKey( IdSequence.SECTOR );
     }
 
     /**
@@ -33,6 +33,8 @@
  */
 package fr.paris.lutece.plugins.announce.business;
 
+import fr.paris.lutece.plugins.announce.service.AnnounceCounterService;
+import fr.paris.lutece.plugins.announce.service.AnnounceFormService;
 import fr.paris.lutece.plugins.announce.service.AnnouncePlugin;
 import fr.paris.lutece.portal.service.plugin.Plugin;
 import fr.paris.lutece.portal.service.plugin.PluginService;
@@ -68,6 +70,7 @@ public final class SectorHome
     public static Sector create( Sector sector, Plugin plugin )
     {
         _dao.insert( sector, plugin );
+        AnnounceCounterService.getService( ).resetNavigationTree( );
 
         return sector;
     }
@@ -84,6 +87,8 @@ public final class SectorHome
     public static Sector update( Sector sector, Plugin plugin )
     {
         _dao.store( sector, plugin );
+        AnnounceCounterService.getService( ).resetNavigationTree( );
+        AnnounceFormService.getService( ).invalidateAll( );
 
         return sector;
     }
@@ -99,6 +104,8 @@ public final class SectorHome
     public static void remove( Sector sector, Plugin plugin )
     {
         _dao.delete( sector, plugin );
+        AnnounceCounterService.getService( ).resetNavigationTree( );
+        AnnounceFormService.getService( ).invalidateAll( );
     }
 
     // /////////////////////////////////////////////////////////////////////////
@@ -172,6 +179,8 @@ public final class SectorHome
     public static void updateOrder( int nOrder, int nIdSector )
     {
         _dao.storeOrder( nOrder, nIdSector, _plugin );
+        AnnounceCounterService.getService( ).resetNavigationTree( );
+        AnnounceFormService.getService( ).invalidateAll( );
     }
 
     /**
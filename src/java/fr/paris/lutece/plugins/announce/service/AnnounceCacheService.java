@@ -45,7 +45,8 @@ public final class AnnounceCacheService extends AbstractCacheableService
     private static final String CACHE_SERVICE_NAME = "announce.announceCacheService";
     private static final String ANNOUNCE_KEY_PREFIXE = "announce.announce.";
     private static final String CATEGORY_KEY_PREFIXE = "announce.category.";
-    private static final String PUBLISHED_ANNOUNCES_ID_LIST_KEY_PREFIXE = "announce.announce.allPublishedId";
+    private static final String IMAGE_RESPONSES_KEY_PREFIXE = "announce.imageResponses.";
+    private static final String ANNOUNCES_COUNT_KEY_PREFIXE = "announce.announce.count";
     private static AnnounceCacheService _instance = new AnnounceCacheService( );
 
     /**
@@ -91,66 +92,54 @@ public final class AnnounceCacheService extends AbstractCacheableService
     }
 
     /**
-     * Get the cache key of the list of published announces
+     * Get the cache key of the list of ids of image responses of an announce
      * 
-     * @return The cache key of the list of published announces
+     * @param nIdAnnounce
+     *            The id of the announce
+     * @return The cache key of the list of ids of image responses of the announce
      */
-    public static String getListIdPublishedAnnouncesCacheKey( )
+    public static String getImageResponsesCacheKey( int nIdAnnounce )
     {
-        return PUBLISHED_ANNOUNCES_ID_LIST_KEY_PREFIXE;
+        return IMAGE_RESPONSES_KEY_PREFIXE + nIdAnnounce;
     }
 
     /**
-     * {@inheritDoc}
+     * Get the cache key of the number of announces
+     * 
+     * @return The cache key of the number of announces
      */
-    @Override
-    public String getName( )
+    public static String getAnnouncesCountCacheKey( )
     {
-        return CACHE_SERVICE_NAME;
+        return ANNOUNCES_COUNT_KEY_PREFIXE;
     }
 
     /**
      * {@inheritDoc}
      */
     @Override
-    public Object getFromCache( String strKey )
+    public String getName( )
     {
-        Object object = super.getFromCache( strKey );
-
-        if ( object != null )
-        {
-            if ( object instanceof Announce )
-            {
-                return ( (Announce) object ).clone( );
-            }
-
-            if ( object instanceof Category )
-            {
-                return ( (Category) object ).clone( );
-            }
-        }
-
-        return object;
+        return CACHE_SERVICE_NAME;
     }
 
     /**
-     * {@inheritDoc}
+     * {@inheritDoc} Announces and categories are stored as immutable snapshots, so that they can be shared by readers without being copied
      */
     @Override
     public void putInCache( String strKey, Object object )
     {
-        Object clonedObject = object;
+        Object snapshot = object;
 
         if ( object instanceof Announce )
         {
-            clonedObject = ( (Announce) object ).clone( );
+            snapshot = ( (Announce) object ).getSnapshot( );
         }
 
         if ( object instanceof Category )
         {
-            clonedObject = ( (Category) object ).clone( );
+            snapshot = ( (Category) object ).getSnapshot( );
         }
 
-        super.putInCache( strKey, clonedObject );
+        super.putInCache( strKey, snapshot );
     }
 }
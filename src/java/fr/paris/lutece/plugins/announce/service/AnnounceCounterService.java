@@ -0,0 +1,301 @@
+/*
+ * Copyright (c) 2002-2021, City of Paris
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions
+ * are met:
+ *
+ *  1. Redistributions of source code must retain the above copyright notice
+ *     and the following disclaimer.
+ *
+ *  2. Redistributions in binary form must reproduce the above copyright notice
+ *     and the following disclaimer in the documentation and/or other materials
+ *     provided with the distribution.
+ *
+ *  3. Neither the name of 'Mairie de Paris' nor 'Lutece' nor the names of its
+ *     contributors may be used to endorse or promote products derived from
+ *     this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDERS OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ *
+ * License 1.0
+ */
+package fr.paris.lutece.plugins.announce.service;
+
+import fr.paris.lutece.plugins.announce.business.Category;
+import fr.paris.lutece.plugins.announce.business.CategoryHome;
+import fr.paris.lutece.plugins.announce.business.Sector;
+import fr.paris.lutece.plugins.announce.business.SectorHome;
+import fr.paris.lutece.portal.service.cache.AbstractCacheableService;
+import fr.paris.lutece.portal.service.util.AppPropertiesService;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Cache service that keeps the number of published announces of each category, and the sectors / categories tree displayed in the navigation menu.
+ * Counters are loaded with a single query when they are not in the cache or when they are older than their time to live. The counter of a category is then
+ * recounted in the database each time the visibility of one of its announces may have changed, so that it never drifts on this node. Flushing the cache from
+ * the administration reloads everything.
+ */
+public final class AnnounceCounterService extends AbstractCacheableService
+{
+    private static final String CACHE_SERVICE_NAME = "announce.announceCounterService";
+    private static final String KEY_PUBLISHED_ANNOUNCES_COUNT = "announce.counters.publishedAnnounces";
+    private static final String KEY_NAVIGATION_TREE = "announce.counters.navigationTree";
+    private static final String PROPERTY_COUNTERS_TIME_TO_LIVE = "announce.counters.timeToLive";
+    private static final int DEFAULT_COUNTERS_TIME_TO_LIVE = 300;
+    private static final long MILLISECONDS_PER_SECOND = 1000L;
+    private static final AnnounceCounterService _singleton = new AnnounceCounterService( );
+    private final long _lCountersTimeToLive;
+
+    /**
+     * Private constructor
+     */
+    private AnnounceCounterService( )
+    {
+        _lCountersTimeToLive = AppPropertiesService.getPropertyInt( PROPERTY_COUNTERS_TIME_TO_LIVE, DEFAULT_COUNTERS_TIME_TO_LIVE ) * MILLISECONDS_PER_SECOND;
+        initCache( );
+    }
+
+    /**
+     * Get the instance of the service
+     * 
+     * @return The instance of the service
+     */
+    public static AnnounceCounterService getService( )
+    {
+        return _singleton;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public String getName( )
+    {
+        return CACHE_SERVICE_NAME;
+    }
+
+    /**
+     * Get the number of published announces of a category
+     * 
+     * @param nIdCategory
+     *            The id of the category
+     * @return The number of published announces of the category
+     */
+    public int getPublishedAnnouncesCount( int nIdCategory )
+    {
+        Integer nCount = getPublishedAnnouncesCounters( ).getCounts( ).get( nIdCategory );
+
+        return ( nCount != null ) ? nCount : 0;
+    }
+
+    /**
+     * Recount the published announces of a category after the visibility of one of its announces may have changed. It must be called after the announce is
+     * written in the database. Recounts are serialized, so the last one always sees every change that triggered a recount before it.
+     * 
+     * @param category
+     *            The category of the announce
+     */
+    public synchronized void updatePublishedAnnouncesCount( Category category )
+    {
+        PublishedAnnouncesCounters counters = (PublishedAnnouncesCounters) getFromCache( KEY_PUBLISHED_ANNOUNCES_COUNT );
+
+        // Counters that are not loaded yet will be read from the database with the change
+        if ( ( counters == null ) || counters.isExpired( _lCountersTimeToLive ) )
+        {
+            return;
+        }
+
+        Map<Integer, Integer> mapCounts = new HashMap<>( counters.getCounts( ) );
+        mapCounts.put( category.getId( ), CategoryHome.countPublishedAnnouncesForCategory( category ) );
+        putInCache( KEY_PUBLISHED_ANNOUNCES_COUNT, new PublishedAnnouncesCounters( mapCounts, counters.getLoadTime( ) ) );
+    }
+
+    /**
+     * Drop the sectors / categories tree. It must be called each time a sector or a category is created, modified or removed.
+     */
+    public void resetNavigationTree( )
+    {
+        removeKey( KEY_NAVIGATION_TREE );
+    }
+
+    /**
+     * Get the list of sectors with their categories and their number of published announces. The returned objects are copies that can be freely modified by
+     * the caller.
+     * 
+     * @return The list of sectors
+     */
+    public Collection<Sector> getSectorList( )
+    {
+        List<Sector> listSectors = getNavigationTree( );
+        Map<Integer, Integer> mapCounts = getPublishedAnnouncesCounters( ).getCounts( );
+        List<Sector> listResult = new ArrayList<>( listSectors.size( ) );
+
+        for ( Sector sector : listSectors )
+        {
+            Sector sectorCopy = copySector( sector );
+            List<Category> listCategories = new ArrayList<>( sector.getListCategories( ).size( ) );
+            int nNumberAnnounces = 0;
+
+            for ( Category category : sector.getListCategories( ) )
+            {
+                Category categoryCopy = category.copy( );
+                Integer nCount = mapCounts.get( category.getId( ) );
+                categoryCopy.setNumberAnnounces( ( nCount != null ) ? nCount : 0 );
+                nNumberAnnounces += categoryCopy.getNumberAnnounces( );
+                listCategories.add( categoryCopy );
+            }
+
+            sectorCopy.setListCategories( listCategories );
+            sectorCopy.setNumberAnnounces( nNumberAnnounces );
+            listResult.add( sectorCopy );
+        }
+
+        return listResult;
+    }
+
+    /**
+     * Get the counters of published announces, and load them if they are not in the cache or if they are expired
+     * 
+     * @return The counters of published announces
+     */
+    private PublishedAnnouncesCounters getPublishedAnnouncesCounters( )
+    {
+        PublishedAnnouncesCounters counters = (PublishedAnnouncesCounters) getFromCache( KEY_PUBLISHED_ANNOUNCES_COUNT );
+
+        if ( ( counters == null ) || counters.isExpired( _lCountersTimeToLive ) )
+        {
+            synchronized( this )
+            {
+                counters = (PublishedAnnouncesCounters) getFromCache( KEY_PUBLISHED_ANNOUNCES_COUNT );
+
+                if ( ( counters == null ) || counters.isExpired( _lCountersTimeToLive ) )
+                {
+                    counters = new PublishedAnnouncesCounters( CategoryHome.countPublishedAnnouncesByCategory( ), System.currentTimeMillis( ) );
+                    putInCache( KEY_PUBLISHED_ANNOUNCES_COUNT, counters );
+                }
+            }
+        }
+
+        return counters;
+    }
+
+    /**
+     * Get the sectors / categories tree, and load it if it is not in the cache
+     * 
+     * @return The list of sectors with their categories
+     */
+    @SuppressWarnings( "unchecked" )
+    private List<Sector> getNavigationTree( )
+    {
+        List<Sector> listSectors = (List<Sector>) getFromCache( KEY_NAVIGATION_TREE );
+
+        if ( listSectors == null )
+        {
+            listSectors = new ArrayList<>( SectorHome.findAll( ) );
+
+            for ( Sector sector : listSectors )
+            {
+                sector.setListCategories( Collections.unmodifiableList( CategoryHome.findCategoriesForSector( sector ) ) );
+            }
+
+            listSectors = Collections.unmodifiableList( listSectors );
+            putInCache( KEY_NAVIGATION_TREE, listSectors );
+        }
+
+        return listSectors;
+    }
+
+    /**
+     * Copy the attributes of a sector, except its categories and its number of announces
+     * 
+     * @param sector
+     *            The sector to copy
+     * @return The copy of the sector
+     */
+    private static Sector copySector( Sector sector )
+    {
+        Sector sectorCopy = new Sector( );
+        sectorCopy.setId( sector.getId( ) );
+        sectorCopy.setLabel( sector.getLabel( ) );
+        sectorCopy.setDescription( sector.getDescription( ) );
+        sectorCopy.setNumberCategories( sector.getNumberCategories( ) );
+        sectorCopy.setAnnouncesValidation( sector.getAnnouncesValidation( ) );
+        sectorCopy.setOrder( sector.getOrder( ) );
+        sectorCopy.setTags( sector.getTags( ) );
+
+        return sectorCopy;
+    }
+
+    /**
+     * Immutable snapshot of the numbers of published announces of categories, with the time they were loaded from the database
+     */
+    private static final class PublishedAnnouncesCounters
+    {
+        private final Map<Integer, Integer> _mapCounts;
+        private final long _lLoadTime;
+
+        /**
+         * Constructor
+         * 
+         * @param mapCounts
+         *            The map associating ids of categories with their number of published announces
+         * @param lLoadTime
+         *            The time the counters were loaded from the database
+         */
+        PublishedAnnouncesCounters( Map<Integer, Integer> mapCounts, long lLoadTime )
+        {
+            _mapCounts = Collections.unmodifiableMap( new HashMap<>( mapCounts ) );
+            _lLoadTime = lLoadTime;
+        }
+
+        /**
+         * Get the numbers of published announces
+         * 
+         * @return The map associating ids of categories with their number of published announces
+         */
+        Map<Integer, Integer> getCounts( )
+        {
+            return _mapCounts;
+        }
+
+        /**
+         * Get the time the counters were loaded from the database
+         * 
+         * @return The load time
+         */
+        long getLoadTime( )
+        {
+            return _lLoadTime;
+        }
+
+        /**
+         * Check if the counters must be reloaded from the database
+         * 
+         * @param lTimeToLive
+         *            The time to live of the counters, in milliseconds
+         * @return True if the counters are older than their time to live
+         */
+        boolean isExpired( long lTimeToLive )
+        {
+            return ( System.currentTimeMillis( ) - _lLoadTime ) > lTimeToLive;
+        }
+    }
+}
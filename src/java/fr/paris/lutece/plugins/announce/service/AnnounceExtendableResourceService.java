@@ -73,6 +73,7 @@ public class AnnounceExtendableResourceService implements IExtendableResourceSer
 
             if ( announce != null )
             {
+                announce = announce.copy( );
                 announce.setListIdImageResponse( AnnounceHome.findListIdImageResponse( nIdResource ) );
 
                 return announce;
@@ -0,0 +1,314 @@
+/*
+ * Copyright (c) 2002-2021, City of Paris
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions
+ * are met:
+ *
+ *  1. Redistributions of source code must retain the above copyright notice
+ *     and the following disclaimer.
+ *
+ *  2. Redistributions in binary form must reproduce the above copyright notice
+ *     and the following disclaimer in the documentation and/or other materials
+ *     provided with the distribution.
+ *
+ *  3. Neither the name of 'Mairie de Paris' nor 'Lutece' nor the names of its
+ *     contributors may be used to endorse or promote products derived from
+ *     this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDERS OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ *
+ * License 1.0
+ */
+package fr.paris.lutece.plugins.announce.service;
+
+import fr.paris.lutece.plugins.announce.business.Category;
+import fr.paris.lutece.plugins.announce.business.CategoryHome;
+import fr.paris.lutece.plugins.announce.business.Sector;
+import fr.paris.lutece.plugins.announce.business.SectorHome;
+import fr.paris.lutece.plugins.announce.service.CategoryForm.FormEntry;
+import fr.paris.lutece.plugins.genericattributes.business.Entry;
+import fr.paris.lutece.plugins.genericattributes.business.EntryFilter;
+import fr.paris.lutece.plugins.genericattributes.business.EntryHome;
+import fr.paris.lutece.plugins.genericattributes.business.Field;
+import fr.paris.lutece.plugins.genericattributes.business.FieldHome;
+import fr.paris.lutece.plugins.genericattributes.service.entrytype.EntryTypeServiceManager;
+import fr.paris.lutece.portal.service.cache.AbstractCacheableService;
+import fr.paris.lutece.portal.service.util.AppPropertiesService;
+
+import org.apache.commons.collections.CollectionUtils;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Cache service that compiles the forms of categories. The entries of a category are loaded once and kept in memory until the form of the category is
+ * invalidated or is older than its time to live, so that rendering or validating a form does not need any database access. The time to live bounds the
+ * delay after which the changes made by other nodes are seen, and there is at most one form for each category. Every modification of a category, a sector,
+ * an entry or a field must call one of the invalidate methods of this service. Flushing or disabling the cache from the administration drops every form.
+ */
+public final class AnnounceFormService extends AbstractCacheableService
+{
+    private static final String CACHE_SERVICE_NAME = "announce.announceFormService";
+    private static final String PROPERTY_TIME_TO_LIVE = "announce.forms.timeToLive";
+    private static final int DEFAULT_TIME_TO_LIVE = 3600;
+    private static final long MILLISECONDS_PER_SECOND = 1000L;
+    private static final AnnounceFormService _singleton = new AnnounceFormService( );
+    private final Map<Integer, CompiledForm> _mapForms = new ConcurrentHashMap<>( );
+    private final long _lTimeToLive;
+
+    /**
+     * Private constructor
+     */
+    private AnnounceFormService( )
+    {
+        _lTimeToLive = AppPropertiesService.getPropertyInt( PROPERTY_TIME_TO_LIVE, DEFAULT_TIME_TO_LIVE ) * MILLISECONDS_PER_SECOND;
+        initCache( );
+    }
+
+    /**
+     * Get the instance of the service
+     * 
+     * @return The instance of the service
+     */
+    public static AnnounceFormService getService( )
+    {
+        return _singleton;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public String getName( )
+    {
+        return CACHE_SERVICE_NAME;
+    }
+
+    /**
+     * {@inheritDoc} The compiled forms are dropped too
+     */
+    @Override
+    public void resetCache( )
+    {
+        super.resetCache( );
+        _mapForms.clear( );
+    }
+
+    /**
+     * {@inheritDoc} The compiled forms are dropped, so that they are compiled again from the database
+     */
+    @Override
+    public void enableCache( boolean bEnable )
+    {
+        super.enableCache( bEnable );
+        _mapForms.clear( );
+    }
+
+    /**
+     * Get the compiled form of a category. The form is compiled on the first call, and then shared until it is invalidated or expires
+     * 
+     * @param nIdCategory
+     *            The id of the category
+     * @return The compiled form of the category
+     */
+    public CategoryForm getForm( int nIdCategory )
+    {
+        if ( !isCacheEnable( ) )
+        {
+            return compileForm( nIdCategory );
+        }
+
+        // The form is compiled while holding the lock of its key, so that a concurrent invalidation waits for the compilation and drops its result
+        CompiledForm compiledForm = _mapForms.compute( nIdCategory, ( nKey, formCached ) -> {
+            if ( ( formCached != null ) && !formCached.isExpired( _lTimeToLive ) )
+            {
+                return formCached;
+            }
+
+            return new CompiledForm( compileForm( nKey ), System.currentTimeMillis( ) );
+        } );
+
+        return compiledForm._form;
+    }
+
+    /**
+     * Invalidate the compiled form of a category, after the category or one of its entries was modified. It will be compiled again the next time it is used
+     * 
+     * @param nIdCategory
+     *            The id of the category
+     */
+    public void invalidateCategory( int nIdCategory )
+    {
+        _mapForms.remove( nIdCategory );
+    }
+
+    /**
+     * Invalidate the compiled form of the category an entry belongs to, after the entry or one of its fields was modified
+     * 
+     * @param nIdEntry
+     *            The id of the entry
+     */
+    public void invalidateEntry( int nIdEntry )
+    {
+        Entry entry = EntryHome.findByPrimaryKey( nIdEntry );
+
+        if ( entry != null )
+        {
+            invalidateCategory( entry.getIdResource( ) );
+        }
+        else
+        {
+            invalidateAll( );
+        }
+    }
+
+    /**
+     * Invalidate every compiled form, after a sector was modified or when the category of a modification is unknown
+     */
+    public void invalidateAll( )
+    {
+        _mapForms.clear( );
+    }
+
+    /**
+     * Compile the form of a category
+     * 
+     * @param nIdCategory
+     *            The id of the category
+     * @return The compiled form
+     */
+    private CategoryForm compileForm( int nIdCategory )
+    {
+        EntryFilter filter = new EntryFilter( );
+        filter.setIdResource( nIdCategory );
+        filter.setResourceType( Category.RESOURCE_TYPE );
+        filter.setEntryParentNull( EntryFilter.FILTER_TRUE );
+        filter.setFieldDependNull( EntryFilter.FILTER_TRUE );
+
+        Map<Integer, FormEntry> mapEntries = new HashMap<>( );
+        List<FormEntry> listRootEntries = new ArrayList<>( );
+
+        for ( Entry entry : EntryHome.getEntryList( filter ) )
+        {
+            listRootEntries.add( compileEntry( entry.getIdEntry( ), mapEntries ) );
+        }
+
+        Category category = CategoryHome.findByPrimaryKey( nIdCategory );
+        Sector sector = ( category != null ) ? SectorHome.findByPrimaryKey( category.getIdSector( ) ) : null;
+
+        return new CategoryForm( nIdCategory, sector, listRootEntries, mapEntries );
+    }
+
+    /**
+     * Compile an entry, its children and its conditional questions
+     * 
+     * @param nIdEntry
+     *            The id of the entry
+     * @param mapEntries
+     *            The map to register compiled entries in
+     * @return The compiled entry
+     */
+    private FormEntry compileEntry( int nIdEntry, Map<Integer, FormEntry> mapEntries )
+    {
+        Entry entry = EntryHome.findByPrimaryKey( nIdEntry );
+        List<Field> listFields = new ArrayList<>( );
+
+        if ( entry.getFields( ) != null )
+        {
+            // Fields are loaded one by one to get their conditional questions and regular expressions
+            for ( Field field : entry.getFields( ) )
+            {
+                Field fieldLoaded = FieldHome.findByPrimaryKey( field.getIdField( ) );
+                listFields.add( ( fieldLoaded != null ) ? fieldLoaded : field );
+            }
+        }
+
+        entry.setFields( listFields );
+
+        List<FormEntry> listChildren = new ArrayList<>( );
+
+        if ( Boolean.TRUE.equals( entry.getEntryType( ).getGroup( ) ) && ( entry.getChildren( ) != null ) )
+        {
+            for ( Entry entryChild : entry.getChildren( ) )
+            {
+                listChildren.add( compileEntry( entryChild.getIdEntry( ), mapEntries ) );
+            }
+        }
+
+        Map<Integer, List<FormEntry>> mapConditionalEntries = new HashMap<>( );
+
+        if ( entry.getNumberConditionalQuestion( ) != 0 )
+        {
+            for ( Field field : listFields )
+            {
+                if ( CollectionUtils.isNotEmpty( field.getConditionalQuestions( ) ) )
+                {
+                    List<FormEntry> listConditionalEntries = new ArrayList<>( );
+
+                    for ( Entry entryConditional : field.getConditionalQuestions( ) )
+                    {
+                        listConditionalEntries.add( compileEntry( entryConditional.getIdEntry( ), mapEntries ) );
+                    }
+
+                    mapConditionalEntries.put( field.getIdField( ), Collections.unmodifiableList( listConditionalEntries ) );
+                }
+            }
+        }
+
+        FormEntry formEntry = new FormEntry( entry, EntryTypeServiceManager.getEntryTypeService( entry ), listChildren, mapConditionalEntries );
+        mapEntries.put( nIdEntry, formEntry );
+
+        return formEntry;
+    }
+
+    /**
+     * A compiled form and the time it was compiled
+     */
+    private static final class CompiledForm
+    {
+        private final CategoryForm _form;
+        private final long _lCompileTime;
+
+        /**
+         * Creates a new compiled form
+         * 
+         * @param form
+         *            The form
+         * @param lCompileTime
+         *            The time the form was compiled
+         */
+        CompiledForm( CategoryForm form, long lCompileTime )
+        {
+            _form = form;
+            _lCompileTime = lCompileTime;
+        }
+
+        /**
+         * Check if the form is older than a time to live
+         * 
+         * @param lTimeToLive
+         *            The time to live, in milliseconds
+         * @return True if the form is older than the time to live, false otherwise
+         */
+        boolean isExpired( long lTimeToLive )
+        {
+            return ( System.currentTimeMillis( ) - _lCompileTime ) > lTimeToLive;
+        }
+    }
+}
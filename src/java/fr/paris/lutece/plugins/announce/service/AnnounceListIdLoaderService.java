@@ -0,0 +1,238 @@
+/*
+ * Copyright (c) 2002-2021, City of Paris
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions
+ * are met:
+ *
+ *  1. Redistributions of source code must retain the above copyright notice
+ *     and the following disclaimer.
+ *
+ *  2. Redistributions in binary form must reproduce the above copyright notice
+ *     and the following disclaimer in the documentation and/or other materials
+ *     provided with the distribution.
+ *
+ *  3. Neither the name of 'Mairie de Paris' nor 'Lutece' nor the names of its
+ *     contributors may be used to endorse or promote products derived from
+ *     this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDERS OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ *
+ * License 1.0
+ */
+package fr.paris.lutece.plugins.announce.service;
+
+import fr.paris.lutece.portal.service.init.ShutdownService;
+import fr.paris.lutece.portal.service.init.ShutdownServiceManager;
+import fr.paris.lutece.portal.service.plugin.Plugin;
+import fr.paris.lutece.portal.service.util.AppException;
+import fr.paris.lutece.portal.service.util.AppLogService;
+import fr.paris.lutece.portal.service.util.AppPropertiesService;
+import fr.paris.lutece.util.sql.TransactionManager;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+/**
+ * Service that loads chunks of a list of ids concurrently. Its threads are created the first time several chunks must be loaded, and are stopped when the
+ * webapp is stopped. Chunks are loaded by the calling thread when a transaction is active, so that they see the changes of the transaction.
+ */
+public final class AnnounceListIdLoaderService
+{
+    private static final String PROPERTY_LIST_ID_THREADS = "announce.listId.nbThreads";
+    private static final int DEFAULT_LIST_ID_THREADS = 2;
+    private static final String THREAD_NAME = "announce-findByListId";
+    private static final long SHUTDOWN_TIMEOUT_SECONDS = 5L;
+    private static final AnnounceListIdLoaderService _singleton = new AnnounceListIdLoaderService( );
+    private ExecutorService _executor;
+    private boolean _bShutdown;
+
+    /**
+     * Private constructor
+     */
+    private AnnounceListIdLoaderService( )
+    {
+        ShutdownServiceManager.registerShutdownService( new ListIdLoaderShutdownService( ) );
+    }
+
+    /**
+     * Get the instance of the service
+     * 
+     * @return The instance of the service
+     */
+    public static AnnounceListIdLoaderService getService( )
+    {
+        return _singleton;
+    }
+
+    /**
+     * Load chunks of ids. Chunks are loaded concurrently when there are several of them, several threads are configured and no transaction is active
+     * 
+     * @param <T>
+     *            The type of the result of a chunk
+     * @param listChunks
+     *            The chunks of ids to load
+     * @param loader
+     *            The function that loads a chunk
+     * @param plugin
+     *            The plugin whose transactions must be checked
+     * @return The result of each chunk, in the order of the chunks
+     */
+    public <T> List<T> loadChunks( List<List<Integer>> listChunks, Function<List<Integer>, T> loader, Plugin plugin )
+    {
+        List<T> listResults = new ArrayList<>( listChunks.size( ) );
+        ExecutorService executor = ( ( listChunks.size( ) > 1 ) && !isTransactionActive( plugin ) ) ? getExecutor( ) : null;
+
+        if ( executor == null )
+        {
+            for ( List<Integer> listChunk : listChunks )
+            {
+                listResults.add( loader.apply( listChunk ) );
+            }
+
+            return listResults;
+        }
+
+        List<CompletableFuture<T>> listFutures = new ArrayList<>( listChunks.size( ) );
+
+        for ( List<Integer> listChunk : listChunks )
+        {
+            listFutures.add( CompletableFuture.supplyAsync( ( ) -> loader.apply( listChunk ), executor ) );
+        }
+
+        try
+        {
+            for ( CompletableFuture<T> future : listFutures )
+            {
+                listResults.add( future.join( ) );
+            }
+        }
+        catch( CompletionException e )
+        {
+            if ( e.getCause( ) instanceof RuntimeException )
+            {
+                throw (RuntimeException) e.getCause( );
+            }
+
+            throw new AppException( e.getMessage( ), e );
+        }
+
+        return listResults;
+    }
+
+    /**
+     * Check if the calling thread runs a transaction, either a Lutece transaction of the plugin or a Spring managed transaction. Other threads would not
+     * use its connection
+     * 
+     * @param plugin
+     *            The plugin
+     * @return True if a transaction is active
+     */
+    private static boolean isTransactionActive( Plugin plugin )
+    {
+        return ( TransactionManager.getCurrentTransaction( plugin ) != null ) || TransactionSynchronizationManager.isActualTransactionActive( );
+    }
+
+    /**
+     * Get the executor used to load chunks concurrently. Its number of threads should stay below the size of the connection pool
+     * 
+     * @return The executor, or null if chunks must be loaded by the calling thread
+     */
+    private synchronized ExecutorService getExecutor( )
+    {
+        if ( ( _executor == null ) && !_bShutdown )
+        {
+            int nNbThreads = AppPropertiesService.getPropertyInt( PROPERTY_LIST_ID_THREADS, DEFAULT_LIST_ID_THREADS );
+
+            if ( nNbThreads <= 1 )
+            {
+                return null;
+            }
+
+            _executor = Executors.newFixedThreadPool( nNbThreads, runnable -> {
+                Thread thread = new Thread( runnable, THREAD_NAME );
+                thread.setDaemon( true );
+
+                return thread;
+            } );
+        }
+
+        return _executor;
+    }
+
+    /**
+     * Stop the threads of the executor. Chunks requested afterwards are loaded by the calling thread
+     */
+    private synchronized void shutdown( )
+    {
+        _bShutdown = true;
+
+        if ( _executor == null )
+        {
+            return;
+        }
+
+        _executor.shutdown( );
+
+        try
+        {
+            if ( !_executor.awaitTermination( SHUTDOWN_TIMEOUT_SECONDS, TimeUnit.SECONDS ) )
+            {
+                _executor.shutdownNow( );
+            }
+        }
+        catch( InterruptedException e )
+        {
+            AppLogService.error( "Interrupted while stopping the threads loading announces", e );
+            _executor.shutdownNow( );
+            Thread.currentThread( ).interrupt( );
+        }
+
+        _executor = null;
+    }
+
+    /**
+     * Shutdown service that stops the threads loading chunks when the webapp is stopped
+     */
+    private static final class ListIdLoaderShutdownService implements ShutdownService
+    {
+        private static final String SERVICE_NAME = "Announce list of ids loader shutdown service";
+
+        /**
+         * {@inheritDoc}
+         */
+        @Override
+        public String getName( )
+        {
+            return SERVICE_NAME;
+        }
+
+        /**
+         * {@inheritDoc}
+         */
+        @Override
+        public void process( )
+        {
+            _singleton.shutdown( );
+        }
+    }
+}
@@ -0,0 +1,335 @@
+/*
+ * Copyright (c) 2002-2021, City of Paris
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions
+ * are met:
+ *
+ *  1. Redistributions of source code must retain the above copyright notice
+ *     and the following disclaimer.
+ *
+ *  2. Redistributions in binary form must reproduce the above copyright notice
+ *     and the following disclaimer in the documentation and/or other materials
+ *     provided with the distribution.
+ *
+ *  3. Neither the name of 'Mairie de Paris' nor 'Lutece' nor the names of its
+ *     contributors may be used to endorse or promote products derived from
+ *     this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDERS OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ *
+ * License 1.0
+ */
+package fr.paris.lutece.plugins.announce.service;
+
+import fr.paris.lutece.portal.service.cache.AbstractCacheableService;
+import fr.paris.lutece.portal.service.util.AppPropertiesService;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.springframework.transaction.support.TransactionSynchronizationAdapter;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+/**
+ * Cache service that remembers for a short time the ids that were not found in the database, so that repeated lookups of deleted announces or images
+ * (stale links, crawlers...) do not query the database each time. Ids are grouped by families, and each family has its own metrics. An id is forgotten as
+ * soon as it is created again, and again when the Spring transaction that created it commits.<br>
+ * Each family has a version that changes each time an id is created : a lookup reads the version before querying the database, and its result is not
+ * remembered if an id was created meanwhile, since the lookup may have missed it.
+ */
+public final class AnnounceNegativeCacheService extends AbstractCacheableService
+{
+    /**
+     * Family of ids of announces
+     */
+    public static final String FAMILY_ANNOUNCE = "announce";
+
+    /**
+     * Family of ids of responses looked up as images of announces
+     */
+    public static final String FAMILY_IMAGE_RESPONSE = "imageResponse";
+
+    private static final String CACHE_SERVICE_NAME = "announce.announceNegativeCacheService";
+    private static final String PROPERTY_TIME_TO_LIVE = "announce.negativeCache.timeToLive";
+    private static final String PROPERTY_MAX_SIZE = "announce.negativeCache.maxSize";
+    private static final int DEFAULT_TIME_TO_LIVE = 60;
+    private static final int DEFAULT_MAX_SIZE = 10000;
+    private static final AnnounceNegativeCacheService _singleton = new AnnounceNegativeCacheService( );
+    private final Map<String, Family> _mapFamilies = new ConcurrentHashMap<>( );
+    private final long _lTimeToLive;
+    private final int _nMaxSize;
+
+    /**
+     * Private constructor
+     */
+    private AnnounceNegativeCacheService( )
+    {
+        _lTimeToLive = AppPropertiesService.getPropertyInt( PROPERTY_TIME_TO_LIVE, DEFAULT_TIME_TO_LIVE ) * 1000L;
+        _nMaxSize = AppPropertiesService.getPropertyInt( PROPERTY_MAX_SIZE, DEFAULT_MAX_SIZE );
+        initCache( );
+    }
+
+    /**
+     * Get the instance of the service
+     * 
+     * @return The instance of the service
+     */
+    public static AnnounceNegativeCacheService getService( )
+    {
+        return _singleton;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public String getName( )
+    {
+        return CACHE_SERVICE_NAME;
+    }
+
+    /**
+     * {@inheritDoc} Every missing id is forgotten too
+     */
+    @Override
+    public void resetCache( )
+    {
+        super.resetCache( );
+        reset( );
+    }
+
+    /**
+     * {@inheritDoc} Every missing id is forgotten, and no id is remembered while the cache is disabled
+     */
+    @Override
+    public void enableCache( boolean bEnable )
+    {
+        super.enableCache( bEnable );
+        reset( );
+    }
+
+    /**
+     * Check if an id is known to be missing from the database
+     * 
+     * @param strFamily
+     *            The family of the id
+     * @param nId
+     *            The id
+     * @return True if the id was not found in the database a short time ago, false if the database must be queried
+     */
+    public boolean isMissing( String strFamily, int nId )
+    {
+        if ( !isEnabled( ) )
+        {
+            return false;
+        }
+
+        Family family = getFamily( strFamily );
+        Long lExpiration = family._mapExpirations.get( nId );
+
+        if ( lExpiration != null )
+        {
+            if ( lExpiration > System.currentTimeMillis( ) )
+            {
+                family._lHits.incrementAndGet( );
+
+                return true;
+            }
+
+            family._mapExpirations.remove( nId, lExpiration );
+        }
+
+        return false;
+    }
+
+    /**
+     * Get the current version of a family. It must be read before the database is queried, and given back to {@link #putMissing(String, int, long)}
+     * 
+     * @param strFamily
+     *            The family
+     * @return The version of the family
+     */
+    public long getVersion( String strFamily )
+    {
+        return getFamily( strFamily )._lVersion.get( );
+    }
+
+    /**
+     * Remember that an id was not found in the database, unless an id of its family was created since the database was queried
+     * 
+     * @param strFamily
+     *            The family of the id
+     * @param nId
+     *            The id
+     * @param lVersion
+     *            The version of the family read before the database was queried
+     */
+    public void putMissing( String strFamily, int nId, long lVersion )
+    {
+        Family family = getFamily( strFamily );
+        family._lMisses.incrementAndGet( );
+
+        if ( !isEnabled( ) )
+        {
+            return;
+        }
+
+        long lNow = System.currentTimeMillis( );
+
+        synchronized( family )
+        {
+            if ( family._lVersion.get( ) != lVersion )
+            {
+                return;
+            }
+
+            if ( family._mapExpirations.size( ) >= _nMaxSize )
+            {
+                family._mapExpirations.values( ).removeIf( lExpiration -> lExpiration <= lNow );
+
+                if ( family._mapExpirations.size( ) >= _nMaxSize )
+                {
+                    family._mapExpirations.clear( );
+                }
+            }
+
+            family._mapExpirations.put( nId, lNow + _lTimeToLive );
+        }
+    }
+
+    /**
+     * Forget that an id was missing, because it has just been created. If a Spring transaction is active, the id is forgotten again when it commits, since
+     * lookups made until then do not see it
+     * 
+     * @param strFamily
+     *            The family of the id
+     * @param nId
+     *            The id
+     */
+    public void remove( String strFamily, int nId )
+    {
+        forget( getFamily( strFamily ), nId );
+
+        if ( TransactionSynchronizationManager.isSynchronizationActive( ) )
+        {
+            TransactionSynchronizationManager.registerSynchronization( new TransactionSynchronizationAdapter( )
+            {
+                @Override
+                public void afterCommit( )
+                {
+                    forget( getFamily( strFamily ), nId );
+                }
+            } );
+        }
+    }
+
+    /**
+     * Forget every missing id
+     */
+    public void reset( )
+    {
+        for ( Family family : _mapFamilies.values( ) )
+        {
+            family._mapExpirations.clear( );
+        }
+    }
+
+    /**
+     * Get the number of lookups of a family that were answered without querying the database
+     * 
+     * @param strFamily
+     *            The family
+     * @return The number of hits
+     */
+    public long getHits( String strFamily )
+    {
+        return getFamily( strFamily )._lHits.get( );
+    }
+
+    /**
+     * Get the number of lookups of a family that queried the database for an id that does not exist
+     * 
+     * @param strFamily
+     *            The family
+     * @return The number of misses
+     */
+    public long getMisses( String strFamily )
+    {
+        return getFamily( strFamily )._lMisses.get( );
+    }
+
+    /**
+     * Get the number of ids of a family that are currently known to be missing
+     * 
+     * @param strFamily
+     *            The family
+     * @return The number of ids
+     */
+    public int getSize( String strFamily )
+    {
+        return getFamily( strFamily )._mapExpirations.size( );
+    }
+
+    /**
+     * Check if missing ids are remembered
+     * 
+     * @return True if missing ids are remembered
+     */
+    private boolean isEnabled( )
+    {
+        return ( _lTimeToLive > 0 ) && isCacheEnable( );
+    }
+
+    /**
+     * Forget that an id was missing, and change the version of its family so that lookups that started before are not remembered
+     * 
+     * @param family
+     *            The family of the id
+     * @param nId
+     *            The id
+     */
+    private static void forget( Family family, int nId )
+    {
+        synchronized( family )
+        {
+            family._lVersion.incrementAndGet( );
+            family._mapExpirations.remove( nId );
+        }
+    }
+
+    /**
+     * Get a family of ids
+     * 
+     * @param strFamily
+     *            The name of the family
+     * @return The family
+     */
+    private Family getFamily( String strFamily )
+    {
+        return _mapFamilies.computeIfAbsent( strFamily, strName -> new Family( ) );
+    }
+
+    /**
+     * Missing ids of a family, with their expiration time, the version of the family and its metrics
+     */
+    private static final class Family
+    {
+        private final Map<Integer, Long> _mapExpirations = new ConcurrentHashMap<>( );
+        private final AtomicLong _lVersion = new AtomicLong( );
+        private final AtomicLong _lHits = new AtomicLong( );
+        private final AtomicLong _lMisses = new AtomicLong( );
+    }
+}
@@ -33,10 +33,12 @@
  */
 package fr.paris.lutece.plugins.announce.service;
 
+import fr.paris.lutece.plugins.announce.business.AnnounceHome;
 import fr.paris.lutece.portal.service.image.ImageResourceManager;
 import fr.paris.lutece.portal.service.plugin.Plugin;
 import fr.paris.lutece.portal.service.plugin.PluginDefaultImplementation;
 import fr.paris.lutece.portal.service.plugin.PluginService;
+import fr.paris.lutece.portal.service.util.AppLogService;
 
 /**
  * class AnnouncePlugin
@@ -55,6 +57,15 @@ public class AnnouncePlugin extends PluginDefaultImplementation
     public void init( )
     {
         ImageResourceManager.registerProvider( new AnnounceResponseImageResourceProvider( ) );
+
+        int nNbExcerpts = AnnounceHome.buildMissingExcerpts( );
+
+        if ( nNbExcerpts > 0 )
+        {
+            // Every announce now has an excerpt, so the column can get its final definition
+            AppLogService.info( "Announce : the excerpts of " + nNbExcerpts
+                    + " announces have been built. The column excerpt_announce can now be made NOT NULL with upgrade_advert-2.1.1-2.1.2.sql" );
+        }
     }
 
     /**
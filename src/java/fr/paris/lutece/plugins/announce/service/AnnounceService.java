@@ -39,17 +39,14 @@ import fr.paris.lutece.plugins.announce.business.AnnounceHome;
 import fr.paris.lutece.plugins.announce.business.Category;
 import fr.paris.lutece.plugins.announce.business.Sector;
 import fr.paris.lutece.plugins.announce.business.SectorHome;
+import fr.paris.lutece.plugins.announce.service.CategoryForm.FormEntry;
 import fr.paris.lutece.plugins.announce.service.upload.AnnounceAsynchronousUploadHandler;
 import fr.paris.lutece.plugins.genericattributes.business.Entry;
-import fr.paris.lutece.plugins.genericattributes.business.EntryFilter;
-import fr.paris.lutece.plugins.genericattributes.business.EntryHome;
 import fr.paris.lutece.plugins.genericattributes.business.Field;
-import fr.paris.lutece.plugins.genericattributes.business.FieldHome;
 import fr.paris.lutece.plugins.genericattributes.business.GenAttFileItem;
 import fr.paris.lutece.plugins.genericattributes.business.GenericAttributeError;
 import fr.paris.lutece.plugins.genericattributes.business.Response;
 import fr.paris.lutece.plugins.genericattributes.service.entrytype.AbstractEntryTypeUpload;
-import fr.paris.lutece.plugins.genericattributes.service.entrytype.EntryTypeServiceManager;
 import fr.paris.lutece.plugins.genericattributes.service.entrytype.IEntryTypeService;
 import fr.paris.lutece.portal.business.file.File;
 import fr.paris.lutece.portal.business.file.FileHome;
@@ -65,8 +62,8 @@ import fr.paris.lutece.portal.util.mvc.utils.MVCUtils;
 import fr.paris.lutece.util.html.HtmlTemplate;
 import fr.paris.lutece.util.url.UrlItem;
 
-import org.apache.commons.collections.CollectionUtils;
 import org.apache.commons.fileupload.FileItem;
+import org.apache.commons.lang3.SerializationUtils;
 
 import java.io.Serializable;
 
@@ -137,11 +134,6 @@ public class AnnounceService implements Serializable
     {
         Map<String, Object> model = new HashMap<>( );
         StringBuffer strBuffer = new StringBuffer( );
-        EntryFilter filter = new EntryFilter( );
-        filter.setIdResource( category.getId( ) );
-        filter.setResourceType( Category.RESOURCE_TYPE );
-        filter.setEntryParentNull( EntryFilter.FILTER_TRUE );
-        filter.setFieldDependNull( EntryFilter.FILTER_TRUE );
 
         AnnounceDTO announceDTO = null;
 
@@ -185,14 +177,20 @@ public class AnnounceService implements Serializable
             }
         }
 
-        List<Entry> listEntryFirstLevel = EntryHome.getEntryList( filter );
+        CategoryForm form = AnnounceFormService.getService( ).getForm( category.getId( ) );
+        LuteceUser user = getUser( request );
 
-        for ( Entry entry : listEntryFirstLevel )
+        for ( FormEntry formEntry : form.getRootEntries( ) )
         {
-            getHtmlEntry( announceDTO, entry.getIdEntry( ), strBuffer, locale, bDisplayFront, request );
+            getHtmlEntry( announceDTO, formEntry, strBuffer, locale, bDisplayFront, user );
         }
 
-        Sector sector = SectorHome.findByPrimaryKey( category.getIdSector( ) );
+        Sector sector = form.getSector( );
+
+        if ( ( sector == null ) || ( sector.getId( ) != category.getIdSector( ) ) )
+        {
+            sector = SectorHome.findByPrimaryKey( category.getIdSector( ) );
+        }
 
         model.put( MARK_CATEGORY, category );
         model.put( MARK_SECTOR, sector );
@@ -209,45 +207,35 @@ public class AnnounceService implements Serializable
      * 
      * @param announce
      *            The announce to load current values, or null to use default values
-     * @param nIdEntry
-     *            the key of the entry which HTML code must be insert in the stringBuffer
+     * @param formEntry
+     *            the compiled entry which HTML code must be insert in the stringBuffer
      * @param stringBuffer
      *            the buffer which contains the HTML code
      * @param locale
      *            the locale
      * @param bDisplayFront
      *            True if the entry will be displayed in Front Office, false if it will be displayed in Back Office.
-     * @param request
-     *            HttpServletRequest
+     * @param user
+     *            The current user, or null if the user is not signed in
      */
-    public void getHtmlEntry( AnnounceDTO announce, int nIdEntry, StringBuffer stringBuffer, Locale locale, boolean bDisplayFront, HttpServletRequest request )
+    private void getHtmlEntry( AnnounceDTO announce, FormEntry formEntry, StringBuffer stringBuffer, Locale locale, boolean bDisplayFront, LuteceUser user )
     {
         Map<String, Object> model = new HashMap<>( );
         StringBuilder strConditionalQuestionStringBuffer = null;
         HtmlTemplate template;
-        Entry entry = EntryHome.findByPrimaryKey( nIdEntry );
+        Entry entry = formEntry.getEntry( );
 
-        if ( Boolean.TRUE.equals( entry.getEntryType( ).getGroup( ) ) )
+        if ( formEntry.isGroup( ) )
         {
             StringBuffer strGroupStringBuffer = new StringBuffer( );
 
-            for ( Entry entryChild : entry.getChildren( ) )
+            for ( FormEntry formEntryChild : formEntry.getChildren( ) )
             {
-                getHtmlEntry( announce, entryChild.getIdEntry( ), strGroupStringBuffer, locale, bDisplayFront, request );
+                getHtmlEntry( announce, formEntryChild, strGroupStringBuffer, locale, bDisplayFront, user );
             }
 
             model.put( MARK_STR_LIST_CHILDREN, strGroupStringBuffer.toString( ) );
         }
-        else
-        {
-            if ( entry.getNumberConditionalQuestion( ) != 0 )
-            {
-                for ( Field field : entry.getFields( ) )
-                {
-                    field.setConditionalQuestions( FieldHome.findByPrimaryKey( field.getIdField( ) ).getConditionalQuestions( ) );
-                }
-            }
-        }
 
         if ( entry.getNumberConditionalQuestion( ) != 0 )
         {
@@ -255,13 +243,15 @@ public class AnnounceService implements Serializable
 
             for ( Field field : entry.getFields( ) )
             {
-                if ( CollectionUtils.isNotEmpty( field.getConditionalQuestions( ) ) )
+                List<FormEntry> listConditionalEntries = formEntry.getConditionalEntries( field.getIdField( ) );
+
+                if ( !listConditionalEntries.isEmpty( ) )
                 {
                     StringBuffer strGroupStringBuffer = new StringBuffer( );
 
-                    for ( Entry entryConditional : field.getConditionalQuestions( ) )
+                    for ( FormEntry formEntryConditional : listConditionalEntries )
                     {
-                        getHtmlEntry( announce, entryConditional.getIdEntry( ), strGroupStringBuffer, locale, bDisplayFront, request );
+                        getHtmlEntry( announce, formEntryConditional, strGroupStringBuffer, locale, bDisplayFront, user );
                     }
 
                     model.put( MARK_STR_LIST_CHILDREN, strGroupStringBuffer.toString( ) );
@@ -276,21 +266,6 @@ public class AnnounceService implements Serializable
 
         model.put( MARK_ENTRY, entry );
         model.put( MARK_LOCALE, locale );
-
-        LuteceUser user = SecurityService.getInstance( ).getRegisteredUser( request );
-
-        if ( ( user == null ) && SecurityService.isAuthenticationEnable( ) && SecurityService.getInstance( ).isExternalAuthentication( ) )
-        {
-            try
-            {
-                user = SecurityService.getInstance( ).getRemoteUser( request );
-            }
-            catch( UserNotSignedException e )
-            {
-                // Nothing to do : lutece user is not mandatory
-            }
-        }
-
         model.put( MARK_USER, user );
 
         if ( ( announce != null ) && ( announce.getMapResponsesByIdEntry( ) != null ) )
@@ -313,7 +288,7 @@ public class AnnounceService implements Serializable
             model.put( MARK_LIST_RESPONSES, listResponses );
         }
 
-        IEntryTypeService entryTypeService = EntryTypeServiceManager.getEntryTypeService( entry );
+        IEntryTypeService entryTypeService = formEntry.getEntryTypeService( );
 
         // If the entry type is a file, we add the
         if ( entryTypeService instanceof AbstractEntryTypeUpload )
@@ -321,32 +296,68 @@ public class AnnounceService implements Serializable
             model.put( MARK_UPLOAD_HANDLER, ( (AbstractEntryTypeUpload) entryTypeService ).getAsynchronousUploadHandler( ) );
         }
 
-        template = AppTemplateService.getTemplate( EntryTypeServiceManager.getEntryTypeService( entry ).getTemplateHtmlForm( entry, bDisplayFront ), locale,
-                model );
+        template = AppTemplateService.getTemplate( formEntry.getTemplateHtmlForm( bDisplayFront ), locale, model );
         stringBuffer.append( template.getHtml( ) );
     }
 
     /**
-     * Get the responses associated with an entry.<br />
-     * Return null if there is no error in the response, or return the list of errors Response created are stored the map of {@link AnnounceDTO}. The key of the
-     * map is this id of the entry, and the value the list of responses
+     * Get the user of a request
+     * 
+     * @param request
+     *            The request
+     * @return The user of the request, or null if the user is not signed in
+     */
+    private static LuteceUser getUser( HttpServletRequest request )
+    {
+        LuteceUser user = SecurityService.getInstance( ).getRegisteredUser( request );
+
+        if ( ( user == null ) && SecurityService.isAuthenticationEnable( ) && SecurityService.getInstance( ).isExternalAuthentication( ) )
+        {
+            try
+            {
+                user = SecurityService.getInstance( ).getRemoteUser( request );
+            }
+            catch( UserNotSignedException e )
+            {
+                // Nothing to do : lutece user is not mandatory
+            }
+        }
+
+        return user;
+    }
+
+    /**
+     * Get the responses of every entry of the form of a category.<br />
+     * Responses created are stored in the map of {@link AnnounceDTO}. The key of the map is the id of the entry, and the value the list of responses. The
+     * submission is validated against the compiled form of the category, so that it does not need any database access.
      * 
      * @param request
      *            the request
-     * @param nIdEntry
-     *            the key of the entry
+     * @param category
+     *            the category of the announce
      * @param locale
      *            the locale
      * @param announce
      *            The announce
-     * @return null if there is no error in the response or the list of errors found
+     * @return the list of errors found, or an empty list if there is no error
      */
-    public List<GenericAttributeError> getResponseEntry( HttpServletRequest request, int nIdEntry, Locale locale, AnnounceDTO announce )
+    public List<GenericAttributeError> getResponsesOfForm( HttpServletRequest request, Category category, Locale locale, AnnounceDTO announce )
     {
-        List<Response> listResponse = new ArrayList<>( );
-        announce.getMapResponsesByIdEntry( ).put( nIdEntry, listResponse );
+        List<GenericAttributeError> listFormErrors = new ArrayList<>( );
+        CategoryForm form = AnnounceFormService.getService( ).getForm( category.getId( ) );
+
+        for ( FormEntry formEntry : form.getRootEntries( ) )
+        {
+            if ( !formEntry.isComment( ) )
+            {
+                List<Response> listResponse = new ArrayList<>( );
+                announce.getMapResponsesByIdEntry( ).put( formEntry.getEntry( ).getIdEntry( ), listResponse );
+
+                listFormErrors.addAll( getResponseEntry( request, formEntry, listResponse, false, locale, announce ) );
+            }
+        }
 
-        return getResponseEntry( request, nIdEntry, listResponse, false, locale, announce );
+        return listFormErrors;
     }
 
     /**
@@ -355,8 +366,8 @@ public class AnnounceService implements Serializable
      * 
      * @param request
      *            the request
-     * @param nIdEntry
-     *            the key of the entry
+     * @param formEntry
+     *            the compiled entry
      * @param listResponse
      *            The list of response to add responses found in
      * @param bResponseNull
@@ -367,40 +378,30 @@ public class AnnounceService implements Serializable
      *            The announce
      * @return null if there is no error in the response or the list of errors found
      */
-    private List<GenericAttributeError> getResponseEntry( HttpServletRequest request, int nIdEntry, List<Response> listResponse, boolean bResponseNull,
+    private List<GenericAttributeError> getResponseEntry( HttpServletRequest request, FormEntry formEntry, List<Response> listResponse, boolean bResponseNull,
             Locale locale, AnnounceDTO announce )
     {
         List<GenericAttributeError> listFormErrors = new ArrayList<>( );
-        Entry entry = EntryHome.findByPrimaryKey( nIdEntry );
-
-        List<Field> listField = new ArrayList<>( );
-
-        for ( Field field : entry.getFields( ) )
-        {
-            field = FieldHome.findByPrimaryKey( field.getIdField( ) );
-            listField.add( field );
-        }
+        Entry entry = formEntry.getEntry( );
 
-        entry.setFields( listField );
-
-        if ( Boolean.TRUE.equals( entry.getEntryType( ).getGroup( ) ) )
+        if ( formEntry.isGroup( ) )
         {
-            for ( Entry entryChild : entry.getChildren( ) )
+            for ( FormEntry formEntryChild : formEntry.getChildren( ) )
             {
                 List<Response> listResponseChild = new ArrayList<>( );
-                announce.getMapResponsesByIdEntry( ).put( entryChild.getIdEntry( ), listResponseChild );
+                announce.getMapResponsesByIdEntry( ).put( formEntryChild.getEntry( ).getIdEntry( ), listResponseChild );
 
-                listFormErrors.addAll( getResponseEntry( request, entryChild.getIdEntry( ), listResponseChild, false, locale, announce ) );
+                listFormErrors.addAll( getResponseEntry( request, formEntryChild, listResponseChild, false, locale, announce ) );
             }
         }
         else
-            if ( !Boolean.TRUE.equals( entry.getEntryType( ).getComment( ) ) )
+            if ( !formEntry.isComment( ) )
             {
                 GenericAttributeError formError = null;
 
                 if ( !bResponseNull )
                 {
-                    formError = EntryTypeServiceManager.getEntryTypeService( entry ).getResponseData( entry, request, listResponse, locale );
+                    formError = formEntry.getEntryTypeService( ).getResponseData( entry, request, listResponse, locale );
 
                     if ( formError != null )
                     {
@@ -416,7 +417,7 @@ public class AnnounceService implements Serializable
 
                 if ( formError != null )
                 {
-                    entry.setError( formError );
+                    setEntryError( entry, formError, listResponse );
                     listFormErrors.add( formError );
                 }
 
@@ -426,13 +427,13 @@ public class AnnounceService implements Serializable
                     {
                         boolean bIsFieldInResponseList = isFieldInTheResponseList( field.getIdField( ), listResponse );
 
-                        for ( Entry conditionalEntry : field.getConditionalQuestions( ) )
+                        for ( FormEntry formEntryConditional : formEntry.getConditionalEntries( field.getIdField( ) ) )
                         {
                             List<Response> listResponseChild = new ArrayList<>( );
-                            announce.getMapResponsesByIdEntry( ).put( conditionalEntry.getIdEntry( ), listResponseChild );
+                            announce.getMapResponsesByIdEntry( ).put( formEntryConditional.getEntry( ).getIdEntry( ), listResponseChild );
 
                             listFormErrors.addAll(
-                                    getResponseEntry( request, conditionalEntry.getIdEntry( ), listResponseChild, !bIsFieldInResponseList, locale, announce ) );
+                                    getResponseEntry( request, formEntryConditional, listResponseChild, !bIsFieldInResponseList, locale, announce ) );
                         }
                     }
                 }
@@ -441,6 +442,31 @@ public class AnnounceService implements Serializable
         return listFormErrors;
     }
 
+    /**
+     * Attach an error to the responses of an entry. The entry of the compiled form is shared by every request, so the error is set on a copy of the entry
+     * that only the responses of this submission refer to.
+     * 
+     * @param entry
+     *            The entry of the compiled form
+     * @param formError
+     *            The error
+     * @param listResponse
+     *            The responses of the entry
+     */
+    private static void setEntryError( Entry entry, GenericAttributeError formError, List<Response> listResponse )
+    {
+        Entry entryWithError = SerializationUtils.clone( entry );
+        entryWithError.setError( formError );
+
+        for ( Response response : listResponse )
+        {
+            if ( response.getEntry( ) == entry )
+            {
+                response.setEntry( entryWithError );
+            }
+        }
+    }
+
     /**
      * Check if a field is in a response list
      * 
@@ -174,19 +174,17 @@ public class AnnounceSubscriptionProvider implements ISubscriptionProviderServic
         {
             Map<String, Object> model = new HashMap<>( );
 
-            List<Announce> listAnn = AnnounceHome.findAllPublished( AnnounceSort.DEFAULT_SORT );
-            String strUserSub = "";
-            for ( Announce ann : listAnn )
-            {
-                if ( userSub.compareTo( ann.getUserName( ) ) == 0 )
+            // Keep the name of the first published announce of the user
+            StringBuilder sbUserSub = new StringBuilder( );
+            AnnounceHome.forEachPublished( ann -> {
+                if ( ( sbUserSub.length( ) == 0 ) && ( userSub.compareTo( ann.getUserName( ) ) == 0 ) )
                 {
-                    strUserSub = ann.getUserLastName( ) + " " + ann.getUserSecondName( );
-                    break;
+                    sbUserSub.append( ann.getUserLastName( ) ).append( " " ).append( ann.getUserSecondName( ) );
                 }
-            }
+            } );
 
             model.put( MARK_USER_NAME, strIdSubscribedResource );
-            model.put( "strUserSub", strUserSub );
+            model.put( "strUserSub", sbUserSub.toString( ) );
 
             HtmlTemplate template = AppTemplateService.getTemplate( TEMPLATE_USER_SUBSCRIPTION_DESCRIPTION, locale, model );
 
@@ -0,0 +1,227 @@
+/*
+ * Copyright (c) 2002-2021, City of Paris
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions
+ * are met:
+ *
+ *  1. Redistributions of source code must retain the above copyright notice
+ *     and the following disclaimer.
+ *
+ *  2. Redistributions in binary form must reproduce the above copyright notice
+ *     and the following disclaimer in the documentation and/or other materials
+ *     provided with the distribution.
+ *
+ *  3. Neither the name of 'Mairie de Paris' nor 'Lutece' nor the names of its
+ *     contributors may be used to endorse or promote products derived from
+ *     this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDERS OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ *
+ * License 1.0
+ */
+package fr.paris.lutece.plugins.announce.service;
+
+import fr.paris.lutece.plugins.announce.business.Sector;
+import fr.paris.lutece.plugins.genericattributes.business.Entry;
+import fr.paris.lutece.plugins.genericattributes.service.entrytype.IEntryTypeService;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Compiled form of a category : the tree of entries of the category with their fields, their conditional questions and their entry type services. A
+ * compiled form is built once by the {@link AnnounceFormService} and shared by every request rendering the form, so it must never be modified.
+ */
+public final class CategoryForm
+{
+    private final int _nIdCategory;
+    private final Sector _sector;
+    private final List<FormEntry> _listRootEntries;
+    private final Map<Integer, FormEntry> _mapEntries;
+
+    /**
+     * Creates a new compiled form
+     * 
+     * @param nIdCategory
+     *            The id of the category
+     * @param sector
+     *            The sector of the category
+     * @param listRootEntries
+     *            The entries of the first level of the form
+     * @param mapEntries
+     *            Every entries of the form, including children and conditional questions, by id
+     */
+    CategoryForm( int nIdCategory, Sector sector, List<FormEntry> listRootEntries, Map<Integer, FormEntry> mapEntries )
+    {
+        _nIdCategory = nIdCategory;
+        _sector = sector;
+        _listRootEntries = Collections.unmodifiableList( listRootEntries );
+        _mapEntries = Collections.unmodifiableMap( mapEntries );
+    }
+
+    /**
+     * Get the id of the category
+     * 
+     * @return The id of the category
+     */
+    public int getIdCategory( )
+    {
+        return _nIdCategory;
+    }
+
+    /**
+     * Get the sector of the category at the time the form was compiled
+     * 
+     * @return The sector of the category, or null if it was not found
+     */
+    public Sector getSector( )
+    {
+        return _sector;
+    }
+
+    /**
+     * Get the entries of the first level of the form, ordered by position
+     * 
+     * @return The entries of the first level of the form
+     */
+    public List<FormEntry> getRootEntries( )
+    {
+        return _listRootEntries;
+    }
+
+    /**
+     * Get an entry of the form
+     * 
+     * @param nIdEntry
+     *            The id of the entry
+     * @return The entry, or null if the entry does not belong to this form
+     */
+    public FormEntry getEntry( int nIdEntry )
+    {
+        return _mapEntries.get( nIdEntry );
+    }
+
+    /**
+     * Compiled entry of a form
+     */
+    public static final class FormEntry
+    {
+        private final Entry _entry;
+        private final IEntryTypeService _entryTypeService;
+        private final String _strTemplateFront;
+        private final String _strTemplateBack;
+        private final List<FormEntry> _listChildren;
+        private final Map<Integer, List<FormEntry>> _mapConditionalEntries;
+
+        /**
+         * Creates a new compiled entry
+         * 
+         * @param entry
+         *            The entry, with its fields and their conditional questions loaded
+         * @param entryTypeService
+         *            The entry type service of the entry
+         * @param listChildren
+         *            The children of the entry if it is a group
+         * @param mapConditionalEntries
+         *            The conditional questions of the entry, by id of field
+         */
+        FormEntry( Entry entry, IEntryTypeService entryTypeService, List<FormEntry> listChildren, Map<Integer, List<FormEntry>> mapConditionalEntries )
+        {
+            _entry = entry;
+            _entryTypeService = entryTypeService;
+            _strTemplateFront = entryTypeService.getTemplateHtmlForm( entry, true );
+            _strTemplateBack = entryTypeService.getTemplateHtmlForm( entry, false );
+            _listChildren = Collections.unmodifiableList( listChildren );
+            _mapConditionalEntries = Collections.unmodifiableMap( mapConditionalEntries );
+        }
+
+        /**
+         * Get the entry. The entry is shared with every request rendering the form and must not be modified
+         * 
+         * @return The entry
+         */
+        public Entry getEntry( )
+        {
+            return _entry;
+        }
+
+        /**
+         * Get the entry type service of the entry
+         * 
+         * @return The entry type service
+         */
+        public IEntryTypeService getEntryTypeService( )
+        {
+            return _entryTypeService;
+        }
+
+        /**
+         * Get the template to display the entry
+         * 
+         * @param bDisplayFront
+         *            True to get the Front Office template, false to get the Back Office template
+         * @return The path of the template
+         */
+        public String getTemplateHtmlForm( boolean bDisplayFront )
+        {
+            return bDisplayFront ? _strTemplateFront : _strTemplateBack;
+        }
+
+        /**
+         * Check if the entry is a group
+         * 
+         * @return True if the entry is a group, false otherwise
+         */
+        public boolean isGroup( )
+        {
+            return Boolean.TRUE.equals( _entry.getEntryType( ).getGroup( ) );
+        }
+
+        /**
+         * Check if the entry is a comment
+         * 
+         * @return True if the entry is a comment, false otherwise
+         */
+        public boolean isComment( )
+        {
+            return Boolean.TRUE.equals( _entry.getEntryType( ).getComment( ) );
+        }
+
+        /**
+         * Get the children of the entry
+         * 
+         * @return The children of the entry, or an empty list if the entry is not a group
+         */
+        public List<FormEntry> getChildren( )
+        {
+            return _listChildren;
+        }
+
+        /**
+         * Get the conditional questions associated with a field of the entry
+         * 
+         * @param nIdField
+         *            The id of the field
+         * @return The conditional questions of the field, or an empty list if the field has none
+         */
+        public List<FormEntry> getConditionalEntries( int nIdField )
+        {
+            List<FormEntry> listConditionalEntries = _mapConditionalEntries.get( nIdField );
+
+            return ( listConditionalEntries != null ) ? listConditionalEntries : Collections.<FormEntry> emptyList( );
+        }
+    }
+}
@@ -169,6 +169,8 @@ public class EntryService extends RemovalListenerService implements Serializable
             entryToChangeOrder.setPosition( nOrderToSet );
             EntryHome.update( entryToChangeOrder );
         }
+
+        AnnounceFormService.getService( ).invalidateCategory( entryToChangeOrder.getIdResource( ) );
     }
 
     /**
@@ -253,6 +255,8 @@ public class EntryService extends RemovalListenerService implements Serializable
             entryToChangeOrder.setPosition( nOrderToSet );
             EntryHome.update( entryToChangeOrder );
         }
+
+        AnnounceFormService.getService( ).invalidateCategory( entryToChangeOrder.getIdResource( ) );
     }
 
     /**
@@ -288,6 +292,7 @@ public class EntryService extends RemovalListenerService implements Serializable
 
             entryToMove.setParent( entryGroup );
             EntryHome.update( entryToMove );
+            AnnounceFormService.getService( ).invalidateCategory( entryToMove.getIdResource( ) );
         }
     }
 
@@ -305,6 +310,8 @@ public class EntryService extends RemovalListenerService implements Serializable
         moveDownEntryOrder( parent.getPosition( ) + parent.getChildren( ).size( ), entryToMove );
         entryToMove.setParent( null );
         EntryHome.update( entryToMove );
+
+        AnnounceFormService.getService( ).invalidateCategory( entryToMove.getIdResource( ) );
     }
 
     /**
@@ -343,5 +350,7 @@ public class EntryService extends RemovalListenerService implements Serializable
         {
             EntryHome.remove( entry.getIdEntry( ) );
         }
+
+        AnnounceFormService.getService( ).invalidateCategory( nIdCategory );
     }
 }
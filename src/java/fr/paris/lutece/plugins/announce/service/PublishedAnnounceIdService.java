@@ -0,0 +1,555 @@
+/*
+ * Copyright (c) 2002-2021, City of Paris
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions
+ * are met:
+ *
+ *  1. Redistributions of source code must retain the above copyright notice
+ *     and the following disclaimer.
+ *
+ *  2. Redistributions in binary form must reproduce the above copyright notice
+ *     and the following disclaimer in the documentation and/or other materials
+ *     provided with the distribution.
+ *
+ *  3. Neither the name of 'Mairie de Paris' nor 'Lutece' nor the names of its
+ *     contributors may be used to endorse or promote products derived from
+ *     this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDERS OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ *
+ * License 1.0
+ */
+package fr.paris.lutece.plugins.announce.service;
+
+import fr.paris.lutece.plugins.announce.business.Announce;
+import fr.paris.lutece.plugins.announce.business.AnnounceHome;
+import fr.paris.lutece.plugins.announce.business.AnnouncePageKey;
+import fr.paris.lutece.plugins.announce.business.AnnounceSort;
+
+import fr.paris.lutece.portal.service.cache.AbstractCacheableService;
+import fr.paris.lutece.portal.service.util.AppPropertiesService;
+
+import java.io.Serializable;
+
+import java.sql.Timestamp;
+
+import java.util.AbstractList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+
+/**
+ * Cache service that keeps in memory the ids of published announces for each sort, as arrays of ints. Ids of a sort are loaded with a single query when they
+ * are needed and are not loaded yet or are older than their time to live, and are then patched by the announce home when an announce becomes visible, is
+ * modified or stops being visible. The time to live bounds the delay after which the changes made by other nodes are seen. Flushing or disabling the cache from
+ * the administration drops every id. For sorts on a numeric column the values of the sorted column are kept too, so that an announce can be inserted at its
+ * position. For sorts on a text column, the ids of the sort are reloaded after an announce became visible, because the order of texts depends on the collation
+ * of the database.
+ */
+public final class PublishedAnnounceIdService extends AbstractCacheableService
+{
+    private static final String CACHE_SERVICE_NAME = "announce.publishedAnnounceIdService";
+    private static final String PROPERTY_TIME_TO_LIVE = "announce.publishedIds.timeToLive";
+    private static final int DEFAULT_TIME_TO_LIVE = 60;
+    private static final long MILLISECONDS_PER_SECOND = 1000L;
+    private static final PublishedAnnounceIdService _singleton = createService( );
+    private final Function<AnnounceSort, List<AnnouncePageKey>> _loader;
+    private final long _lTimeToLive;
+    private final Map<AnnounceSort, PublishedIds> _mapPublishedIds = new ConcurrentHashMap<>( );
+    private final AtomicLong _lHits = new AtomicLong( );
+    private final AtomicLong _lMisses = new AtomicLong( );
+    private long _lVersion;
+    private boolean _bRegistered;
+
+    /**
+     * Creates a new service
+     * 
+     * @param loader
+     *            The function that loads the keys of published announces of a sort, in the order of the sort
+     * @param lTimeToLive
+     *            The number of milliseconds after which the ids of a sort are reloaded
+     */
+    PublishedAnnounceIdService( Function<AnnounceSort, List<AnnouncePageKey>> loader, long lTimeToLive )
+    {
+        _loader = loader;
+        _lTimeToLive = lTimeToLive;
+    }
+
+    /**
+     * Create the instance of the service and register it among the cache services
+     * 
+     * @return The instance of the service
+     */
+    private static PublishedAnnounceIdService createService( )
+    {
+        long lTimeToLive = AppPropertiesService.getPropertyInt( PROPERTY_TIME_TO_LIVE, DEFAULT_TIME_TO_LIVE ) * MILLISECONDS_PER_SECOND;
+        PublishedAnnounceIdService service = new PublishedAnnounceIdService( AnnounceHome::findAllPublishedKeys, lTimeToLive );
+        service.initCache( );
+        service._bRegistered = true;
+
+        return service;
+    }
+
+    /**
+     * Get the instance of the service
+     * 
+     * @return The instance of the service
+     */
+    public static PublishedAnnounceIdService getService( )
+    {
+        return _singleton;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public String getName( )
+    {
+        return CACHE_SERVICE_NAME;
+    }
+
+    /**
+     * {@inheritDoc} The ids of every sort are dropped too
+     */
+    @Override
+    public void resetCache( )
+    {
+        super.resetCache( );
+        reset( );
+    }
+
+    /**
+     * {@inheritDoc} The ids of every sort are dropped, so that they are reloaded from the database
+     */
+    @Override
+    public void enableCache( boolean bEnable )
+    {
+        super.enableCache( bEnable );
+        reset( );
+    }
+
+    /**
+     * Get the ids of published announces
+     * 
+     * @param announceSort
+     *            The sort
+     * @return The read only list of ids of published announces, in the order of the sort
+     */
+    public List<Integer> getPublishedIds( AnnounceSort announceSort )
+    {
+        PublishedIds publishedIds = _mapPublishedIds.get( announceSort );
+
+        if ( ( publishedIds != null ) && !publishedIds.isExpired( _lTimeToLive ) )
+        {
+            _lHits.incrementAndGet( );
+
+            return new IdList( publishedIds._ids );
+        }
+
+        _lMisses.incrementAndGet( );
+
+        long lVersion;
+
+        synchronized( this )
+        {
+            lVersion = _lVersion;
+        }
+
+        publishedIds = new PublishedIds( announceSort, _loader.apply( announceSort ), System.currentTimeMillis( ) );
+
+        synchronized( this )
+        {
+            // Ids loaded while announces were changing may be stale : they are returned but not kept
+            if ( ( lVersion == _lVersion ) && ( !_bRegistered || isCacheEnable( ) ) )
+            {
+                _mapPublishedIds.put( announceSort, publishedIds );
+            }
+        }
+
+        return new IdList( publishedIds._ids );
+    }
+
+    /**
+     * Patch the ids of published announces after an announce was created or modified, or after its visibility changed. An announce is visible if it is
+     * published and suspended neither by an administrator nor by its owner.
+     * 
+     * @param announce
+     *            The announce, with the values it has in the database after the change
+     * @param bWasVisible
+     *            True if the announce was visible before the change, false otherwise
+     * @param bIsVisible
+     *            True if the announce is visible after the change, false otherwise
+     */
+    public synchronized void updateAnnounce( Announce announce, boolean bWasVisible, boolean bIsVisible )
+    {
+        if ( !bWasVisible && !bIsVisible )
+        {
+            return;
+        }
+
+        _lVersion++;
+
+        for ( Map.Entry<AnnounceSort, PublishedIds> entry : _mapPublishedIds.entrySet( ) )
+        {
+            PublishedIds publishedIds = entry.getValue( );
+
+            if ( bWasVisible )
+            {
+                publishedIds = publishedIds.remove( announce.getId( ) );
+            }
+
+            if ( bIsVisible )
+            {
+                publishedIds = publishedIds.insert( AnnouncePageKey.getPageKey( announce, entry.getKey( ) ) );
+            }
+
+            if ( publishedIds == null )
+            {
+                _mapPublishedIds.remove( entry.getKey( ) );
+            }
+            else
+            {
+                entry.setValue( publishedIds );
+            }
+        }
+    }
+
+    /**
+     * Patch the ids of published announces after announces were removed
+     * 
+     * @param listIdAnnounces
+     *            The ids of the removed announces
+     */
+    public synchronized void removeAnnounces( Collection<Integer> listIdAnnounces )
+    {
+        _lVersion++;
+
+        Set<Integer> setIdAnnounces = new HashSet<>( listIdAnnounces );
+
+        for ( Map.Entry<AnnounceSort, PublishedIds> entry : _mapPublishedIds.entrySet( ) )
+        {
+            entry.setValue( entry.getValue( ).removeAll( setIdAnnounces ) );
+        }
+    }
+
+    /**
+     * Remove every id from memory. They will be reloaded the next time they are needed
+     */
+    public synchronized void reset( )
+    {
+        _lVersion++;
+        _mapPublishedIds.clear( );
+    }
+
+    /**
+     * Get the number of reads of ids that were served from memory
+     * 
+     * @return The number of hits
+     */
+    public long getHits( )
+    {
+        return _lHits.get( );
+    }
+
+    /**
+     * Get the number of reads of ids that had to be loaded from the database
+     * 
+     * @return The number of misses
+     */
+    public long getMisses( )
+    {
+        return _lMisses.get( );
+    }
+
+    /**
+     * Get the ratio of reads of ids that were served from memory
+     * 
+     * @return The hit rate, between 0 and 1
+     */
+    public double getHitRate( )
+    {
+        long lHits = _lHits.get( );
+        long lTotal = lHits + _lMisses.get( );
+
+        return ( lTotal == 0 ) ? 0 : ( (double) lHits / lTotal );
+    }
+
+    /**
+     * Convert the value of a sorted numeric column to a long with the same order
+     * 
+     * @param sortValue
+     *            The value of the sorted column
+     * @return The long value
+     */
+    private static long toSortableLong( Serializable sortValue )
+    {
+        if ( sortValue instanceof Timestamp )
+        {
+            return ( (Timestamp) sortValue ).getTime( );
+        }
+
+        if ( sortValue instanceof Double )
+        {
+            long lBits = Double.doubleToLongBits( (Double) sortValue );
+
+            return lBits ^ ( ( lBits >> 63 ) & Long.MAX_VALUE );
+        }
+
+        if ( sortValue instanceof Number )
+        {
+            return ( (Number) sortValue ).longValue( );
+        }
+
+        return Long.MIN_VALUE;
+    }
+
+    /**
+     * Immutable ids of published announces of a sort
+     */
+    private static final class PublishedIds
+    {
+        private final boolean _bSortAsc;
+        private final int [ ] _ids;
+        private final long [ ] _sortValues;
+        private final long _lLoadTime;
+
+        /**
+         * Creates the ids of a sort from keys loaded from the database
+         * 
+         * @param announceSort
+         *            The sort
+         * @param listKeys
+         *            The keys of published announces, in the order of the sort
+         * @param lLoadTime
+         *            The time the keys were loaded from the database
+         */
+        PublishedIds( AnnounceSort announceSort, List<AnnouncePageKey> listKeys, long lLoadTime )
+        {
+            _bSortAsc = announceSort.getSortAsc( );
+            _lLoadTime = lLoadTime;
+            _ids = new int [ listKeys.size( )];
+
+            boolean bNumeric = !AnnounceSort.SORT_TITLE.equals( announceSort.getSortColumn( ) )
+                    && !AnnounceSort.SORT_DESCRIPTION.equals( announceSort.getSortColumn( ) );
+            _sortValues = bNumeric ? new long [ listKeys.size( )] : null;
+
+            for ( int i = 0; i < _ids.length; i++ )
+            {
+                AnnouncePageKey key = listKeys.get( i );
+                _ids [i] = key.getIdAnnounce( );
+
+                if ( bNumeric )
+                {
+                    _sortValues [i] = toSortableLong( key.getSortValue( ) );
+                }
+            }
+        }
+
+        /**
+         * Creates ids from arrays
+         * 
+         * @param bSortAsc
+         *            True if ids are sorted ascending
+         * @param ids
+         *            The ids
+         * @param sortValues
+         *            The values of the sorted column, or null for a text column
+         * @param lLoadTime
+         *            The time the ids were loaded from the database
+         */
+        private PublishedIds( boolean bSortAsc, int [ ] ids, long [ ] sortValues, long lLoadTime )
+        {
+            _bSortAsc = bSortAsc;
+            _ids = ids;
+            _sortValues = sortValues;
+            _lLoadTime = lLoadTime;
+        }
+
+        /**
+         * Check if these ids must be reloaded from the database. Patches do not extend their life, since they only reflect the changes made by this node
+         * 
+         * @param lTimeToLive
+         *            The time to live of ids, in milliseconds
+         * @return True if these ids are older than their time to live
+         */
+        boolean isExpired( long lTimeToLive )
+        {
+            return ( System.currentTimeMillis( ) - _lLoadTime ) > lTimeToLive;
+        }
+
+        /**
+         * Get a copy of these ids with an announce inserted at its position
+         * 
+         * @param key
+         *            The key of the announce
+         * @return The new ids, or null if they must be reloaded
+         */
+        PublishedIds insert( AnnouncePageKey key )
+        {
+            if ( _sortValues == null )
+            {
+                return null;
+            }
+
+            long lSortValue = toSortableLong( key.getSortValue( ) );
+            int nLow = 0;
+            int nHigh = _ids.length;
+
+            while ( nLow < nHigh )
+            {
+                int nMiddle = ( nLow + nHigh ) >>> 1;
+                int nCompare = Long.compare( _sortValues [nMiddle], lSortValue );
+
+                if ( nCompare == 0 )
+                {
+                    nCompare = Integer.compare( _ids [nMiddle], key.getIdAnnounce( ) );
+                }
+
+                if ( ( _bSortAsc ? nCompare : -nCompare ) < 0 )
+                {
+                    nLow = nMiddle + 1;
+                }
+                else
+                {
+                    nHigh = nMiddle;
+                }
+            }
+
+            int [ ] ids = new int [ _ids.length + 1];
+            long [ ] sortValues = new long [ _ids.length + 1];
+            System.arraycopy( _ids, 0, ids, 0, nLow );
+            System.arraycopy( _sortValues, 0, sortValues, 0, nLow );
+            ids [nLow] = key.getIdAnnounce( );
+            sortValues [nLow] = lSortValue;
+            System.arraycopy( _ids, nLow, ids, nLow + 1, _ids.length - nLow );
+            System.arraycopy( _sortValues, nLow, sortValues, nLow + 1, _ids.length - nLow );
+
+            return new PublishedIds( _bSortAsc, ids, sortValues, _lLoadTime );
+        }
+
+        /**
+         * Get a copy of these ids without an announce
+         * 
+         * @param nIdAnnounce
+         *            The id of the announce
+         * @return The new ids
+         */
+        PublishedIds remove( int nIdAnnounce )
+        {
+            for ( int i = 0; i < _ids.length; i++ )
+            {
+                if ( _ids [i] == nIdAnnounce )
+                {
+                    int [ ] ids = new int [ _ids.length - 1];
+                    System.arraycopy( _ids, 0, ids, 0, i );
+                    System.arraycopy( _ids, i + 1, ids, i, ids.length - i );
+
+                    long [ ] sortValues = null;
+
+                    if ( _sortValues != null )
+                    {
+                        sortValues = new long [ ids.length];
+                        System.arraycopy( _sortValues, 0, sortValues, 0, i );
+                        System.arraycopy( _sortValues, i + 1, sortValues, i, ids.length - i );
+                    }
+
+                    return new PublishedIds( _bSortAsc, ids, sortValues, _lLoadTime );
+                }
+            }
+
+            return this;
+        }
+
+        /**
+         * Get a copy of these ids without some announces
+         * 
+         * @param setIdAnnounces
+         *            The ids of the announces
+         * @return The new ids
+         */
+        PublishedIds removeAll( Set<Integer> setIdAnnounces )
+        {
+            int [ ] ids = new int [ _ids.length];
+            long [ ] sortValues = ( _sortValues != null ) ? new long [ _ids.length] : null;
+            int nSize = 0;
+
+            for ( int i = 0; i < _ids.length; i++ )
+            {
+                if ( !setIdAnnounces.contains( _ids [i] ) )
+                {
+                    ids [nSize] = _ids [i];
+
+                    if ( sortValues != null )
+                    {
+                        sortValues [nSize] = _sortValues [i];
+                    }
+
+                    nSize++;
+                }
+            }
+
+            if ( nSize == _ids.length )
+            {
+                return this;
+            }
+
+            return new PublishedIds( _bSortAsc, Arrays.copyOf( ids, nSize ), ( sortValues != null ) ? Arrays.copyOf( sortValues, nSize ) : null, _lLoadTime );
+        }
+    }
+
+    /**
+     * Read only list view of an array of ids
+     */
+    private static final class IdList extends AbstractList<Integer>
+    {
+        private final int [ ] _ids;
+
+        /**
+         * Creates a new view
+         * 
+         * @param ids
+         *            The ids
+         */
+        IdList( int [ ] ids )
+        {
+            _ids = ids;
+        }
+
+        /**
+         * {@inheritDoc}
+         */
+        @Override
+        public Integer get( int nIndex )
+        {
+            return _ids [nIndex];
+        }
+
+        /**
+         * {@inheritDoc}
+         */
+        @Override
+        public int size( )
+        {
+            return _ids.length;
+        }
+    }
+}
@@ -0,0 +1,399 @@
+/*
+ * Copyright (c) 2002-2021, City of Paris
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions
+ * are met:
+ *
+ *  1. Redistributions of source code must retain the above copyright notice
+ *     and the following disclaimer.
+ *
+ *  2. Redistributions in binary form must reproduce the above copyright notice
+ *     and the following disclaimer in the documentation and/or other materials
+ *     provided with the distribution.
+ *
+ *  3. Neither the name of 'Mairie de Paris' nor 'Lutece' nor the names of its
+ *     contributors may be used to endorse or promote products derived from
+ *     this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDERS OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ *
+ * License 1.0
+ */
+package fr.paris.lutece.plugins.announce.service.announcesearch;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicReference;
+
+import org.apache.lucene.document.Document;
+import org.apache.lucene.index.IndexWriter;
+
+import fr.paris.lutece.plugins.announce.business.Announce;
+import fr.paris.lutece.plugins.announce.business.AnnounceHome;
+import fr.paris.lutece.portal.service.plugin.Plugin;
+import fr.paris.lutece.portal.service.util.AppLogService;
+import fr.paris.lutece.portal.service.util.AppPropertiesService;
+
+/**
+ * Staged pipeline used to index a large number of announces. A loader thread reads announces from the database by batches, a pool of builders creates
+ * their Lucene documents, and the calling thread adds every document to the index writer. Stages are connected by bounded queues, so that the memory used
+ * does not depend on the number of announces to index.
+ */
+public class AnnounceIndexingPipeline
+{
+    private static final String PROPERTY_BUILDER_THREADS = "announce.internalIndexer.pipeline.builderThreads";
+    private static final String PROPERTY_BATCH_SIZE = "announce.internalIndexer.pipeline.batchSize";
+    private static final String PROPERTY_QUEUE_CAPACITY = "announce.internalIndexer.pipeline.queueCapacity";
+    private static final int DEFAULT_BATCH_SIZE = 100;
+    private static final int DEFAULT_QUEUE_CAPACITY = 1000;
+
+    // Markers sent to the next stage once a stage is done. They are compared by reference
+    private static final List<Announce> END_OF_BATCHES = new ArrayList<>( );
+    private static final Document END_OF_DOCUMENTS = new Document( );
+
+    private final int _nBuilderThreads;
+    private final int _nBatchSize;
+    private final BlockingQueue<List<Announce>> _queueBatches;
+    private final BlockingQueue<Document> _queueDocuments;
+    private final AtomicReference<Exception> _error = new AtomicReference<>( );
+
+    /**
+     * Creates a new pipeline configured from the properties of the plugin. By default, there is one document builder per available processor
+     */
+    public AnnounceIndexingPipeline( )
+    {
+        _nBuilderThreads = Math.max( 1,
+                AppPropertiesService.getPropertyInt( PROPERTY_BUILDER_THREADS, Runtime.getRuntime( ).availableProcessors( ) ) );
+        _nBatchSize = Math.max( 1, AppPropertiesService.getPropertyInt( PROPERTY_BATCH_SIZE, DEFAULT_BATCH_SIZE ) );
+        _queueBatches = new ArrayBlockingQueue<>( 2 * _nBuilderThreads );
+        _queueDocuments = new ArrayBlockingQueue<>( Math.max( _nBuilderThreads, AppPropertiesService.getPropertyInt( PROPERTY_QUEUE_CAPACITY,
+                DEFAULT_QUEUE_CAPACITY ) ) );
+    }
+
+    /**
+     * Get the number of threads that build documents
+     * 
+     * @return The number of threads that build documents
+     */
+    public int getBuilderThreads( )
+    {
+        return _nBuilderThreads;
+    }
+
+    /**
+     * Index a list of announces. Documents are added to the index writer : the announces must not be in the index yet
+     * 
+     * @param indexWriter
+     *            The index writer
+     * @param documentSink
+     *            Sink that receives every document after the index writer, or null
+     * @param listIdAnnounces
+     *            The list of ids of announces to index
+     * @param plugin
+     *            The plugin
+     * @return The number of indexed announces
+     * @throws IOException
+     *             If an error occurred while loading, building or writing documents
+     * @throws InterruptedException
+     *             If the indexing thread was interrupted
+     */
+    public int index( IndexWriter indexWriter, IAnnounceDocumentSink documentSink, List<Integer> listIdAnnounces, Plugin plugin )
+            throws IOException, InterruptedException
+    {
+        return index( indexWriter, documentSink, ( ) -> loadAnnounces( listIdAnnounces ), plugin );
+    }
+
+    /**
+     * Index every published announce. Announces are streamed from the database, so that neither their list nor the list of their ids is held in memory.
+     * Documents are added to the index writer : the index must be empty
+     * 
+     * @param indexWriter
+     *            The index writer
+     * @param documentSink
+     *            Sink that receives every document after the index writer, or null
+     * @param plugin
+     *            The plugin
+     * @return The number of indexed announces
+     * @throws IOException
+     *             If an error occurred while loading, building or writing documents
+     * @throws InterruptedException
+     *             If the indexing thread was interrupted
+     */
+    public int indexAllPublished( IndexWriter indexWriter, IAnnounceDocumentSink documentSink, Plugin plugin ) throws IOException, InterruptedException
+    {
+        return index( indexWriter, documentSink, this::loadPublishedAnnounces, plugin );
+    }
+
+    /**
+     * Run the pipeline
+     * 
+     * @param indexWriter
+     *            The index writer
+     * @param documentSink
+     *            Sink that receives every document after the index writer, or null
+     * @param loader
+     *            The loader that sends batches of announces to the builders
+     * @param plugin
+     *            The plugin
+     * @return The number of indexed announces
+     * @throws IOException
+     *             If an error occurred while loading, building or writing documents
+     * @throws InterruptedException
+     *             If the indexing thread was interrupted
+     */
+    private int index( IndexWriter indexWriter, IAnnounceDocumentSink documentSink, Runnable loader, Plugin plugin ) throws IOException, InterruptedException
+    {
+        ExecutorService executor = Executors.newFixedThreadPool( _nBuilderThreads + 1 );
+        int nNbIndexed = 0;
+
+        try
+        {
+            executor.execute( loader );
+
+            for ( int i = 0; i < _nBuilderThreads; i++ )
+            {
+                executor.execute( ( ) -> buildDocuments( plugin ) );
+            }
+
+            // The calling thread is the only one that writes to the index and to the sink
+            int nNbFinishedBuilders = 0;
+
+            while ( nNbFinishedBuilders < _nBuilderThreads )
+            {
+                Document doc = _queueDocuments.take( );
+
+                if ( doc == END_OF_DOCUMENTS )
+                {
+                    nNbFinishedBuilders++;
+                }
+                else
+                {
+                    indexWriter.addDocument( doc );
+
+                    if ( documentSink != null )
+                    {
+                        documentSink.write( doc );
+                    }
+
+                    nNbIndexed++;
+                }
+            }
+        }
+        finally
+        {
+            // Stop the producers that may still be waiting if an error occurred
+            executor.shutdownNow( );
+        }
+
+        Exception error = _error.get( );
+
+        if ( error != null )
+        {
+            throw new IOException( "Error while building announce documents : " + error.getMessage( ), error );
+        }
+
+        return nNbIndexed;
+    }
+
+    /**
+     * Load announces by batches and send them to the builders
+     * 
+     * @param listIdAnnounces
+     *            The list of ids of announces to load
+     */
+    private void loadAnnounces( List<Integer> listIdAnnounces )
+    {
+        try
+        {
+            for ( int nFrom = 0; ( nFrom < listIdAnnounces.size( ) ) && ( _error.get( ) == null ); nFrom += _nBatchSize )
+            {
+                List<Integer> listIdBatch = listIdAnnounces.subList( nFrom, Math.min( nFrom + _nBatchSize, listIdAnnounces.size( ) ) );
+                _queueBatches.put( AnnounceHome.findByListId( listIdBatch, null ) );
+            }
+        }
+        catch( InterruptedException e )
+        {
+            Thread.currentThread( ).interrupt( );
+        }
+        catch( Exception e )
+        {
+            setError( e );
+        }
+        finally
+        {
+            for ( int i = 0; i < _nBuilderThreads; i++ )
+            {
+                putMarker( _queueBatches, END_OF_BATCHES );
+            }
+        }
+    }
+
+    /**
+     * Stream every published announce from the database and send them to the builders by batches
+     */
+    private void loadPublishedAnnounces( )
+    {
+        try
+        {
+            List<Announce> listBatch = new ArrayList<>( _nBatchSize );
+
+            AnnounceHome.forEachPublished( announce -> {
+                listBatch.add( announce );
+
+                if ( listBatch.size( ) == _nBatchSize )
+                {
+                    sendBatch( new ArrayList<>( listBatch ) );
+                    listBatch.clear( );
+                }
+            }, _nBatchSize );
+
+            if ( !listBatch.isEmpty( ) )
+            {
+                sendBatch( listBatch );
+            }
+        }
+        catch( PipelineStoppedException e )
+        {
+            // The error has already been recorded, or the pipeline is being stopped
+        }
+        catch( Exception e )
+        {
+            setError( e );
+        }
+        finally
+        {
+            for ( int i = 0; i < _nBuilderThreads; i++ )
+            {
+                putMarker( _queueBatches, END_OF_BATCHES );
+            }
+        }
+    }
+
+    /**
+     * Send a batch of announces to the builders, waiting for one of them to be available
+     * 
+     * @param listBatch
+     *            The batch of announces
+     * @throws PipelineStoppedException
+     *             If another stage failed or if the loading thread was interrupted
+     */
+    private void sendBatch( List<Announce> listBatch )
+    {
+        if ( _error.get( ) != null )
+        {
+            throw new PipelineStoppedException( );
+        }
+
+        try
+        {
+            _queueBatches.put( listBatch );
+        }
+        catch( InterruptedException e )
+        {
+            Thread.currentThread( ).interrupt( );
+            throw new PipelineStoppedException( );
+        }
+    }
+
+    /**
+     * Build the documents of the batches of announces, and send them to the index writer
+     * 
+     * @param plugin
+     *            The plugin
+     */
+    private void buildDocuments( Plugin plugin )
+    {
+        try
+        {
+            List<Announce> listAnnounces = _queueBatches.take( );
+
+            while ( listAnnounces != END_OF_BATCHES )
+            {
+                for ( Announce announce : listAnnounces )
+                {
+                    if ( _error.get( ) != null )
+                    {
+                        break;
+                    }
+
+                    announce.setListResponse( AnnounceHome.findListResponse( announce.getId( ), false ) );
+                    _queueDocuments.put( DefaultAnnounceIndexer.getDocument( announce, DefaultAnnounceIndexer.getAnnounceUrl( announce ), plugin ) );
+                }
+
+                listAnnounces = _queueBatches.take( );
+            }
+        }
+        catch( InterruptedException e )
+        {
+            Thread.currentThread( ).interrupt( );
+        }
+        catch( Exception e )
+        {
+            setError( e );
+        }
+        finally
+        {
+            putMarker( _queueDocuments, END_OF_DOCUMENTS );
+        }
+    }
+
+    /**
+     * Record the first error that occurred in a stage. The other stages stop as soon as they see it
+     * 
+     * @param e
+     *            The error
+     */
+    private void setError( Exception e )
+    {
+        AppLogService.error( "Error in the announce indexing pipeline : " + e.getMessage( ), e );
+        _error.compareAndSet( null, e );
+    }
+
+    /**
+     * Send an end marker to the next stage
+     * 
+     * @param queue
+     *            The queue of the next stage
+     * @param marker
+     *            The marker
+     * @param <T>
+     *            The type of the elements of the queue
+     */
+    private static <T> void putMarker( BlockingQueue<T> queue, T marker )
+    {
+        try
+        {
+            queue.put( marker );
+        }
+        catch( InterruptedException e )
+        {
+            // The pipeline is being stopped : nobody waits for the marker anymore
+            Thread.currentThread( ).interrupt( );
+        }
+    }
+
+    /**
+     * Exception used to stop the streaming of announces when the pipeline must stop
+     */
+    private static final class PipelineStoppedException extends RuntimeException
+    {
+        private static final long serialVersionUID = 3894107426395716409L;
+    }
+}
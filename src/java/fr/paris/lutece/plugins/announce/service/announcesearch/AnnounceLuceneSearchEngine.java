@@ -33,34 +33,29 @@
  */
 package fr.paris.lutece.plugins.announce.service.announcesearch;
 
+import java.io.IOException;
 import java.text.ParseException;
-import java.text.SimpleDateFormat;
 import java.util.ArrayList;
-import java.util.Collection;
-import java.util.Date;
+import java.util.Collections;
 import java.util.List;
-import java.util.Locale;
+import java.util.Set;
 
-import org.apache.commons.lang3.StringUtils;
 import org.apache.lucene.document.DateTools;
 import org.apache.lucene.document.Document;
-import org.apache.lucene.index.Term;
-import org.apache.lucene.queryparser.classic.MultiFieldQueryParser;
-import org.apache.lucene.search.BooleanClause;
+import org.apache.lucene.search.FieldDoc;
 import org.apache.lucene.search.IndexSearcher;
-import org.apache.lucene.search.PhraseQuery;
 import org.apache.lucene.search.Query;
 import org.apache.lucene.search.ScoreDoc;
-import org.apache.lucene.search.TermQuery;
-import org.apache.lucene.search.TermRangeQuery;
+import org.apache.lucene.search.Sort;
+import org.apache.lucene.search.SortField;
 import org.apache.lucene.search.TopDocs;
-import org.apache.lucene.util.BytesRef;
+import org.apache.lucene.search.TopFieldCollector;
+import org.apache.lucene.search.TopScoreDocCollector;
 
 import fr.paris.lutece.plugins.announce.business.Announce;
 import fr.paris.lutece.plugins.announce.business.AnnounceHome;
 import fr.paris.lutece.plugins.announce.business.AnnounceSearchFilter;
 import fr.paris.lutece.plugins.announce.business.AnnounceSort;
-import fr.paris.lutece.plugins.announce.service.AnnouncePlugin;
 import fr.paris.lutece.portal.service.plugin.Plugin;
 import fr.paris.lutece.portal.service.search.SearchItem;
 import fr.paris.lutece.portal.service.search.SearchResult;
@@ -71,9 +66,7 @@ import fr.paris.lutece.portal.service.util.AppLogService;
  */
 public class AnnounceLuceneSearchEngine implements IAnnounceSearchEngine
 {
-    private static final int NO_CATEGORY = 0;
-    private static final int NO_SECTOR = 0;
-    private final SimpleDateFormat _dayFormat = new SimpleDateFormat( "yyyyMMdd", Locale.US );
+    private static final Set<String> FIELDS_TO_LOAD_ID = Collections.singleton( AnnounceSearchItem.FIELD_ID_ANNOUNCE );
 
     /**
      * {@inheritDoc}
@@ -82,128 +75,49 @@ public class AnnounceLuceneSearchEngine implements IAnnounceSearchEngine
     public int getSearchResults( AnnounceSearchFilter filter, Plugin plugin, List<SearchResult> listSearchResult, int nPage, int nItemsPerPage )
     {
         ArrayList<SearchItem> listResults = new ArrayList<>( );
-        IndexSearcher searcher;
+        IndexSearcher searcher = null;
 
         int nNbResults = 0;
 
         try
         {
-            searcher = AnnounceSearchService.getInstance( ).getSearcher( );
+            searcher = AnnounceSearchService.getInstance( ).acquireSearcher( );
 
-            Collection<String> queries = new ArrayList<>( );
-            Collection<String> sectors = new ArrayList<>( );
-            Collection<BooleanClause.Occur> flags = new ArrayList<>( );
-
-            // Category id
-            if ( filter.getIdCategory( ) != NO_CATEGORY )
-            {
-                Query queryCategoryId = new TermQuery( new Term( AnnounceSearchItem.FIELD_CATEGORY_ID, String.valueOf( filter.getIdCategory( ) ) ) );
-                queries.add( queryCategoryId.toString( ) );
-                sectors.add( AnnounceSearchItem.FIELD_CATEGORY_ID );
-                flags.add( BooleanClause.Occur.MUST );
-            }
-
-            // Category id
-            if ( filter.getIdSector( ) != NO_SECTOR )
-            {
-                Query querySectorId = new TermQuery( new Term( AnnounceSearchItem.FIELD_SECTOR_ID, String.valueOf( filter.getIdSector( ) ) ) );
-                queries.add( querySectorId.toString( ) );
-                sectors.add( AnnounceSearchItem.FIELD_SECTOR_ID );
-                flags.add( BooleanClause.Occur.MUST );
-            }
-
-            // Type (=announce)
-            PhraseQuery.Builder queryTypeBuilder = new PhraseQuery.Builder( );
-            // add character "e" to TYPE because field is not analyzed when added to lucene document, but it's analyzed then in MultiFieldQueryParser.parse
-            // method
-            queryTypeBuilder.add( new Term( SearchItem.FIELD_TYPE, AnnouncePlugin.PLUGIN_NAME + "e" ) );
-            queries.add( queryTypeBuilder.build( ).toString( ) );
-            sectors.add( SearchItem.FIELD_TYPE );
-            flags.add( BooleanClause.Occur.MUST );
-
-            // Keywords in title or description
-            if ( StringUtils.isNotBlank( filter.getKeywords( ) ) )
+            if ( searcher == null )
             {
-                PhraseQuery.Builder queryContentBuilder = new PhraseQuery.Builder( );
-                queryContentBuilder.add( new Term( SearchItem.FIELD_CONTENTS, filter.getKeywords( ) ) );
-                queries.add( queryContentBuilder.build( ).toString( ) );
-                sectors.add( SearchItem.FIELD_CONTENTS );
-                flags.add( BooleanClause.Occur.MUST );
+                return 0;
             }
 
-            // contains range date
-            if ( ( filter.getDateMin( ) != null ) || ( filter.getDateMax( ) != null ) )
-            {
-                Date dateMinToSearch = new Date( 0L );
-                Date dateMaxToSearch = new Date( );
-                if ( filter.getDateMin( ) != null )
-                {
-                    dateMinToSearch = filter.getDateMin( );
-                }
-
-                if ( filter.getDateMax( ) != null )
-                {
-                    dateMaxToSearch = filter.getDateMax( );
-                }
-
-                // String stringDateMin = DateUtil.
-                String strLowerTerm = _dayFormat.format( dateMinToSearch );
-                String strUpperTerm = _dayFormat.format( dateMaxToSearch );
-                BytesRef bRLowerTerm = new BytesRef( strLowerTerm );
-                BytesRef bRUpperTerm = new BytesRef( strUpperTerm );
-                Query queryRangeDate = new TermRangeQuery( SearchItem.FIELD_DATE, bRLowerTerm, bRUpperTerm, true, true );
-                queries.add( queryRangeDate.toString( ) );
-                sectors.add( SearchItem.FIELD_DATE );
-                flags.add( BooleanClause.Occur.MUST );
-            }
+            Query query = getQuery( filter );
+            int nMaxDoc = searcher.getIndexReader( ).maxDoc( );
+            long lFrom = getFirstHit( nPage, nItemsPerPage );
 
-            // contains range price
-            if ( ( filter.getPriceMin( ) > 0 ) || ( filter.getPriceMax( ) > 0 ) )
+            // A page past the end of the index is empty : only the hits are counted
+            if ( lFrom >= nMaxDoc )
             {
-                int nPriceMin = ( filter.getPriceMin( ) > 0 ) ? filter.getPriceMin( ) : 0;
-                int nPriceMax = ( filter.getPriceMax( ) > 0 ) ? filter.getPriceMax( ) : Integer.MAX_VALUE;
-                Query queryRangePrice = new TermRangeQuery( AnnounceSearchItem.FIELD_PRICE,
-                        new BytesRef( AnnounceSearchService.formatPriceForIndexer( nPriceMin ) ),
-                        new BytesRef( AnnounceSearchService.formatPriceForIndexer( nPriceMax ) ), true, true );
-                queries.add( queryRangePrice.toString( ) );
-                sectors.add( AnnounceSearchItem.FIELD_PRICE );
-                flags.add( BooleanClause.Occur.MUST );
+                return searcher.count( query );
             }
 
-            Query queryMulti = MultiFieldQueryParser.parse( queries.toArray( new String [ queries.size( )] ), sectors.toArray( new String [ sectors.size( )] ),
-                    flags.toArray( new BooleanClause.Occur [ flags.size( )] ), AnnounceSearchService.getInstance( ).getAnalyzer( ) );
-
-            TopDocs topDocs = searcher.search( queryMulti, 1000000 );
+            // We only collect the hits up to the end of the current page
+            TopDocs topDocs = searchTopDocs( searcher, query, getNbHitsToCollect( nPage, nItemsPerPage, nMaxDoc ) );
             ScoreDoc [ ] hits = topDocs.scoreDocs;
-            nNbResults = hits.length;
+            nNbResults = (int) topDocs.totalHits.value;
 
             // We only get the documents of the current page
-            int nFrom = ( nPage - 1 ) * nItemsPerPage;
-
-            if ( nFrom < 0 )
-            {
-                nFrom = 0;
-            }
-
-            int nTo = ( nPage * nItemsPerPage );
-
-            if ( ( nTo == 0 ) || ( nTo > nNbResults ) )
-            {
-                nTo = nNbResults;
-            }
-
-            for ( int i = nFrom; i < nTo; i++ )
+            for ( int i = (int) lFrom; i < hits.length; i++ )
             {
-                int docId = hits [i].doc;
-                Document document = searcher.doc( docId );
-                SearchItem si = new SearchItem( document );
-                listResults.add( si );
+                Document document = searcher.doc( hits [i].doc );
+                listResults.add( new SearchItem( document ) );
             }
         }
         catch( Exception e )
         {
             AppLogService.error( e.getMessage( ), e );
         }
+        finally
+        {
+            AnnounceSearchService.getInstance( ).releaseSearcher( searcher );
+        }
         convertList( listResults, listSearchResult );
 
         return nNbResults;
@@ -216,156 +130,202 @@ public class AnnounceLuceneSearchEngine implements IAnnounceSearchEngine
     public int getSearchResultsBis( AnnounceSearchFilter filter, Plugin plugin, List<Announce> listAnnouncesResult, int nPage, int nItemsPerPage,
             AnnounceSort anSort )
     {
-        ArrayList<SearchItem> listResults = new ArrayList<>( );
+        AnnounceSearchCursor cursor = getSearchResultsAfter( filter, plugin, listAnnouncesResult, nPage, nItemsPerPage, anSort, null );
+
+        return ( cursor != null ) ? cursor.getNbResults( ) : 0;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public AnnounceSearchCursor getSearchResultsAfter( AnnounceSearchFilter filter, Plugin plugin, List<Announce> listAnnouncesResult, int nPage,
+            int nItemsPerPage, AnnounceSort anSort, AnnounceSearchCursor after )
+    {
         List<Integer> listIdAnnounces = new ArrayList<>( );
-        IndexSearcher searcher;
+        IndexSearcher searcher = null;
+        AnnounceSearchCursor cursor = null;
 
-        Date dateMinToSearch;
-        Date dateMaxToSearch;
-        int nNbResults = 0;
         try
         {
-            searcher = AnnounceSearchService.getInstance( ).getSearcher( );
+            searcher = AnnounceSearchService.getInstance( ).acquireSearcher( );
 
-            Collection<String> queries = new ArrayList<>( );
-            Collection<String> sectors = new ArrayList<>( );
-            Collection<BooleanClause.Occur> flags = new ArrayList<>( );
-
-            // Category id
-            if ( filter.getIdCategory( ) != NO_CATEGORY )
+            if ( searcher == null )
             {
-                Query queryCategoryId = new TermQuery( new Term( AnnounceSearchItem.FIELD_CATEGORY_ID, String.valueOf( filter.getIdCategory( ) ) ) );
-                queries.add( queryCategoryId.toString( ) );
-                sectors.add( AnnounceSearchItem.FIELD_CATEGORY_ID );
-                flags.add( BooleanClause.Occur.MUST );
+                return null;
             }
 
-            // Category id
-            if ( filter.getIdSector( ) != NO_SECTOR )
-            {
-                Query querySectorId = new TermQuery( new Term( AnnounceSearchItem.FIELD_SECTOR_ID, String.valueOf( filter.getIdSector( ) ) ) );
-                queries.add( querySectorId.toString( ) );
-                sectors.add( AnnounceSearchItem.FIELD_SECTOR_ID );
-                flags.add( BooleanClause.Occur.MUST );
-            }
+            Query query = getQuery( filter );
+            Sort sort = getSort( anSort );
+            int nFingerprint = AnnounceSearchCursor.getFingerprint( query, sort );
+            int nMaxDoc = searcher.getIndexReader( ).maxDoc( );
+            long lFrom = getFirstHit( nPage, nItemsPerPage );
 
-            // Type (=announce)
-            PhraseQuery.Builder queryTypeBuilder = new PhraseQuery.Builder( );
-            // add character "e" to TYPE because field is not analyzed when added to lucene document, but it's analyzed then in MultiFieldQueryParser.parse
-            // method
-            queryTypeBuilder.add( new Term( SearchItem.FIELD_TYPE, AnnouncePlugin.PLUGIN_NAME + "e" ) );
-            queries.add( queryTypeBuilder.build( ).toString( ) );
-            sectors.add( SearchItem.FIELD_TYPE );
-            flags.add( BooleanClause.Occur.MUST );
-
-            // Keywords in title or description
-            if ( StringUtils.isNotBlank( filter.getKeywords( ) ) )
+            // A page past the end of the index is empty : only the hits are counted
+            if ( lFrom >= nMaxDoc )
             {
-                PhraseQuery.Builder queryContentBuilder = new PhraseQuery.Builder( );
-                queryContentBuilder.add( new Term( SearchItem.FIELD_CONTENTS, filter.getKeywords( ) ) );
-                queries.add( queryContentBuilder.build( ).toString( ) );
-                sectors.add( SearchItem.FIELD_CONTENTS );
-                flags.add( BooleanClause.Occur.MUST );
+                return new AnnounceSearchCursor( nPage, searcher.count( query ), nFingerprint, null );
             }
 
-            // contains range date
-            if ( ( filter.getDateMin( ) != null ) || ( filter.getDateMax( ) != null ) )
-            {
-                if ( filter.getDateMin( ) == null )
-                {
-                    dateMinToSearch = new Date( 0L );
-                }
-                else
-                {
-                    dateMinToSearch = filter.getDateMin( );
-                }
+            TopFieldCollector collector;
+            int nFrom;
 
-                if ( filter.getDateMax( ) == null )
-                {
-                    dateMaxToSearch = new Date( );
-                }
-                else
-                {
-                    dateMaxToSearch = filter.getDateMax( );
-                }
-
-                // String stringDateMin = DateUtil.
-                String strLowerTerm = _dayFormat.format( dateMinToSearch );
-                String strUpperTerm = _dayFormat.format( dateMaxToSearch );
-                BytesRef bRLowerTerm = new BytesRef( strLowerTerm );
-                BytesRef bRUpperTerm = new BytesRef( strUpperTerm );
-                Query queryRangeDate = new TermRangeQuery( SearchItem.FIELD_DATE, bRLowerTerm, bRUpperTerm, true, true );
-                queries.add( queryRangeDate.toString( ) );
-                sectors.add( SearchItem.FIELD_DATE );
-                flags.add( BooleanClause.Occur.MUST );
-            }
-
-            // contains range price
-            if ( ( filter.getPriceMin( ) > 0 ) || ( filter.getPriceMax( ) > 0 ) )
+            if ( ( after != null ) && ( nItemsPerPage > 0 ) && after.isFollowedBy( nPage, nFingerprint ) )
             {
-                int nPriceMin = ( filter.getPriceMin( ) > 0 ) ? filter.getPriceMin( ) : 0;
-                int nPriceMax = ( filter.getPriceMax( ) > 0 ) ? filter.getPriceMax( ) : Integer.MAX_VALUE;
-                Query queryRangePrice = new TermRangeQuery( AnnounceSearchItem.FIELD_PRICE,
-                        new BytesRef( AnnounceSearchService.formatPriceForIndexer( nPriceMin ) ),
-                        new BytesRef( AnnounceSearchService.formatPriceForIndexer( nPriceMax ) ), true, true );
-                queries.add( queryRangePrice.toString( ) );
-                sectors.add( AnnounceSearchItem.FIELD_PRICE );
-                flags.add( BooleanClause.Occur.MUST );
-            }
-
-            Query queryMulti = MultiFieldQueryParser.parse( queries.toArray( new String [ queries.size( )] ), sectors.toArray( new String [ sectors.size( )] ),
-                    flags.toArray( new BooleanClause.Occur [ flags.size( )] ), AnnounceSearchService.getInstance( ).getAnalyzer( ) );
-
-            TopDocs topDocs = searcher.search( queryMulti, 1000000 );
-            ScoreDoc [ ] hits = topDocs.scoreDocs;
-            nNbResults = hits.length;
-
-            // -------------------------------------------------
-            for ( int i = 0; i < nNbResults; i++ )
-            {
-                int docId = hits [i].doc;
-                Document document = searcher.doc( docId );
-                SearchItem si = new SearchItem( document );
-                listResults.add( si );
+                // The cursor of the previous page is re-resolved with the same sort, so only the hits of the current page are collected whatever its number
+                collector = TopFieldCollector.create( sort, Math.min( nItemsPerPage, nMaxDoc ), after.getLastHit( ), Integer.MAX_VALUE );
+                nFrom = 0;
             }
-            for ( SearchItem searchResult : listResults )
+            else
             {
-                if ( searchResult.getId( ) != null )
-                {
-                    listIdAnnounces.add( Integer.parseInt( searchResult.getId( ) ) );
-                }
+                // Announces are sorted by the index, so we only collect the hits up to the end of the current page
+                collector = TopFieldCollector.create( sort, getNbHitsToCollect( nPage, nItemsPerPage, nMaxDoc ), Integer.MAX_VALUE );
+                nFrom = (int) lFrom;
             }
 
-            List<Announce> listAnnounces = AnnounceHome.findByListId( listIdAnnounces, anSort );
+            searcher.search( query, collector );
 
-            // -------------------------------------------------
+            TopDocs topDocs = collector.topDocs( );
+            ScoreDoc [ ] hits = topDocs.scoreDocs;
+            FieldDoc lastHit = null;
 
             // We only get the documents of the current page
-            int nFrom = ( nPage - 1 ) * nItemsPerPage;
-
-            if ( nFrom < 0 )
+            for ( int i = nFrom; i < hits.length; i++ )
             {
-                nFrom = 0;
-            }
+                String strIdAnnounce = searcher.doc( hits [i].doc, FIELDS_TO_LOAD_ID ).get( AnnounceSearchItem.FIELD_ID_ANNOUNCE );
 
-            int nTo = ( nPage * nItemsPerPage );
+                if ( strIdAnnounce != null )
+                {
+                    listIdAnnounces.add( Integer.parseInt( strIdAnnounce ) );
+                }
 
-            if ( ( nTo == 0 ) || ( nTo > nNbResults ) )
-            {
-                nTo = nNbResults;
+                lastHit = (FieldDoc) hits [i];
             }
 
-            for ( int i = nFrom; i < nTo; i++ )
-            {
-                listAnnouncesResult.add( listAnnounces.get( i ) );
-            }
+            // Only the announces of the current page are loaded, in the order of the index
+            listAnnouncesResult.addAll( AnnounceHome.findByListId( listIdAnnounces, null ) );
+            cursor = new AnnounceSearchCursor( nPage, (int) topDocs.totalHits.value, nFingerprint, lastHit );
         }
         catch( Exception e )
         {
             AppLogService.error( e.getMessage( ), e );
         }
+        finally
+        {
+            AnnounceSearchService.getInstance( ).releaseSearcher( searcher );
+        }
 
-        return nNbResults;
+        return cursor;
+    }
+
+    /**
+     * Get the Lucene sort matching an announce sort. Ties are broken by index order.
+     * 
+     * @param anSort
+     *            The announce sort
+     * @return The Lucene sort
+     */
+    private Sort getSort( AnnounceSort anSort )
+    {
+        AnnounceSort announceSort = ( anSort != null ) ? anSort : AnnounceSort.DEFAULT_SORT;
+        boolean bReverse = !announceSort.getSortAsc( );
+        SortField sortField;
+
+        switch( announceSort.getSortColumn( ) )
+        {
+            case AnnounceSort.SORT_DATE_CREATION:
+                sortField = new SortField( AnnounceSearchItem.FIELD_SORT_DATE_CREATION, SortField.Type.LONG, bReverse );
+                break;
+
+            case AnnounceSort.SORT_DATE_PUBLICATION:
+                sortField = new SortField( AnnounceSearchItem.FIELD_SORT_DATE_PUBLICATION, SortField.Type.LONG, bReverse );
+                break;
+
+            case AnnounceSort.SORT_TITLE:
+                sortField = new SortField( AnnounceSearchItem.FIELD_SORT_TITLE, SortField.Type.STRING, bReverse );
+                break;
+
+            case AnnounceSort.SORT_PRICE:
+                sortField = new SortField( AnnounceSearchItem.FIELD_SORT_PRICE, SortField.Type.DOUBLE, bReverse );
+                break;
+
+            case AnnounceSort.SORT_DESCRIPTION:
+                sortField = new SortField( AnnounceSearchItem.FIELD_SORT_DESCRIPTION, SortField.Type.STRING, bReverse );
+                break;
+
+            case AnnounceSort.SORT_DATE_MODIFICATION:
+            default:
+                sortField = new SortField( AnnounceSearchItem.FIELD_SORT_DATE_MODIFICATION, SortField.Type.LONG, bReverse );
+                break;
+        }
+
+        return new Sort( sortField, SortField.FIELD_DOC );
+    }
+
+    /**
+     * Get the position of the first hit of a page
+     * 
+     * @param nPage
+     *            The number of the page
+     * @param nItemsPerPage
+     *            The number of items per page. 0 to ignore the pagination
+     * @return The position of the first hit of the page, computed in long so that it can not overflow
+     */
+    private static long getFirstHit( int nPage, int nItemsPerPage )
+    {
+        return ( nItemsPerPage > 0 ) ? ( ( Math.max( nPage, 1 ) - 1L ) * nItemsPerPage ) : 0L;
+    }
+
+    /**
+     * Get the number of hits to collect to display a page. The page index and the number of items per page come from the request, so the result is bounded
+     * by the number of documents of the index.
+     * 
+     * @param nPage
+     *            The number of the page
+     * @param nItemsPerPage
+     *            The number of items per page. 0 to ignore the pagination
+     * @param nMaxDoc
+     *            The number of documents of the index
+     * @return The number of hits to collect, between 1 and the number of documents of the index
+     */
+    private static int getNbHitsToCollect( int nPage, int nItemsPerPage, int nMaxDoc )
+    {
+        long lTo = ( nItemsPerPage > 0 ) ? ( Math.max( nPage, 1 ) * (long) nItemsPerPage ) : nMaxDoc;
+
+        return (int) Math.max( Math.min( lTo, nMaxDoc ), 1L );
+    }
+
+    /**
+     * Collect the best hits of a query. The total number of hits is always counted exactly.
+     * 
+     * @param searcher
+     *            The searcher
+     * @param query
+     *            The query
+     * @param nNbHits
+     *            The maximum number of hits to collect
+     * @return The collected hits
+     * @throws IOException
+     *             If an IO error occurred
+     */
+    private TopDocs searchTopDocs( IndexSearcher searcher, Query query, int nNbHits ) throws IOException
+    {
+        TopScoreDocCollector collector = TopScoreDocCollector.create( nNbHits, null, Integer.MAX_VALUE );
+        searcher.search( query, collector );
+
+        return collector.topDocs( );
+    }
+
+    /**
+     * Build the query matching a search filter
+     * 
+     * @param filter
+     *            The search filter
+     * @return The query
+     */
+    private Query getQuery( AnnounceSearchFilter filter )
+    {
+        return AnnounceQueryBuilder.buildQuery( filter, AnnounceSearchService.getInstance( ).getAnalyzer( ) );
     }
 
     /**
@@ -0,0 +1,157 @@
+/*
+ * Copyright (c) 2002-2021, City of Paris
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions
+ * are met:
+ *
+ *  1. Redistributions of source code must retain the above copyright notice
+ *     and the following disclaimer.
+ *
+ *  2. Redistributions in binary form must reproduce the above copyright notice
+ *     and the following disclaimer in the documentation and/or other materials
+ *     provided with the distribution.
+ *
+ *  3. Neither the name of 'Mairie de Paris' nor 'Lutece' nor the names of its
+ *     contributors may be used to endorse or promote products derived from
+ *     this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDERS OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ *
+ * License 1.0
+ */
+package fr.paris.lutece.plugins.announce.service.announcesearch;
+
+import java.util.Calendar;
+import java.util.Date;
+
+import org.apache.commons.lang3.StringUtils;
+import org.apache.lucene.analysis.Analyzer;
+import org.apache.lucene.document.DoublePoint;
+import org.apache.lucene.document.LongPoint;
+import org.apache.lucene.index.Term;
+import org.apache.lucene.search.BooleanClause;
+import org.apache.lucene.search.BooleanQuery;
+import org.apache.lucene.search.Query;
+import org.apache.lucene.search.TermQuery;
+import org.apache.lucene.util.QueryBuilder;
+
+import fr.paris.lutece.plugins.announce.business.AnnounceSearchFilter;
+import fr.paris.lutece.plugins.announce.service.AnnouncePlugin;
+import fr.paris.lutece.portal.service.search.SearchItem;
+
+/**
+ * Builds the Lucene query matching an announce search filter. Keywords are the only scored clause : every other criterion is a filter clause that Lucene
+ * can cache.
+ */
+public final class AnnounceQueryBuilder
+{
+    private static final int NO_CATEGORY = 0;
+    private static final int NO_SECTOR = 0;
+
+    /**
+     * Private constructor
+     */
+    private AnnounceQueryBuilder( )
+    {
+        // Do nothing
+    }
+
+    /**
+     * Build the query matching a search filter
+     * 
+     * @param filter
+     *            The search filter
+     * @param analyzer
+     *            The analyzer used to analyze keywords
+     * @return The query
+     */
+    public static Query buildQuery( AnnounceSearchFilter filter, Analyzer analyzer )
+    {
+        BooleanQuery.Builder queryBuilder = new BooleanQuery.Builder( );
+
+        // Type (=announce)
+        queryBuilder.add( new TermQuery( new Term( SearchItem.FIELD_TYPE, AnnouncePlugin.PLUGIN_NAME ) ), BooleanClause.Occur.FILTER );
+
+        // Category id
+        if ( filter.getIdCategory( ) != NO_CATEGORY )
+        {
+            queryBuilder.add( new TermQuery( new Term( AnnounceSearchItem.FIELD_CATEGORY_ID, String.valueOf( filter.getIdCategory( ) ) ) ),
+                    BooleanClause.Occur.FILTER );
+        }
+
+        // Sector id
+        if ( filter.getIdSector( ) != NO_SECTOR )
+        {
+            queryBuilder.add( new TermQuery( new Term( AnnounceSearchItem.FIELD_SECTOR_ID, String.valueOf( filter.getIdSector( ) ) ) ),
+                    BooleanClause.Occur.FILTER );
+        }
+
+        // Keywords in title or description
+        if ( StringUtils.isNotBlank( filter.getKeywords( ) ) )
+        {
+            Query queryKeywords = new QueryBuilder( analyzer ).createPhraseQuery( SearchItem.FIELD_CONTENTS, filter.getKeywords( ) );
+
+            if ( queryKeywords != null )
+            {
+                queryBuilder.add( queryKeywords, BooleanClause.Occur.MUST );
+            }
+        }
+
+        // contains range date
+        if ( ( filter.getDateMin( ) != null ) || ( filter.getDateMax( ) != null ) )
+        {
+            long lDateMin = ( filter.getDateMin( ) != null ) ? getStartOfDay( filter.getDateMin( ), 0 ) : 0L;
+            Date dateMax = ( filter.getDateMax( ) != null ) ? filter.getDateMax( ) : new Date( );
+            // The upper day is included
+            long lDateMax = getStartOfDay( dateMax, 1 ) - 1;
+
+            queryBuilder.add( LongPoint.newRangeQuery( AnnounceSearchItem.FIELD_DATE_POINT, lDateMin, lDateMax ), BooleanClause.Occur.FILTER );
+        }
+
+        // contains range price
+        if ( ( filter.getPriceMin( ) > 0 ) || ( filter.getPriceMax( ) > 0 ) )
+        {
+            double dPriceMin = ( filter.getPriceMin( ) > 0 ) ? filter.getPriceMin( ) : 0d;
+            double dPriceMax = ( filter.getPriceMax( ) > 0 ) ? filter.getPriceMax( ) : Double.POSITIVE_INFINITY;
+
+            queryBuilder.add( DoublePoint.newRangeQuery( AnnounceSearchItem.FIELD_PRICE_POINT, dPriceMin, dPriceMax ), BooleanClause.Occur.FILTER );
+        }
+
+        return queryBuilder.build( );
+    }
+
+    /**
+     * Get the local midnight of a day. Dates of the filter come from date pickers in the time zone of the server, and the index stores raw epoch
+     * milliseconds, so days are truncated in the time zone of the server.
+     * 
+     * @param date
+     *            The date
+     * @param nDaysToAdd
+     *            The number of days to add to the day of the date
+     * @return The local midnight of the day, in milliseconds
+     */
+    private static long getStartOfDay( Date date, int nDaysToAdd )
+    {
+        Calendar calendar = Calendar.getInstance( );
+        calendar.setTime( date );
+        calendar.set( Calendar.HOUR_OF_DAY, 0 );
+        calendar.set( Calendar.MINUTE, 0 );
+        calendar.set( Calendar.SECOND, 0 );
+        calendar.set( Calendar.MILLISECOND, 0 );
+        calendar.add( Calendar.DAY_OF_MONTH, nDaysToAdd );
+
+        return calendar.getTimeInMillis( );
+    }
+}
@@ -0,0 +1,268 @@
+/*
+ * Copyright (c) 2002-2021, City of Paris
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions
+ * are met:
+ *
+ *  1. Redistributions of source code must retain the above copyright notice
+ *     and the following disclaimer.
+ *
+ *  2. Redistributions in binary form must reproduce the above copyright notice
+ *     and the following disclaimer in the documentation and/or other materials
+ *     provided with the distribution.
+ *
+ *  3. Neither the name of 'Mairie de Paris' nor 'Lutece' nor the names of its
+ *     contributors may be used to endorse or promote products derived from
+ *     this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDERS OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ *
+ * License 1.0
+ */
+package fr.paris.lutece.plugins.announce.service.announcesearch;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+import java.util.Objects;
+
+import org.apache.lucene.search.FieldDoc;
+import org.apache.lucene.search.Query;
+import org.apache.lucene.search.Sort;
+import org.apache.lucene.util.BytesRef;
+
+/**
+ * Opaque cursor that points after the last hit of a page of sorted search results, with the number of results of the search. It holds the sort value and
+ * the document id of the last hit rather than a raw hit, so that the next page can be collected with a search after this position even if the index was
+ * refreshed meanwhile. The cursor is only used for the page that follows its own page, with the same query and the same sort.
+ */
+public final class AnnounceSearchCursor
+{
+    private static final String SEPARATOR = ".";
+    private static final String SEPARATOR_REGEX = "\\.";
+    private static final int NB_TOKEN_PARTS = 5;
+    private static final char TYPE_NULL = 'N';
+    private static final char TYPE_LONG = 'L';
+    private static final char TYPE_DOUBLE = 'D';
+    private static final char TYPE_BYTES = 'S';
+    private static final int RADIX_HEXADECIMAL = 16;
+
+    private final int _nPage;
+    private final int _nNbResults;
+    private final int _nFingerprint;
+    private final boolean _bHasLastHit;
+    private final int _nLastDoc;
+    private final Object _lastSortValue;
+
+    /**
+     * Constructor
+     * 
+     * @param nPage
+     *            The number of the page
+     * @param nNbResults
+     *            The number of results of the search
+     * @param nFingerprint
+     *            The fingerprint of the query and of the sort
+     * @param lastHit
+     *            The last hit of the page, with its sort values, or null if the page is empty
+     */
+    AnnounceSearchCursor( int nPage, int nNbResults, int nFingerprint, FieldDoc lastHit )
+    {
+        this( nPage, nNbResults, nFingerprint, lastHit != null, ( lastHit != null ) ? lastHit.doc : 0, ( lastHit != null ) ? lastHit.fields [0] : null );
+    }
+
+    /**
+     * Constructor
+     * 
+     * @param nPage
+     *            The number of the page
+     * @param nNbResults
+     *            The number of results of the search
+     * @param nFingerprint
+     *            The fingerprint of the query and of the sort
+     * @param bHasLastHit
+     *            True if the page has a last hit
+     * @param nLastDoc
+     *            The document id of the last hit
+     * @param lastSortValue
+     *            The sort value of the last hit
+     */
+    private AnnounceSearchCursor( int nPage, int nNbResults, int nFingerprint, boolean bHasLastHit, int nLastDoc, Object lastSortValue )
+    {
+        _nPage = nPage;
+        _nNbResults = nNbResults;
+        _nFingerprint = nFingerprint;
+        _bHasLastHit = bHasLastHit;
+        _nLastDoc = nLastDoc;
+        _lastSortValue = lastSortValue;
+    }
+
+    /**
+     * Get the fingerprint of a search. Cursors of a search are not used for another one
+     * 
+     * @param query
+     *            The query
+     * @param sort
+     *            The sort
+     * @return The fingerprint
+     */
+    static int getFingerprint( Query query, Sort sort )
+    {
+        return Objects.hash( query.toString( ), sort.toString( ) );
+    }
+
+    /**
+     * Get the number of results of the search
+     * 
+     * @return The number of results
+     */
+    public int getNbResults( )
+    {
+        return _nNbResults;
+    }
+
+    /**
+     * Check if the page of this cursor is followed by a given page of the same search
+     * 
+     * @param nPage
+     *            The number of the page
+     * @param nFingerprint
+     *            The fingerprint of the search
+     * @return True if the hits of the page can be collected after this cursor
+     */
+    boolean isFollowedBy( int nPage, int nFingerprint )
+    {
+        return _bHasLastHit && ( nPage == ( _nPage + 1 ) ) && ( nFingerprint == _nFingerprint );
+    }
+
+    /**
+     * Get the last hit of the page, to search after it with a sort made of the sort field and of the document id
+     * 
+     * @return The last hit of the page
+     */
+    FieldDoc getLastHit( )
+    {
+        return new FieldDoc( _nLastDoc, Float.NaN, new Object [ ] {
+                _lastSortValue, _nLastDoc
+        } );
+    }
+
+    /**
+     * Get the token of the cursor, to put in the links to the next page. It is only made of characters that can be used in an URL
+     * 
+     * @return The token, or null if the page is empty
+     */
+    public String getToken( )
+    {
+        if ( !_bHasLastHit )
+        {
+            return null;
+        }
+
+        return _nPage + SEPARATOR + _nNbResults + SEPARATOR + _nFingerprint + SEPARATOR + _nLastDoc + SEPARATOR + encodeSortValue( _lastSortValue );
+    }
+
+    /**
+     * Parse the token of a cursor. Tokens come from the request, so invalid tokens are ignored
+     * 
+     * @param strToken
+     *            The token
+     * @return The cursor, or null if the token is not valid
+     */
+    public static AnnounceSearchCursor parse( String strToken )
+    {
+        if ( strToken == null )
+        {
+            return null;
+        }
+
+        String [ ] parts = strToken.split( SEPARATOR_REGEX );
+
+        if ( parts.length != NB_TOKEN_PARTS || parts [4].isEmpty( ) )
+        {
+            return null;
+        }
+
+        try
+        {
+            return new AnnounceSearchCursor( Integer.parseInt( parts [0] ), Integer.parseInt( parts [1] ), Integer.parseInt( parts [2] ), true,
+                    Integer.parseInt( parts [3] ), decodeSortValue( parts [4] ) );
+        }
+        catch( IllegalArgumentException e )
+        {
+            return null;
+        }
+    }
+
+    /**
+     * Encode a sort value
+     * 
+     * @param sortValue
+     *            The sort value : a Long, a Double, a BytesRef or null
+     * @return The encoded value
+     */
+    private static String encodeSortValue( Object sortValue )
+    {
+        if ( sortValue instanceof Long )
+        {
+            return TYPE_LONG + Long.toString( (Long) sortValue );
+        }
+
+        if ( sortValue instanceof Double )
+        {
+            return TYPE_DOUBLE + Long.toHexString( Double.doubleToLongBits( (Double) sortValue ) );
+        }
+
+        if ( sortValue instanceof BytesRef )
+        {
+            BytesRef bytes = (BytesRef) sortValue;
+
+            return TYPE_BYTES + Base64.getUrlEncoder( ).withoutPadding( ).encodeToString( BytesRef.deepCopyOf( bytes ).bytes );
+        }
+
+        return String.valueOf( TYPE_NULL );
+    }
+
+    /**
+     * Decode a sort value
+     * 
+     * @param strValue
+     *            The encoded value
+     * @return The sort value
+     * @throws IllegalArgumentException
+     *             If the value is not valid
+     */
+    private static Object decodeSortValue( String strValue )
+    {
+        String strData = strValue.substring( 1 );
+
+        switch( strValue.charAt( 0 ) )
+        {
+            case TYPE_LONG:
+                return Long.parseLong( strData );
+
+            case TYPE_DOUBLE:
+                return Double.longBitsToDouble( Long.parseUnsignedLong( strData, RADIX_HEXADECIMAL ) );
+
+            case TYPE_BYTES:
+                return new BytesRef( Base64.getUrlDecoder( ).decode( strData.getBytes( StandardCharsets.US_ASCII ) ) );
+
+            case TYPE_NULL:
+                return null;
+
+            default:
+                throw new IllegalArgumentException( "Unknown type of sort value : " + strValue );
+        }
+    }
+}
@@ -64,6 +64,46 @@ public class AnnounceSearchItem extends SearchItem
      */
     public static final String FIELD_PRICE = "price";
 
+    /**
+     * Announce price, indexed as a point to filter by price range
+     */
+    public static final String FIELD_PRICE_POINT = "price_point";
+
+    /**
+     * Announce publication date, indexed as a point to filter by date range
+     */
+    public static final String FIELD_DATE_POINT = "date_point";
+
+    /**
+     * Announce creation time, used to sort results
+     */
+    public static final String FIELD_SORT_DATE_CREATION = "sort_date_creation";
+
+    /**
+     * Announce publication time, used to sort results
+     */
+    public static final String FIELD_SORT_DATE_PUBLICATION = "sort_publication_time";
+
+    /**
+     * Announce modification time, used to sort results
+     */
+    public static final String FIELD_SORT_DATE_MODIFICATION = "sort_date_modification";
+
+    /**
+     * Announce price, used to sort results
+     */
+    public static final String FIELD_SORT_PRICE = "sort_price";
+
+    /**
+     * Normalized announce title, used to sort results
+     */
+    public static final String FIELD_SORT_TITLE = "sort_title";
+
+    /**
+     * Normalized beginning of the announce description, used to sort results
+     */
+    public static final String FIELD_SORT_DESCRIPTION = "sort_description";
+
     // Variables declarations
     private String _strCategoryId;
 
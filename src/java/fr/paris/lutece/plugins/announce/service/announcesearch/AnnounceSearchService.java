@@ -34,34 +34,48 @@
 package fr.paris.lutece.plugins.announce.service.announcesearch;
 
 import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
 import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
 import java.text.DecimalFormat;
 import java.text.NumberFormat;
+import java.text.SimpleDateFormat;
 import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
 import java.util.Date;
 import java.util.List;
+import java.util.stream.Stream;
 
 import org.apache.commons.lang3.StringUtils;
 import org.apache.lucene.analysis.Analyzer;
 import org.apache.lucene.analysis.miscellaneous.LimitTokenCountAnalyzer;
 import org.apache.lucene.index.DirectoryReader;
-import org.apache.lucene.index.IndexReader;
 import org.apache.lucene.index.IndexWriter;
 import org.apache.lucene.index.IndexWriterConfig;
 import org.apache.lucene.index.IndexWriterConfig.OpenMode;
 import org.apache.lucene.index.LogDocMergePolicy;
 import org.apache.lucene.index.LogMergePolicy;
+import org.apache.lucene.index.SegmentInfos;
 import org.apache.lucene.search.IndexSearcher;
+import org.apache.lucene.search.SearcherManager;
 import org.apache.lucene.store.Directory;
 import org.apache.lucene.store.FSDirectory;
 
 import fr.paris.lutece.plugins.announce.business.Announce;
+import fr.paris.lutece.plugins.announce.business.AnnounceHome;
 import fr.paris.lutece.plugins.announce.business.AnnounceSearchFilter;
 import fr.paris.lutece.plugins.announce.business.AnnounceSort;
 import fr.paris.lutece.plugins.announce.business.IndexerAction;
 import fr.paris.lutece.plugins.announce.business.IndexerActionFilter;
 import fr.paris.lutece.plugins.announce.business.IndexerActionHome;
 import fr.paris.lutece.plugins.announce.service.AnnouncePlugin;
+import fr.paris.lutece.portal.service.init.ShutdownService;
+import fr.paris.lutece.portal.service.init.ShutdownServiceManager;
+import fr.paris.lutece.portal.service.message.SiteMessageException;
 import fr.paris.lutece.portal.service.plugin.Plugin;
 import fr.paris.lutece.portal.service.plugin.PluginService;
 import fr.paris.lutece.portal.service.search.SearchResult;
@@ -80,6 +94,8 @@ public final class AnnounceSearchService
     private static final String PATH_INDEX = "announce.internalIndexer.lucene.indexPath";
     private static final String PROPERTY_WRITER_MERGE_FACTOR = "announce.internalIndexer.lucene.writer.mergeFactor";
     private static final String PROPERTY_WRITER_MAX_FIELD_LENGTH = "announce.internalIndexer.lucene.writer.maxSectorLength";
+    private static final String PROPERTY_WRITER_COMMIT_INTERVAL = "announce.internalIndexer.lucene.writer.commitInterval";
+    private static final String PROPERTY_REBUILD_COUNT_TOLERANCE = "announce.internalIndexer.lucene.rebuild.countTolerance";
     private static final String PROPERTY_ANALYSER_CLASS_NAME = "announce.internalIndexer.lucene.analyser.className";
     private static final String PROPERTY_INDEXER_PRICE_FORMAT = "announce.indexer.priceFormat";
 
@@ -89,9 +105,25 @@ public final class AnnounceSearchService
     private static final String CONSTANT_POINT = ".";
     private static final String CONSTANT_EURO = "€";
 
+    // Full indexing builds a new generation of the index in a sub directory of the index path. The file CURRENT_GENERATION_FILE of the index path holds
+    // the name of the generation in use, or does not exist if the index is stored directly in the index path
+    private static final String CURRENT_GENERATION_FILE = "current.index";
+    private static final String CURRENT_GENERATION_TEMP_FILE = "current.index.tmp";
+    private static final String GENERATION_PREFIX = "generation-";
+    private static final String GENERATION_DATE_FORMAT = "yyyyMMddHHmmssSSS";
+    private static final String LEGACY_GENERATION = "(index path)";
+
+    // Version of the format of indexed documents. It must be incremented every time the fields of indexed documents change
+    private static final String INDEX_FORMAT_VERSION_KEY = "announce.index.formatVersion";
+    private static final String INDEX_FORMAT_VERSION = "2";
+
     // Default values
     private static final int DEFAULT_WRITER_MERGE_FACTOR = 20;
     private static final int DEFAULT_WRITER_MAX_FIELD_LENGTH = 1000000;
+    private static final int DEFAULT_WRITER_COMMIT_INTERVAL = 300;
+    private static final int DEFAULT_REBUILD_COUNT_TOLERANCE = 10;
+    private static final long MILLISECONDS_PER_SECOND = 1000L;
+    private static final long READER_REFRESH_INTERVAL = 1000L;
 
     // Constants corresponding to the variables defined in the lutece.properties file
     private static volatile AnnounceSearchService _singleton;
@@ -101,7 +133,15 @@ public final class AnnounceSearchService
     private IAnnounceSearchIndexer _indexer;
     private int _nWriterMergeFactor;
     private int _nWriterMaxSectorLength;
-    private static volatile IndexWriter _indexWriterInstance;
+    private long _lCommitInterval;
+    private long _lLastCommitTime;
+    private int _nRebuildCountTolerance;
+    private final Object _indexingLock = new Object( );
+    private Directory _directory;
+    private volatile IndexWriter _indexWriter;
+    private volatile SearcherManager _searcherManager;
+    private volatile String _strCurrentGeneration;
+    private volatile long _lLastReaderRefreshTime;
 
     /**
      * Creates a new instance of DirectorySearchService
@@ -118,6 +158,8 @@ public final class AnnounceSearchService
 
         _nWriterMergeFactor = AppPropertiesService.getPropertyInt( PROPERTY_WRITER_MERGE_FACTOR, DEFAULT_WRITER_MERGE_FACTOR );
         _nWriterMaxSectorLength = AppPropertiesService.getPropertyInt( PROPERTY_WRITER_MAX_FIELD_LENGTH, DEFAULT_WRITER_MAX_FIELD_LENGTH );
+        _lCommitInterval = AppPropertiesService.getPropertyInt( PROPERTY_WRITER_COMMIT_INTERVAL, DEFAULT_WRITER_COMMIT_INTERVAL ) * MILLISECONDS_PER_SECOND;
+        _nRebuildCountTolerance = AppPropertiesService.getPropertyInt( PROPERTY_REBUILD_COUNT_TOLERANCE, DEFAULT_REBUILD_COUNT_TOLERANCE );
 
         String strAnalyserClassName = AppPropertiesService.getProperty( PROPERTY_ANALYSER_CLASS_NAME );
 
@@ -136,6 +178,8 @@ public final class AnnounceSearchService
         {
             throw new AppException( "Failed to load Lucene Analyzer class", e );
         }
+
+        ShutdownServiceManager.registerShutdownService( new AnnounceSearchShutdownService( ) );
     }
 
     /**
@@ -145,12 +189,24 @@ public final class AnnounceSearchService
      */
     public static AnnounceSearchService getInstance( )
     {
-        if ( _singleton == null )
+        AnnounceSearchService service = _singleton;
+
+        if ( service == null )
         {
-            _singleton = new AnnounceSearchService( );
+            // The instance owns the index writer and registers a shutdown service, so it must be created only once
+            synchronized( AnnounceSearchService.class )
+            {
+                service = _singleton;
+
+                if ( service == null )
+                {
+                    service = new AnnounceSearchService( );
+                    _singleton = service;
+                }
+            }
         }
 
-        return _singleton;
+        return service;
     }
 
     /**
@@ -216,81 +272,421 @@ public final class AnnounceSearchService
     }
 
     /**
-     * return searcher
+     * Return a page of sorted search results, collected after the cursor of the previous page when it is given
      * 
-     * @return searcher
+     * @param filter
+     *            The search filter
+     * @param nPageNumber
+     *            The current page
+     * @param nItemsPerPage
+     *            The number of items per page to get
+     * @param listAnnouncesResults
+     *            The list that receives the announces of the page
+     * @param anSort
+     *            The sort
+     * @param after
+     *            The cursor returned for the previous page, or null
+     * @return The cursor of the current page, with the total number of items found, or null if the search failed
      */
-    public IndexSearcher getSearcher( )
+    public AnnounceSearchCursor getSearchResultsAfter( AnnounceSearchFilter filter, int nPageNumber, int nItemsPerPage, List<Announce> listAnnouncesResults,
+            AnnounceSort anSort, AnnounceSearchCursor after )
     {
-        IndexSearcher searcher = null;
+        AnnounceSearchCursor cursor = null;
 
         try
         {
-            IndexReader ir = DirectoryReader.open( FSDirectory.open( Paths.get( getIndex( ) ) ) );
-            searcher = new IndexSearcher( ir );
+            IAnnounceSearchEngine engine = SpringContextService.getBean( BEAN_SEARCH_ENGINE );
+            cursor = engine.getSearchResultsAfter( filter, PluginService.getPlugin( AnnouncePlugin.PLUGIN_NAME ), listAnnouncesResults, nPageNumber,
+                    nItemsPerPage, anSort, after );
         }
-        catch( IOException e )
+        catch( Exception e )
         {
             AppLogService.error( e.getMessage( ), e );
+            // If an error occurred clean result list
+            listAnnouncesResults.clear( );
         }
 
-        return searcher;
+        return cursor;
+    }
+
+    /**
+     * Acquire the shared searcher. Every searcher acquired with this method must be released with {@link #releaseSearcher(IndexSearcher)} once the search
+     * is done.
+     * 
+     * @return The shared searcher, or null if the index does not exist yet
+     * @throws IOException
+     *             If an IO error occurred while opening the index
+     */
+    public IndexSearcher acquireSearcher( ) throws IOException
+    {
+        SearcherManager searcherManager = getSearcherManager( );
+
+        return ( searcherManager != null ) ? searcherManager.acquire( ) : null;
     }
 
     /**
-     * Process indexing
+     * Release a searcher acquired with {@link #acquireSearcher()}
+     * 
+     * @param searcher
+     *            The searcher to release. Null values are ignored
+     */
+    public void releaseSearcher( IndexSearcher searcher )
+    {
+        if ( searcher != null )
+        {
+            try
+            {
+                SearcherManager searcherManager = _searcherManager;
+
+                if ( searcherManager != null )
+                {
+                    searcherManager.release( searcher );
+                }
+                else
+                {
+                    // The manager has been closed since the searcher was acquired
+                    searcher.getIndexReader( ).decRef( );
+                }
+            }
+            catch( IOException e )
+            {
+                AppLogService.error( e.getMessage( ), e );
+            }
+        }
+    }
+
+    /**
+     * Refresh the shared searcher so that it sees the changes made by the index writer, even if they are not committed yet
+     */
+    private void refreshSearcher( )
+    {
+        if ( _searcherManager != null )
+        {
+            try
+            {
+                _searcherManager.maybeRefresh( );
+            }
+            catch( IOException e )
+            {
+                AppLogService.error( e.getMessage( ), e );
+            }
+        }
+    }
+
+    /**
+     * Get the searcher manager. Searching must not take the write lock of the index, which may be owned by another node or by an external indexer : the
+     * manager is opened from a reader of the directory, and it is only bound to the index writer once this node opens the writer to index announces.
+     * 
+     * @return The searcher manager, or null if the index does not exist yet
+     * @throws IOException
+     *             If an IO error occurred while opening the index
+     */
+    private SearcherManager getSearcherManager( ) throws IOException
+    {
+        if ( ( _searcherManager != null ) && ( _indexWriter == null )
+                && ( ( System.currentTimeMillis( ) - _lLastReaderRefreshTime ) >= READER_REFRESH_INTERVAL ) )
+        {
+            refreshReader( );
+        }
+
+        if ( _searcherManager == null )
+        {
+            synchronized( this )
+            {
+                if ( ( _searcherManager == null ) && DirectoryReader.indexExists( getDirectory( ) ) )
+                {
+                    _searcherManager = new SearcherManager( getDirectory( ), null );
+                    _lLastReaderRefreshTime = System.currentTimeMillis( );
+                }
+            }
+        }
+
+        return _searcherManager;
+    }
+
+    /**
+     * Refresh a searcher manager that is not bound to the index writer, so that it sees the changes committed by the owner of the writer. If the owner swapped
+     * in a new generation of the index, the manager is closed to be opened again on the new generation.
+     */
+    private synchronized void refreshReader( )
+    {
+        if ( ( _searcherManager == null ) || ( _indexWriter != null ) )
+        {
+            return;
+        }
+
+        _lLastReaderRefreshTime = System.currentTimeMillis( );
+
+        try
+        {
+            if ( StringUtils.equals( getCurrentGeneration( ), _strCurrentGeneration ) )
+            {
+                _searcherManager.maybeRefresh( );
+            }
+            else
+            {
+                closeSearcherManager( );
+
+                if ( _directory != null )
+                {
+                    _directory.close( );
+                    _directory = null;
+                }
+            }
+        }
+        catch( IOException e )
+        {
+            AppLogService.error( e.getMessage( ), e );
+        }
+    }
+
+    /**
+     * Process indexing. A full indexing builds a new index beside the current one, which keeps serving searches until the new index is swapped in.
      * 
      * @param bCreate
      *            true for start full indexing false for begin incremental indexing
      * @return the log
      */
     public String processIndexing( boolean bCreate )
+    {
+        return processIndexing( bCreate, null );
+    }
+
+    /**
+     * Process indexing, and write the documents built by a full indexing to a sink as well. The documents are built once for both the index of the plugin
+     * and the sink.
+     * 
+     * @param bCreate
+     *            true for start full indexing false for begin incremental indexing
+     * @param documentSink
+     *            The sink of the documents built by a full indexing, or null. It is not used by incremental indexing
+     * @return the log
+     */
+    public String processIndexing( boolean bCreate, IAnnounceDocumentSink documentSink )
     {
         StringBuffer sbLogs = new StringBuffer( );
-        IndexWriter writer = null;
         boolean bCreateIndex = bCreate;
 
-        try
+        synchronized( _indexingLock )
         {
-            sbLogs.append( "\r\nIndexing all contents ...\r\n" );
+            try
+            {
+                sbLogs.append( "\r\nIndexing all contents ...\r\n" );
+
+                Directory dir = getDirectory( );
+                if ( !DirectoryReader.indexExists( dir ) )
+                {
+                    bCreateIndex = true;
+                }
+                else
+                    if ( !bCreateIndex && !INDEX_FORMAT_VERSION.equals( getIndexFormatVersion( dir ) ) )
+                    {
+                        // The index was built with an older document format : it must be rebuilt
+                        sbLogs.append( "Index format is outdated, the whole index will be rebuilt\r\n" );
+                        bCreateIndex = true;
+                    }
 
-            Directory dir = FSDirectory.open( Paths.get( getIndex( ) ) );
-            if ( !DirectoryReader.indexExists( dir ) )
+                Date start = new Date( );
+
+                sbLogs.append( "\r\n<strong>Indexer : " );
+                sbLogs.append( _indexer.getName( ) );
+                sbLogs.append( " - " );
+                sbLogs.append( _indexer.getDescription( ) );
+                sbLogs.append( "</strong>\r\n" );
+
+                if ( bCreateIndex )
+                {
+                    rebuildIndex( documentSink, sbLogs );
+                }
+                else
+                {
+                    updateIndex( sbLogs );
+                }
+
+                Date end = new Date( );
+
+                sbLogs.append( "Duration of the treatment : " );
+                sbLogs.append( end.getTime( ) - start.getTime( ) );
+                sbLogs.append( " milliseconds\r\n" );
+            }
+            catch( Exception e )
             {
-                bCreateIndex = true;
+                sbLogs.append( " caught a " );
+                sbLogs.append( e.getClass( ) );
+                sbLogs.append( "\n with message: " );
+                sbLogs.append( e.getMessage( ) );
+                sbLogs.append( "\r\n" );
+                AppLogService.error( "Indexing error : " + e.getMessage( ), e );
             }
+        }
 
-            writer = getIndexWriterInstance( bCreateIndex );
-
-            Date start = new Date( );
+        return sbLogs.toString( );
+    }
 
-            sbLogs.append( "\r\n<strong>Indexer : " );
-            sbLogs.append( _indexer.getName( ) );
-            sbLogs.append( " - " );
-            sbLogs.append( _indexer.getDescription( ) );
-            sbLogs.append( "</strong>\r\n" );
-            _indexer.processIndexing( writer, bCreateIndex, sbLogs );
+    /**
+     * Apply the pending indexer actions to the current index
+     * 
+     * @param sbLogs
+     *            The logs of the indexing
+     * @throws IOException
+     *             If an IO error occurred
+     * @throws InterruptedException
+     *             If the indexing was interrupted
+     * @throws SiteMessageException
+     *             If a site message occurred
+     */
+    private void updateIndex( StringBuffer sbLogs ) throws IOException, InterruptedException, SiteMessageException
+    {
+        IndexWriter writer = getIndexWriter( );
+        writer.setLiveCommitData( Collections.singletonMap( INDEX_FORMAT_VERSION_KEY, INDEX_FORMAT_VERSION ).entrySet( ) );
 
-            Date end = new Date( );
+        _indexer.processIndexing( writer, false, null, sbLogs );
 
-            sbLogs.append( "Duration of the treatment : " );
-            sbLogs.append( end.getTime( ) - start.getTime( ) );
-            sbLogs.append( " milliseconds\r\n" );
+        if ( ( System.currentTimeMillis( ) - _lLastCommitTime ) >= _lCommitInterval )
+        {
+            commit( writer );
+            sbLogs.append( "Index committed\r\n" );
         }
-        catch( Exception e )
+
+        refreshSearcher( );
+    }
+
+    /**
+     * Build a new generation of the index, check it and swap it in. The new generation is dropped if it does not hold as many documents as there were
+     * published announces when the rebuild started, give or take the tolerance and the changes queued during the rebuild, and the current index is kept.
+     * The changes queued during the rebuild are then replayed on the new generation.
+     * 
+     * @param documentSink
+     *            The sink of the documents, or null
+     * @param sbLogs
+     *            The logs of the indexing
+     * @throws IOException
+     *             If an IO error occurred
+     * @throws InterruptedException
+     *             If the indexing was interrupted
+     * @throws SiteMessageException
+     *             If a site message occurred
+     */
+    private void rebuildIndex( IAnnounceDocumentSink documentSink, StringBuffer sbLogs ) throws IOException, InterruptedException, SiteMessageException
+    {
+        Path pathIndex = Paths.get( getIndex( ) );
+        String strGeneration = GENERATION_PREFIX + new SimpleDateFormat( GENERATION_DATE_FORMAT ).format( new Date( ) );
+        Path pathGeneration = pathIndex.resolve( strGeneration );
+        Files.createDirectories( pathGeneration );
+
+        Directory dirGeneration = FSDirectory.open( pathGeneration );
+        IndexWriter writer = null;
+        boolean bSwapped = false;
+
+        // Announces published, suspended or expired while the pipeline runs are queued as indexer actions
+        int nNbPublished = AnnounceHome.countPublished( );
+        int nNbActionsBefore = countIndexerActions( );
+
+        try
         {
-            sbLogs.append( " caught a " );
-            sbLogs.append( e.getClass( ) );
-            sbLogs.append( "\n with message: " );
-            sbLogs.append( e.getMessage( ) );
+            writer = new IndexWriter( dirGeneration, getIndexWriterConfig( OpenMode.CREATE ) );
+            writer.setLiveCommitData( Collections.singletonMap( INDEX_FORMAT_VERSION_KEY, INDEX_FORMAT_VERSION ).entrySet( ) );
+
+            _indexer.processIndexing( writer, true, documentSink, sbLogs );
+            writer.commit( );
+
+            int nNbDocuments;
+
+            try ( DirectoryReader reader = DirectoryReader.open( writer ) )
+            {
+                nNbDocuments = reader.numDocs( );
+            }
+
+            int nNbQueuedActions = Math.max( countIndexerActions( ) - nNbActionsBefore, 0 );
+
+            if ( Math.abs( nNbDocuments - nNbPublished ) > ( _nRebuildCountTolerance + nNbQueuedActions ) )
+            {
+                String strRejected = "New index " + strGeneration + " rejected : " + nNbDocuments + " documents for " + nNbPublished
+                        + " published announces. The current index is kept";
+                sbLogs.append( strRejected );
+                sbLogs.append( "\r\n" );
+                AppLogService.error( strRejected );
+
+                return;
+            }
+
+            String strPreviousGeneration = swapIndex( strGeneration, dirGeneration, writer );
+            bSwapped = true;
+
+            String strSwapped = "Index swapped : " + strGeneration + " (" + nNbDocuments + " documents) replaces "
+                    + ( ( strPreviousGeneration != null ) ? strPreviousGeneration : LEGACY_GENERATION ) + ", which is kept for rollback";
+            sbLogs.append( strSwapped );
             sbLogs.append( "\r\n" );
-            AppLogService.error( "Indexing error : " + e.getMessage( ), e );
+            AppLogService.info( strSwapped );
+
+            deleteOldGenerations( pathIndex, strGeneration, strPreviousGeneration );
+
+            // Replay the changes queued during the rebuild
+            updateIndex( sbLogs );
         }
         finally
+        {
+            if ( !bSwapped )
+            {
+                if ( writer != null )
+                {
+                    try
+                    {
+                        writer.rollback( );
+                    }
+                    catch( IOException e )
+                    {
+                        AppLogService.error( e.getMessage( ), e );
+                    }
+                }
+
+                dirGeneration.close( );
+                deleteGeneration( pathGeneration );
+            }
+        }
+    }
+
+    /**
+     * Count the pending indexer actions
+     * 
+     * @return The number of pending indexer actions
+     */
+    private int countIndexerActions( )
+    {
+        return IndexerActionHome.countAll( );
+    }
+
+    /**
+     * Make a new generation of the index the current one. The pointer to the current generation is replaced atomically, then the writer and the searcher
+     * manager are switched to the new generation.
+     * 
+     * @param strGeneration
+     *            The name of the new generation
+     * @param dirGeneration
+     *            The directory of the new generation
+     * @param writer
+     *            The index writer of the new generation
+     * @return The name of the replaced generation, or null if the index was stored directly in the index path
+     * @throws IOException
+     *             If an IO error occurred
+     */
+    private synchronized String swapIndex( String strGeneration, Directory dirGeneration, IndexWriter writer ) throws IOException
+    {
+        String strPreviousGeneration = getCurrentGeneration( );
+        Path pathIndex = Paths.get( getIndex( ) );
+        Path pathTemp = pathIndex.resolve( CURRENT_GENERATION_TEMP_FILE );
+
+        Files.write( pathTemp, strGeneration.getBytes( StandardCharsets.UTF_8 ) );
+        Files.move( pathTemp, pathIndex.resolve( CURRENT_GENERATION_FILE ), StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING );
+
+        // Searchers acquired on the previous generation stay usable until they are released
+        closeIndexWriter( );
+
+        if ( _directory != null )
         {
             try
             {
-                closeIndexWriterInstance( );
+                _directory.close( );
             }
             catch( IOException e )
             {
@@ -298,7 +694,100 @@ public final class AnnounceSearchService
             }
         }
 
-        return sbLogs.toString( );
+        _directory = dirGeneration;
+        _strCurrentGeneration = strGeneration;
+        _indexWriter = writer;
+        _searcherManager = new SearcherManager( writer, null );
+        _lLastCommitTime = System.currentTimeMillis( );
+
+        return strPreviousGeneration;
+    }
+
+    /**
+     * Get the name of the current generation of the index
+     * 
+     * @return The name of the current generation, or null if the index is stored directly in the index path
+     * @throws IOException
+     *             If an IO error occurred
+     */
+    private String getCurrentGeneration( ) throws IOException
+    {
+        Path pathCurrent = Paths.get( getIndex( ), CURRENT_GENERATION_FILE );
+
+        if ( !Files.exists( pathCurrent ) )
+        {
+            return null;
+        }
+
+        String strGeneration = new String( Files.readAllBytes( pathCurrent ), StandardCharsets.UTF_8 ).trim( );
+
+        return StringUtils.isEmpty( strGeneration ) ? null : strGeneration;
+    }
+
+    /**
+     * Delete the generations of the index other than the current and the previous ones
+     * 
+     * @param pathIndex
+     *            The index path
+     * @param strCurrentGeneration
+     *            The name of the current generation
+     * @param strPreviousGeneration
+     *            The name of the previous generation, or null
+     */
+    private void deleteOldGenerations( Path pathIndex, String strCurrentGeneration, String strPreviousGeneration )
+    {
+        try ( DirectoryStream<Path> generations = Files.newDirectoryStream( pathIndex, GENERATION_PREFIX + "*" ) )
+        {
+            for ( Path pathGeneration : generations )
+            {
+                String strGeneration = pathGeneration.getFileName( ).toString( );
+
+                if ( Files.isDirectory( pathGeneration ) && !strGeneration.equals( strCurrentGeneration ) && !strGeneration.equals( strPreviousGeneration ) )
+                {
+                    deleteGeneration( pathGeneration );
+                }
+            }
+        }
+        catch( IOException e )
+        {
+            AppLogService.error( e.getMessage( ), e );
+        }
+    }
+
+    /**
+     * Delete a generation of the index
+     * 
+     * @param pathGeneration
+     *            The directory of the generation
+     */
+    private void deleteGeneration( Path pathGeneration )
+    {
+        try ( Stream<Path> paths = Files.walk( pathGeneration ) )
+        {
+            // Files are deleted before the directory that contains them
+            for ( Path path : (Iterable<Path>) paths.sorted( Comparator.reverseOrder( ) )::iterator )
+            {
+                Files.deleteIfExists( path );
+            }
+        }
+        catch( IOException e )
+        {
+            AppLogService.error( "Unable to delete the index generation " + pathGeneration + " : " + e.getMessage( ), e );
+        }
+    }
+
+    /**
+     * Get the format version of the last commit of an index
+     * 
+     * @param dir
+     *            The directory of the index
+     * @return The format version, or null if the index has no format version
+     * @throws IOException
+     *             If an IO error occurred
+     */
+    private String getIndexFormatVersion( Directory dir ) throws IOException
+    {
+        return SegmentInfos.readLatestCommit( dir ).getUserData( ).get( INDEX_FORMAT_VERSION_KEY );
     }
 
     /**
@@ -430,35 +919,152 @@ public final class AnnounceSearchService
         return _strPriceFormat;
     }
 
-    private synchronized IndexWriter getIndexWriterInstance( boolean bCreateIndex ) throws IOException
+    /**
+     * Get the directory of the current generation of the index
+     * 
+     * @return The directory of the index
+     * @throws IOException
+     *             If an IO error occurred
+     */
+    private synchronized Directory getDirectory( ) throws IOException
+    {
+        if ( _directory == null )
+        {
+            String strGeneration = getCurrentGeneration( );
+            Path pathIndex = ( strGeneration != null ) ? Paths.get( getIndex( ), strGeneration ) : Paths.get( getIndex( ) );
+            _directory = FSDirectory.open( pathIndex );
+            _strCurrentGeneration = strGeneration;
+        }
+
+        return _directory;
+    }
+
+    /**
+     * Get the index writer. The writer is opened once and kept open, so that changes are applied without taking the write lock and reading the segments
+     * of the index again. The searcher manager is then bound to the writer, to see changes in near real time.
+     * 
+     * @return The index writer
+     * @throws IOException
+     *             If an IO error occurred
+     */
+    private synchronized IndexWriter getIndexWriter( ) throws IOException
+    {
+        if ( ( _indexWriter == null ) || !_indexWriter.isOpen( ) )
+        {
+            closeSearcherManager( );
+
+            _indexWriter = new IndexWriter( getDirectory( ), getIndexWriterConfig( OpenMode.CREATE_OR_APPEND ) );
+            _searcherManager = new SearcherManager( _indexWriter, null );
+            _lLastCommitTime = System.currentTimeMillis( );
+        }
+
+        return _indexWriter;
+    }
+
+    /**
+     * Get the configuration of an index writer
+     * 
+     * @param openMode
+     *            The open mode of the writer
+     * @return The configuration
+     */
+    private IndexWriterConfig getIndexWriterConfig( OpenMode openMode )
+    {
+        IndexWriterConfig conf = new IndexWriterConfig( new LimitTokenCountAnalyzer( _analyzer, _nWriterMaxSectorLength ) );
+        LogMergePolicy mergePolicy = new LogDocMergePolicy( );
+        mergePolicy.setMergeFactor( _nWriterMergeFactor );
+        conf.setMergePolicy( mergePolicy );
+        conf.setOpenMode( openMode );
+
+        return conf;
+    }
+
+    /**
+     * Commit the changes of the index writer
+     * 
+     * @param writer
+     *            The index writer
+     * @throws IOException
+     *             If an IO error occurred
+     */
+    private synchronized void commit( IndexWriter writer ) throws IOException
+    {
+        if ( writer.hasUncommittedChanges( ) )
+        {
+            writer.commit( );
+        }
+
+        _lLastCommitTime = System.currentTimeMillis( );
+    }
+
+    /**
+     * Close the searcher manager. Searchers that are still acquired stay usable until they are released
+     */
+    private synchronized void closeSearcherManager( )
     {
-        if ( _indexWriterInstance == null )
+        if ( _searcherManager != null )
         {
-            Directory dir = FSDirectory.open(Paths.get( getIndex( ) ) );
-            IndexWriterConfig conf = new IndexWriterConfig( new LimitTokenCountAnalyzer( _analyzer, _nWriterMaxSectorLength ) );
-            LogMergePolicy mergePolicy = new LogDocMergePolicy( );
-            mergePolicy.setMergeFactor( _nWriterMergeFactor );
-            conf.setMergePolicy(mergePolicy);
-            if (bCreateIndex)
+            try
             {
-                conf.setOpenMode( OpenMode.CREATE );
+                _searcherManager.close( );
             }
-            else
+            catch( IOException e )
             {
-                conf.setOpenMode( OpenMode.APPEND );
+                AppLogService.error( e.getMessage( ), e );
             }
 
-            _indexWriterInstance = new IndexWriter( dir, conf );
+            _searcherManager = null;
         }
-        return _indexWriterInstance;
     }
 
-    private synchronized void closeIndexWriterInstance( ) throws IOException
+    /**
+     * Commit the pending changes and close the index writer
+     */
+    private synchronized void closeIndexWriter( )
     {
-        if ( _indexWriterInstance != null )
+        closeSearcherManager( );
+
+        if ( _indexWriter != null )
         {
-            _indexWriterInstance.close( );
-            _indexWriterInstance = null;
+            try
+            {
+                _indexWriter.close( );
+            }
+            catch( IOException e )
+            {
+                AppLogService.error( e.getMessage( ), e );
+            }
+
+            _indexWriter = null;
+        }
+    }
+
+    /**
+     * Shutdown service that commits and closes the index writer when the webapp is stopped
+     */
+    private static final class AnnounceSearchShutdownService implements ShutdownService
+    {
+        private static final String SERVICE_NAME = "Announce search index shutdown service";
+
+        /**
+         * {@inheritDoc}
+         */
+        @Override
+        public String getName( )
+        {
+            return SERVICE_NAME;
+        }
+
+        /**
+         * {@inheritDoc}
+         */
+        @Override
+        public void process( )
+        {
+            if ( _singleton != null )
+            {
+                _singleton.closeIndexWriter( );
+            }
         }
     }
 }
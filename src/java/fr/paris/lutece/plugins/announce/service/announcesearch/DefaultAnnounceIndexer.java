@@ -33,31 +33,31 @@
  */
 package fr.paris.lutece.plugins.announce.service.announcesearch;
 
-import java.io.ByteArrayInputStream;
 import java.io.IOException;
+import java.io.UncheckedIOException;
 import java.sql.Timestamp;
 import java.util.ArrayList;
 import java.util.Iterator;
 import java.util.List;
+import java.util.Locale;
 import java.util.stream.Collectors;
 
 import org.apache.commons.collections.CollectionUtils;
-import org.apache.commons.lang.StringUtils;
+import org.apache.commons.lang3.StringUtils;
 import org.apache.lucene.document.DateTools;
 import org.apache.lucene.document.Document;
+import org.apache.lucene.document.DoubleDocValuesField;
+import org.apache.lucene.document.DoublePoint;
 import org.apache.lucene.document.Field;
+import org.apache.lucene.document.LongPoint;
+import org.apache.lucene.document.NumericDocValuesField;
+import org.apache.lucene.document.SortedDocValuesField;
 import org.apache.lucene.document.StoredField;
 import org.apache.lucene.document.StringField;
 import org.apache.lucene.document.TextField;
 import org.apache.lucene.index.IndexWriter;
 import org.apache.lucene.index.Term;
-import org.apache.tika.exception.TikaException;
-import org.apache.tika.metadata.Metadata;
-import org.apache.tika.parser.ParseContext;
-import org.apache.tika.parser.html.HtmlParser;
-import org.apache.tika.sax.BodyContentHandler;
-import org.xml.sax.ContentHandler;
-import org.xml.sax.SAXException;
+import org.apache.lucene.util.BytesRef;
 
 import fr.paris.lutece.plugins.announce.business.Announce;
 import fr.paris.lutece.plugins.announce.business.AnnounceHome;
@@ -65,14 +65,14 @@ import fr.paris.lutece.plugins.announce.business.AnnounceSort;
 import fr.paris.lutece.plugins.announce.business.IndexerAction;
 import fr.paris.lutece.plugins.announce.service.AnnouncePlugin;
 import fr.paris.lutece.plugins.announce.utils.AnnounceUtils;
-import fr.paris.lutece.plugins.genericattributes.business.Response;
 import fr.paris.lutece.portal.service.content.XPageAppService;
 import fr.paris.lutece.portal.service.message.SiteMessageException;
 import fr.paris.lutece.portal.service.plugin.Plugin;
 import fr.paris.lutece.portal.service.plugin.PluginService;
 import fr.paris.lutece.portal.service.search.IndexationService;
 import fr.paris.lutece.portal.service.search.SearchItem;
-import fr.paris.lutece.portal.service.util.AppException;
+import fr.paris.lutece.portal.service.spring.SpringContextService;
+import fr.paris.lutece.portal.service.util.AppLogService;
 import fr.paris.lutece.portal.service.util.AppPathService;
 import fr.paris.lutece.portal.service.util.AppPropertiesService;
 import fr.paris.lutece.util.url.UrlItem;
@@ -89,6 +89,9 @@ public class DefaultAnnounceIndexer implements IAnnounceSearchIndexer
     private static final String PROPERTY_INDEXER_VERSION = "announce.indexer.version";
     private static final String PROPERTY_INDEXER_ENABLE = "announce.indexer.enable";
     private static final String BLANK_SPACE = " ";
+    private static final int SORT_DESCRIPTION_MAX_LENGTH = 255;
+    private static final String BEAN_CONTENT_EXTRACTOR = "announce.announceContentExtractor";
+    private static IAnnounceContentExtractor _contentExtractor;
 
     /**
      * {@inheritDoc}
@@ -113,30 +116,51 @@ public class DefaultAnnounceIndexer implements IAnnounceSearchIndexer
      */
     private void indexListAnnounce( IndexWriter indexWriter, List<Integer> listIdAnounce, Plugin plugin ) throws IOException
     {
-        String strPortalUrl = AppPathService.getPortalUrl( );
         Iterator<Integer> it = listIdAnounce.iterator( );
 
         while ( it.hasNext( ) )
         {
             Integer nAnnounceId = it.next( );
+            Term term = new Term( AnnounceSearchItem.FIELD_ID_ANNOUNCE, Integer.toString( nAnnounceId ) );
             Announce announce = AnnounceHome.findByPrimaryKey( nAnnounceId );
-            
-            List<Response> listResponses = AnnounceHome.findListResponse( nAnnounceId, false );
-            announce.setListResponse(listResponses);
 
-            UrlItem urlAnnounce = new UrlItem( strPortalUrl );
-            urlAnnounce.addParameter( XPageAppService.PARAM_XPAGE_APP, AppPropertiesService.getProperty( AnnounceUtils.PARAMETER_PAGE_ANNOUNCE ) ); // FIXME
-            urlAnnounce.addParameter( PARAMETER_ANNOUNCE_ID, announce.getId( ) );
+            if ( announce == null )
+            {
+                // The announce has been removed since the action was registered
+                indexWriter.deleteDocuments( term );
+
+                continue;
+            }
 
-            indexWriter.addDocument( getDocument( announce, urlAnnounce.getUrl( ), plugin ) );
+            announce = announce.copy( );
+            announce.setListResponse( AnnounceHome.findListResponse( nAnnounceId, false ) );
+
+            // Documents are replaced, so that an announce is never indexed twice
+            indexWriter.updateDocument( term, getDocument( announce, getAnnounceUrl( announce ), plugin ) );
         }
     }
 
+    /**
+     * Get the URL of the page of an announce
+     * 
+     * @param announce
+     *            The announce
+     * @return The URL of the page of the announce
+     */
+    public static String getAnnounceUrl( Announce announce )
+    {
+        UrlItem urlAnnounce = new UrlItem( AppPathService.getPortalUrl( ) );
+        urlAnnounce.addParameter( XPageAppService.PARAM_XPAGE_APP, AppPropertiesService.getProperty( AnnounceUtils.PARAMETER_PAGE_ANNOUNCE ) ); // FIXME
+        urlAnnounce.addParameter( PARAMETER_ANNOUNCE_ID, announce.getId( ) );
+
+        return urlAnnounce.getUrl( );
+    }
+
     /**
      * {@inheritDoc}
      */
     @Override
-    public synchronized void processIndexing( IndexWriter indexWriter, boolean bCreate, StringBuffer sbLogs )
+    public synchronized void processIndexing( IndexWriter indexWriter, boolean bCreate, IAnnounceDocumentSink documentSink, StringBuffer sbLogs )
             throws IOException, InterruptedException, SiteMessageException
     {
         Plugin plugin = PluginService.getPlugin( AnnouncePlugin.PLUGIN_NAME );
@@ -164,22 +188,11 @@ public class DefaultAnnounceIndexer implements IAnnounceSearchIndexer
             {
                 sbLogAnnounce( sbLogs, action.getIdAnnounce( ), IndexerAction.TASK_MODIFY );
 
-                Term term = new Term( AnnounceSearchItem.FIELD_ID_ANNOUNCE, Integer.toString( action.getIdAnnounce( ) ) );
-                Term [ ] terms = {
-                        term
-                };
-
-                indexWriter.deleteDocuments( terms );
-
                 listIdAnnounce.add( action.getIdAnnounce( ) );
 
                 AnnounceSearchService.getInstance( ).removeIndexerAction( action.getIdAction( ), plugin );
             }
 
-            this.indexListAnnounce( indexWriter, listIdAnnounce, plugin );
-
-            listIdAnnounce = new ArrayList<>( );
-
             // add all record which must be added
             for ( IndexerAction action : AnnounceSearchService.getInstance( ).getAllIndexerActionByTask( IndexerAction.TASK_CREATE, plugin ) )
             {
@@ -193,58 +206,54 @@ public class DefaultAnnounceIndexer implements IAnnounceSearchIndexer
         }
         else
         {
-            for ( Announce announce : AnnounceHome.findAllPublished( AnnounceSort.DEFAULT_SORT ) )
-            {
-                if ( !announce.getSuspended( ) && !announce.getSuspendedByUser( ) )
-                {
-                    sbLogs.append( "Indexing Announce" );
-                    sbLogs.append( "\r\n" );
-
-                    sbLogAnnounce( sbLogs, announce.getId( ), IndexerAction.TASK_CREATE );
-
-                    listIdAnnounce.add( announce.getId( ) );
-                }
-            }
-
-            this.indexListAnnounce( indexWriter, listIdAnnounce, plugin );
+            // Published announces that are not suspended are streamed from the database, so they are not logged one by one
+            AnnounceIndexingPipeline pipeline = new AnnounceIndexingPipeline( );
+            long lStart = System.currentTimeMillis( );
+            int nNbIndexed = pipeline.indexAllPublished( indexWriter, documentSink, plugin );
+            long lDuration = Math.max( System.currentTimeMillis( ) - lStart, 1L );
+
+            String strThroughput = nNbIndexed + " announces indexed in " + lDuration + " ms by " + pipeline.getBuilderThreads( ) + " document builders ("
+                    + ( ( nNbIndexed * 1000L ) / lDuration ) + " announces/s)";
+            sbLogs.append( strThroughput );
+            sbLogs.append( "\r\n" );
+            AppLogService.info( strThroughput );
         }
-
-        indexWriter.commit( );
     }
 
     /**
-     * Get the subject document
+     * Write the documents of every published announce to the indexation service. Announces are streamed from the database and each document is written as
+     * soon as it is built, so the returned list is always empty
      * 
      * @param strDocument
      *            id of the subject to index
-     * @return The list of lucene documents
+     * @return An empty list, documents being already written
      * @throws IOException
      *             If an IO Exception occurred
      */
     public static List<Document> getDocuments( String strDocument ) throws IOException
     {
-        List<org.apache.lucene.document.Document> listDocs = new ArrayList<>( );
-        String strPortalUrl = AppPathService.getPortalUrl( );
         Plugin plugin = PluginService.getPlugin( AnnouncePlugin.PLUGIN_NAME );
 
-        for ( Announce announce : AnnounceHome.findAllPublished( AnnounceSort.DEFAULT_SORT ) )
+        try
         {
-            if ( !announce.getSuspended( ) && !announce.getSuspendedByUser( ) )
-            {
-                UrlItem urlAnnounce = new UrlItem( strPortalUrl );
-                urlAnnounce.addParameter( XPageAppService.PARAM_XPAGE_APP, AppPropertiesService.getProperty( AnnounceUtils.PARAMETER_PAGE_ANNOUNCE ) ); // FIXME
-                urlAnnounce.addParameter( PARAMETER_ANNOUNCE_ID, announce.getId( ) );
-
-                org.apache.lucene.document.Document docAnnounce = getDocument( announce, urlAnnounce.getUrl( ), plugin );
-                listDocs.add( docAnnounce );
-                if ( docAnnounce != null )
+            AnnounceHome.forEachPublished( announce -> {
+                try
                 {
-                    IndexationService.write( docAnnounce );
+                    announce.setListResponse( AnnounceHome.findListResponse( announce.getId( ), false ) );
+                    IndexationService.write( getDocument( announce, getAnnounceUrl( announce ), plugin ) );
                 }
-            }
+                catch( IOException e )
+                {
+                    throw new UncheckedIOException( e );
+                }
+            } );
+        }
+        catch( UncheckedIOException e )
+        {
+            throw e.getCause( );
         }
 
-        return listDocs;
+        return new ArrayList<>( );
     }
 
     /**
@@ -284,34 +293,24 @@ public class DefaultAnnounceIndexer implements IAnnounceSearchIndexer
         // Add the last modified date of the file a field named "modified".
         // Use a field that is indexed (i.e. searchable), but don't tokenize
         // the field into words.
-        String strDate = DateTools.dateToString(
-                ( announce.getTimePublication( ) > 0 ) ? new Timestamp( announce.getTimePublication( ) ) : announce.getDateCreation( ),
-                DateTools.Resolution.DAY );
+        Timestamp datePublication = ( announce.getTimePublication( ) > 0 ) ? new Timestamp( announce.getTimePublication( ) ) : announce.getDateCreation( );
+        String strDate = DateTools.dateToString( datePublication, DateTools.Resolution.DAY );
         doc.add( new Field( SearchItem.FIELD_DATE, strDate, TextField.TYPE_STORED ) );
+        doc.add( new LongPoint( AnnounceSearchItem.FIELD_DATE_POINT, datePublication.getTime( ) ) );
 
         if ( announce.getPrice( ) != 0.0 )
         {
             double dPrice = announce.getPrice( );
             // Add the price of the announce
             doc.add( new Field( AnnounceSearchItem.FIELD_PRICE, AnnounceSearchService.formatPriceForIndexer( dPrice ), TextField.TYPE_STORED ) );
+            doc.add( new DoublePoint( AnnounceSearchItem.FIELD_PRICE_POINT, dPrice ) );
         }
 
-        String strContentToIndex = getContentToIndex( announce );
-
-        // NOUVEAU
-        ContentHandler handler = new BodyContentHandler( );
-        Metadata metadata = new Metadata( );
-
-        try
-        {
-            new HtmlParser( ).parse( new ByteArrayInputStream( strContentToIndex.getBytes( ) ), handler, metadata, new ParseContext( ) );
-        }
-        catch( SAXException | TikaException e )
-        {
-            throw new AppException( "Error during announce parsing." );
-        }
+        // Add the sort values of the announce, so that results can be sorted without loading them
+        addSortFields( doc, announce );
 
-        String strContent = handler.toString( );
+        String strContentToIndex = getContentToIndex( announce );
+        String strContent = getContentExtractor( ).extractText( strContentToIndex );
 
         // Add the tag-stripped contents as a Reader-valued Text field so it will
         // get tokenized and indexed.
@@ -327,6 +326,59 @@ public class DefaultAnnounceIndexer implements IAnnounceSearchIndexer
         return doc;
     }
 
+    /**
+     * Get the extractor of the text to index from the content of announces
+     * 
+     * @return The content extractor
+     */
+    private static IAnnounceContentExtractor getContentExtractor( )
+    {
+        if ( _contentExtractor == null )
+        {
+            _contentExtractor = SpringContextService.getBean( BEAN_CONTENT_EXTRACTOR );
+        }
+
+        return _contentExtractor;
+    }
+
+    /**
+     * Add to a document the doc values used to sort search results. Every sortable column of {@link AnnounceSort} has its doc value.
+     * 
+     * @param doc
+     *            The document
+     * @param announce
+     *            The announce
+     */
+    private static void addSortFields( org.apache.lucene.document.Document doc, Announce announce )
+    {
+        doc.add( new NumericDocValuesField( AnnounceSearchItem.FIELD_SORT_DATE_CREATION,
+                ( announce.getDateCreation( ) != null ) ? announce.getDateCreation( ).getTime( ) : 0L ) );
+        doc.add( new NumericDocValuesField( AnnounceSearchItem.FIELD_SORT_DATE_PUBLICATION, announce.getTimePublication( ) ) );
+        doc.add( new NumericDocValuesField( AnnounceSearchItem.FIELD_SORT_DATE_MODIFICATION,
+                ( announce.getDateModification( ) != null ) ? announce.getDateModification( ).getTime( ) : 0L ) );
+        doc.add( new DoubleDocValuesField( AnnounceSearchItem.FIELD_SORT_PRICE, ( announce.getPrice( ) != null ) ? announce.getPrice( ) : 0d ) );
+        doc.add( new SortedDocValuesField( AnnounceSearchItem.FIELD_SORT_TITLE, new BytesRef( normalizeSortValue( announce.getTitle( ) ) ) ) );
+        doc.add( new SortedDocValuesField( AnnounceSearchItem.FIELD_SORT_DESCRIPTION,
+                new BytesRef( normalizeSortValue( StringUtils.left( announce.getDescription( ), SORT_DESCRIPTION_MAX_LENGTH ) ) ) ) );
+    }
+
+    /**
+     * Normalize a string so that it is sorted regardless of its case and accents
+     * 
+     * @param strValue
+     *            The value to normalize
+     * @return The normalized value
+     */
+    private static String normalizeSortValue( String strValue )
+    {
+        if ( strValue == null )
+        {
+            return StringUtils.EMPTY;
+        }
+
+        return StringUtils.stripAccents( strValue.trim( ) ).toLowerCase( Locale.FRENCH );
+    }
+
     /**
      * Set the Content to index
      * 
@@ -64,4 +64,27 @@ public interface IAnnounceSearchEngine
     int getSearchResults( AnnounceSearchFilter filter, Plugin plugin, List<SearchResult> listSearchResult, int nPage, int nItemsPerPage );
 
     int getSearchResultsBis( AnnounceSearchFilter filter, Plugin plugin, List<Announce> listSearchResult, int nPage, int nItemsPerPage, AnnounceSort anSort );
+
+    /**
+     * Get the announces of a page of sorted search results. If a cursor of the previous page of the same search is given, the hits are collected after it,
+     * so that the cost of a page does not depend on its number. Otherwise the hits are collected up to the end of the page
+     * 
+     * @param filter
+     *            The search filter
+     * @param plugin
+     *            the plugin
+     * @param listAnnouncesResult
+     *            The list that receives the announces of the page
+     * @param nPage
+     *            The number of the current page
+     * @param nItemsPerPage
+     *            The number of items per page. 0 to ignore the pagination
+     * @param anSort
+     *            The sort
+     * @param after
+     *            The cursor returned for a previous page, or null
+     * @return The cursor of the current page, with the total number of results, or null if the search failed
+     */
+    AnnounceSearchCursor getSearchResultsAfter( AnnounceSearchFilter filter, Plugin plugin, List<Announce> listAnnouncesResult, int nPage, int nItemsPerPage,
+            AnnounceSort anSort, AnnounceSearchCursor after );
 }
@@ -47,12 +47,15 @@ import java.io.IOException;
 public interface IAnnounceSearchIndexer
 {
     /**
-     * add to the index writer the document associate to the key specified in parameter
+     * add to the index writer the document associate to the key specified in parameter. The index writer is shared : the indexer must neither commit nor
+     * close it
      * 
      * @param indexWriter
      *            lucene index writer
      * @param bCreate
-     *            true for indexing all directory false for use incremental indexing
+     *            true for indexing all directory false for use incremental indexing. When true, the index writer writes to a new empty index
+     * @param documentSink
+     *            Sink that receives every document added by a full indexing, in addition to the index writer. May be null
      * @param sbLog
      *            the buffer logger
      * @throws IOException
@@ -62,7 +65,8 @@ public interface IAnnounceSearchIndexer
      * @throws SiteMessageException
      *             occurs when a site message need to be displayed
      */
-    void processIndexing( IndexWriter indexWriter, boolean bCreate, StringBuffer sbLog ) throws IOException, InterruptedException, SiteMessageException;
+    void processIndexing( IndexWriter indexWriter, boolean bCreate, IAnnounceDocumentSink documentSink, StringBuffer sbLog )
+            throws IOException, InterruptedException, SiteMessageException;
 
     /**
      * Returns the indexer service name
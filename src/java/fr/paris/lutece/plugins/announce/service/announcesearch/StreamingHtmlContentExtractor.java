@@ -0,0 +1,547 @@
+/*
+ * Copyright (c) 2002-2021, City of Paris
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions
+ * are met:
+ *
+ *  1. Redistributions of source code must retain the above copyright notice
+ *     and the following disclaimer.
+ *
+ *  2. Redistributions in binary form must reproduce the above copyright notice
+ *     and the following disclaimer in the documentation and/or other materials
+ *     provided with the distribution.
+ *
+ *  3. Neither the name of 'Mairie de Paris' nor 'Lutece' nor the names of its
+ *     contributors may be used to endorse or promote products derived from
+ *     this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDERS OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ *
+ * License 1.0
+ */
+package fr.paris.lutece.plugins.announce.service.announcesearch;
+
+import org.apache.commons.lang3.StringUtils;
+
+/**
+ * Content extractor that strips the markup of an HTML content in a single pass over its characters. Tags and comments are removed, the content of script and
+ * style elements is skipped, character references are decoded and whitespace is collapsed. Block level tags are replaced by a space so that words of distinct
+ * blocks are not glued together. The text is built in a buffer reused by each thread, so the only allocation of a call is the returned text.
+ */
+public class StreamingHtmlContentExtractor implements IAnnounceContentExtractor
+{
+    private static final int DEFAULT_BUFFER_CAPACITY = 4096;
+    private static final int MAX_RETAINED_BUFFER_CAPACITY = 65536;
+    private static final int MAX_ENTITY_LENGTH = 32;
+    private static final char SPACE = ' ';
+    private static final char NO_BREAK_SPACE = '\u00A0';
+    private static final String COMMENT_START = "<!--";
+    private static final String COMMENT_END = "-->";
+    private static final String [ ] BLOCK_TAGS = {
+            "address", "article", "aside", "blockquote", "br", "caption", "dd", "div", "dl", "dt", "fieldset", "figcaption", "figure", "footer", "form", "h1",
+            "h2", "h3", "h4", "h5", "h6", "header", "hr", "li", "main", "nav", "ol", "p", "pre", "section", "table", "tbody", "td", "tfoot", "th", "thead", "tr",
+            "ul"
+    };
+    private static final String [ ] SKIPPED_CONTENT_TAGS = {
+            "script", "style"
+    };
+    // Named character references of HTML 4.0 and &apos;, sorted by name for a binary search
+    private static final String [ ] [ ] ENTITIES = {
+            { "AElig", "\u00C6" }, { "Aacute", "\u00C1" }, { "Acirc", "\u00C2" }, { "Agrave", "\u00C0" }, { "Alpha", "\u0391" }, { "Aring", "\u00C5" },
+            { "Atilde", "\u00C3" }, { "Auml", "\u00C4" }, { "Beta", "\u0392" }, { "Ccedil", "\u00C7" }, { "Chi", "\u03A7" }, { "Dagger", "\u2021" },
+            { "Delta", "\u0394" }, { "ETH", "\u00D0" }, { "Eacute", "\u00C9" }, { "Ecirc", "\u00CA" }, { "Egrave", "\u00C8" }, { "Epsilon", "\u0395" },
+            { "Eta", "\u0397" }, { "Euml", "\u00CB" }, { "Gamma", "\u0393" }, { "Iacute", "\u00CD" }, { "Icirc", "\u00CE" }, { "Igrave", "\u00CC" },
+            { "Iota", "\u0399" }, { "Iuml", "\u00CF" }, { "Kappa", "\u039A" }, { "Lambda", "\u039B" }, { "Mu", "\u039C" }, { "Ntilde", "\u00D1" },
+            { "Nu", "\u039D" }, { "OElig", "\u0152" }, { "Oacute", "\u00D3" }, { "Ocirc", "\u00D4" }, { "Ograve", "\u00D2" }, { "Omega", "\u03A9" },
+            { "Omicron", "\u039F" }, { "Oslash", "\u00D8" }, { "Otilde", "\u00D5" }, { "Ouml", "\u00D6" }, { "Phi", "\u03A6" }, { "Pi", "\u03A0" },
+            { "Prime", "\u2033" }, { "Psi", "\u03A8" }, { "Rho", "\u03A1" }, { "Scaron", "\u0160" }, { "Sigma", "\u03A3" }, { "THORN", "\u00DE" },
+            { "Tau", "\u03A4" }, { "Theta", "\u0398" }, { "Uacute", "\u00DA" }, { "Ucirc", "\u00DB" }, { "Ugrave", "\u00D9" }, { "Upsilon", "\u03A5" },
+            { "Uuml", "\u00DC" }, { "Xi", "\u039E" }, { "Yacute", "\u00DD" }, { "Yuml", "\u0178" }, { "Zeta", "\u0396" }, { "aacute", "\u00E1" },
+            { "acirc", "\u00E2" }, { "acute", "\u00B4" }, { "aelig", "\u00E6" }, { "agrave", "\u00E0" }, { "alefsym", "\u2135" }, { "alpha", "\u03B1" },
+            { "amp", "&" }, { "and", "\u2227" }, { "ang", "\u2220" }, { "apos", "'" }, { "aring", "\u00E5" }, { "asymp", "\u2248" },
+            { "atilde", "\u00E3" }, { "auml", "\u00E4" }, { "bdquo", "\u201E" }, { "beta", "\u03B2" }, { "brvbar", "\u00A6" }, { "bull", "\u2022" },
+            { "cap", "\u2229" }, { "ccedil", "\u00E7" }, { "cedil", "\u00B8" }, { "cent", "\u00A2" }, { "chi", "\u03C7" }, { "circ", "\u02C6" },
+            { "clubs", "\u2663" }, { "cong", "\u2245" }, { "copy", "\u00A9" }, { "crarr", "\u21B5" }, { "cup", "\u222A" }, { "curren", "\u00A4" },
+            { "dArr", "\u21D3" }, { "dagger", "\u2020" }, { "darr", "\u2193" }, { "deg", "\u00B0" }, { "delta", "\u03B4" }, { "diams", "\u2666" },
+            { "divide", "\u00F7" }, { "eacute", "\u00E9" }, { "ecirc", "\u00EA" }, { "egrave", "\u00E8" }, { "empty", "\u2205" }, { "emsp", "\u2003" },
+            { "ensp", "\u2002" }, { "epsilon", "\u03B5" }, { "equiv", "\u2261" }, { "eta", "\u03B7" }, { "eth", "\u00F0" }, { "euml", "\u00EB" },
+            { "euro", "\u20AC" }, { "exist", "\u2203" }, { "fnof", "\u0192" }, { "forall", "\u2200" }, { "frac12", "\u00BD" }, { "frac14", "\u00BC" },
+            { "frac34", "\u00BE" }, { "frasl", "\u2044" }, { "gamma", "\u03B3" }, { "ge", "\u2265" }, { "gt", ">" }, { "hArr", "\u21D4" },
+            { "harr", "\u2194" }, { "hearts", "\u2665" }, { "hellip", "\u2026" }, { "iacute", "\u00ED" }, { "icirc", "\u00EE" }, { "iexcl", "\u00A1" },
+            { "igrave", "\u00EC" }, { "image", "\u2111" }, { "infin", "\u221E" }, { "int", "\u222B" }, { "iota", "\u03B9" }, { "iquest", "\u00BF" },
+            { "isin", "\u2208" }, { "iuml", "\u00EF" }, { "kappa", "\u03BA" }, { "lArr", "\u21D0" }, { "lambda", "\u03BB" }, { "lang", "\u2329" },
+            { "laquo", "\u00AB" }, { "larr", "\u2190" }, { "lceil", "\u2308" }, { "ldquo", "\u201C" }, { "le", "\u2264" }, { "lfloor", "\u230A" },
+            { "lowast", "\u2217" }, { "loz", "\u25CA" }, { "lrm", "\u200E" }, { "lsaquo", "\u2039" }, { "lsquo", "\u2018" }, { "lt", "<" },
+            { "macr", "\u00AF" }, { "mdash", "\u2014" }, { "micro", "\u00B5" }, { "middot", "\u00B7" }, { "minus", "\u2212" }, { "mu", "\u03BC" },
+            { "nabla", "\u2207" }, { "nbsp", "\u00A0" }, { "ndash", "\u2013" }, { "ne", "\u2260" }, { "ni", "\u220B" }, { "not", "\u00AC" },
+            { "notin", "\u2209" }, { "nsub", "\u2284" }, { "ntilde", "\u00F1" }, { "nu", "\u03BD" }, { "oacute", "\u00F3" }, { "ocirc", "\u00F4" },
+            { "oelig", "\u0153" }, { "ograve", "\u00F2" }, { "oline", "\u203E" }, { "omega", "\u03C9" }, { "omicron", "\u03BF" }, { "oplus", "\u2295" },
+            { "or", "\u2228" }, { "ordf", "\u00AA" }, { "ordm", "\u00BA" }, { "oslash", "\u00F8" }, { "otilde", "\u00F5" }, { "otimes", "\u2297" },
+            { "ouml", "\u00F6" }, { "para", "\u00B6" }, { "part", "\u2202" }, { "permil", "\u2030" }, { "perp", "\u22A5" }, { "phi", "\u03C6" },
+            { "pi", "\u03C0" }, { "piv", "\u03D6" }, { "plusmn", "\u00B1" }, { "pound", "\u00A3" }, { "prime", "\u2032" }, { "prod", "\u220F" },
+            { "prop", "\u221D" }, { "psi", "\u03C8" }, { "quot", "\"" }, { "rArr", "\u21D2" }, { "radic", "\u221A" }, { "rang", "\u232A" },
+            { "raquo", "\u00BB" }, { "rarr", "\u2192" }, { "rceil", "\u2309" }, { "rdquo", "\u201D" }, { "real", "\u211C" }, { "reg", "\u00AE" },
+            { "rfloor", "\u230B" }, { "rho", "\u03C1" }, { "rlm", "\u200F" }, { "rsaquo", "\u203A" }, { "rsquo", "\u2019" }, { "sbquo", "\u201A" },
+            { "scaron", "\u0161" }, { "sdot", "\u22C5" }, { "sect", "\u00A7" }, { "shy", "\u00AD" }, { "sigma", "\u03C3" }, { "sigmaf", "\u03C2" },
+            { "sim", "\u223C" }, { "spades", "\u2660" }, { "sub", "\u2282" }, { "sube", "\u2286" }, { "sum", "\u2211" }, { "sup", "\u2283" },
+            { "sup1", "\u00B9" }, { "sup2", "\u00B2" }, { "sup3", "\u00B3" }, { "supe", "\u2287" }, { "szlig", "\u00DF" }, { "tau", "\u03C4" },
+            { "there4", "\u2234" }, { "theta", "\u03B8" }, { "thetasym", "\u03D1" }, { "thinsp", "\u2009" }, { "thorn", "\u00FE" }, { "tilde", "\u02DC" },
+            { "times", "\u00D7" }, { "trade", "\u2122" }, { "uArr", "\u21D1" }, { "uacute", "\u00FA" }, { "uarr", "\u2191" }, { "ucirc", "\u00FB" },
+            { "ugrave", "\u00F9" }, { "uml", "\u00A8" }, { "upsih", "\u03D2" }, { "upsilon", "\u03C5" }, { "uuml", "\u00FC" }, { "weierp", "\u2118" },
+            { "xi", "\u03BE" }, { "yacute", "\u00FD" }, { "yen", "\u00A5" }, { "yuml", "\u00FF" }, { "zeta", "\u03B6" }, { "zwj", "\u200D" },
+            { "zwnj", "\u200C" }
+    };
+    private static final ThreadLocal<StringBuilder> BUFFER = ThreadLocal.withInitial( ( ) -> new StringBuilder( DEFAULT_BUFFER_CAPACITY ) );
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public String extractText( String strHtml )
+    {
+        if ( StringUtils.isEmpty( strHtml ) )
+        {
+            return StringUtils.EMPTY;
+        }
+
+        StringBuilder sbText = BUFFER.get( );
+        sbText.setLength( 0 );
+
+        int nLength = strHtml.length( );
+        int nIndex = 0;
+
+        while ( nIndex < nLength )
+        {
+            char c = strHtml.charAt( nIndex );
+
+            if ( c == '<' )
+            {
+                nIndex = skipMarkup( strHtml, nIndex, sbText );
+            }
+            else
+                if ( c == '&' )
+                {
+                    nIndex = appendCharacterReference( strHtml, nIndex, sbText );
+                }
+                else
+                {
+                    appendChar( sbText, c );
+                    nIndex++;
+                }
+        }
+
+        int nTextLength = sbText.length( );
+
+        if ( ( nTextLength > 0 ) && ( sbText.charAt( nTextLength - 1 ) == SPACE ) )
+        {
+            sbText.setLength( nTextLength - 1 );
+        }
+
+        String strText = sbText.toString( );
+
+        if ( sbText.capacity( ) > MAX_RETAINED_BUFFER_CAPACITY )
+        {
+            // Do not keep the buffer of an unusually large content for the life of the thread
+            BUFFER.set( new StringBuilder( DEFAULT_BUFFER_CAPACITY ) );
+        }
+
+        return strText;
+    }
+
+    /**
+     * Skip a tag, a comment or a declaration
+     * 
+     * @param strHtml
+     *            The HTML content
+     * @param nStart
+     *            The index of the '&lt;' character
+     * @param sbText
+     *            The extracted text
+     * @return The index of the first character after the markup
+     */
+    private static int skipMarkup( String strHtml, int nStart, StringBuilder sbText )
+    {
+        int nLength = strHtml.length( );
+
+        if ( strHtml.startsWith( COMMENT_START, nStart ) )
+        {
+            int nEnd = strHtml.indexOf( COMMENT_END, nStart + COMMENT_START.length( ) );
+
+            return ( nEnd < 0 ) ? nLength : ( nEnd + COMMENT_END.length( ) );
+        }
+
+        int nIndex = nStart + 1;
+
+        if ( nIndex >= nLength )
+        {
+            appendChar( sbText, '<' );
+
+            return nLength;
+        }
+
+        char cFirst = strHtml.charAt( nIndex );
+        boolean bEndTag = cFirst == '/';
+
+        if ( bEndTag )
+        {
+            nIndex++;
+        }
+        else
+            if ( ( cFirst == '!' ) || ( cFirst == '?' ) )
+            {
+                // Declaration or processing instruction
+                int nEnd = strHtml.indexOf( '>', nIndex );
+
+                return ( nEnd < 0 ) ? nLength : ( nEnd + 1 );
+            }
+
+        int nNameStart = nIndex;
+
+        if ( ( nIndex >= nLength ) || !Character.isLetter( strHtml.charAt( nIndex ) ) )
+        {
+            // Not a tag: a lone '<' in the text
+            appendChar( sbText, '<' );
+
+            return nStart + 1;
+        }
+
+        while ( ( nIndex < nLength ) && Character.isLetterOrDigit( strHtml.charAt( nIndex ) ) )
+        {
+            nIndex++;
+        }
+
+        int nNameLength = nIndex - nNameStart;
+        int nTagEnd = findTagEnd( strHtml, nIndex );
+
+        if ( nTagEnd < 0 )
+        {
+            return nLength;
+        }
+
+        if ( isTag( strHtml, nNameStart, nNameLength, BLOCK_TAGS ) )
+        {
+            appendChar( sbText, SPACE );
+        }
+
+        if ( !bEndTag && ( strHtml.charAt( nTagEnd - 1 ) != '/' ) && isTag( strHtml, nNameStart, nNameLength, SKIPPED_CONTENT_TAGS ) )
+        {
+            return skipElementContent( strHtml, nTagEnd + 1, nNameStart, nNameLength );
+        }
+
+        return nTagEnd + 1;
+    }
+
+    /**
+     * Find the '&gt;' character closing a tag, ignoring the ones within quoted attribute values
+     * 
+     * @param strHtml
+     *            The HTML content
+     * @param nStart
+     *            The index of the first character after the tag name
+     * @return The index of the closing character, or -1 if the tag is not closed
+     */
+    private static int findTagEnd( String strHtml, int nStart )
+    {
+        char cQuote = 0;
+
+        for ( int nIndex = nStart; nIndex < strHtml.length( ); nIndex++ )
+        {
+            char c = strHtml.charAt( nIndex );
+
+            if ( cQuote != 0 )
+            {
+                if ( c == cQuote )
+                {
+                    cQuote = 0;
+                }
+            }
+            else
+                if ( ( c == '"' ) || ( c == '\'' ) )
+                {
+                    cQuote = c;
+                }
+                else
+                    if ( c == '>' )
+                    {
+                        return nIndex;
+                    }
+        }
+
+        return -1;
+    }
+
+    /**
+     * Skip the content of an element up to and including its end tag
+     * 
+     * @param strHtml
+     *            The HTML content
+     * @param nStart
+     *            The index of the first character of the content
+     * @param nNameStart
+     *            The index of the name of the element in its start tag
+     * @param nNameLength
+     *            The length of the name of the element
+     * @return The index of the first character after the end tag
+     */
+    private static int skipElementContent( String strHtml, int nStart, int nNameStart, int nNameLength )
+    {
+        int nLength = strHtml.length( );
+        int nIndex = strHtml.indexOf( "</", nStart );
+
+        while ( nIndex >= 0 )
+        {
+            if ( strHtml.regionMatches( true, nIndex + 2, strHtml, nNameStart, nNameLength ) )
+            {
+                int nEnd = strHtml.indexOf( '>', nIndex );
+
+                return ( nEnd < 0 ) ? nLength : ( nEnd + 1 );
+            }
+
+            nIndex = strHtml.indexOf( "</", nIndex + 2 );
+        }
+
+        return nLength;
+    }
+
+    /**
+     * Check whether a tag name is one of a list of names
+     * 
+     * @param strHtml
+     *            The HTML content
+     * @param nNameStart
+     *            The index of the tag name
+     * @param nNameLength
+     *            The length of the tag name
+     * @param tags
+     *            The names to look for, in lower case
+     * @return true if the tag name is in the list, whatever its case
+     */
+    private static boolean isTag( String strHtml, int nNameStart, int nNameLength, String [ ] tags )
+    {
+        for ( String strTag : tags )
+        {
+            if ( ( strTag.length( ) == nNameLength ) && strHtml.regionMatches( true, nNameStart, strTag, 0, nNameLength ) )
+            {
+                return true;
+            }
+        }
+
+        return false;
+    }
+
+    /**
+     * Decode a character reference. A '&amp;' that does not start a known reference is kept as is.
+     * 
+     * @param strHtml
+     *            The HTML content
+     * @param nStart
+     *            The index of the '&amp;' character
+     * @param sbText
+     *            The extracted text
+     * @return The index of the first character after the reference
+     */
+    private static int appendCharacterReference( String strHtml, int nStart, StringBuilder sbText )
+    {
+        int nLength = strHtml.length( );
+        int nMaxEnd = Math.min( nLength, nStart + MAX_ENTITY_LENGTH );
+        int nEnd = nStart + 1;
+
+        while ( ( nEnd < nMaxEnd ) && ( strHtml.charAt( nEnd ) != ';' ) && ( Character.isLetterOrDigit( strHtml.charAt( nEnd ) ) || ( strHtml.charAt( nEnd ) == '#' ) ) )
+        {
+            nEnd++;
+        }
+
+        if ( ( nEnd < nMaxEnd ) && ( strHtml.charAt( nEnd ) == ';' ) && ( nEnd > ( nStart + 1 ) ) )
+        {
+            if ( strHtml.charAt( nStart + 1 ) == '#' )
+            {
+                int nCodePoint = parseCodePoint( strHtml, nStart + 2, nEnd );
+
+                if ( nCodePoint >= 0 )
+                {
+                    if ( Character.isBmpCodePoint( nCodePoint ) )
+                    {
+                        appendChar( sbText, (char) nCodePoint );
+                    }
+                    else
+                    {
+                        sbText.appendCodePoint( nCodePoint );
+                    }
+
+                    return nEnd + 1;
+                }
+            }
+            else
+            {
+                String strValue = findEntity( strHtml, nStart + 1, nEnd );
+
+                if ( strValue != null )
+                {
+                    appendChar( sbText, strValue.charAt( 0 ) );
+
+                    return nEnd + 1;
+                }
+            }
+        }
+
+        appendChar( sbText, '&' );
+
+        return nStart + 1;
+    }
+
+    /**
+     * Parse the code point of a numeric character reference
+     * 
+     * @param strHtml
+     *            The HTML content
+     * @param nStart
+     *            The index of the first character after '&amp;#'
+     * @param nEnd
+     *            The index of the ';' character
+     * @return The code point, or -1 if the reference is not valid
+     */
+    private static int parseCodePoint( String strHtml, int nStart, int nEnd )
+    {
+        int nRadix = 10;
+        int nIndex = nStart;
+
+        if ( ( nIndex < nEnd ) && ( ( strHtml.charAt( nIndex ) == 'x' ) || ( strHtml.charAt( nIndex ) == 'X' ) ) )
+        {
+            nRadix = 16;
+            nIndex++;
+        }
+
+        if ( nIndex >= nEnd )
+        {
+            return -1;
+        }
+
+        int nCodePoint = 0;
+
+        for ( ; nIndex < nEnd; nIndex++ )
+        {
+            int nDigit = Character.digit( strHtml.charAt( nIndex ), nRadix );
+
+            if ( nDigit < 0 )
+            {
+                return -1;
+            }
+
+            nCodePoint = ( nCodePoint * nRadix ) + nDigit;
+
+            if ( nCodePoint > Character.MAX_CODE_POINT )
+            {
+                return -1;
+            }
+        }
+
+        return Character.isValidCodePoint( nCodePoint ) ? nCodePoint : -1;
+    }
+
+    /**
+     * Find the value of a named character reference
+     * 
+     * @param strHtml
+     *            The HTML content
+     * @param nStart
+     *            The index of the name
+     * @param nEnd
+     *            The index of the ';' character
+     * @return The value of the reference, or null if the name is unknown
+     */
+    private static String findEntity( String strHtml, int nStart, int nEnd )
+    {
+        int nLow = 0;
+        int nHigh = ENTITIES.length - 1;
+
+        while ( nLow <= nHigh )
+        {
+            int nMiddle = ( nLow + nHigh ) >>> 1;
+            int nCompare = compareName( ENTITIES [nMiddle] [0], strHtml, nStart, nEnd );
+
+            if ( nCompare < 0 )
+            {
+                nLow = nMiddle + 1;
+            }
+            else
+                if ( nCompare > 0 )
+                {
+                    nHigh = nMiddle - 1;
+                }
+                else
+                {
+                    return ENTITIES [nMiddle] [1];
+                }
+        }
+
+        return null;
+    }
+
+    /**
+     * Compare an entity name with a region of the content, in the order of {@link String#compareTo(String)}
+     * 
+     * @param strName
+     *            The entity name
+     * @param strHtml
+     *            The HTML content
+     * @param nStart
+     *            The start of the region
+     * @param nEnd
+     *            The end of the region, exclusive
+     * @return A negative, zero or positive integer as the name is less than, equal to or greater than the region
+     */
+    private static int compareName( String strName, String strHtml, int nStart, int nEnd )
+    {
+        int nRegionLength = nEnd - nStart;
+        int nMin = Math.min( strName.length( ), nRegionLength );
+
+        for ( int i = 0; i < nMin; i++ )
+        {
+            int nDiff = strName.charAt( i ) - strHtml.charAt( nStart + i );
+
+            if ( nDiff != 0 )
+            {
+                return nDiff;
+            }
+        }
+
+        return strName.length( ) - nRegionLength;
+    }
+
+    /**
+     * Append a character to the text, collapsing whitespace into a single space
+     * 
+     * @param sbText
+     *            The extracted text
+     * @param c
+     *            The character
+     */
+    private static void appendChar( StringBuilder sbText, char c )
+    {
+        if ( Character.isWhitespace( c ) || ( c == NO_BREAK_SPACE ) )
+        {
+            int nLength = sbText.length( );
+
+            if ( ( nLength > 0 ) && ( sbText.charAt( nLength - 1 ) != SPACE ) )
+            {
+                sbText.append( SPACE );
+            }
+        }
+        else
+        {
+            sbText.append( c );
+        }
+    }
+}
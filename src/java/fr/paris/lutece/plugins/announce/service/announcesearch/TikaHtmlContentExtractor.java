@@ -0,0 +1,81 @@
+/*
+ * Copyright (c) 2002-2021, City of Paris
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions
+ * are met:
+ *
+ *  1. Redistributions of source code must retain the above copyright notice
+ *     and the following disclaimer.
+ *
+ *  2. Redistributions in binary form must reproduce the above copyright notice
+ *     and the following disclaimer in the documentation and/or other materials
+ *     provided with the distribution.
+ *
+ *  3. Neither the name of 'Mairie de Paris' nor 'Lutece' nor the names of its
+ *     contributors may be used to endorse or promote products derived from
+ *     this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDERS OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ *
+ * License 1.0
+ */
+package fr.paris.lutece.plugins.announce.service.announcesearch;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+
+import org.apache.tika.exception.TikaException;
+import org.apache.tika.metadata.Metadata;
+import org.apache.tika.parser.ParseContext;
+import org.apache.tika.parser.html.HtmlParser;
+import org.apache.tika.sax.BodyContentHandler;
+import org.xml.sax.ContentHandler;
+import org.xml.sax.SAXException;
+
+import fr.paris.lutece.portal.service.util.AppException;
+
+/**
+ * Content extractor based on the Tika HTML parser. It is slower than {@link StreamingHtmlContentExtractor}, but copes with exotic content
+ */
+public class TikaHtmlContentExtractor implements IAnnounceContentExtractor
+{
+    private static final String CONTENT_TYPE_HTML_UTF8 = "text/html; charset=UTF-8";
+
+    // The parser is stateless, so it is shared by every call
+    private final HtmlParser _htmlParser = new HtmlParser( );
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public String extractText( String strHtml )
+    {
+        ContentHandler handler = new BodyContentHandler( );
+        Metadata metadata = new Metadata( );
+        metadata.set( Metadata.CONTENT_TYPE, CONTENT_TYPE_HTML_UTF8 );
+
+        try
+        {
+            _htmlParser.parse( new ByteArrayInputStream( strHtml.getBytes( StandardCharsets.UTF_8 ) ), handler, metadata, new ParseContext( ) );
+        }
+        catch( IOException | SAXException | TikaException e )
+        {
+            throw new AppException( "Error during announce parsing.", e );
+        }
+
+        return handler.toString( );
+    }
+}
@@ -34,6 +34,7 @@
 package fr.paris.lutece.plugins.announce.service.daemon;
 
 import java.sql.Timestamp;
+import java.util.ArrayList;
 import java.util.Calendar;
 import java.util.GregorianCalendar;
 import java.util.List;
@@ -42,6 +43,7 @@ import fr.paris.lutece.plugins.announce.business.Announce;
 import fr.paris.lutece.plugins.announce.business.AnnounceHome;
 import fr.paris.lutece.portal.service.daemon.Daemon;
 import fr.paris.lutece.portal.service.mail.MailService;
+import fr.paris.lutece.portal.service.util.AppLogService;
 import fr.paris.lutece.portal.service.util.AppPropertiesService;
 
 /**
@@ -51,6 +53,8 @@ public class AnnounceExpirationDaemon extends Daemon
 {
     private static final String PROPERTY_NB_DAYS_BEFORE_ANNOUNCES_REMOVAL = "announce.nbDaysBeforeAnnouncesRemoval";
     private static final int DEFAULT_NB_DAYS_BEFORE_ANNOUNCES_REMOVAL = 90;
+    private static final String PROPERTY_EXPIRATION_CHUNK_SIZE = "announce.expiration.chunkSize";
+    private static final int DEFAULT_EXPIRATION_CHUNK_SIZE = 200;
 
     /**
      * {@inheritDoc}
@@ -75,30 +79,50 @@ public class AnnounceExpirationDaemon extends Daemon
         Timestamp timestamp = new Timestamp( calendar.getTimeInMillis( ) );
         Timestamp timestampNotify = new Timestamp( calendarNotification.getTimeInMillis( ) );
 
-        List<Integer> listIdNotifiesAnnounces = AnnounceHome.findIdAnnouncesByDateCreation( timestampNotify );
-        for ( Integer idNotifieAnn : listIdNotifiesAnnounces )
+        int nChunkSize = Math.max( 1, AppPropertiesService.getPropertyInt( PROPERTY_EXPIRATION_CHUNK_SIZE, DEFAULT_EXPIRATION_CHUNK_SIZE ) );
+
+        // Only announces that have not been notified yet are loaded, with the columns needed by the mail
+        List<Announce> listNotifiedAnnounces = AnnounceHome.findNotNotifiedByDateCreation( timestampNotify );
+        int nNbNotified = 0;
+
+        // Each chunk is flagged as notified as soon as its mails are sent, so that a failure does not send them again on the next run
+        for ( int nFrom = 0; nFrom < listNotifiedAnnounces.size( ); nFrom += nChunkSize )
         {
-            Announce ann = AnnounceHome.findByPrimaryKey( idNotifieAnn.intValue( ) );
-            int hasN = ann.getHasNotify( );
-            if ( hasN == 0 )
+            List<Announce> listChunk = listNotifiedAnnounces.subList( nFrom, Math.min( nFrom + nChunkSize, listNotifiedAnnounces.size( ) ) );
+            List<Integer> listIdChunk = new ArrayList<>( listChunk.size( ) );
+
+            for ( Announce ann : listChunk )
             {
                 email = ann.getContactInformation( );
                 String message = strMessage + ann.getTitle( ) + " sera supprim\u00E9e dans une semaine. "
                         + "Veuillez la modifier si vous  voulez la maintenir \n";
                 MailService.sendMailHtml( email, strSenderName, strSenderEmail, strSubject, message );
-                ann.setHasNotify( 1 );
-                AnnounceHome.setHasNotifed( ann );
+                listIdChunk.add( ann.getId( ) );
             }
 
+            AnnounceHome.setHasNotified( listIdChunk );
+            nNbNotified += listIdChunk.size( );
         }
 
         List<Integer> listIdExpiredAnnounces = AnnounceHome.findIdAnnouncesByDateCreation( timestamp );
+        int nNbRemoved = 0;
 
-        for ( Integer nIdExpiredAnnounce : listIdExpiredAnnounces )
+        // Each chunk is removed in its own transaction, so that a failure does not prevent the next chunks from being removed
+        for ( int nFrom = 0; nFrom < listIdExpiredAnnounces.size( ); nFrom += nChunkSize )
         {
-            AnnounceHome.remove( nIdExpiredAnnounce );
+            List<Integer> listIdChunk = listIdExpiredAnnounces.subList( nFrom, Math.min( nFrom + nChunkSize, listIdExpiredAnnounces.size( ) ) );
+
+            try
+            {
+                AnnounceHome.removeList( listIdChunk );
+                nNbRemoved += listIdChunk.size( );
+            }
+            catch( Exception e )
+            {
+                AppLogService.error( "Error while removing expired announces " + listIdChunk + " : " + e.getMessage( ), e );
+            }
         }
 
-        setLastRunLogs( listIdNotifiesAnnounces.size( ) + " notified and " + listIdExpiredAnnounces.size( ) + " expired announces have been removed" );
+        setLastRunLogs( nNbNotified + " notified and " + nNbRemoved + " expired announces have been removed" );
     }
 }
@@ -37,6 +37,7 @@ import fr.paris.lutece.plugins.announce.service.AnnouncePlugin;
 import fr.paris.lutece.plugins.announce.service.announcesearch.AnnounceSearchService;
 import fr.paris.lutece.plugins.announce.service.announcesearch.DefaultAnnounceIndexer;
 import fr.paris.lutece.portal.service.message.SiteMessageException;
+import fr.paris.lutece.portal.service.search.IndexationService;
 import fr.paris.lutece.portal.service.search.SearchIndexer;
 import fr.paris.lutece.portal.service.util.AppPropertiesService;
 
@@ -73,8 +74,8 @@ public class AnnounceIndexer implements SearchIndexer
     @Override
     public void indexDocuments( ) throws IOException, InterruptedException, SiteMessageException
     {
-        AnnounceSearchService.getInstance( ).processIndexing( true );
-        DefaultAnnounceIndexer.getDocuments( "" );
+        // The documents built for the index of the plugin are written to the portal index in the same pass
+        AnnounceSearchService.getInstance( ).processIndexing( true, IndexationService::write );
     }
 
     /**
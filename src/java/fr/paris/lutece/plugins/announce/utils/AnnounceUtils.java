@@ -58,6 +58,9 @@ public final class AnnounceUtils
     // Constants
     public static final String CONSTANT_WHERE = " WHERE ";
     public static final String CONSTANT_AND = " AND ";
+    private static final String CONSTANT_COMA = ",";
+    private static final String CONSTANT_QUESTION_MARK = "?";
+    private static final String CONSTANT_CLOSE_PARENTHESIS = ")";
     public static final int CONSTANT_ID_NULL = -1;
 
     // properties
@@ -118,6 +121,49 @@ public final class AnnounceUtils
         return strBuffer.toString( );
     }
 
+    /**
+     * Append to a query one element per row or parameter, separated by commas
+     * 
+     * @param strSql
+     *            The query
+     * @param strElement
+     *            The element to repeat, for instance a parameter or a row of parameters
+     * @param nNbElements
+     *            The number of elements
+     * @return The query with its elements
+     */
+    public static String buildSqlList( String strSql, String strElement, int nNbElements )
+    {
+        StringBuilder sbSql = new StringBuilder( strSql.length( ) + ( nNbElements * ( strElement.length( ) + 1 ) ) + 1 );
+        sbSql.append( strSql );
+
+        for ( int i = 0; i < nNbElements; i++ )
+        {
+            if ( i > 0 )
+            {
+                sbSql.append( CONSTANT_COMA );
+            }
+
+            sbSql.append( strElement );
+        }
+
+        return sbSql.toString( );
+    }
+
+    /**
+     * Append to a query that ends with an opening parenthesis one parameter per element of a list, and close the parenthesis
+     * 
+     * @param strSql
+     *            The query, ending with an opening parenthesis
+     * @param nNbParameters
+     *            The number of parameters
+     * @return The query with its parameters
+     */
+    public static String buildSqlInParameters( String strSql, int nNbParameters )
+    {
+        return buildSqlList( strSql, CONSTANT_QUESTION_MARK, nNbParameters ) + CONSTANT_CLOSE_PARENTHESIS;
+    }
+
     /**
      * write the http header in the response
      *
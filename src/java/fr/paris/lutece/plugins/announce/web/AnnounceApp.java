@@ -40,6 +40,7 @@ import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Date;
 import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Locale;
 import java.util.Map;
@@ -56,19 +57,20 @@ import fr.paris.lutece.plugins.announce.business.AnnounceHome;
 import fr.paris.lutece.plugins.announce.business.AnnounceSearchFilter;
 import fr.paris.lutece.plugins.announce.business.AnnounceSearchFilterHome;
 import fr.paris.lutece.plugins.announce.business.AnnounceSort;
+import fr.paris.lutece.plugins.announce.business.AnnounceSummary;
 import fr.paris.lutece.plugins.announce.business.Category;
 import fr.paris.lutece.plugins.announce.business.CategoryHome;
 import fr.paris.lutece.plugins.announce.business.Sector;
 import fr.paris.lutece.plugins.announce.business.SectorHome;
+import fr.paris.lutece.plugins.announce.service.AnnounceCounterService;
 import fr.paris.lutece.plugins.announce.service.AnnounceService;
 import fr.paris.lutece.plugins.announce.service.AnnounceSubscriptionProvider;
+import fr.paris.lutece.plugins.announce.service.announcesearch.AnnounceSearchCursor;
 import fr.paris.lutece.plugins.announce.service.announcesearch.AnnounceSearchService;
 import fr.paris.lutece.plugins.announce.service.upload.AnnounceAsynchronousUploadHandler;
 import fr.paris.lutece.plugins.announce.utils.AnnounceUtils;
 import fr.paris.lutece.plugins.genericattributes.business.Entry;
-import fr.paris.lutece.plugins.genericattributes.business.EntryFilter;
 import fr.paris.lutece.plugins.genericattributes.business.EntryHome;
-import fr.paris.lutece.plugins.genericattributes.business.Field;
 import fr.paris.lutece.plugins.genericattributes.business.GenericAttributeError;
 import fr.paris.lutece.plugins.genericattributes.business.Response;
 import fr.paris.lutece.plugins.genericattributes.business.ResponseHome;
@@ -133,6 +135,7 @@ public class AnnounceApp extends MVCApplication
     // Parameters
     private static final String PARAMETER_FORM_SEND = "form_send";
     private static final String PARAMETER_PAGE = "page";
+    private static final String PARAMETER_SEARCH_CURSOR = "search_cursor";
     private static final String PARAMETER_SECTOR_ID = "sector_id";
     private static final String PARAMETER_CATEGORY_ID = "category_id";
     private static final String PARAMETER_TITLE_ANNOUNCE = "title_announce";
@@ -325,7 +328,17 @@ public class AnnounceApp extends MVCApplication
             strUrl = getUrlSearchAnnounceSort( request, 4 );
         }
 
-        int nNbItems = AnnounceSearchService.getInstance( ).getSearchResultsBis( filter, nCurrentPageIndex, _nItemsPerPage, listAnnouncesResults, anSort );
+        // The links to the pages carry the cursor of the current page, so that the next page is collected after it instead of from the first result
+        AnnounceSearchCursor cursor = AnnounceSearchService.getInstance( ).getSearchResultsAfter( filter, nCurrentPageIndex, _nItemsPerPage,
+                listAnnouncesResults, anSort, AnnounceSearchCursor.parse( request.getParameter( PARAMETER_SEARCH_CURSOR ) ) );
+        int nNbItems = ( cursor != null ) ? cursor.getNbResults( ) : 0;
+
+        if ( ( cursor != null ) && ( cursor.getToken( ) != null ) )
+        {
+            UrlItem urlItem = new UrlItem( strUrl );
+            urlItem.addParameter( PARAMETER_SEARCH_CURSOR, cursor.getToken( ) );
+            strUrl = urlItem.getUrl( );
+        }
 
         // --------------------------END SORT----------------------------------
 
@@ -338,10 +351,7 @@ public class AnnounceApp extends MVCApplication
         model.put( MARK_LIST_FIELDS, getSectorList( ) );
         model.put( MARK_LOCALE, request.getLocale( ) );
 
-        for ( Announce announce : paginator.getPageItems( ) )
-        {
-            announce.setListIdImageResponse( AnnounceHome.findListIdImageResponse( announce.getId( ) ) );
-        }
+        AnnounceHome.loadListIdImageResponse( paginator.getPageItems( ) );
 
         model.put( MARK_ANNOUNCES_LIST, paginator.getPageItems( ) );
         model.put( MARK_FILTER_DATE_MIN, ( filter.getDateMin( ) != null ) ? _dateFormat.format( filter.getDateMin( ) ) : null );
@@ -384,16 +394,13 @@ public class AnnounceApp extends MVCApplication
      */
     public static String getAnnounceListById( HttpServletRequest request, List<Integer> listIdAnnounces, AnnounceSort announceSort )
     {
-        List<Announce> listAnnounces = AnnounceHome.findByListId( listIdAnnounces, announceSort );
+        List<AnnounceSummary> listAnnounces = AnnounceHome.findSummariesByListId( listIdAnnounces, announceSort );
 
         Map<String, Object> model = new HashMap<>( );
         model.put( MARK_LIST_FIELDS, getSectorList( ) );
         model.put( MARK_LOCALE, request.getLocale( ) );
 
-        for ( Announce announce : listAnnounces )
-        {
-            announce.setListIdImageResponse( AnnounceHome.findListIdImageResponse( announce.getId( ) ) );
-        }
+        AnnounceHome.loadSummaryListIdImageResponse( listAnnounces );
 
         model.put( MARK_ANNOUNCES_LIST, listAnnounces );
 
@@ -478,7 +485,7 @@ public class AnnounceApp extends MVCApplication
 
         AnnounceAsynchronousUploadHandler.getHandler( ).removeSessionFiles( request.getSession( ) );
 
-        Collection<Announce> listAnnounces = AnnounceHome.getAnnouncesForUser( user, AnnounceSort.DEFAULT_SORT );
+        Collection<AnnounceSummary> listAnnounces = AnnounceHome.getAnnounceSummariesForUser( user.getName( ), AnnounceSort.DEFAULT_SORT );
 
         if ( listAnnounces.size( ) < AppPropertiesService.getPropertyInt( PROPERTY_MAX_AMOUNT_ANNOUNCE, 20 ) )
         {
@@ -707,43 +714,21 @@ public class AnnounceApp extends MVCApplication
         if ( bAllowAccess )
         {
             Collection<Response> listResponses = AnnounceHome.findListResponse( announce.getId( ), false );
-            Collection<Entry> listGeolocalisation = new ArrayList<>( );
+
+            // Geolocation entries are loaded once each, for their map provider. Fields of responses are already loaded
+            Map<Integer, Entry> mapGeolocalisation = new LinkedHashMap<>( );
 
             for ( Response response : listResponses )
             {
                 if ( response.getEntry( ) != null && response.getEntry( ).getEntryType( ) != null
                         && "announce.entryTypeGeolocation".equals( response.getEntry( ).getEntryType( ).getBeanName( ) ) )
                 {
-                    Entry entry = EntryHome.findByPrimaryKey( response.getEntry( ).getIdEntry( ) );
-                    for ( Field filed : entry.getFields( ) )
-                    {
-
-                        if ( response.getField( ) != null && filed.getIdField( ) == response.getField( ).getIdField( ) )
-                        {
-                            response.setField( filed );
-                        }
-                    }
-
-                    boolean bool = true;
-
-                    for ( Entry ent : listGeolocalisation )
-                    {
-                        if ( ent.getIdEntry( ) == ( entry.getIdEntry( ) ) )
-                        {
-                            bool = false;
-                        }
-                    }
-                    if ( bool )
-                    {
-                        listGeolocalisation.add( entry );
-                    }
+                    mapGeolocalisation.computeIfAbsent( response.getEntry( ).getIdEntry( ), EntryHome::findByPrimaryKey );
                 }
-
             }
 
-            model.put( MARK_ENTRY_LIST_GEOLOCATION, listGeolocalisation );
+            model.put( MARK_ENTRY_LIST_GEOLOCATION, mapGeolocalisation.values( ) );
             model.put( MARK_USER_IS_AUTHOR, bUserIsAuthor );
-            model.put( MARK_ANNOUNCE, announce );
             model.put( MARK_LIST_RESPONSES, listResponses );
             model.put( "width", "500px" );
             model.put( "height", "500px" );
@@ -751,8 +736,9 @@ public class AnnounceApp extends MVCApplication
             model.put( MARK_LOCALE, request.getLocale( ) );
             model.put( MARK_IS_EXTEND_INSTALLED, PortalService.isExtendActivated( ) );
 
-            Category category = CategoryHome.findByPrimaryKey( announce.getCategory( ).getId( ) );
-            announce.setCategory( category );
+            announce = announce.copy( );
+            announce.setCategory( CategoryHome.findByPrimaryKey( announce.getCategory( ).getId( ) ) );
+            model.put( MARK_ANNOUNCE, announce );
         }
 
         XPage xpage = getXPage( TEMPLATE_VIEW_ANNOUNCE, request.getLocale( ), model );
@@ -781,14 +767,14 @@ public class AnnounceApp extends MVCApplication
 
         int nNbPlublishedAnnounces;
 
-        List<Announce> listAnnounces = AnnounceHome.getAnnouncesForUser( strUserName, AnnounceSort.DEFAULT_SORT );
+        List<AnnounceSummary> listAnnounces = AnnounceHome.getAnnounceSummariesForUser( strUserName, AnnounceSort.DEFAULT_SORT );
 
         if ( listAnnounces != null && !listAnnounces.isEmpty( ) )
         {
             strUserInfo = listAnnounces.get( 0 ).getUserLastName( ) + " " + listAnnounces.get( 0 ).getUserSecondName( );
         }
 
-        Paginator<Announce> paginator = new Paginator<>( listAnnounces, _nItemsPerPage,
+        Paginator<AnnounceSummary> paginator = new Paginator<>( listAnnounces, _nItemsPerPage,
                 JSP_PORTAL + "?" + PARAMETER_PAGE + "=" + AnnounceUtils.PARAMETER_PAGE_ANNOUNCE + "&" + MVCUtils.PARAMETER_ACTION + "=" + ACTION_MY_ANNOUNCES,
                 PARAMETER_PAGE_INDEX, _strCurrentPageIndex );
 
@@ -796,16 +782,13 @@ public class AnnounceApp extends MVCApplication
         model.put( MARK_NB_ITEMS_PER_PAGE, "" + _nItemsPerPage );
         model.put( MARK_PAGINATOR, paginator );
 
-        for ( Announce announce : paginator.getPageItems( ) )
-        {
-            announce.setListIdImageResponse( AnnounceHome.findListIdImageResponse( announce.getId( ) ) );
-        }
+        AnnounceHome.loadSummaryListIdImageResponse( paginator.getPageItems( ) );
 
         model.put( MARK_ANNOUNCES_LIST, paginator.getPageItems( ) );
 
         nNbPlublishedAnnounces = 0;
 
-        for ( Announce a : listAnnounces )
+        for ( AnnounceSummary a : listAnnounces )
         {
             if ( a.getPublished( ) )
             {
@@ -953,7 +936,7 @@ public class AnnounceApp extends MVCApplication
      *            The user
      * @param request
      *            The request
-     * @return The announce
+     * @return A modifiable copy of the announce
      * @throws SiteMessageException
      *             If a site message needs to be displayed
      */
@@ -967,7 +950,8 @@ public class AnnounceApp extends MVCApplication
             SiteMessageService.setMessage( request, PROPERTY_REFUSED_ACCESS, SiteMessage.TYPE_STOP );
         }
 
-        return announce;
+        // Callers modify the announce, so they get a copy of the cached snapshot
+        return announce.copy( );
     }
 
     /**
@@ -1074,22 +1058,8 @@ public class AnnounceApp extends MVCApplication
         announce.setUserName( user.getName( ) );
         announce.setTags( strTags );
 
-        EntryFilter filter = new EntryFilter( );
-        filter.setIdResource( category.getId( ) );
-        filter.setResourceType( Category.RESOURCE_TYPE );
-        filter.setEntryParentNull( EntryFilter.FILTER_TRUE );
-        filter.setFieldDependNull( EntryFilter.FILTER_TRUE );
-        filter.setIdIsComment( EntryFilter.FILTER_FALSE );
-
-        List<Entry> listEntryFirstLevel = EntryHome.getEntryList( filter );
-        List<GenericAttributeError> listErrors = new ArrayList<>( );
-
         AnnounceDTO announceDTO = new AnnounceDTO( announce );
-
-        for ( Entry entry : listEntryFirstLevel )
-        {
-            listErrors.addAll( _announceService.getResponseEntry( request, entry.getIdEntry( ), request.getLocale( ), announceDTO ) );
-        }
+        List<GenericAttributeError> listErrors = _announceService.getResponsesOfForm( request, category, request.getLocale( ), announceDTO );
 
         if ( category.getDisplayCaptcha( ) && _captchaSecurityService.isAvailable( ) && !_captchaSecurityService.validate( request ) )
         {
@@ -1202,22 +1172,8 @@ public class AnnounceApp extends MVCApplication
                 announce.setPublished( !sector.getAnnouncesValidation( ) );
         }
 
-        EntryFilter filter = new EntryFilter( );
-        filter.setIdResource( category.getId( ) );
-        filter.setResourceType( Category.RESOURCE_TYPE );
-        filter.setEntryParentNull( EntryFilter.FILTER_TRUE );
-        filter.setFieldDependNull( EntryFilter.FILTER_TRUE );
-        filter.setIdIsComment( EntryFilter.FILTER_FALSE );
-
-        List<Entry> listEntryFirstLevel = EntryHome.getEntryList( filter );
-        List<GenericAttributeError> listErrors = new ArrayList<>( );
-
         AnnounceDTO announceDTO = new AnnounceDTO( announce );
-
-        for ( Entry entry : listEntryFirstLevel )
-        {
-            listErrors.addAll( _announceService.getResponseEntry( request, entry.getIdEntry( ), request.getLocale( ), announceDTO ) );
-        }
+        List<GenericAttributeError> listErrors = _announceService.getResponsesOfForm( request, category, request.getLocale( ), announceDTO );
 
         if ( category.getDisplayCaptcha( ) && _captchaSecurityService.isAvailable( ) && !_captchaSecurityService.validate( request ) )
         {
@@ -1356,7 +1312,7 @@ public class AnnounceApp extends MVCApplication
 
         request.getSession( ).setAttribute( SESSION_ATTRIBUTE_MY_ANNOUNCES_ITEMS_PER_PAGE, nItemsPerPage );
 
-        List<Announce> listAnnounces = AnnounceHome.getAnnouncesForUser( user, AnnounceSort.DEFAULT_SORT );
+        List<AnnounceSummary> listAnnounces = AnnounceHome.getAnnounceSummariesForUser( user.getName( ), AnnounceSort.DEFAULT_SORT );
 
         UrlItem urlItem = new UrlItem( AppPathService.getPortalUrl( ) );
 
@@ -1380,12 +1336,9 @@ public class AnnounceApp extends MVCApplication
             urlItem.addParameter( Parameters.PAGE_ID, request.getParameter( Parameters.PAGE_ID ) );
         }
 
-        Paginator<Announce> paginator = new Paginator<>( listAnnounces, nItemsPerPage, urlItem.getUrl( ), PARAMETER_PAGE_INDEX, strCurrentPageIndex );
+        Paginator<AnnounceSummary> paginator = new Paginator<>( listAnnounces, nItemsPerPage, urlItem.getUrl( ), PARAMETER_PAGE_INDEX, strCurrentPageIndex );
 
-        for ( Announce announce : paginator.getPageItems( ) )
-        {
-            announce.setListIdImageResponse( AnnounceHome.findListIdImageResponse( announce.getId( ) ) );
-        }
+        AnnounceHome.loadSummaryListIdImageResponse( paginator.getPageItems( ) );
 
         Map<String, Object> model = new HashMap<>( );
         model.put( MARK_LIST_FIELDS, getSectorList( ) );
@@ -1407,23 +1360,7 @@ public class AnnounceApp extends MVCApplication
      */
     public static Collection<Sector> getSectorList( )
     {
-        Collection<Sector> listSectors = SectorHome.findAll( );
-
-        for ( Sector sector : listSectors )
-        {
-            int nNumberAnnounces = 0;
-            Collection<Category> categoryList = CategoryHome.findCategoriesForSector( sector );
-            sector.setListCategories( categoryList );
-
-            for ( Category category : categoryList )
-            {
-                nNumberAnnounces += CategoryHome.countPublishedAnnouncesForCategory( category );
-            }
-
-            sector.setNumberAnnounces( nNumberAnnounces );
-        }
-
-        return listSectors;
+        return AnnounceCounterService.getService( ).getSectorList( );
     }
 
     /**
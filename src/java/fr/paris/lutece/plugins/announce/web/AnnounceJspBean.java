@@ -34,22 +34,24 @@
 package fr.paris.lutece.plugins.announce.web;
 
 import java.sql.Timestamp;
-import java.util.ArrayList;
 import java.util.Calendar;
 import java.util.Collection;
 import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 
 import javax.servlet.http.HttpServletRequest;
 
 import org.apache.commons.lang3.StringUtils;
+import org.apache.commons.lang3.math.NumberUtils;
 
 import fr.paris.lutece.api.user.User;
 import fr.paris.lutece.plugins.announce.business.Announce;
 import fr.paris.lutece.plugins.announce.business.AnnounceHome;
 import fr.paris.lutece.plugins.announce.business.AnnounceNotify;
 import fr.paris.lutece.plugins.announce.business.AnnounceNotifyHome;
+import fr.paris.lutece.plugins.announce.business.AnnouncePageKey;
 import fr.paris.lutece.plugins.announce.business.AnnounceSort;
 import fr.paris.lutece.plugins.announce.business.Category;
 import fr.paris.lutece.plugins.announce.business.CategoryHome;
@@ -57,7 +59,6 @@ import fr.paris.lutece.plugins.announce.service.AnnounceResourceIdService;
 import fr.paris.lutece.plugins.announce.utils.AnnounceUtils;
 import fr.paris.lutece.plugins.genericattributes.business.Entry;
 import fr.paris.lutece.plugins.genericattributes.business.EntryHome;
-import fr.paris.lutece.plugins.genericattributes.business.Field;
 import fr.paris.lutece.plugins.genericattributes.business.Response;
 import fr.paris.lutece.portal.business.rbac.RBAC;
 import fr.paris.lutece.portal.service.admin.AccessDeniedException;
@@ -74,7 +75,6 @@ import fr.paris.lutece.portal.web.constants.Parameters;
 import fr.paris.lutece.portal.web.util.LocalizedDelegatePaginator;
 import fr.paris.lutece.util.html.AbstractPaginator;
 import fr.paris.lutece.util.html.HtmlTemplate;
-import fr.paris.lutece.util.html.Paginator;
 import fr.paris.lutece.util.url.UrlItem;
 
 /**
@@ -126,6 +126,9 @@ public class AnnounceJspBean extends PluginAdminPageJspBean
     private int _nDefaultItemsPerPage;
     private String _strCurrentPageIndex;
     private int _nItemsPerPage;
+    private AnnounceSort _pageKeysSort;
+    private int _nPageKeysItemsPerPage;
+    private final Map<Integer, AnnouncePageKey> _mapPageKeys = new HashMap<>( );
 
     /**
      * {@inheritDoc}
@@ -182,13 +185,10 @@ public class AnnounceJspBean extends PluginAdminPageJspBean
             request.getSession( ).setAttribute( SESSION_SORT, announceSort );
         }
 
-        List<Integer> listIdAnnounces = AnnounceHome.findAll( announceSort );
-
-        Paginator<Integer> paginatorId = new Paginator<>( listIdAnnounces, _nItemsPerPage, StringUtils.EMPTY, AbstractPaginator.PARAMETER_PAGE_INDEX,
-                _strCurrentPageIndex );
+        int nNbAnnounces = AnnounceHome.countAll( );
+        List<Announce> listAnnounces = findPageOfAnnounces( announceSort, nNbAnnounces );
 
         User user = getUser( );
-        List<Announce> listAnnounces = AnnounceHome.findByListId( paginatorId.getPageItems( ), announceSort );
         boolean bCanExecuteWorkflowAction = false;
 
         if ( WorkflowService.getInstance( ).isAvailable( ) )
@@ -211,7 +211,7 @@ public class AnnounceJspBean extends PluginAdminPageJspBean
         Map<String, Object> model = new HashMap<>( );
 
         LocalizedDelegatePaginator<Announce> paginator = new LocalizedDelegatePaginator<>( listAnnounces, _nItemsPerPage, getURLManageAnnounces( request ),
-                AbstractPaginator.PARAMETER_PAGE_INDEX, _strCurrentPageIndex, listIdAnnounces.size( ), getLocale( ) );
+                AbstractPaginator.PARAMETER_PAGE_INDEX, _strCurrentPageIndex, nNbAnnounces, getLocale( ) );
 
         model.put( MARK_NB_ITEMS_PER_PAGE, Integer.toString( _nItemsPerPage ) );
         model.put( MARK_PAGINATOR, paginator );
@@ -230,6 +230,49 @@ public class AnnounceJspBean extends PluginAdminPageJspBean
         return getAdminPage( templateList.getHtml( ) );
     }
 
+    /**
+     * Load the announces of the current page. The page is sought from the key of the last announce of the previous page when this key is known, which is
+     * the case when browsing pages one after another. Otherwise the page is loaded from its offset.
+     * 
+     * @param announceSort
+     *            The sort of announces
+     * @param nNbAnnounces
+     *            The total number of announces
+     * @return The announces of the current page
+     */
+    private List<Announce> findPageOfAnnounces( AnnounceSort announceSort, int nNbAnnounces )
+    {
+        if ( !announceSort.equals( _pageKeysSort ) || ( _nItemsPerPage != _nPageKeysItemsPerPage ) )
+        {
+            _mapPageKeys.clear( );
+            _pageKeysSort = announceSort;
+            _nPageKeysItemsPerPage = _nItemsPerPage;
+        }
+
+        int nNbPages = Math.max( 1, ( ( nNbAnnounces - 1 ) / _nItemsPerPage ) + 1 );
+        int nPageIndex = Math.min( Math.max( 1, NumberUtils.toInt( _strCurrentPageIndex, 1 ) ), nNbPages );
+        _strCurrentPageIndex = Integer.toString( nPageIndex );
+
+        List<Announce> listAnnounces;
+        AnnouncePageKey keyAfter = _mapPageKeys.get( nPageIndex );
+
+        if ( ( nPageIndex == 1 ) || ( keyAfter != null ) )
+        {
+            listAnnounces = AnnounceHome.findPage( announceSort, keyAfter, _nItemsPerPage );
+        }
+        else
+        {
+            listAnnounces = AnnounceHome.findPageByOffset( announceSort, ( nPageIndex - 1 ) * _nItemsPerPage, _nItemsPerPage );
+        }
+
+        if ( !listAnnounces.isEmpty( ) )
+        {
+            _mapPageKeys.put( nPageIndex + 1, AnnouncePageKey.getPageKey( listAnnounces.get( listAnnounces.size( ) - 1 ), announceSort ) );
+        }
+
+        return listAnnounces;
+    }
+
     /**
      * Get the page to display the preview of an announce
      * 
@@ -242,46 +285,25 @@ public class AnnounceJspBean extends PluginAdminPageJspBean
         setPageTitleProperty( PROPERTY_PAGE_TITLE_PREVIEW_ANNOUNCE );
 
         int nIdAnnounce = Integer.parseInt( request.getParameter( PARAMETER_ANNOUNCE_ID ) );
-        Announce announce = AnnounceHome.findByPrimaryKey( nIdAnnounce );
-        Collection<Entry> listGeolocalisation = new ArrayList<>( );
+        Announce announce = AnnounceHome.findByPrimaryKey( nIdAnnounce ).copy( );
         User user = getUser( );
 
         Collection<Response> listResponses = AnnounceHome.findListResponse( announce.getId( ), false );
+
+        // Geolocation entries are loaded once each, for their map provider. Fields of responses are already loaded
+        Map<Integer, Entry> mapGeolocalisation = new LinkedHashMap<>( );
+
         for ( Response response : listResponses )
         {
-
             if ( response.getEntry( ) != null && response.getEntry( ).getEntryType( ) != null
                     && "announce.entryTypeGeolocation".equals( response.getEntry( ).getEntryType( ).getBeanName( ) ) )
             {
-                Entry entry = EntryHome.findByPrimaryKey( response.getEntry( ).getIdEntry( ) );
-                for ( Field filed : entry.getFields( ) )
-                {
-
-                    if ( response.getField( ) != null && filed.getIdField( ) == response.getField( ).getIdField( ) )
-                    {
-                        response.setField( filed );
-                    }
-                }
-
-                boolean bool = true;
-
-                for ( Entry ent : listGeolocalisation )
-                {
-                    if ( ent.getIdEntry( ) == ( entry.getIdEntry( ) ) )
-                    {
-                        bool = false;
-                    }
-                }
-                if ( bool )
-                {
-                    listGeolocalisation.add( entry );
-                }
+                mapGeolocalisation.computeIfAbsent( response.getEntry( ).getIdEntry( ), EntryHome::findByPrimaryKey );
             }
-
         }
 
         HashMap<String, Object> model = new HashMap<>( );
-        model.put( MARK_ENTRY_LIST_GEOLOCATION, listGeolocalisation );
+        model.put( MARK_ENTRY_LIST_GEOLOCATION, mapGeolocalisation.values( ) );
         model.put( MARK_LIST_RESPONSES, listResponses );
         model.put( MARK_ANNOUNCE, announce );
 
@@ -380,7 +402,7 @@ public class AnnounceJspBean extends PluginAdminPageJspBean
         if ( StringUtils.isNumeric( strAnnounceId ) )
         {
             int nIdAnnounce = Integer.parseInt( strAnnounceId );
-            Announce announce = AnnounceHome.findByPrimaryKey( nIdAnnounce );
+            Announce announce = AnnounceHome.findByPrimaryKey( nIdAnnounce ).copy( );
             if ( announce.getDatePublication( ).getTime( ) == new Timestamp( 0 ).getTime( ) )
             {
                 AnnounceNotify announceNotify = new AnnounceNotify( );
@@ -416,7 +438,7 @@ public class AnnounceJspBean extends PluginAdminPageJspBean
         }
 
         int nIdAnnounce = Integer.parseInt( strAnnounceId );
-        Announce announce = AnnounceHome.findByPrimaryKey( nIdAnnounce );
+        Announce announce = AnnounceHome.findByPrimaryKey( nIdAnnounce ).copy( );
         announce.setSuspended( false );
         AnnounceHome.setSuspended( announce );
 
@@ -445,7 +467,7 @@ public class AnnounceJspBean extends PluginAdminPageJspBean
         }
 
         int nIdAnnounce = Integer.parseInt( strAnnounceId );
-        Announce announce = AnnounceHome.findByPrimaryKey( nIdAnnounce );
+        Announce announce = AnnounceHome.findByPrimaryKey( nIdAnnounce ).copy( );
         announce.setSuspended( true );
         AnnounceHome.setSuspended( announce );
 
@@ -35,6 +35,7 @@ package fr.paris.lutece.plugins.announce.web;
 
 import fr.paris.lutece.plugins.announce.business.Category;
 import fr.paris.lutece.plugins.announce.business.CategoryHome;
+import fr.paris.lutece.plugins.announce.service.AnnounceFormService;
 import fr.paris.lutece.plugins.announce.service.EntryService;
 import fr.paris.lutece.plugins.announce.service.EntryTypeService;
 import fr.paris.lutece.plugins.genericattributes.business.Entry;
@@ -257,6 +258,8 @@ public class CategoryEntryJspBean extends MVCAdminJspBean
                 }
             }
 
+            AnnounceFormService.getService( ).invalidateCategory( nIdCategory );
+
             if ( request.getParameter( PARAMETER_APPLY ) != null )
             {
                 return redirect( request, VIEW_GET_MODIFY_ENTRY, PARAMETER_ID_ENTRY, entry.getIdEntry( ) );
@@ -386,6 +389,8 @@ public class CategoryEntryJspBean extends MVCAdminJspBean
                         }
                     }
                 }
+
+                AnnounceFormService.getService( ).invalidateCategory( entry.getIdResource( ) );
             }
 
             if ( request.getParameter( PARAMETER_APPLY ) != null )
@@ -481,6 +486,7 @@ public class CategoryEntryJspBean extends MVCAdminJspBean
 
             // Remove entry
             EntryHome.remove( nIdEntry );
+            AnnounceFormService.getService( ).invalidateCategory( entry.getIdResource( ) );
 
             if ( entry.getFieldDepend( ) != null )
             {
@@ -549,6 +555,7 @@ public class CategoryEntryJspBean extends MVCAdminJspBean
                     EntryHome.update( entryToMove );
                     entry.setPosition( nNewPosition );
                     EntryHome.update( entry );
+                    AnnounceFormService.getService( ).invalidateCategory( entry.getIdResource( ) );
                 }
             }
 
@@ -604,6 +611,8 @@ public class CategoryEntryJspBean extends MVCAdminJspBean
                 _entryService.moveUpEntryOrder( entryParent.getPosition( ) + entryParent.getChildren( ).size( ), entry );
             }
 
+            AnnounceFormService.getService( ).invalidateCategory( entry.getIdResource( ) );
+
             if ( entry.getFieldDepend( ) != null )
             {
                 return redirect( request, CategoryFieldJspBean.getUrlModifyField( request, entry.getFieldDepend( ).getIdField( ) ) );
@@ -730,6 +739,7 @@ public class CategoryEntryJspBean extends MVCAdminJspBean
             FieldHome.removeVerifyBy( nIdField, nIdExpression );
 
             Field field = FieldHome.findByPrimaryKey( nIdField );
+            AnnounceFormService.getService( ).invalidateEntry( field.getParentEntry( ).getIdEntry( ) );
 
             return redirect( request, VIEW_GET_MODIFY_ENTRY, PARAMETER_ID_ENTRY, field.getParentEntry( ).getIdEntry( ) );
         }
@@ -759,6 +769,7 @@ public class CategoryEntryJspBean extends MVCAdminJspBean
             FieldHome.createVerifyBy( nIdField, nIdExpression );
 
             Field field = FieldHome.findByPrimaryKey( nIdField );
+            AnnounceFormService.getService( ).invalidateEntry( field.getParentEntry( ).getIdEntry( ) );
 
             return redirect( request, VIEW_GET_MODIFY_ENTRY, PARAMETER_ID_ENTRY, field.getParentEntry( ).getIdEntry( ) );
         }
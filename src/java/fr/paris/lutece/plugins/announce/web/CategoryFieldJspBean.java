@@ -33,6 +33,7 @@
  */
 package fr.paris.lutece.plugins.announce.web;
 
+import fr.paris.lutece.plugins.announce.service.AnnounceFormService;
 import fr.paris.lutece.plugins.announce.service.EntryTypeService;
 import fr.paris.lutece.plugins.genericattributes.business.Entry;
 import fr.paris.lutece.plugins.genericattributes.business.EntryHome;
@@ -236,6 +237,7 @@ public class CategoryFieldJspBean extends MVCAdminJspBean
             }
 
             FieldHome.create( field );
+            AnnounceFormService.getService( ).invalidateEntry( nIdEntry );
         }
 
         return redirect( request, CategoryEntryJspBean.getURLModifyEntry( request, nIdEntry ) );
@@ -300,6 +302,7 @@ public class CategoryFieldJspBean extends MVCAdminJspBean
             }
 
             FieldHome.update( field );
+            AnnounceFormService.getService( ).invalidateEntry( field.getParentEntry( ).getIdEntry( ) );
         }
 
         if ( request.getParameter( PARAMETER_APPLY ) == null )
@@ -361,6 +364,7 @@ public class CategoryFieldJspBean extends MVCAdminJspBean
             if ( field != null )
             {
                 FieldHome.remove( nIdField );
+                AnnounceFormService.getService( ).invalidateEntry( field.getParentEntry( ).getIdEntry( ) );
 
                 return redirect( request, CategoryEntryJspBean.getURLModifyEntry( request, field.getParentEntry( ).getIdEntry( ) ) );
             }
@@ -432,6 +436,7 @@ public class CategoryFieldJspBean extends MVCAdminJspBean
             field.setPosition( nNewPosition );
             FieldHome.update( field );
             FieldHome.update( fieldToInversePosition );
+            AnnounceFormService.getService( ).invalidateEntry( field.getParentEntry( ).getIdEntry( ) );
 
             return redirect( request, CategoryEntryJspBean.getURLModifyEntry( request, field.getParentEntry( ).getIdEntry( ) ) );
         }
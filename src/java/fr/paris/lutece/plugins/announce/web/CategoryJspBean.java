@@ -415,7 +415,7 @@ public class CategoryJspBean extends PluginAdminPageJspBean
             return AdminMessageService.getMessageUrl( request, Messages.MANDATORY_FIELDS, AdminMessage.TYPE_STOP );
         }
 
-        Category category = getAuthorizedCategory( request, CategoryResourceIdService.PERMISSION_MODIFY );
+        Category category = getAuthorizedCategory( request, CategoryResourceIdService.PERMISSION_MODIFY ).copy( );
         category.setLabel( strCategoryLabel );
         category.setIdSector( nIdSector );
         category.setAnnouncesValidation( nAnnouncesValidation );
@@ -615,7 +615,7 @@ public class CategoryJspBean extends PluginAdminPageJspBean
     {
         String strIdCategory = request.getParameter( PARAMETER_CATEGORY_ID );
         int nIdCategory = Integer.parseInt( strIdCategory );
-        Category category = CategoryHome.findByPrimaryKey( nIdCategory );
+        Category category = CategoryHome.findByPrimaryKey( nIdCategory ).copy( );
         Object [ ] strTitleCategory = {
                 category.getLabel( )
         };
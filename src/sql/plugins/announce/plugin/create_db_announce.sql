@@ -37,6 +37,7 @@ CREATE TABLE announce_announce(
 	id_category int default '0' NOT NULL,
 	title_announce varchar(255) NOT NULL ,
 	description_announce LONG VARCHAR NOT NULL ,
+	excerpt_announce varchar(255) default '' NOT NULL,
 	price_announce DOUBLE,
 	date_creation timestamp default CURRENT_TIMESTAMP NOT NULL,
 	date_modification timestamp default CURRENT_TIMESTAMP NOT NULL,
@@ -97,3 +98,10 @@ id_announce int default '0' NOT NULL,
 PRIMARY KEY (id)
 );
 
+
+DROP TABLE IF EXISTS announce_id_sequence;
+CREATE TABLE announce_id_sequence(
+	sequence_name varchar(50) NOT NULL,
+	next_value int NOT NULL,
+	PRIMARY KEY (sequence_name)
+);
@@ -0,0 +1,18 @@
+DROP TABLE IF EXISTS announce_id_sequence;
+CREATE TABLE announce_id_sequence(
+	sequence_name varchar(50) NOT NULL,
+	next_value int NOT NULL,
+	PRIMARY KEY (sequence_name)
+);
+INSERT INTO announce_id_sequence ( sequence_name, next_value ) SELECT 'announce', COALESCE( MAX( id_announce ), 0 ) + 1 FROM announce_announce;
+INSERT INTO announce_id_sequence ( sequence_name, next_value ) SELECT 'category', COALESCE( MAX( id_category ), 0 ) + 1 FROM announce_category;
+INSERT INTO announce_id_sequence ( sequence_name, next_value ) SELECT 'sector', COALESCE( MAX( id_sector ), 0 ) + 1 FROM announce_sector;
+INSERT INTO announce_id_sequence ( sequence_name, next_value ) SELECT 'indexer_action', COALESCE( MAX( id_action ), 0 ) + 1 FROM announce_indexer_action;
+INSERT INTO announce_id_sequence ( sequence_name, next_value ) SELECT 'search_filter', COALESCE( MAX( id_filter ), 0 ) + 1 FROM announce_search_filters;
+INSERT INTO announce_id_sequence ( sequence_name, next_value ) SELECT 'notify', COALESCE( MAX( id ), 0 ) + 1 FROM announce_notify;
+
+UPDATE announce_announce SET has_notified = 0 WHERE has_notified IS NULL;
+
+-- Excerpts of existing announces are built by the plugin at startup, with the markup of descriptions stripped. The column stays nullable until
+-- then, since null marks the announces whose excerpt is not built yet : upgrade_advert-2.1.1-2.1.2.sql makes it NOT NULL like in create_db_announce.sql
+ALTER TABLE announce_announce ADD COLUMN excerpt_announce varchar(255) NULL AFTER description_announce;
@@ -0,0 +1,3 @@
+-- To be run once the plugin 2.1.1 has started, after it logged that the excerpts of the existing announces have been built.
+-- Every announce then has an excerpt, so the column gets the definition it has in create_db_announce.sql
+ALTER TABLE announce_announce MODIFY excerpt_announce varchar(255) default '' NOT NULL;
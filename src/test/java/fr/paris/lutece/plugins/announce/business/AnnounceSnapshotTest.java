@@ -0,0 +1,169 @@
+/*
+ * Copyright (c) 2002-2021, City of Paris
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions
+ * are met:
+ *
+ *  1. Redistributions of source code must retain the above copyright notice
+ *     and the following disclaimer.
+ *
+ *  2. Redistributions in binary form must reproduce the above copyright notice
+ *     and the following disclaimer in the documentation and/or other materials
+ *     provided with the distribution.
+ *
+ *  3. Neither the name of 'Mairie de Paris' nor 'Lutece' nor the names of its
+ *     contributors may be used to endorse or promote products derived from
+ *     this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDERS OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ *
+ * License 1.0
+ */
+package fr.paris.lutece.plugins.announce.business;
+
+import fr.paris.lutece.plugins.announce.service.MicroBenchmark;
+import fr.paris.lutece.test.LuteceTestCase;
+
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Checks the immutable snapshots of announces and categories kept in the cache, and compares the allocations of a list page that reads shared snapshots
+ * with a list page that copies every announce it reads, as the cache used to do.
+ */
+public class AnnounceSnapshotTest extends LuteceTestCase
+{
+    private static final int NB_ANNOUNCES_PER_PAGE = 50;
+    private static final int NB_RUNS = 20000;
+
+    /**
+     * A snapshot can not be modified, and modifying its copy does not change it
+     */
+    public void testSnapshotIsImmutable( )
+    {
+        Announce snapshot = createAnnounce( 1 ).getSnapshot( );
+
+        assertTrue( snapshot.isSnapshot( ) );
+        assertTrue( snapshot.getCategory( ).isSnapshot( ) );
+        assertSame( snapshot, snapshot.getSnapshot( ) );
+
+        try
+        {
+            snapshot.setTitle( "Modified" );
+            fail( "A snapshot must not be modifiable" );
+        }
+        catch( UnsupportedOperationException e )
+        {
+            // Expected
+        }
+
+        try
+        {
+            snapshot.getCategory( ).setLabel( "Modified" );
+            fail( "The category of a snapshot must not be modifiable" );
+        }
+        catch( UnsupportedOperationException e )
+        {
+            // Expected
+        }
+
+        try
+        {
+            snapshot.getListIdImageResponse( ).add( 4 );
+            fail( "The lists of a snapshot must not be modifiable" );
+        }
+        catch( UnsupportedOperationException e )
+        {
+            // Expected
+        }
+
+        Announce copy = snapshot.copy( );
+        copy.setTitle( "Modified" );
+        copy.getCategory( ).setLabel( "Modified" );
+        copy.getListIdImageResponse( ).add( 4 );
+
+        assertFalse( copy.isSnapshot( ) );
+        assertEquals( "Announce 1", snapshot.getTitle( ) );
+        assertEquals( "Category", snapshot.getCategory( ).getLabel( ) );
+        assertEquals( 3, snapshot.getListIdImageResponse( ).size( ) );
+    }
+
+    /**
+     * Reading shared snapshots allocates less than copying every announce read
+     * 
+     * @throws Exception
+     *             If the benchmark failed
+     */
+    public void testSharedSnapshotsAllocateLessThanCopies( ) throws Exception
+    {
+        List<Announce> listSnapshots = new ArrayList<>( NB_ANNOUNCES_PER_PAGE );
+
+        for ( int i = 0; i < NB_ANNOUNCES_PER_PAGE; i++ )
+        {
+            listSnapshots.add( createAnnounce( i ).getSnapshot( ) );
+        }
+
+        List<Announce> listPage = new ArrayList<>( NB_ANNOUNCES_PER_PAGE );
+
+        MicroBenchmark benchmarkCopies = MicroBenchmark.run( "page of copied announces", NB_RUNS, ( ) -> {
+            listPage.clear( );
+
+            for ( Announce snapshot : listSnapshots )
+            {
+                listPage.add( snapshot.copy( ) );
+            }
+        } );
+        MicroBenchmark benchmarkSnapshots = MicroBenchmark.run( "page of shared snapshots", NB_RUNS, ( ) -> {
+            listPage.clear( );
+
+            for ( Announce snapshot : listSnapshots )
+            {
+                listPage.add( snapshot.getSnapshot( ) );
+            }
+        } );
+
+        if ( benchmarkSnapshots.hasAllocations( ) )
+        {
+            assertTrue( benchmarkCopies.getBytesPerRun( ) > 0 );
+            assertTrue( benchmarkSnapshots.getBytesPerRun( ) < benchmarkCopies.getBytesPerRun( ) );
+        }
+    }
+
+    /**
+     * Create a modifiable announce
+     * 
+     * @param nIdAnnounce
+     *            The id of the announce
+     * @return The announce
+     */
+    private static Announce createAnnounce( int nIdAnnounce )
+    {
+        Category category = new Category( );
+        category.setId( 1 );
+        category.setLabel( "Category" );
+
+        Announce announce = new Announce( );
+        announce.setId( nIdAnnounce );
+        announce.setTitle( "Announce " + nIdAnnounce );
+        announce.setDescription( "<p>Description of the announce " + nIdAnnounce + "</p>" );
+        announce.setCategory( category );
+        announce.setDateCreation( new Timestamp( System.currentTimeMillis( ) ) );
+        announce.setListIdImageResponse( new ArrayList<>( Arrays.asList( 1, 2, 3 ) ) );
+
+        return announce;
+    }
+}
@@ -0,0 +1,65 @@
+/*
+ * Copyright (c) 2002-2021, City of Paris
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions
+ * are met:
+ *
+ *  1. Redistributions of source code must retain the above copyright notice
+ *     and the following disclaimer.
+ *
+ *  2. Redistributions in binary form must reproduce the above copyright notice
+ *     and the following disclaimer in the documentation and/or other materials
+ *     provided with the distribution.
+ *
+ *  3. Neither the name of 'Mairie de Paris' nor 'Lutece' nor the names of its
+ *     contributors may be used to endorse or promote products derived from
+ *     this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDERS OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ *
+ * License 1.0
+ */
+package fr.paris.lutece.plugins.announce.business;
+
+import fr.paris.lutece.test.LuteceTestCase;
+
+import org.apache.commons.lang3.StringUtils;
+
+public class AnnounceSummaryTest extends LuteceTestCase
+{
+    /**
+     * Check that the excerpt is plain text, with the markup stripped and character references decoded
+     */
+    public void testExcerptIsPlainText( )
+    {
+        assertEquals( "Table en ch\u00EAne & 4 chaises", AnnounceSummary.getExcerpt( "<p>Table <b>en ch&ecirc;ne</b> &amp; 4 chaises</p>" ) );
+        assertEquals( StringUtils.EMPTY, AnnounceSummary.getExcerpt( null ) );
+        assertEquals( StringUtils.EMPTY, AnnounceSummary.getExcerpt( "<p> </p>" ) );
+    }
+
+    /**
+     * Check that long descriptions are abbreviated after their markup is stripped, so that no tag or character reference is cut
+     */
+    public void testExcerptIsAbbreviated( )
+    {
+        String strDescription = StringUtils.repeat( "<p>Bon &eacute;tat</p>", 100 );
+        String strExcerpt = AnnounceSummary.getExcerpt( strDescription );
+
+        assertEquals( AnnounceSummary.EXCERPT_MAX_LENGTH, strExcerpt.length( ) );
+        assertTrue( strExcerpt.endsWith( "..." ) );
+        assertFalse( strExcerpt.contains( "<" ) );
+        assertFalse( strExcerpt.contains( "&" ) );
+    }
+}
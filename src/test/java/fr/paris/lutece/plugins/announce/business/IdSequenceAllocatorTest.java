@@ -0,0 +1,171 @@
+/*
+ * Copyright (c) 2002-2021, City of Paris
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions
+ * are met:
+ *
+ *  1. Redistributions of source code must retain the above copyright notice
+ *     and the following disclaimer.
+ *
+ *  2. Redistributions in binary form must reproduce the above copyright notice
+ *     and the following disclaimer in the documentation and/or other materials
+ *     provided with the distribution.
+ *
+ *  3. Neither the name of 'Mairie de Paris' nor 'Lutece' nor the names of its
+ *     contributors may be used to endorse or promote products derived from
+ *     this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDERS OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ *
+ * License 1.0
+ */
+package fr.paris.lutece.plugins.announce.business;
+
+import fr.paris.lutece.portal.service.plugin.Plugin;
+import fr.paris.lutece.portal.service.util.AppException;
+import fr.paris.lutece.test.LuteceTestCase;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+public class IdSequenceAllocatorTest extends LuteceTestCase
+{
+    private static final int NB_THREADS_PER_NODE = 4;
+    private static final int NB_IDS_PER_THREAD = 2000;
+    private static final int BLOCK_SIZE = 7;
+    private static final int MAX_ID = 41;
+
+    /**
+     * In memory sequence table, moved with a compare and set like the database table
+     */
+    private static final class InMemoryIdSequenceDAO implements IIdSequenceDAO
+    {
+        private final Map<String, Integer> _mapNextValues = new HashMap<>( );
+
+        @Override
+        public synchronized Integer findNextValue( IdSequence sequence, Plugin plugin )
+        {
+            return _mapNextValues.get( sequence.getName( ) );
+        }
+
+        @Override
+        public int findMaxId( IdSequence sequence, Plugin plugin )
+        {
+            return MAX_ID;
+        }
+
+        @Override
+        public synchronized void insert( IdSequence sequence, int nNextValue, Plugin plugin )
+        {
+            if ( _mapNextValues.putIfAbsent( sequence.getName( ), nNextValue ) != null )
+            {
+                throw new AppException( "Duplicate sequence " + sequence.getName( ) );
+            }
+        }
+
+        @Override
+        public synchronized boolean reserve( IdSequence sequence, int nExpectedNextValue, int nNewNextValue, Plugin plugin )
+        {
+            if ( _mapNextValues.get( sequence.getName( ) ) != nExpectedNextValue )
+            {
+                return false;
+            }
+
+            _mapNextValues.put( sequence.getName( ), nNewNextValue );
+
+            return true;
+        }
+    }
+
+    /**
+     * Two nodes sharing the same sequence table hand out identifiers from several threads : no identifier is handed out twice
+     * 
+     * @throws Exception
+     *             If a thread failed
+     */
+    public void testTwoNodesNeverShareIds( ) throws Exception
+    {
+        IIdSequenceDAO dao = new InMemoryIdSequenceDAO( );
+        IdSequenceAllocator [ ] nodes = {
+                new IdSequenceAllocator( dao, null, BLOCK_SIZE ), new IdSequenceAllocator( dao, null, BLOCK_SIZE )
+        };
+        Set<Integer> setIds = ConcurrentHashMap.newKeySet( );
+        List<Callable<Integer>> listTasks = new ArrayList<>( );
+
+        for ( IdSequenceAllocator node : nodes )
+        {
+            for ( int i = 0; i < NB_THREADS_PER_NODE; i++ )
+            {
+                listTasks.add( ( ) -> {
+                    int nNbDuplicates = 0;
+
+                    for ( int j = 0; j < NB_IDS_PER_THREAD; j++ )
+                    {
+                        if ( !setIds.add( node.next( IdSequence.ANNOUNCE ) ) )
+                        {
+                            nNbDuplicates++;
+                        }
+                    }
+
+                    return nNbDuplicates;
+                } );
+            }
+        }
+
+        ExecutorService executor = Executors.newFixedThreadPool( listTasks.size( ) );
+
+        try
+        {
+            for ( Future<Integer> future : executor.invokeAll( listTasks ) )
+            {
+                assertEquals( 0, future.get( ).intValue( ) );
+            }
+        }
+        finally
+        {
+            executor.shutdown( );
+            assertTrue( executor.awaitTermination( 1, TimeUnit.MINUTES ) );
+        }
+
+        assertEquals( nodes.length * NB_THREADS_PER_NODE * NB_IDS_PER_THREAD, setIds.size( ) );
+
+        // The sequence started after the identifiers already in the table
+        for ( int nId : setIds )
+        {
+            assertTrue( nId > MAX_ID );
+        }
+    }
+
+    /**
+     * Sequences are independent from each other
+     */
+    public void testSequencesAreIndependent( )
+    {
+        IdSequenceAllocator node = new IdSequenceAllocator( new InMemoryIdSequenceDAO( ), null, BLOCK_SIZE );
+
+        assertEquals( MAX_ID + 1, node.next( IdSequence.ANNOUNCE ) );
+        assertEquals( MAX_ID + 2, node.next( IdSequence.ANNOUNCE ) );
+        assertEquals( MAX_ID + 1, node.next( IdSequence.CATEGORY ) );
+    }
+}
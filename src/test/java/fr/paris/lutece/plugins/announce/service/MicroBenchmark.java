@@ -0,0 +1,180 @@
+/*
+ * Copyright (c) 2002-2021, City of Paris
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions
+ * are met:
+ *
+ *  1. Redistributions of source code must retain the above copyright notice
+ *     and the following disclaimer.
+ *
+ *  2. Redistributions in binary form must reproduce the above copyright notice
+ *     and the following disclaimer in the documentation and/or other materials
+ *     provided with the distribution.
+ *
+ *  3. Neither the name of 'Mairie de Paris' nor 'Lutece' nor the names of its
+ *     contributors may be used to endorse or promote products derived from
+ *     this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDERS OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ *
+ * License 1.0
+ */
+package fr.paris.lutece.plugins.announce.service;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+
+/**
+ * Minimal micro-benchmark used by the tests to compare two implementations : it runs a task after a warm up and measures the time and the bytes
+ * allocated by the current thread for each run. It is not as accurate as a benchmark harness, so tests only assert large differences.
+ */
+public final class MicroBenchmark
+{
+    private static final int NB_WARMUP_RUNS = 200;
+
+    private final String _strName;
+    private final double _dNanosPerRun;
+    private final long _lBytesPerRun;
+
+    /**
+     * Creates the result of a benchmark
+     * 
+     * @param strName
+     *            The name of the benchmark
+     * @param dNanosPerRun
+     *            The mean time of a run, in nanoseconds
+     * @param lBytesPerRun
+     *            The mean number of bytes allocated by a run, or -1 if the JVM does not measure allocations
+     */
+    private MicroBenchmark( String strName, double dNanosPerRun, long lBytesPerRun )
+    {
+        _strName = strName;
+        _dNanosPerRun = dNanosPerRun;
+        _lBytesPerRun = lBytesPerRun;
+    }
+
+    /**
+     * Run a task after a warm up, and measure it
+     * 
+     * @param strName
+     *            The name of the benchmark
+     * @param nRuns
+     *            The number of measured runs
+     * @param task
+     *            The task
+     * @return The result of the benchmark
+     * @throws Exception
+     *             If the task failed
+     */
+    public static MicroBenchmark run( String strName, int nRuns, Task task ) throws Exception
+    {
+        for ( int i = 0; i < NB_WARMUP_RUNS; i++ )
+        {
+            task.run( );
+        }
+
+        long lBytesBefore = getAllocatedBytes( );
+        long lStart = System.nanoTime( );
+
+        for ( int i = 0; i < nRuns; i++ )
+        {
+            task.run( );
+        }
+
+        long lElapsed = System.nanoTime( ) - lStart;
+        long lBytesAfter = getAllocatedBytes( );
+        long lBytesPerRun = ( lBytesBefore >= 0 ) ? ( ( lBytesAfter - lBytesBefore ) / nRuns ) : -1L;
+        MicroBenchmark result = new MicroBenchmark( strName, (double) lElapsed / nRuns, lBytesPerRun );
+        System.out.println( result );
+
+        return result;
+    }
+
+    /**
+     * Get the number of bytes allocated by the current thread since it started
+     * 
+     * @return The number of bytes, or -1 if the JVM does not measure allocations
+     */
+    private static long getAllocatedBytes( )
+    {
+        ThreadMXBean threadBean = ManagementFactory.getThreadMXBean( );
+
+        if ( threadBean instanceof com.sun.management.ThreadMXBean )
+        {
+            com.sun.management.ThreadMXBean sunThreadBean = (com.sun.management.ThreadMXBean) threadBean;
+
+            if ( sunThreadBean.isThreadAllocatedMemorySupported( ) && sunThreadBean.isThreadAllocatedMemoryEnabled( ) )
+            {
+                return sunThreadBean.getThreadAllocatedBytes( Thread.currentThread( ).getId( ) );
+            }
+        }
+
+        return -1L;
+    }
+
+    /**
+     * Check whether allocations were measured
+     * 
+     * @return True if allocations were measured, false otherwise
+     */
+    public boolean hasAllocations( )
+    {
+        return _lBytesPerRun >= 0;
+    }
+
+    /**
+     * Get the mean time of a run
+     * 
+     * @return The mean time of a run, in nanoseconds
+     */
+    public double getNanosPerRun( )
+    {
+        return _dNanosPerRun;
+    }
+
+    /**
+     * Get the mean number of bytes allocated by a run
+     * 
+     * @return The mean number of bytes, or -1 if the JVM does not measure allocations
+     */
+    public long getBytesPerRun( )
+    {
+        return _lBytesPerRun;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public String toString( )
+    {
+        return String.format( "%s : %.0f runs/s, %.1f us/run, %d bytes/run", _strName, 1.0E9 / _dNanosPerRun, _dNanosPerRun / 1000.0, _lBytesPerRun );
+    }
+
+    /**
+     * A measured task
+     */
+    @FunctionalInterface
+    public interface Task
+    {
+        /**
+         * Run the task once
+         * 
+         * @throws Exception
+         *             If the task failed
+         */
+        void run( ) throws Exception;
+    }
+}
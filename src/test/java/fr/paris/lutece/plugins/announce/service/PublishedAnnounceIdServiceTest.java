@@ -0,0 +1,155 @@
+/*
+ * Copyright (c) 2002-2021, City of Paris
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions
+ * are met:
+ *
+ *  1. Redistributions of source code must retain the above copyright notice
+ *     and the following disclaimer.
+ *
+ *  2. Redistributions in binary form must reproduce the above copyright notice
+ *     and the following disclaimer in the documentation and/or other materials
+ *     provided with the distribution.
+ *
+ *  3. Neither the name of 'Mairie de Paris' nor 'Lutece' nor the names of its
+ *     contributors may be used to endorse or promote products derived from
+ *     this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDERS OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ *
+ * License 1.0
+ */
+package fr.paris.lutece.plugins.announce.service;
+
+import fr.paris.lutece.plugins.announce.business.Announce;
+import fr.paris.lutece.plugins.announce.business.AnnouncePageKey;
+import fr.paris.lutece.plugins.announce.business.AnnounceSort;
+import fr.paris.lutece.test.LuteceTestCase;
+
+import java.sql.Timestamp;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+public class PublishedAnnounceIdServiceTest extends LuteceTestCase
+{
+    private static final AnnounceSort SORT_DATE_CREATION_DESC = AnnounceSort.getAnnounceSort( AnnounceSort.SORT_DATE_CREATION, false );
+    private static final AnnounceSort SORT_TITLE_ASC = AnnounceSort.getAnnounceSort( AnnounceSort.SORT_TITLE, true );
+
+    private final AtomicInteger _nNbLoads = new AtomicInteger( );
+
+    /**
+     * Load keys of published announces 1 to 3, created at times 100 to 300
+     * 
+     * @param announceSort
+     *            The sort
+     * @return The keys
+     */
+    private List<AnnouncePageKey> load( AnnounceSort announceSort )
+    {
+        _nNbLoads.incrementAndGet( );
+
+        List<AnnouncePageKey> listKeys = new ArrayList<>( );
+
+        for ( int nId = 1; nId <= 3; nId++ )
+        {
+            listKeys.add( AnnouncePageKey.getPageKey( getAnnounce( nId, nId * 100L ), announceSort ) );
+        }
+
+        Collections.sort( listKeys );
+
+        if ( !announceSort.getSortAsc( ) )
+        {
+            Collections.reverse( listKeys );
+        }
+
+        return listKeys;
+    }
+
+    /**
+     * Get an announce
+     * 
+     * @param nId
+     *            The id of the announce
+     * @param lDateCreation
+     *            The creation time
+     * @return The announce
+     */
+    private static Announce getAnnounce( int nId, long lDateCreation )
+    {
+        Announce announce = new Announce( );
+        announce.setId( nId );
+        announce.setTitle( "title " + nId );
+        announce.setDateCreation( new Timestamp( lDateCreation ) );
+
+        return announce;
+    }
+
+    public void testHitRate( )
+    {
+        PublishedAnnounceIdService service = new PublishedAnnounceIdService( this::load, Long.MAX_VALUE );
+
+        for ( int i = 0; i < 100; i++ )
+        {
+            assertEquals( Arrays.asList( 3, 2, 1 ), service.getPublishedIds( SORT_DATE_CREATION_DESC ) );
+        }
+
+        // Events on announces patch the ids instead of reloading them
+        service.updateAnnounce( getAnnounce( 4, 250L ), false, true );
+        service.updateAnnounce( getAnnounce( 2, 200L ), true, false );
+        service.removeAnnounces( Collections.singletonList( 1 ) );
+
+        for ( int i = 0; i < 100; i++ )
+        {
+            assertEquals( Arrays.asList( 3, 4 ), service.getPublishedIds( SORT_DATE_CREATION_DESC ) );
+        }
+
+        assertEquals( 1, _nNbLoads.get( ) );
+        assertEquals( 1, service.getMisses( ) );
+        assertTrue( service.getHitRate( ) > 0.99 );
+    }
+
+    public void testTextSortIsReloadedAfterInsertion( )
+    {
+        PublishedAnnounceIdService service = new PublishedAnnounceIdService( this::load, Long.MAX_VALUE );
+
+        assertEquals( Arrays.asList( 1, 2, 3 ), service.getPublishedIds( SORT_TITLE_ASC ) );
+        service.updateAnnounce( getAnnounce( 2, 200L ), true, false );
+        assertEquals( Arrays.asList( 1, 3 ), service.getPublishedIds( SORT_TITLE_ASC ) );
+        assertEquals( 1, _nNbLoads.get( ) );
+
+        service.updateAnnounce( getAnnounce( 4, 400L ), false, true );
+        service.getPublishedIds( SORT_TITLE_ASC );
+        assertEquals( 2, _nNbLoads.get( ) );
+    }
+
+    public void testIdsAreReloadedOnceExpiredOrReset( )
+    {
+        PublishedAnnounceIdService service = new PublishedAnnounceIdService( this::load, -1L );
+
+        service.getPublishedIds( SORT_DATE_CREATION_DESC );
+        service.getPublishedIds( SORT_DATE_CREATION_DESC );
+        assertEquals( 2, _nNbLoads.get( ) );
+
+        service = new PublishedAnnounceIdService( this::load, Long.MAX_VALUE );
+        service.getPublishedIds( SORT_DATE_CREATION_DESC );
+        service.reset( );
+        service.getPublishedIds( SORT_DATE_CREATION_DESC );
+        assertEquals( 4, _nNbLoads.get( ) );
+    }
+}
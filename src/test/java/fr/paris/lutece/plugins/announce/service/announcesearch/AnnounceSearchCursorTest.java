@@ -0,0 +1,98 @@
+/*
+ * Copyright (c) 2002-2021, City of Paris
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions
+ * are met:
+ *
+ *  1. Redistributions of source code must retain the above copyright notice
+ *     and the following disclaimer.
+ *
+ *  2. Redistributions in binary form must reproduce the above copyright notice
+ *     and the following disclaimer in the documentation and/or other materials
+ *     provided with the distribution.
+ *
+ *  3. Neither the name of 'Mairie de Paris' nor 'Lutece' nor the names of its
+ *     contributors may be used to endorse or promote products derived from
+ *     this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDERS OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ *
+ * License 1.0
+ */
+package fr.paris.lutece.plugins.announce.service.announcesearch;
+
+import fr.paris.lutece.test.LuteceTestCase;
+
+import org.apache.lucene.search.FieldDoc;
+import org.apache.lucene.util.BytesRef;
+
+public class AnnounceSearchCursorTest extends LuteceTestCase
+{
+    private static final int FINGERPRINT = 1234;
+
+    /**
+     * Check that the token of a cursor gives back the last hit of its page, for each type of sort value
+     */
+    public void testTokenRoundTrip( )
+    {
+        Object [ ] sortValues = {
+                1_600_000_000_000L, -12.5d, new BytesRef( "v\u00E9lo enfant" ), null
+        };
+
+        for ( Object sortValue : sortValues )
+        {
+            FieldDoc lastHit = new FieldDoc( 42, Float.NaN, new Object [ ] {
+                    sortValue, 42
+            } );
+            AnnounceSearchCursor cursor = AnnounceSearchCursor.parse( new AnnounceSearchCursor( 3, 100, FINGERPRINT, lastHit ).getToken( ) );
+
+            assertNotNull( cursor );
+            assertEquals( 100, cursor.getNbResults( ) );
+            assertEquals( 42, cursor.getLastHit( ).doc );
+            assertEquals( sortValue, cursor.getLastHit( ).fields [0] );
+            assertEquals( 42, cursor.getLastHit( ).fields [1] );
+        }
+    }
+
+    /**
+     * Check that a cursor is only used for the next page of the same search
+     */
+    public void testCursorOnlyFollowsItsPage( )
+    {
+        FieldDoc lastHit = new FieldDoc( 7, Float.NaN, new Object [ ] {
+                5L, 7
+        } );
+        AnnounceSearchCursor cursor = new AnnounceSearchCursor( 2, 50, FINGERPRINT, lastHit );
+
+        assertTrue( cursor.isFollowedBy( 3, FINGERPRINT ) );
+        assertFalse( cursor.isFollowedBy( 4, FINGERPRINT ) );
+        assertFalse( cursor.isFollowedBy( 3, FINGERPRINT + 1 ) );
+        assertNull( new AnnounceSearchCursor( 2, 50, FINGERPRINT, null ).getToken( ) );
+    }
+
+    /**
+     * Check that tokens coming from the request that are not valid are ignored
+     */
+    public void testInvalidTokensAreIgnored( )
+    {
+        assertNull( AnnounceSearchCursor.parse( null ) );
+        assertNull( AnnounceSearchCursor.parse( "" ) );
+        assertNull( AnnounceSearchCursor.parse( "1.2.3.4" ) );
+        assertNull( AnnounceSearchCursor.parse( "1.2.3.4.X5" ) );
+        assertNull( AnnounceSearchCursor.parse( "a.2.3.4.L5" ) );
+        assertNull( AnnounceSearchCursor.parse( "1.2.3.4.Lxyz" ) );
+        assertNull( AnnounceSearchCursor.parse( "1.2.3.4.S!!" ) );
+    }
+}
@@ -0,0 +1,157 @@
+/*
+ * Copyright (c) 2002-2021, City of Paris
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions
+ * are met:
+ *
+ *  1. Redistributions of source code must retain the above copyright notice
+ *     and the following disclaimer.
+ *
+ *  2. Redistributions in binary form must reproduce the above copyright notice
+ *     and the following disclaimer in the documentation and/or other materials
+ *     provided with the distribution.
+ *
+ *  3. Neither the name of 'Mairie de Paris' nor 'Lutece' nor the names of its
+ *     contributors may be used to endorse or promote products derived from
+ *     this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDERS OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ *
+ * License 1.0
+ */
+package fr.paris.lutece.plugins.announce.service.announcesearch;
+
+import fr.paris.lutece.plugins.announce.service.MicroBenchmark;
+import fr.paris.lutece.test.LuteceTestCase;
+
+import org.apache.lucene.analysis.standard.StandardAnalyzer;
+import org.apache.lucene.index.DirectoryReader;
+import org.apache.lucene.index.IndexWriter;
+import org.apache.lucene.index.IndexWriterConfig;
+import org.apache.lucene.index.Term;
+import org.apache.lucene.search.IndexSearcher;
+import org.apache.lucene.search.Query;
+import org.apache.lucene.search.SearcherManager;
+import org.apache.lucene.search.TermQuery;
+import org.apache.lucene.store.Directory;
+
+/**
+ * Compares the searches that open a reader for each query, as the search service used to do, with the searches that share the searcher of a
+ * {@link SearcherManager}, on a synthetic index of 100 000 announces. The index is in memory, so the cost of opening files is not even counted for the
+ * searches that open a reader.
+ */
+public class SharedSearcherBenchmarkTest extends LuteceTestCase
+{
+    private static final int NB_ANNOUNCES = 100000;
+    private static final int NB_SEARCHES = 500;
+    private static final int NB_RESULTS = 10;
+
+    /**
+     * Searches on the shared searcher are faster than searches opening a reader, and find the same announces
+     * 
+     * @throws Exception
+     *             If the index could not be searched
+     */
+    public void testSharedSearcherIsFaster( ) throws Exception
+    {
+        Directory directory = SyntheticAnnounceIndex.build( NB_ANNOUNCES );
+        Query query = new TermQuery( new Term( AnnounceSearchItem.FIELD_CATEGORY_ID, "7" ) );
+
+        MicroBenchmark readerPerQuery = MicroBenchmark.run( "reader per query", NB_SEARCHES, ( ) -> {
+            try ( DirectoryReader reader = DirectoryReader.open( directory ) )
+            {
+                new IndexSearcher( reader ).search( query, NB_RESULTS );
+            }
+        } );
+
+        try ( SearcherManager searcherManager = new SearcherManager( directory, null ) )
+        {
+            MicroBenchmark sharedSearcher = MicroBenchmark.run( "shared searcher", NB_SEARCHES, ( ) -> {
+                IndexSearcher searcher = searcherManager.acquire( );
+
+                try
+                {
+                    searcher.search( query, NB_RESULTS );
+                }
+                finally
+                {
+                    searcherManager.release( searcher );
+                }
+            } );
+
+            assertTrue( sharedSearcher.getNanosPerRun( ) < readerPerQuery.getNanosPerRun( ) );
+
+            IndexSearcher searcher = searcherManager.acquire( );
+
+            try ( DirectoryReader reader = DirectoryReader.open( directory ) )
+            {
+                assertEquals( new IndexSearcher( reader ).count( query ), searcher.count( query ) );
+                assertEquals( NB_ANNOUNCES / SyntheticAnnounceIndex.NB_CATEGORIES, searcher.count( query ) );
+            }
+            finally
+            {
+                searcherManager.release( searcher );
+            }
+        }
+    }
+
+    /**
+     * The shared searcher is reused until the index is committed and the manager refreshed, and then sees the new announces
+     * 
+     * @throws Exception
+     *             If the index could not be written or searched
+     */
+    public void testSearcherIsRefreshedAfterCommit( ) throws Exception
+    {
+        Directory directory = SyntheticAnnounceIndex.build( NB_RESULTS );
+        Query query = new TermQuery( new Term( AnnounceSearchItem.FIELD_ID_ANNOUNCE, Integer.toString( NB_RESULTS ) ) );
+
+        try ( IndexWriter writer = new IndexWriter( directory, new IndexWriterConfig( new StandardAnalyzer( ) ) );
+                SearcherManager searcherManager = new SearcherManager( writer, null ) )
+        {
+            IndexSearcher searcherBefore = searcherManager.acquire( );
+            searcherManager.release( searcherBefore );
+
+            SyntheticAnnounceIndex.addAnnounces( writer, NB_RESULTS, 1 );
+
+            IndexSearcher searcherNotRefreshed = searcherManager.acquire( );
+
+            try
+            {
+                assertSame( searcherBefore, searcherNotRefreshed );
+                assertEquals( 0, searcherNotRefreshed.count( query ) );
+            }
+            finally
+            {
+                searcherManager.release( searcherNotRefreshed );
+            }
+
+            writer.commit( );
+            searcherManager.maybeRefresh( );
+
+            IndexSearcher searcherRefreshed = searcherManager.acquire( );
+
+            try
+            {
+                assertNotSame( searcherBefore, searcherRefreshed );
+                assertEquals( 1, searcherRefreshed.count( query ) );
+            }
+            finally
+            {
+                searcherManager.release( searcherRefreshed );
+            }
+        }
+    }
+}
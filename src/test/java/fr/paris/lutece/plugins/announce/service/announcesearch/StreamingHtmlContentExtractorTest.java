@@ -0,0 +1,137 @@
+/*
+ * Copyright (c) 2002-2021, City of Paris
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions
+ * are met:
+ *
+ *  1. Redistributions of source code must retain the above copyright notice
+ *     and the following disclaimer.
+ *
+ *  2. Redistributions in binary form must reproduce the above copyright notice
+ *     and the following disclaimer in the documentation and/or other materials
+ *     provided with the distribution.
+ *
+ *  3. Neither the name of 'Mairie de Paris' nor 'Lutece' nor the names of its
+ *     contributors may be used to endorse or promote products derived from
+ *     this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDERS OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ *
+ * License 1.0
+ */
+package fr.paris.lutece.plugins.announce.service.announcesearch;
+
+import fr.paris.lutece.plugins.announce.service.MicroBenchmark;
+import fr.paris.lutece.test.LuteceTestCase;
+
+import org.apache.commons.lang3.StringUtils;
+
+public class StreamingHtmlContentExtractorTest extends LuteceTestCase
+{
+    private static final int NB_RUNS = 5000;
+    // Upper bound of the bytes of a String object and of the header of its array
+    private static final int STRING_OVERHEAD = 64;
+    private static final String [ ] DESCRIPTIONS = {
+            "Vends v&eacute;lo enfant, tr&egrave;s bon &eacute;tat.",
+            "<p>Appartement T3 &agrave; louer</p><p>Loyer : 850&nbsp;&euro; charges comprises</p>",
+            "<p>Table <b>en ch&ecirc;ne</b> et <i>4 chaises</i><br/>A venir chercher sur place</p>",
+            "<ul><li>Canap&eacute; 3 places</li><li>Fauteuil &amp; pouf</li></ul>",
+            "<h2>Cours de piano</h2><div>Tous niveaux &ndash; 25&#8364; l'heure</div><!-- commentaire -->",
+            "<p>Prix &lt; 100 &#x20AC;, &quot;urgent&quot;</p><script type=\"text/javascript\">alert( 'x' );</script>",
+            "Texte   avec\r\n des \t espaces<br>et des <a href=\"http://example.com?a=1&amp;b=2\">liens</a>",
+            "&AElig;sop &oelig;uvre &Omega; &hearts; &unknown; R&D"
+    };
+
+    /**
+     * Check that the streaming extractor gives the same text as the Tika extractor once whitespace is collapsed
+     */
+    public void testParityWithTika( )
+    {
+        IAnnounceContentExtractor streamingExtractor = new StreamingHtmlContentExtractor( );
+        IAnnounceContentExtractor tikaExtractor = new TikaHtmlContentExtractor( );
+
+        for ( String strDescription : DESCRIPTIONS )
+        {
+            assertEquals( strDescription, normalize( tikaExtractor.extractText( strDescription ) ), streamingExtractor.extractText( strDescription ) );
+        }
+    }
+
+    /**
+     * Check that empty contents give an empty text
+     */
+    public void testEmptyContent( )
+    {
+        IAnnounceContentExtractor extractor = new StreamingHtmlContentExtractor( );
+
+        assertEquals( StringUtils.EMPTY, extractor.extractText( null ) );
+        assertEquals( StringUtils.EMPTY, extractor.extractText( StringUtils.EMPTY ) );
+        assertEquals( StringUtils.EMPTY, extractor.extractText( "<p> </p><!-- -->" ) );
+    }
+
+    /**
+     * Compare the streaming extractor with the Tika extractor on the descriptions : the streaming extractor only allocates the texts it returns, and
+     * allocates less than the Tika extractor. Times are printed for both extractors
+     * 
+     * @throws Exception
+     *             If an extractor failed
+     */
+    public void testStreamingVersusTika( ) throws Exception
+    {
+        IAnnounceContentExtractor streamingExtractor = new StreamingHtmlContentExtractor( );
+        IAnnounceContentExtractor tikaExtractor = new TikaHtmlContentExtractor( );
+        long lMaxBytesOfTexts = 0;
+
+        for ( String strDescription : DESCRIPTIONS )
+        {
+            // Texts may be stored with two bytes per character
+            lMaxBytesOfTexts += ( 2L * streamingExtractor.extractText( strDescription ).length( ) ) + STRING_OVERHEAD;
+        }
+
+        MicroBenchmark benchmarkTika = MicroBenchmark.run( "tika extractor", NB_RUNS, ( ) -> extractAll( tikaExtractor ) );
+        MicroBenchmark benchmarkStreaming = MicroBenchmark.run( "streaming extractor", NB_RUNS, ( ) -> extractAll( streamingExtractor ) );
+
+        if ( benchmarkStreaming.hasAllocations( ) )
+        {
+            assertTrue( benchmarkStreaming.getBytesPerRun( ) <= lMaxBytesOfTexts );
+            assertTrue( benchmarkStreaming.getBytesPerRun( ) < benchmarkTika.getBytesPerRun( ) );
+        }
+    }
+
+    /**
+     * Extract the text of every description
+     * 
+     * @param extractor
+     *            The extractor
+     */
+    private static void extractAll( IAnnounceContentExtractor extractor )
+    {
+        for ( String strDescription : DESCRIPTIONS )
+        {
+            extractor.extractText( strDescription );
+        }
+    }
+
+    /**
+     * Collapse the whitespace of a text the way the streaming extractor does
+     * 
+     * @param strText
+     *            The text
+     * @return The text with whitespace collapsed into single spaces
+     */
+    private static String normalize( String strText )
+    {
+        return StringUtils.normalizeSpace( strText.replace( '\u00A0', ' ' ) );
+    }
+}
@@ -0,0 +1,123 @@
+/*
+ * Copyright (c) 2002-2021, City of Paris
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions
+ * are met:
+ *
+ *  1. Redistributions of source code must retain the above copyright notice
+ *     and the following disclaimer.
+ *
+ *  2. Redistributions in binary form must reproduce the above copyright notice
+ *     and the following disclaimer in the documentation and/or other materials
+ *     provided with the distribution.
+ *
+ *  3. Neither the name of 'Mairie de Paris' nor 'Lutece' nor the names of its
+ *     contributors may be used to endorse or promote products derived from
+ *     this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDERS OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ *
+ * License 1.0
+ */
+package fr.paris.lutece.plugins.announce.service.announcesearch;
+
+import fr.paris.lutece.plugins.announce.service.AnnouncePlugin;
+import fr.paris.lutece.portal.service.search.SearchItem;
+
+import java.io.IOException;
+
+import org.apache.lucene.analysis.standard.StandardAnalyzer;
+import org.apache.lucene.document.Document;
+import org.apache.lucene.document.DoublePoint;
+import org.apache.lucene.document.Field;
+import org.apache.lucene.document.LongPoint;
+import org.apache.lucene.document.StringField;
+import org.apache.lucene.document.TextField;
+import org.apache.lucene.index.IndexWriter;
+import org.apache.lucene.index.IndexWriterConfig;
+import org.apache.lucene.store.ByteBuffersDirectory;
+import org.apache.lucene.store.Directory;
+
+/**
+ * In memory index of synthetic announces, with the fields the search engine queries. Announce i is in category i % NB_CATEGORIES, in sector i %
+ * NB_SECTORS, has the price i % MAX_PRICE and was published i hours after the epoch.
+ */
+final class SyntheticAnnounceIndex
+{
+    static final int NB_CATEGORIES = 50;
+    static final int NB_SECTORS = 5;
+    static final int MAX_PRICE = 1000;
+    static final long MILLISECONDS_PER_HOUR = 3600000L;
+    private static final String [ ] WORDS = {
+            "velo", "appartement", "table", "chaises", "piano", "canape", "voiture", "livres", "jouets", "cours"
+    };
+
+    /**
+     * Private constructor
+     */
+    private SyntheticAnnounceIndex( )
+    {
+    }
+
+    /**
+     * Build an index of synthetic announces
+     * 
+     * @param nNbAnnounces
+     *            The number of announces
+     * @return The directory of the index
+     * @throws IOException
+     *             If the index could not be written
+     */
+    static Directory build( int nNbAnnounces ) throws IOException
+    {
+        Directory directory = new ByteBuffersDirectory( );
+
+        try ( IndexWriter writer = new IndexWriter( directory, new IndexWriterConfig( new StandardAnalyzer( ) ) ) )
+        {
+            addAnnounces( writer, 0, nNbAnnounces );
+        }
+
+        return directory;
+    }
+
+    /**
+     * Add synthetic announces to an index
+     * 
+     * @param writer
+     *            The writer of the index
+     * @param nFirstId
+     *            The id of the first announce
+     * @param nNbAnnounces
+     *            The number of announces
+     * @throws IOException
+     *             If the index could not be written
+     */
+    static void addAnnounces( IndexWriter writer, int nFirstId, int nNbAnnounces ) throws IOException
+    {
+        for ( int nId = nFirstId; nId < ( nFirstId + nNbAnnounces ); nId++ )
+        {
+            Document doc = new Document( );
+            doc.add( new Field( AnnounceSearchItem.FIELD_ID_ANNOUNCE, Integer.toString( nId ), TextField.TYPE_STORED ) );
+            doc.add( new Field( AnnounceSearchItem.FIELD_CATEGORY_ID, Integer.toString( nId % NB_CATEGORIES ), TextField.TYPE_STORED ) );
+            doc.add( new Field( AnnounceSearchItem.FIELD_SECTOR_ID, Integer.toString( nId % NB_SECTORS ), TextField.TYPE_STORED ) );
+            doc.add( new LongPoint( AnnounceSearchItem.FIELD_DATE_POINT, nId * MILLISECONDS_PER_HOUR ) );
+            doc.add( new DoublePoint( AnnounceSearchItem.FIELD_PRICE_POINT, nId % MAX_PRICE ) );
+            doc.add( new Field( SearchItem.FIELD_CONTENTS, WORDS [nId % WORDS.length] + " " + WORDS [( nId / WORDS.length ) % WORDS.length] + " annonce " + nId,
+                    TextField.TYPE_NOT_STORED ) );
+            doc.add( new Field( SearchItem.FIELD_TYPE, AnnouncePlugin.PLUGIN_NAME, StringField.TYPE_STORED ) );
+            writer.addDocument( doc );
+        }
+    }
+}